@@ -18,18 +18,11 @@
  */
 package org.apache.bigtop.manager.agent;
 
-import org.apache.bigtop.manager.agent.monitoring.AgentHostMonitoring;
-
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
-import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.MultiGauge;
-
 @EnableAsync
 @EnableScheduling
 @SpringBootApplication(scanBasePackages = {"org.apache.bigtop.manager.agent", "org.apache.bigtop.manager.common"})
@@ -38,24 +31,4 @@ public class BigtopManagerAgent {
     public static void main(String[] args) {
         SpringApplication.run(BigtopManagerAgent.class, args);
     }
-
-    @Bean
-    @Qualifier("diskMultiGauge") public MultiGauge diskMultiGauge(MeterRegistry meterRegistry) {
-        return AgentHostMonitoring.newDiskMultiGauge(meterRegistry);
-    }
-
-    @Bean
-    @Qualifier("cpuMultiGauge") public MultiGauge cpuMultiGauge(MeterRegistry meterRegistry) {
-        return AgentHostMonitoring.newCPUMultiGauge(meterRegistry);
-    }
-
-    @Bean
-    @Qualifier("memMultiGauge") public MultiGauge memMultiGauge(MeterRegistry meterRegistry) {
-        return AgentHostMonitoring.newMemMultiGauge(meterRegistry);
-    }
-
-    @Bean
-    @Qualifier("diskIOMultiGauge") public MultiGauge diskIOMultiGauge(MeterRegistry meterRegistry) {
-        return AgentHostMonitoring.newDiskIOMultiGauge(meterRegistry);
-    }
 }
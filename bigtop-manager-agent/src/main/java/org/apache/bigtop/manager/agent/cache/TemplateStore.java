@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.cache;
+
+import org.apache.bigtop.manager.common.utils.ChecksumUtils;
+import org.apache.bigtop.manager.common.utils.ProjectPathUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Content-addressed store of service templates, each template is saved in a file named by its SHA-256.
+ * Server sends a template once and references it by checksum in later tasks.
+ */
+@Slf4j
+public class TemplateStore {
+
+    private static final String TEMPLATES_DIR = "templates";
+
+    public static boolean contains(String checksum) {
+        return isChecksum(checksum) && Files.exists(getPath(checksum));
+    }
+
+    /**
+     * Get the content of a template
+     *
+     * @param checksum SHA-256 of the template
+     * @return content, or null if the template is not in the store
+     */
+    public static String read(String checksum) throws IOException {
+        if (!contains(checksum)) {
+            return null;
+        }
+
+        return Files.readString(getPath(checksum));
+    }
+
+    /**
+     * Save a template, content not matching the checksum is rejected
+     */
+    public static void save(String checksum, String content) throws IOException {
+        if (!ChecksumUtils.sha256(content).equals(checksum)) {
+            throw new IllegalArgumentException("Checksum mismatch for template " + checksum);
+        }
+
+        Path path = getPath(checksum);
+        Files.createDirectories(path.getParent());
+
+        // Written to a temp file first so concurrent tasks never read a partial template
+        Path tmp = Files.createTempFile(path.getParent(), checksum, ".tmp");
+        try {
+            Files.writeString(tmp, content);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+
+        log.info("Template {} saved", checksum);
+    }
+
+    private static boolean isChecksum(String checksum) {
+        return checksum != null && checksum.matches("[0-9a-f]{64}");
+    }
+
+    private static Path getPath(String checksum) {
+        return Paths.get(ProjectPathUtils.getAgentCachePath() + File.separator + TEMPLATES_DIR, checksum);
+    }
+}
@@ -19,17 +19,23 @@
 package org.apache.bigtop.manager.agent.grpc.config;
 
 import org.apache.bigtop.manager.agent.grpc.interceptor.TaskInterceptor;
+import org.apache.bigtop.manager.agent.task.TaskRegistry;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import net.devh.boot.grpc.server.serverfactory.GrpcServerConfigurer;
 
+import jakarta.annotation.Resource;
+
 @Configuration
 public class GrpcServerConfig {
 
+    @Resource
+    private TaskRegistry taskRegistry;
+
     @Bean
     public GrpcServerConfigurer configurer() {
-        return serverBuilder -> serverBuilder.intercept(new TaskInterceptor());
+        return serverBuilder -> serverBuilder.intercept(new TaskInterceptor(taskRegistry));
     }
 }
@@ -18,8 +18,9 @@
  */
 package org.apache.bigtop.manager.agent.grpc.interceptor;
 
-import org.apache.bigtop.manager.agent.cache.Caches;
+import org.apache.bigtop.manager.agent.task.TaskRegistry;
 import org.apache.bigtop.manager.common.utils.ProjectPathUtils;
+import org.apache.bigtop.manager.grpc.generated.TaskCancelRequest;
 import org.apache.bigtop.manager.grpc.generated.TaskLogRequest;
 
 import org.slf4j.MDC;
@@ -29,6 +30,7 @@ import io.grpc.Metadata;
 import io.grpc.ServerCall;
 import io.grpc.ServerCallHandler;
 import io.grpc.ServerInterceptor;
+import io.grpc.Status;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
@@ -36,28 +38,36 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.lang.reflect.Method;
 
+/**
+ * Registers task requests in {@link TaskRegistry}, a task waits for a free slot before its handler runs,
+ * and its logs are routed to the task log file through MDC while running.
+ */
 @Slf4j
 public class TaskInterceptor implements ServerInterceptor {
 
+    private final TaskRegistry taskRegistry;
+
+    public TaskInterceptor(TaskRegistry taskRegistry) {
+        this.taskRegistry = taskRegistry;
+    }
+
     @Override
     public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
             ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
         return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(next.startCall(call, headers)) {
 
-            private boolean taskRequest = false;
+            private TaskRegistry.TaskEntry entry;
 
             @Override
             public void onMessage(ReqT message) {
                 super.onMessage(message);
-                taskRequest = isTaskRequest(message);
 
-                if (taskRequest) {
+                if (isTaskRequest(message)) {
                     try {
                         Method method = message.getClass().getDeclaredMethod("getTaskId");
                         Long taskId = (Long) method.invoke(message);
                         truncateLogFile(taskId);
-                        MDC.put("taskId", String.valueOf(taskId));
-                        Caches.RUNNING_TASK = taskId;
+                        entry = taskRegistry.register(taskId);
                     } catch (Exception e) {
                         log.error("Error when getting taskId from message", e);
                     }
@@ -66,16 +76,32 @@ public class TaskInterceptor implements ServerInterceptor {
 
             @Override
             public void onHalfClose() {
-                super.onHalfClose();
+                if (entry == null) {
+                    super.onHalfClose();
+                    return;
+                }
+
+                if (!taskRegistry.start(entry, call::isCancelled)) {
+                    taskRegistry.finish(entry);
+                    call.close(Status.CANCELLED.withDescription("Task cancelled before start"), new Metadata());
+                    return;
+                }
+
+                // Unary handlers run within this callback, on this thread
+                MDC.put("taskId", String.valueOf(entry.getTaskId()));
+                try {
+                    super.onHalfClose();
+                } finally {
+                    MDC.remove("taskId");
+                }
             }
 
             @Override
             public void onCancel() {
                 super.onCancel();
 
-                if (taskRequest) {
-                    Caches.RUNNING_TASK = null;
-                    MDC.clear();
+                if (entry != null) {
+                    taskRegistry.finish(entry);
                 }
             }
 
@@ -83,16 +109,10 @@ public class TaskInterceptor implements ServerInterceptor {
             public void onComplete() {
                 super.onComplete();
 
-                if (taskRequest) {
-                    Caches.RUNNING_TASK = null;
-                    MDC.clear();
+                if (entry != null) {
+                    taskRegistry.finish(entry);
                 }
             }
-
-            @Override
-            public void onReady() {
-                super.onReady();
-            }
         };
     }
 
@@ -113,9 +133,10 @@ public class TaskInterceptor implements ServerInterceptor {
             return false;
         }
 
-        // Every task will have taskId, but TaskLogRequest have it also, so we need to exclude it
+        // Every task will have taskId, but TaskLogRequest and TaskCancelRequest have it also,
+        // so we need to exclude them
         Class<?> clazz = obj.getClass();
-        if (TaskLogRequest.class.isAssignableFrom(clazz)) {
+        if (TaskLogRequest.class.isAssignableFrom(clazz) || TaskCancelRequest.class.isAssignableFrom(clazz)) {
             return false;
         }
 
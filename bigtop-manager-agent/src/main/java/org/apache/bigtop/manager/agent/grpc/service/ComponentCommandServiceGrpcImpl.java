@@ -18,19 +18,27 @@
  */
 package org.apache.bigtop.manager.agent.grpc.service;
 
-import org.apache.bigtop.manager.agent.cache.Caches;
+import org.apache.bigtop.manager.agent.cache.TemplateStore;
+import org.apache.bigtop.manager.common.shell.ProcessContainer;
 import org.apache.bigtop.manager.common.shell.ShellResult;
 import org.apache.bigtop.manager.common.utils.JsonUtils;
 import org.apache.bigtop.manager.grpc.generated.ComponentCommandReply;
 import org.apache.bigtop.manager.grpc.generated.ComponentCommandRequest;
 import org.apache.bigtop.manager.grpc.generated.ComponentCommandServiceGrpc;
 import org.apache.bigtop.manager.grpc.payload.ComponentCommandPayload;
+import org.apache.bigtop.manager.grpc.pojo.TemplateInfo;
+import org.apache.bigtop.manager.grpc.utils.PayloadConverter;
 import org.apache.bigtop.manager.stack.core.executor.StackExecutor;
 
+import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.service.GrpcService;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
 @Slf4j
 @GrpcService
 public class ComponentCommandServiceGrpcImpl extends ComponentCommandServiceGrpc.ComponentCommandServiceImplBase {
@@ -38,9 +46,20 @@ public class ComponentCommandServiceGrpcImpl extends ComponentCommandServiceGrpc
     @Override
     public void exec(ComponentCommandRequest request, StreamObserver<ComponentCommandReply> responseObserver) {
         try {
-            log.info("Running task {}", Caches.RUNNING_TASK);
-            ComponentCommandPayload payload =
-                    JsonUtils.readFromString(request.getPayload(), ComponentCommandPayload.class);
+            log.info("Running task {}", request.getTaskId());
+            ProcessContainer.bindTask(request.getTaskId());
+            ComponentCommandPayload payload = request.hasPayloadMessage()
+                    ? PayloadConverter.fromMessage(request.getPayloadMessage())
+                    : JsonUtils.readFromString(request.getPayload(), ComponentCommandPayload.class);
+            List<String> missing = loadTemplates(payload);
+            if (!missing.isEmpty()) {
+                // Server syncs the templates again when it sees this status
+                responseObserver.onError(Status.FAILED_PRECONDITION
+                        .withDescription("Missing templates " + missing)
+                        .asRuntimeException());
+                return;
+            }
+
             ShellResult shellResult = StackExecutor.execute(payload);
             ComponentCommandReply reply = ComponentCommandReply.newBuilder()
                     .setCode(shellResult.getExitCode())
@@ -49,6 +68,35 @@ public class ComponentCommandServiceGrpcImpl extends ComponentCommandServiceGrpc
             responseObserver.onCompleted();
         } catch (Exception e) {
             responseObserver.onError(e);
+        } finally {
+            ProcessContainer.unbindTask();
+        }
+    }
+
+    /**
+     * Fill the content of templates which are referenced by checksum.
+     *
+     * @return checksums not found in the template store
+     */
+    private List<String> loadTemplates(ComponentCommandPayload payload) throws IOException {
+        List<String> missing = new ArrayList<>();
+        if (payload.getTemplates() == null) {
+            return missing;
         }
+
+        for (TemplateInfo template : payload.getTemplates()) {
+            if (template.getContent() != null || template.getChecksum() == null) {
+                continue;
+            }
+
+            String content = TemplateStore.read(template.getChecksum());
+            if (content == null) {
+                missing.add(template.getChecksum());
+            } else {
+                template.setContent(content);
+            }
+        }
+
+        return missing;
     }
 }
@@ -23,6 +23,8 @@ import org.apache.bigtop.manager.common.shell.ShellResult;
 import org.apache.bigtop.manager.grpc.generated.ComponentStatusReply;
 import org.apache.bigtop.manager.grpc.generated.ComponentStatusRequest;
 import org.apache.bigtop.manager.grpc.generated.ComponentStatusServiceGrpc;
+import org.apache.bigtop.manager.grpc.generated.ComponentStatusesReply;
+import org.apache.bigtop.manager.grpc.generated.ComponentStatusesRequest;
 import org.apache.bigtop.manager.grpc.payload.ComponentCommandPayload;
 import org.apache.bigtop.manager.stack.core.executor.StackExecutor;
 
@@ -31,26 +33,31 @@ import io.grpc.stub.StreamObserver;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.service.GrpcService;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
 @Slf4j
 @GrpcService
 public class ComponentStatusServiceGrpcImpl extends ComponentStatusServiceGrpc.ComponentStatusServiceImplBase {
 
+    // Max status scripts running at the same time for a batch request
+    private static final int MAX_CONCURRENT_CHECKS = 4;
+
+    private Executor statusExecutor = Executors.newFixedThreadPool(MAX_CONCURRENT_CHECKS, r -> {
+        Thread thread = new Thread(r, "component-status-checker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     @Override
     public void getComponentStatus(
             ComponentStatusRequest request, StreamObserver<ComponentStatusReply> responseObserver) {
 
         try {
-            ComponentCommandPayload payload = new ComponentCommandPayload();
-            payload.setCommand(Command.STATUS.getCode());
-            payload.setStackName(request.getStackName());
-            payload.setStackVersion(request.getStackVersion());
-            payload.setServiceName(request.getServiceName());
-            payload.setServiceUser(request.getServiceUser());
-            payload.setComponentName(request.getComponentName());
-
-            ShellResult shellResult = StackExecutor.execute(payload);
             ComponentStatusReply reply = ComponentStatusReply.newBuilder()
-                    .setStatus(shellResult.getExitCode())
+                    .setStatus(getStatus(request))
                     .build();
             responseObserver.onNext(reply);
             responseObserver.onCompleted();
@@ -60,4 +67,41 @@ public class ComponentStatusServiceGrpcImpl extends ComponentStatusServiceGrpc.C
             responseObserver.onError(status.asRuntimeException());
         }
     }
+
+    @Override
+    public void getComponentStatuses(
+            ComponentStatusesRequest request, StreamObserver<ComponentStatusesReply> responseObserver) {
+        try {
+            List<CompletableFuture<Integer>> futures = request.getComponentsList().stream()
+                    .map(component -> CompletableFuture.supplyAsync(() -> getStatus(component), statusExecutor))
+                    .toList();
+
+            ComponentStatusesReply.Builder builder = ComponentStatusesReply.newBuilder();
+            for (CompletableFuture<Integer> future : futures) {
+                builder.addStatuses(ComponentStatusReply.newBuilder()
+                        .setStatus(future.join())
+                        .build());
+            }
+
+            responseObserver.onNext(builder.build());
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            log.error("Error getting component statuses", e);
+            Status status = Status.UNKNOWN.withDescription(e.getMessage());
+            responseObserver.onError(status.asRuntimeException());
+        }
+    }
+
+    private int getStatus(ComponentStatusRequest request) {
+        ComponentCommandPayload payload = new ComponentCommandPayload();
+        payload.setCommand(Command.STATUS.getCode());
+        payload.setStackName(request.getStackName());
+        payload.setStackVersion(request.getStackVersion());
+        payload.setServiceName(request.getServiceName());
+        payload.setServiceUser(request.getServiceUser());
+        payload.setComponentName(request.getComponentName());
+
+        ShellResult shellResult = StackExecutor.checkStatus(payload);
+        return shellResult.getExitCode();
+    }
 }
@@ -18,52 +18,45 @@
  */
 package org.apache.bigtop.manager.agent.grpc.service;
 
+import org.apache.bigtop.manager.common.constants.ProtocolVersions;
 import org.apache.bigtop.manager.common.utils.os.OSDetection;
+import org.apache.bigtop.manager.grpc.generated.HeartbeatRequest;
 import org.apache.bigtop.manager.grpc.generated.HostInfoReply;
 import org.apache.bigtop.manager.grpc.generated.HostInfoRequest;
 import org.apache.bigtop.manager.grpc.generated.HostInfoServiceGrpc;
 
 import com.sun.management.OperatingSystemMXBean;
 import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.service.GrpcService;
 
 import java.lang.management.ManagementFactory;
 import java.net.InetAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Slf4j
 @GrpcService
 public class HostInfoServiceGrpcImpl extends HostInfoServiceGrpc.HostInfoServiceImplBase {
 
+    // Heartbeat interval used when server does not specify one
+    private static final int DEFAULT_HEARTBEAT_INTERVAL_SECONDS = 10;
+
+    private static final ScheduledExecutorService HEARTBEAT_EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "heartbeat-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     @Override
     public void getHostInfo(HostInfoRequest request, StreamObserver<HostInfoReply> responseObserver) {
-        HostInfoReply.Builder builder = HostInfoReply.newBuilder();
-
         try {
-            InetAddress addr = InetAddress.getLocalHost();
-            builder.setHostname(addr.getHostName());
-            builder.setIpv4(addr.getHostAddress());
-
-            OperatingSystemMXBean osmxb = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
-            builder.setOs(OSDetection.getOS());
-            builder.setVersion(OSDetection.getVersion());
-            builder.setArch(OSDetection.getArch());
-            builder.setAvailableProcessors(osmxb.getAvailableProcessors());
-            builder.setProcessCpuTime(osmxb.getProcessCpuTime());
-            builder.setTotalMemorySize(osmxb.getTotalMemorySize());
-            builder.setFreeMemorySize(osmxb.getFreeMemorySize());
-            builder.setTotalSwapSpaceSize(osmxb.getTotalSwapSpaceSize());
-            builder.setFreeSwapSpaceSize(osmxb.getFreeSwapSpaceSize());
-            builder.setCommittedVirtualMemorySize(osmxb.getCommittedVirtualMemorySize());
-
-            builder.setCpuLoad(String.valueOf(osmxb.getCpuLoad()));
-            builder.setProcessCpuLoad(String.valueOf(osmxb.getProcessCpuLoad()));
-            builder.setSystemLoadAverage(String.valueOf(osmxb.getSystemLoadAverage()));
-
-            builder.setFreeDisk(OSDetection.freeDisk());
-            builder.setTotalDisk(OSDetection.totalDisk());
-            responseObserver.onNext(builder.build());
+            responseObserver.onNext(buildHostInfo());
             responseObserver.onCompleted();
         } catch (Exception e) {
             log.error("Error getting host info", e);
@@ -71,4 +64,73 @@ public class HostInfoServiceGrpcImpl extends HostInfoServiceGrpc.HostInfoService
             responseObserver.onError(status.asRuntimeException());
         }
     }
+
+    @Override
+    public void heartbeat(HeartbeatRequest request, StreamObserver<HostInfoReply> responseObserver) {
+        int interval =
+                request.getIntervalSeconds() > 0 ? request.getIntervalSeconds() : DEFAULT_HEARTBEAT_INTERVAL_SECONDS;
+        ServerCallStreamObserver<HostInfoReply> serverObserver =
+                (ServerCallStreamObserver<HostInfoReply>) responseObserver;
+
+        AtomicReference<ScheduledFuture<?>> futureRef = new AtomicReference<>();
+        serverObserver.setOnCancelHandler(() -> {
+            log.info("Heartbeat stream cancelled by server");
+            cancel(futureRef.get());
+        });
+
+        log.info("Heartbeat stream opened, interval: {}s", interval);
+        futureRef.set(HEARTBEAT_EXECUTOR.scheduleAtFixedRate(
+                () -> {
+                    if (serverObserver.isCancelled()) {
+                        cancel(futureRef.get());
+                        return;
+                    }
+
+                    try {
+                        serverObserver.onNext(buildHostInfo());
+                    } catch (Exception e) {
+                        // Skip this beat, server marks host unhealthy if it keeps failing
+                        log.error("Error sending heartbeat", e);
+                    }
+                },
+                0,
+                interval,
+                TimeUnit.SECONDS));
+    }
+
+    private void cancel(ScheduledFuture<?> future) {
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    private HostInfoReply buildHostInfo() throws Exception {
+        HostInfoReply.Builder builder = HostInfoReply.newBuilder();
+
+        InetAddress addr = InetAddress.getLocalHost();
+        builder.setHostname(addr.getHostName());
+        builder.setIpv4(addr.getHostAddress());
+
+        OperatingSystemMXBean osmxb = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        builder.setOs(OSDetection.getOS());
+        builder.setVersion(OSDetection.getVersion());
+        builder.setArch(OSDetection.getArch());
+        builder.setAvailableProcessors(osmxb.getAvailableProcessors());
+        builder.setProcessCpuTime(osmxb.getProcessCpuTime());
+        builder.setTotalMemorySize(osmxb.getTotalMemorySize());
+        builder.setFreeMemorySize(osmxb.getFreeMemorySize());
+        builder.setTotalSwapSpaceSize(osmxb.getTotalSwapSpaceSize());
+        builder.setFreeSwapSpaceSize(osmxb.getFreeSwapSpaceSize());
+        builder.setCommittedVirtualMemorySize(osmxb.getCommittedVirtualMemorySize());
+
+        builder.setCpuLoad(String.valueOf(osmxb.getCpuLoad()));
+        builder.setProcessCpuLoad(String.valueOf(osmxb.getProcessCpuLoad()));
+        builder.setSystemLoadAverage(String.valueOf(osmxb.getSystemLoadAverage()));
+
+        builder.setFreeDisk(OSDetection.freeDisk());
+        builder.setTotalDisk(OSDetection.totalDisk());
+        builder.setProtocolVersion(ProtocolVersions.CURRENT);
+        builder.putAllCacheVersions(JobCacheServiceGrpcImpl.readCacheVersions());
+        return builder.build();
+    }
 }
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.grpc.service;
+
+import org.apache.bigtop.manager.agent.monitoring.HostMetricsHistory;
+import org.apache.bigtop.manager.agent.monitoring.HostMetricsSampler;
+import org.apache.bigtop.manager.grpc.generated.HostMetricsRangeReply;
+import org.apache.bigtop.manager.grpc.generated.HostMetricsRangeRequest;
+import org.apache.bigtop.manager.grpc.generated.HostMetricsServiceGrpc;
+
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.server.service.GrpcService;
+
+import jakarta.annotation.Resource;
+import java.util.Arrays;
+
+@Slf4j
+@GrpcService
+public class HostMetricsServiceGrpcImpl extends HostMetricsServiceGrpc.HostMetricsServiceImplBase {
+
+    // Same limit as Prometheus range queries
+    private static final long MAX_POINTS = 11000;
+
+    @Resource
+    private HostMetricsHistory hostMetricsHistory;
+
+    @Resource
+    private HostMetricsSampler hostMetricsSampler;
+
+    @Override
+    public void queryRange(HostMetricsRangeRequest request, StreamObserver<HostMetricsRangeReply> responseObserver) {
+        long start = request.getStart();
+        long end = request.getEnd();
+        long step = request.getStep();
+        if (step <= 0 || end < start || (end - start) / step + 1 > MAX_POINTS) {
+            Status status = Status.INVALID_ARGUMENT.withDescription(
+                    "Invalid range, start: " + start + ", end: " + end + ", step: " + step);
+            responseObserver.onError(status.asRuntimeException());
+            return;
+        }
+
+        try {
+            long now = System.currentTimeMillis() / 1000;
+            double[][] values = hostMetricsHistory.query(start, end, step, now);
+
+            HostMetricsRangeReply.Builder builder = HostMetricsRangeReply.newBuilder();
+            for (long timestamp = start; timestamp <= end; timestamp += step) {
+                builder.addTimestamps(timestamp);
+            }
+
+            builder.setPhysicalCores(hostMetricsSampler.getHostFacts().getPhysicalCores());
+            builder.addAllCpuUsage(asList(values[HostMetricsHistory.CPU_USAGE]));
+            builder.addAllLoad1(asList(values[HostMetricsHistory.LOAD_1]));
+            builder.addAllLoad5(asList(values[HostMetricsHistory.LOAD_5]));
+            builder.addAllLoad15(asList(values[HostMetricsHistory.LOAD_15]));
+            builder.addAllMemoryTotal(asList(values[HostMetricsHistory.MEMORY_TOTAL]));
+            builder.addAllMemoryAvailable(asList(values[HostMetricsHistory.MEMORY_AVAILABLE]));
+            builder.addAllFilesystemTotal(asList(values[HostMetricsHistory.FILESYSTEM_TOTAL]));
+            builder.addAllFilesystemFree(asList(values[HostMetricsHistory.FILESYSTEM_FREE]));
+            builder.addAllDiskRead(asList(values[HostMetricsHistory.DISK_READ]));
+            builder.addAllDiskWrite(asList(values[HostMetricsHistory.DISK_WRITE]));
+            builder.addAllFileDescriptorsOpen(asList(values[HostMetricsHistory.FILE_DESCRIPTORS_OPEN]));
+            builder.addAllFileDescriptorsMax(asList(values[HostMetricsHistory.FILE_DESCRIPTORS_MAX]));
+
+            responseObserver.onNext(builder.build());
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            log.error("Error querying host metrics", e);
+            Status status = Status.UNKNOWN.withDescription(e.getMessage());
+            responseObserver.onError(status.asRuntimeException());
+        }
+    }
+
+    private static Iterable<Double> asList(double[] values) {
+        return Arrays.stream(values).boxed().toList();
+    }
+}
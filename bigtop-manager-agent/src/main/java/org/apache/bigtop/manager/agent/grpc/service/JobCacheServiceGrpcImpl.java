@@ -21,19 +21,29 @@ package org.apache.bigtop.manager.agent.grpc.service;
 import org.apache.bigtop.manager.common.constants.MessageConstants;
 import org.apache.bigtop.manager.common.utils.JsonUtils;
 import org.apache.bigtop.manager.common.utils.ProjectPathUtils;
+import org.apache.bigtop.manager.grpc.generated.ClusterCache;
+import org.apache.bigtop.manager.grpc.generated.ClusterCacheReply;
+import org.apache.bigtop.manager.grpc.generated.JobCachePayloadMessage;
 import org.apache.bigtop.manager.grpc.generated.JobCacheReply;
 import org.apache.bigtop.manager.grpc.generated.JobCacheRequest;
 import org.apache.bigtop.manager.grpc.generated.JobCacheServiceGrpc;
 import org.apache.bigtop.manager.grpc.payload.JobCachePayload;
+import org.apache.bigtop.manager.grpc.utils.PayloadConverter;
+import org.apache.bigtop.manager.stack.core.executor.StackExecutor;
+
+import org.apache.commons.lang3.math.NumberUtils;
 
 import io.grpc.stub.StreamObserver;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.service.GrpcService;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
 
 import static org.apache.bigtop.manager.common.constants.CacheFiles.CLUSTER_INFO;
 import static org.apache.bigtop.manager.common.constants.CacheFiles.COMPONENTS_INFO;
@@ -41,6 +51,7 @@ import static org.apache.bigtop.manager.common.constants.CacheFiles.CONFIGURATIO
 import static org.apache.bigtop.manager.common.constants.CacheFiles.HOSTS_INFO;
 import static org.apache.bigtop.manager.common.constants.CacheFiles.REPOS_INFO;
 import static org.apache.bigtop.manager.common.constants.CacheFiles.USERS_INFO;
+import static org.apache.bigtop.manager.common.constants.CacheFiles.VERSION_INFO;
 
 @Slf4j
 @GrpcService
@@ -49,30 +60,132 @@ public class JobCacheServiceGrpcImpl extends JobCacheServiceGrpc.JobCacheService
     @Override
     public void save(JobCacheRequest request, StreamObserver<JobCacheReply> responseObserver) {
         try {
-            JobCachePayload payload = JsonUtils.readFromString(request.getPayload(), JobCachePayload.class);
-            String cacheDir = ProjectPathUtils.getAgentCachePath() + File.separator + payload.getClusterId();
-            Path p = Paths.get(cacheDir);
-            if (!Files.exists(p)) {
-                Files.createDirectories(p);
-            }
+            JobCacheReply reply;
+            if (request.getClustersCount() == 0) {
+                JobCachePayload payload = JsonUtils.readFromString(request.getPayload(), JobCachePayload.class);
+                ClusterCacheReply clusterReply = saveCluster(
+                        payload, payload.getCurrentClusterId(), request.getVersion(), request.getBaseVersion());
+                reply = JobCacheReply.newBuilder()
+                        .setCode(clusterReply.getCode())
+                        .setVersion(clusterReply.getVersion())
+                        .build();
+            } else {
+                JobCacheReply.Builder builder = JobCacheReply.newBuilder().setCode(MessageConstants.SUCCESS_CODE);
+                for (ClusterCache cache : request.getClustersList()) {
+                    JobCachePayload payload =
+                            PayloadConverter.fromMessage(JobCachePayloadMessage.parseFrom(cache.getPayloadMessage()));
+                    ClusterCacheReply clusterReply = saveCluster(
+                            payload, request.getCurrentClusterId(), cache.getVersion(), cache.getBaseVersion());
+                    if (clusterReply.getCode() != MessageConstants.SUCCESS_CODE) {
+                        builder.setCode(MessageConstants.FAIL_CODE);
+                    }
 
-            String dir = p.getParent().toFile().getAbsolutePath();
-            JsonUtils.writeToFile(dir + "/current", payload.getCurrentClusterId());
+                    builder.addClusters(clusterReply.toBuilder().setClusterId(cache.getClusterId()));
+                }
 
-            JsonUtils.writeToFile(cacheDir + CONFIGURATIONS_INFO, payload.getConfigurations());
-            JsonUtils.writeToFile(cacheDir + COMPONENTS_INFO, payload.getComponentHosts());
-            JsonUtils.writeToFile(cacheDir + USERS_INFO, payload.getUserInfo());
-            JsonUtils.writeToFile(cacheDir + REPOS_INFO, payload.getRepoInfo());
-            JsonUtils.writeToFile(cacheDir + CLUSTER_INFO, payload.getClusterInfo());
-            JsonUtils.writeToFile(cacheDir + HOSTS_INFO, payload.getHosts());
+                reply = builder.build();
+            }
 
-            JobCacheReply reply = JobCacheReply.newBuilder()
-                    .setCode(MessageConstants.SUCCESS_CODE)
-                    .build();
             responseObserver.onNext(reply);
             responseObserver.onCompleted();
         } catch (Exception e) {
             responseObserver.onError(e);
         }
     }
+
+    private ClusterCacheReply saveCluster(
+            JobCachePayload payload, Long currentClusterId, String version, String baseVersion) throws IOException {
+        String cacheDir = ProjectPathUtils.getAgentCachePath() + File.separator + payload.getClusterId();
+
+        // A delta can only be applied on the version it was computed from,
+        // reply with the version we hold so server can send a full snapshot.
+        if (!baseVersion.isEmpty()) {
+            String currentVersion = readVersion(cacheDir);
+            if (!baseVersion.equals(currentVersion)) {
+                log.info("Cache version {} is not {}, full snapshot required", currentVersion, baseVersion);
+                return ClusterCacheReply.newBuilder()
+                        .setCode(MessageConstants.FAIL_CODE)
+                        .setVersion(currentVersion)
+                        .build();
+            }
+        }
+
+        Path p = Paths.get(cacheDir);
+        if (!Files.exists(p)) {
+            Files.createDirectories(p);
+        }
+
+        String dir = p.getParent().toFile().getAbsolutePath();
+        JsonUtils.writeToFile(dir + "/current", currentClusterId);
+
+        // Parts absent in a delta are unchanged
+        writeIfPresent(cacheDir + CONFIGURATIONS_INFO, payload.getConfigurations());
+        writeIfPresent(cacheDir + COMPONENTS_INFO, payload.getComponentHosts());
+        writeIfPresent(cacheDir + USERS_INFO, payload.getUserInfo());
+        writeIfPresent(cacheDir + REPOS_INFO, payload.getRepoInfo());
+        writeIfPresent(cacheDir + CLUSTER_INFO, payload.getClusterInfo());
+        writeIfPresent(cacheDir + HOSTS_INFO, payload.getHosts());
+        writeVersion(cacheDir, version);
+
+        if (payload.getConfigurations() != null) {
+            // Pid file locations come from configurations
+            StackExecutor.clearPidFiles();
+        }
+
+        return ClusterCacheReply.newBuilder()
+                .setCode(MessageConstants.SUCCESS_CODE)
+                .setVersion(version)
+                .build();
+    }
+
+    private void writeIfPresent(String fileName, Object obj) {
+        if (obj != null) {
+            JsonUtils.writeToFile(fileName, obj);
+        }
+    }
+
+    /**
+     * Versions of the cluster caches this agent holds, reported to server in heartbeat.
+     * Key is cluster id, clusters without a version are left out.
+     */
+    static Map<Long, String> readCacheVersions() {
+        Map<Long, String> versions = new HashMap<>();
+        File[] dirs = new File(ProjectPathUtils.getAgentCachePath()).listFiles(File::isDirectory);
+        if (dirs == null) {
+            return versions;
+        }
+
+        for (File dir : dirs) {
+            if (!NumberUtils.isDigits(dir.getName())) {
+                // Not a cluster cache, e.g. template store
+                continue;
+            }
+
+            try {
+                String version = readVersion(dir.getAbsolutePath());
+                if (!version.isEmpty()) {
+                    versions.put(Long.parseLong(dir.getName()), version);
+                }
+            } catch (IOException e) {
+                log.warn("Failed to read cache version in {}", dir, e);
+            }
+        }
+
+        return versions;
+    }
+
+    private static String readVersion(String cacheDir) throws IOException {
+        Path path = Paths.get(cacheDir + VERSION_INFO);
+        return Files.exists(path) ? Files.readString(path).trim() : "";
+    }
+
+    private void writeVersion(String cacheDir, String version) throws IOException {
+        Path path = Paths.get(cacheDir + VERSION_INFO);
+        if (version.isEmpty()) {
+            // Sender does not track versions, the old one is no longer valid
+            Files.deleteIfExists(path);
+        } else {
+            Files.writeString(path, version);
+        }
+    }
 }
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.grpc.service;
+
+import org.apache.bigtop.manager.common.constants.MessageConstants;
+import org.apache.bigtop.manager.common.shell.ProcessContainer;
+import org.apache.bigtop.manager.grpc.generated.TaskCancelReply;
+import org.apache.bigtop.manager.grpc.generated.TaskCancelRequest;
+import org.apache.bigtop.manager.grpc.generated.TaskCancelServiceGrpc;
+
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.server.service.GrpcService;
+
+@Slf4j
+@GrpcService
+public class TaskCancelServiceGrpcImpl extends TaskCancelServiceGrpc.TaskCancelServiceImplBase {
+
+    @Override
+    public void cancel(TaskCancelRequest request, StreamObserver<TaskCancelReply> responseObserver) {
+        try {
+            log.info("Canceling task {}", request.getTaskId());
+            int killed = ProcessContainer.destroyTaskProcess(request.getTaskId());
+            TaskCancelReply reply = TaskCancelReply.newBuilder()
+                    .setCode(MessageConstants.SUCCESS_CODE)
+                    .setKilled(killed)
+                    .build();
+            responseObserver.onNext(reply);
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            responseObserver.onError(e);
+        }
+    }
+}
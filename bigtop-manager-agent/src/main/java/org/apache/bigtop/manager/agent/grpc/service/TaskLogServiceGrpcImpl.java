@@ -18,72 +18,182 @@
  */
 package org.apache.bigtop.manager.agent.grpc.service;
 
-import org.apache.bigtop.manager.agent.cache.Caches;
+import org.apache.bigtop.manager.agent.task.TaskLogWatcher;
+import org.apache.bigtop.manager.agent.task.TaskRegistry;
 import org.apache.bigtop.manager.common.utils.ProjectPathUtils;
 import org.apache.bigtop.manager.grpc.generated.TaskLogReply;
 import org.apache.bigtop.manager.grpc.generated.TaskLogRequest;
 import org.apache.bigtop.manager.grpc.generated.TaskLogServiceGrpc;
 
 import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.service.GrpcService;
 
-import java.io.RandomAccessFile;
+import jakarta.annotation.Resource;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 @Slf4j
 @GrpcService
 public class TaskLogServiceGrpcImpl extends TaskLogServiceGrpc.TaskLogServiceImplBase {
 
+    // Max bytes of log in a reply, a reply holds as many complete lines as fit
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    // Max time to wait for changes before checking whether the task is still running
+    private static final long WAIT_MILLIS = 1000;
+
+    @Resource
+    private TaskRegistry taskRegistry;
+
+    @Resource
+    private TaskLogWatcher taskLogWatcher;
+
     @Override
     public void getLog(TaskLogRequest request, StreamObserver<TaskLogReply> responseObserver) {
-        String path = ProjectPathUtils.getLogFilePath(request.getTaskId());
-        try (RandomAccessFile file = new RandomAccessFile(path, "r")) {
-            // Read from beginning
-            long fileLength = file.length();
-            while (file.getFilePointer() < fileLength) {
-                String line = file.readLine();
-                if (line != null) {
-                    line = new String(line.getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.UTF_8);
-                    responseObserver.onNext(
-                            TaskLogReply.newBuilder().setText(line).build());
-                }
+        ServerCallStreamObserver<TaskLogReply> observer = (ServerCallStreamObserver<TaskLogReply>) responseObserver;
+        Long taskId = request.getTaskId();
+        Path path = Paths.get(ProjectPathUtils.getLogFilePath(taskId));
+        try {
+            // Queued tasks have not written anything yet
+            while (!Files.exists(path) && taskRegistry.contains(taskId) && !observer.isCancelled()) {
+                taskLogWatcher.await(path, () -> Files.exists(path), WAIT_MILLIS);
             }
 
-            // Waiting for new logs
-            boolean isTaskRunning = true;
-            while (isTaskRunning) {
-                isTaskRunning = Caches.RUNNING_TASK != null;
-                readNewLogs(file, responseObserver);
-                Thread.sleep(1000);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                LogTail tail = new LogTail(channel, request.getOffset());
+                boolean isTaskRunning = true;
+                while (isTaskRunning && !observer.isCancelled()) {
+                    // Checked before reading, so logs written before the task finished are all sent
+                    isTaskRunning = taskRegistry.contains(taskId);
+                    tail.read(observer);
+                    if (isTaskRunning) {
+                        taskLogWatcher.await(path, tail::hasMore, WAIT_MILLIS);
+                    }
+                }
+
+                tail.flush(observer);
             }
 
-            responseObserver.onCompleted();
+            observer.onCompleted();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            observer.onError(
+                    Status.CANCELLED.withDescription("Agent is shutting down").asRuntimeException());
         } catch (Exception e) {
             String errMsg = "Error when reading task log: " + e.getMessage() + ", please fix it";
-            responseObserver.onNext(TaskLogReply.newBuilder().setText(errMsg).build());
+            observer.onNext(TaskLogReply.newBuilder().setText(errMsg).build());
 
             log.error("Error reading task log", e);
             Status status = Status.UNKNOWN.withDescription(e.getMessage());
-            responseObserver.onError(status.asRuntimeException());
+            observer.onError(status.asRuntimeException());
         }
     }
 
-    private void readNewLogs(RandomAccessFile file, StreamObserver<TaskLogReply> responseObserver) throws Exception {
-        long position = file.getFilePointer();
-        if (position < file.length()) {
-            // Read new logs
-            file.seek(position);
-            if (file.readByte() != '\n') {
-                file.seek(position);
+    /**
+     * Reads a growing log file in chunks, only complete lines are sent until the task finishes.
+     */
+    private static class LogTail {
+
+        private final FileChannel channel;
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+
+        // File position of the next read, bytes before it are sent or in buffer
+        private long position;
+
+        LogTail(FileChannel channel, long offset) throws IOException {
+            this.channel = channel;
+            // File is truncated when the task runs again
+            this.position = offset > channel.size() ? 0 : Math.max(offset, 0);
+        }
+
+        boolean hasMore() {
+            try {
+                return channel.size() > position;
+            } catch (IOException e) {
+                return true;
             }
-            String line = file.readLine();
-            while (line != null) {
-                line = new String(line.getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.UTF_8);
-                responseObserver.onNext(TaskLogReply.newBuilder().setText(line).build());
-                line = file.readLine();
+        }
+
+        void read(StreamObserver<TaskLogReply> observer) throws IOException {
+            if (channel.size() < position) {
+                position = 0;
+                buffer.clear();
             }
+
+            int n;
+            do {
+                n = channel.read(buffer, position);
+                if (n > 0) {
+                    position += n;
+                }
+
+                buffer.flip();
+                int end = lastLineBreak();
+                if (end >= 0) {
+                    send(observer, end, end + 1);
+                } else if (buffer.limit() == buffer.capacity()) {
+                    // A single line longer than a chunk, split it on a character boundary
+                    int split = charBoundary(buffer.limit());
+                    send(observer, split, split);
+                }
+
+                buffer.compact();
+            } while (n > 0);
+        }
+
+        /**
+         * Send what is left, the last line may have no line break when the task finished.
+         */
+        void flush(StreamObserver<TaskLogReply> observer) throws IOException {
+            read(observer);
+            buffer.flip();
+            if (buffer.hasRemaining()) {
+                send(observer, buffer.limit(), buffer.limit());
+            }
+
+            buffer.clear();
+        }
+
+        /**
+         * Send bytes before {@code end}, and skip to {@code next}.
+         */
+        private void send(StreamObserver<TaskLogReply> observer, int end, int next) {
+            String text = new String(buffer.array(), 0, end, StandardCharsets.UTF_8);
+            long offset = position - (buffer.limit() - next);
+            observer.onNext(
+                    TaskLogReply.newBuilder().setText(text).setOffset(offset).build());
+            buffer.position(next);
+        }
+
+        private int lastLineBreak() {
+            for (int i = buffer.limit() - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return i;
+                }
+            }
+
+            return -1;
+        }
+
+        private int charBoundary(int end) {
+            int i = end;
+            // Skip back over UTF-8 continuation bytes
+            while (i > 0 && (buffer.get(i - 1) & 0xC0) == 0x80) {
+                i--;
+            }
+
+            // Exclude the leading byte of the possibly incomplete character
+            return i > 1 && (buffer.get(i - 1) & 0x80) != 0 ? i - 1 : end;
         }
     }
 }
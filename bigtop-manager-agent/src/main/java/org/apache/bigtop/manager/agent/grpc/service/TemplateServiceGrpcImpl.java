@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.grpc.service;
+
+import org.apache.bigtop.manager.agent.cache.TemplateStore;
+import org.apache.bigtop.manager.common.constants.MessageConstants;
+import org.apache.bigtop.manager.grpc.generated.SaveTemplatesReply;
+import org.apache.bigtop.manager.grpc.generated.SaveTemplatesRequest;
+import org.apache.bigtop.manager.grpc.generated.TemplateBlob;
+import org.apache.bigtop.manager.grpc.generated.TemplateChecksumsReply;
+import org.apache.bigtop.manager.grpc.generated.TemplateChecksumsRequest;
+import org.apache.bigtop.manager.grpc.generated.TemplateServiceGrpc;
+
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.server.service.GrpcService;
+
+@Slf4j
+@GrpcService
+public class TemplateServiceGrpcImpl extends TemplateServiceGrpc.TemplateServiceImplBase {
+
+    @Override
+    public void getMissingTemplates(
+            TemplateChecksumsRequest request, StreamObserver<TemplateChecksumsReply> responseObserver) {
+        TemplateChecksumsReply.Builder builder = TemplateChecksumsReply.newBuilder();
+        for (String checksum : request.getChecksumsList()) {
+            if (!TemplateStore.contains(checksum)) {
+                builder.addChecksums(checksum);
+            }
+        }
+
+        responseObserver.onNext(builder.build());
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void saveTemplates(SaveTemplatesRequest request, StreamObserver<SaveTemplatesReply> responseObserver) {
+        try {
+            for (TemplateBlob template : request.getTemplatesList()) {
+                TemplateStore.save(template.getChecksum(), template.getContent());
+            }
+
+            SaveTemplatesReply reply = SaveTemplatesReply.newBuilder()
+                    .setCode(MessageConstants.SUCCESS_CODE)
+                    .build();
+            responseObserver.onNext(reply);
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            log.error("Error saving templates", e);
+            responseObserver.onError(e);
+        }
+    }
+}
@@ -19,13 +19,17 @@
 package org.apache.bigtop.manager.agent.metrics;
 
 import org.apache.bigtop.manager.agent.monitoring.AgentHostMonitoring;
+import org.apache.bigtop.manager.agent.monitoring.ComponentProcessMonitoring;
+import org.apache.bigtop.manager.agent.monitoring.ComponentProcessSampler;
+import org.apache.bigtop.manager.agent.monitoring.HostMetricsHistory;
+import org.apache.bigtop.manager.agent.monitoring.HostMetricsSampler;
+import org.apache.bigtop.manager.agent.monitoring.HostSample;
+import org.apache.bigtop.manager.stack.core.executor.StackExecutor;
 
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import io.micrometer.core.instrument.MultiGauge;
 import lombok.extern.slf4j.Slf4j;
 
 import jakarta.annotation.Resource;
@@ -35,28 +39,32 @@ import jakarta.annotation.Resource;
 public class MetricsCollector {
 
     @Resource
-    @Qualifier("diskMultiGauge") private MultiGauge diskMultiGauge;
+    private HostMetricsSampler hostMetricsSampler;
 
     @Resource
-    @Qualifier("memMultiGauge") private MultiGauge memMultiGauge;
+    private AgentHostMonitoring agentHostMonitoring;
 
     @Resource
-    @Qualifier("cpuMultiGauge") private MultiGauge cpuMultiGauge;
+    private HostMetricsHistory hostMetricsHistory;
 
     @Resource
-    @Qualifier("diskIOMultiGauge") private MultiGauge diskIOMultiGauge;
+    private ComponentProcessSampler componentProcessSampler;
+
+    @Resource
+    private ComponentProcessMonitoring componentProcessMonitoring;
 
     @Async
-    @Scheduled(cron = "0,30 * *  * * ?")
+    // Same as the finest resolution of host metrics history
+    @Scheduled(cron = "0/15 * * * * ?")
     public void collect() {
         // refresh agent host monitoring data
         scrape();
     }
 
     private void scrape() {
-        AgentHostMonitoring.diskMultiGaugeUpdateData(diskMultiGauge);
-        AgentHostMonitoring.memMultiGaugeUpdateData(memMultiGauge);
-        AgentHostMonitoring.cpuMultiGaugeUpdateData(cpuMultiGauge);
-        AgentHostMonitoring.diskIOMultiGaugeUpdateData(diskIOMultiGauge);
+        HostSample sample = hostMetricsSampler.sample();
+        agentHostMonitoring.update(sample);
+        hostMetricsHistory.record(sample);
+        componentProcessMonitoring.update(componentProcessSampler.sample(StackExecutor.getPidFiles()));
     }
 }
@@ -18,162 +18,205 @@
  */
 package org.apache.bigtop.manager.agent.monitoring;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.MultiGauge;
-import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.Tags;
-import lombok.Getter;
-import lombok.extern.slf4j.Slf4j;
-import oshi.SystemInfo;
-import oshi.hardware.CentralProcessor;
-import oshi.hardware.GlobalMemory;
-import oshi.hardware.HWDiskStore;
 import oshi.hardware.HardwareAbstractionLayer;
 import oshi.hardware.NetworkIF;
-import oshi.software.os.NetworkParams;
-import oshi.software.os.OSFileStore;
-import oshi.software.os.OperatingSystem;
-import oshi.util.Util;
 
-import java.lang.management.ManagementFactory;
-import java.lang.management.OperatingSystemMXBean;
 import java.net.InetAddress;
 import java.net.InterfaceAddress;
 import java.net.UnknownHostException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
-
-@Slf4j
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Agent host metrics, exported with a small fixed label set.
+ * <p/>
+ * Every meter has a {@code host} label, meters of disks, networks and file systems also have a {@code device} label,
+ * the {@code cluster} label is attached by Prometheus from scrape targets.
+ * Host facts are labels of {@code agent_host_info} only, so they never multiply other series.
+ */
+@Component
 public class AgentHostMonitoring {
 
-    public static final String AGENT_BASE_INFO = "agentBaseInfo";
-    public static final String BOOT_TIME = "bootTime";
-    public static final String MEM_IDLE = "memIdle";
-    public static final String MEM_TOTAL = "memTotal";
-    public static final String DISKS_BASE_INFO = "disksBaseInfo";
-    public static final String DISK_NAME = "diskName";
-    public static final String DISK_IDLE = "diskFreeSpace";
-    public static final String DISK_TOTAL = "diskTotalSpace";
-    public static final String FILE_OPEN_DESCRIPTOR = "fileOpenDescriptor";
-    public static final String FILE_TOTAL_DESCRIPTOR = "fileTotalDescriptor";
-    public static final String CPU_LOAD_AVG_MIN_1 = "cpuLoadAvgMin_1";
-    public static final String CPU_LOAD_AVG_MIN_5 = "cpuLoadAvgMin_5";
-    public static final String CPU_LOAD_AVG_MIN_15 = "cpuLoadAvgMin_15";
-    public static final String CPU_USAGE = "cpuUsage";
-    public static final String PHYSICAL_DISK_NAME = "physicalDiskName";
-    public static final String DISK_READ = "diskRead";
-    public static final String DISK_WRITE = "diskWrite";
-    public static long[] previousReadBytes;
-    public static long[] previousWriteBytes;
-    public static boolean initialized = false;
+    public static final String HOST = "host";
+    public static final String DEVICE = "device";
+
+    public static final String INFO = "agent.host.info";
+    public static final String BOOT_TIME = "agent.host.boot.time";
+    public static final String CPU_USAGE = "agent.host.cpu.usage";
+    public static final String CPU_LOGICAL_CORES = "agent.host.cpu.logical.cores";
+    public static final String CPU_PHYSICAL_CORES = "agent.host.cpu.physical.cores";
+    public static final String LOAD_1 = "agent.host.load1";
+    public static final String LOAD_5 = "agent.host.load5";
+    public static final String LOAD_15 = "agent.host.load15";
+    public static final String MEMORY_TOTAL = "agent.host.memory.total";
+    public static final String MEMORY_AVAILABLE = "agent.host.memory.available";
+    public static final String FILE_DESCRIPTORS_OPEN = "agent.host.file.descriptors.open";
+    public static final String FILE_DESCRIPTORS_MAX = "agent.host.file.descriptors.max";
+    public static final String FILESYSTEM_SIZE = "agent.host.filesystem.size";
+    public static final String FILESYSTEM_FREE = "agent.host.filesystem.free";
+    public static final String DISK_READ = "agent.host.disk.read";
+    public static final String DISK_WRITTEN = "agent.host.disk.written";
+    public static final String NETWORK_RECEIVED = "agent.host.network.received";
+    public static final String NETWORK_TRANSMITTED = "agent.host.network.transmitted";
+
+    private final MeterRegistry registry;
+
+    private final Tags hostTags;
+
+    private final MultiGauge filesystemSize;
+
+    private final MultiGauge filesystemFree;
+
+    private final Set<String> disks = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> networks = ConcurrentHashMap.newKeySet();
+
+    // Null until the first sample, meters are NaN before that
+    private volatile HostSample sample;
+
+    public AgentHostMonitoring(MeterRegistry registry, HostMetricsSampler hostMetricsSampler) {
+        HostFacts facts = hostMetricsSampler.getHostFacts();
+        this.registry = registry;
+        this.hostTags = Tags.of(HOST, facts.getHostname());
+
+        Gauge.builder(INFO, () -> 1)
+                .description("Agent host facts in labels, value is always 1")
+                .tags(hostTags)
+                .tag("os", facts.getOs())
+                .tag("arch", facts.getArch())
+                .tag("cpu_info", facts.getCpuInfo())
+                .tag("ipv4", facts.getIpv4())
+                .tag("ipv4_gateway", String.valueOf(facts.getIpv4Gateway()))
+                .register(registry);
+        Gauge.builder(CPU_LOGICAL_CORES, facts::getLogicalCores).tags(hostTags).register(registry);
+        Gauge.builder(CPU_PHYSICAL_CORES, facts::getPhysicalCores)
+                .tags(hostTags)
+                .register(registry);
 
-    private static boolean sameSubnet(String ipAddress, String subnetMask, String gateway) throws UnknownHostException {
-        InetAddress inetAddress = InetAddress.getByName(ipAddress);
-        InetAddress subnetAddress = InetAddress.getByName(subnetMask);
-        InetAddress gatewayAddress = InetAddress.getByName(gateway);
-        byte[] ipBytes = inetAddress.getAddress();
-        byte[] subnetBytes = subnetAddress.getAddress();
-        byte[] gatewayBytes = gatewayAddress.getAddress();
-        for (int i = 0; i < ipBytes.length; i++) {
-            if ((ipBytes[i] & subnetBytes[i]) != (gatewayBytes[i] & subnetBytes[i])) {
-                return false;
-            }
-        }
-        return true;
+        gauge(BOOT_TIME, "seconds", s -> s.getBootTime());
+        gauge(CPU_USAGE, "ratio", HostSample::getCpuUsage);
+        gauge(LOAD_1, null, HostSample::getLoad1);
+        gauge(LOAD_5, null, HostSample::getLoad5);
+        gauge(LOAD_15, null, HostSample::getLoad15);
+        gauge(MEMORY_TOTAL, "bytes", s -> s.getMemTotal());
+        gauge(MEMORY_AVAILABLE, "bytes", s -> s.getMemAvailable());
+        gauge(FILE_DESCRIPTORS_OPEN, null, s -> s.getOpenFileDescriptors());
+        gauge(FILE_DESCRIPTORS_MAX, null, s -> s.getMaxFileDescriptors());
+
+        this.filesystemSize = MultiGauge.builder(FILESYSTEM_SIZE)
+                .baseUnit("bytes")
+                .tags(hostTags)
+                .register(registry);
+        this.filesystemFree = MultiGauge.builder(FILESYSTEM_FREE)
+                .baseUnit("bytes")
+                .tags(hostTags)
+                .register(registry);
     }
 
     /**
-     * get Host Info
-     * hostname, ip,gateway, os info, cpu arch etc.
-     *
-     * @return JsonNode
+     * Publish a new sample to the meters.
      */
-    public static JsonNode getHostInfo() throws UnknownHostException {
-        ObjectMapper json = new ObjectMapper();
-        ObjectNode objectNode = json.createObjectNode();
-        SystemInfo si = new SystemInfo();
-        OperatingSystem operatingSystem = si.getOperatingSystem();
-        OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
-        HardwareAbstractionLayer hal = si.getHardware();
+    public void update(HostSample sample) {
+        this.sample = sample;
+
+        filesystemSize.register(
+                sample.getFileStores().stream()
+                        .<MultiGauge.Row<?>>map(
+                                store -> MultiGauge.Row.of(Tags.of(DEVICE, store.getDevice()), store.getTotalSpace()))
+                        .toList(),
+                true);
+        filesystemFree.register(
+                sample.getFileStores().stream()
+                        .<MultiGauge.Row<?>>map(
+                                store -> MultiGauge.Row.of(Tags.of(DEVICE, store.getDevice()), store.getFreeSpace()))
+                        .toList(),
+                true);
 
-        NetworkParams networkParams = operatingSystem.getNetworkParams();
-        String hostName = networkParams.getHostName();
-        String ipv4DefaultGateway = networkParams.getIpv4DefaultGateway();
+        for (HostSample.Disk disk : sample.getDisks()) {
+            String device = disk.getDevice();
+            if (disks.add(device)) {
+                diskCounter(DISK_READ, device, HostSample.Disk::getReadBytes);
+                diskCounter(DISK_WRITTEN, device, HostSample.Disk::getWriteBytes);
+            }
+        }
 
-        // File Descriptor
-        OperatingSystemMXBean operatingSystemMXBean = ManagementFactory.getOperatingSystemMXBean();
-        long maxFileDescriptors = -1L;
-        long openFileDescriptors = -1L;
-        if (operatingSystemMXBean instanceof com.sun.management.UnixOperatingSystemMXBean) {
-            maxFileDescriptors =
-                    ((com.sun.management.UnixOperatingSystemMXBean) operatingSystemMXBean).getMaxFileDescriptorCount();
-            openFileDescriptors =
-                    ((com.sun.management.UnixOperatingSystemMXBean) operatingSystemMXBean).getOpenFileDescriptorCount();
+        for (HostSample.Network network : sample.getNetworks()) {
+            String device = network.getDevice();
+            if (networks.add(device)) {
+                networkCounter(NETWORK_RECEIVED, device, HostSample.Network::getReceivedBytes);
+                networkCounter(NETWORK_TRANSMITTED, device, HostSample.Network::getTransmittedBytes);
+            }
         }
+    }
+
+    private void gauge(String name, String baseUnit, ToDoubleFunction<HostSample> value) {
+        Gauge.builder(name, this, monitoring -> monitoring.sampleValue(value))
+                .baseUnit(baseUnit)
+                .tags(hostTags)
+                .strongReference(true)
+                .register(registry);
+    }
 
-        // Agent Host Base Info
-        ObjectNode hostInfoNode = json.createObjectNode();
-        hostInfoNode
-                .put("hostname", hostName)
-                .put("os", osBean.getName())
-                .put("arch", osBean.getArch())
-                .put("ipv4Gateway", ipv4DefaultGateway)
-                // .put("cpu_info", hal.getProcessor().getProcessorIdentifier().getMicroarchitecture())
-                .put("cpu_info", hal.getProcessor().getProcessorIdentifier().getName())
-                .put("logical_cores", hal.getProcessor().getLogicalProcessorCount())
-                .put("physical_cores", hal.getProcessor().getPhysicalProcessorCount())
-                .put("iPv4addr", getAgentHostIPv4addr(hal, ipv4DefaultGateway))
-                .put(FILE_OPEN_DESCRIPTOR, openFileDescriptors)
-                .put(FILE_TOTAL_DESCRIPTOR, maxFileDescriptors);
-        objectNode.set(AGENT_BASE_INFO, hostInfoNode);
+    private void diskCounter(String name, String device, ToLongFunction<HostSample.Disk> value) {
+        counter(name, device, s -> deviceValue(s.getDisks(), device, HostSample.Disk::getDevice, value));
+    }
 
-        objectNode.put(BOOT_TIME, operatingSystem.getSystemBootTime());
-        // .put("upTimeSeconds", operatingSystem.getSystemUptime())
+    private void networkCounter(String name, String device, ToLongFunction<HostSample.Network> value) {
+        counter(name, device, s -> deviceValue(s.getNetworks(), device, HostSample.Network::getDevice, value));
+    }
 
-        // MEM
-        GlobalMemory memory = hal.getMemory();
-        objectNode.put(MEM_IDLE, memory.getAvailable()).put(MEM_TOTAL, memory.getTotal());
-        // DISK
-        List<OSFileStore> fileStores = operatingSystem.getFileSystem().getFileStores(true);
-        ArrayNode diskArrayNode = json.createArrayNode();
-        for (OSFileStore fileStore : fileStores) {
-            if (fileStore.getTotalSpace() <= 1024 * 1024 * 1024) {
-                continue;
-            }
-            ObjectNode disk = json.createObjectNode();
+    private void counter(String name, String device, ToDoubleFunction<HostSample> value) {
+        FunctionCounter.builder(name, this, monitoring -> monitoring.sampleValue(value))
+                .baseUnit("bytes")
+                .tags(hostTags)
+                .tag(DEVICE, device)
+                .register(registry);
+    }
 
-            disk.put(DISK_NAME, fileStore.getVolume());
-            disk.put(DISK_TOTAL, fileStore.getTotalSpace());
-            disk.put(DISK_IDLE, fileStore.getFreeSpace());
+    private double sampleValue(ToDoubleFunction<HostSample> value) {
+        HostSample current = sample;
+        return current == null ? Double.NaN : value.applyAsDouble(current);
+    }
 
-            diskArrayNode.add(disk);
+    private static <T> double deviceValue(
+            List<T> devices, String device, Function<T, String> deviceName, ToLongFunction<T> value) {
+        for (T item : devices) {
+            if (deviceName.apply(item).equals(device)) {
+                return value.applyAsLong(item);
+            }
         }
-        objectNode.set(DISKS_BASE_INFO, diskArrayNode);
-        // DISK IO init
-        if (!initialized) {
-            List<HWDiskStore> diskStores = si.getHardware().getDiskStores();
-            previousReadBytes = new long[diskStores.size()];
-            previousWriteBytes = new long[diskStores.size()];
 
-            // init 0
-            for (int i = 0; i < diskStores.size(); i++) {
-                previousReadBytes[i] = 0L;
-                previousWriteBytes[i] = 0L;
+        // Device is gone since the counter was registered
+        return Double.NaN;
+    }
+
+    private static boolean sameSubnet(String ipAddress, String subnetMask, String gateway) throws UnknownHostException {
+        InetAddress inetAddress = InetAddress.getByName(ipAddress);
+        InetAddress subnetAddress = InetAddress.getByName(subnetMask);
+        InetAddress gatewayAddress = InetAddress.getByName(gateway);
+        byte[] ipBytes = inetAddress.getAddress();
+        byte[] subnetBytes = subnetAddress.getAddress();
+        byte[] gatewayBytes = gatewayAddress.getAddress();
+        for (int i = 0; i < ipBytes.length; i++) {
+            if ((ipBytes[i] & subnetBytes[i]) != (gatewayBytes[i] & subnetBytes[i])) {
+                return false;
             }
-            initialized = true; // tag
         }
-        return objectNode;
+        return true;
     }
 
-    private static String getAgentHostIPv4addr(HardwareAbstractionLayer hal, String ipv4DefaultGateway)
+    static String getAgentHostIPv4addr(HardwareAbstractionLayer hal, String ipv4DefaultGateway)
             throws UnknownHostException {
         for (NetworkIF networkIF : hal.getNetworkIFs()) {
             String[] iPv4addr = networkIF.getIPv4addr();
@@ -197,261 +240,4 @@ public class AgentHostMonitoring {
         }
         return "0.0.0.0";
     }
-
-    @Getter
-    private static class BaseAgentGauge {
-        private final ArrayList<String> labels;
-        private final ArrayList<String> labelsValues;
-
-        public BaseAgentGauge(JsonNode agentMonitoring) {
-            JsonNode agentHostInfo = agentMonitoring.get(AgentHostMonitoring.AGENT_BASE_INFO);
-            this.labels = new ArrayList<>();
-            this.labelsValues = new ArrayList<>();
-            Iterator<String> fieldNames = agentHostInfo.fieldNames();
-            while (fieldNames.hasNext()) {
-                String field = fieldNames.next();
-                this.labels.add(field);
-                this.labelsValues.add(agentHostInfo.get(field).asText());
-            }
-        }
-    }
-
-    public static Map<ArrayList<String>, Map<ArrayList<String>, Double>> getDiskGauge(JsonNode agentMonitoring) {
-        BaseAgentGauge gaugeBaseInfo = new BaseAgentGauge(agentMonitoring);
-        ArrayList<String> diskGaugeLabels = gaugeBaseInfo.getLabels();
-        ArrayList<String> diskGaugeLabelsValues = gaugeBaseInfo.getLabelsValues();
-        diskGaugeLabels.add(AgentHostMonitoring.DISK_NAME);
-        diskGaugeLabels.add("diskUsage");
-
-        Map<ArrayList<String>, Double> labelValues = new HashMap<>();
-        ArrayNode disksInfo = (ArrayNode) agentMonitoring.get(AgentHostMonitoring.DISKS_BASE_INFO);
-        disksInfo.forEach(diskJsonNode -> {
-            // Disk Idle
-            ArrayList<String> diskIdleLabelValues = new ArrayList<>(diskGaugeLabelsValues);
-            diskIdleLabelValues.add(
-                    diskJsonNode.get(AgentHostMonitoring.DISK_NAME).asText());
-            diskIdleLabelValues.add(AgentHostMonitoring.DISK_IDLE);
-            labelValues.put(
-                    diskIdleLabelValues,
-                    diskJsonNode.get(AgentHostMonitoring.DISK_IDLE).asDouble());
-            // Disk Total
-            ArrayList<String> diskTotalLabelValues = new ArrayList<>(diskGaugeLabelsValues);
-            diskTotalLabelValues.add(
-                    diskJsonNode.get(AgentHostMonitoring.DISK_NAME).asText());
-            diskTotalLabelValues.add(AgentHostMonitoring.DISK_TOTAL);
-            labelValues.put(
-                    diskTotalLabelValues,
-                    diskJsonNode.get(AgentHostMonitoring.DISK_TOTAL).asDouble());
-        });
-        Map<ArrayList<String>, Map<ArrayList<String>, Double>> diskGauge = new HashMap<>();
-        diskGauge.put(diskGaugeLabels, labelValues);
-        return diskGauge;
-    }
-
-    public static Map<ArrayList<String>, Map<ArrayList<String>, Double>> getDiskIOGauge(JsonNode agentMonitoring) {
-        SystemInfo si = new SystemInfo();
-        BaseAgentGauge gaugeBaseInfo = new BaseAgentGauge(agentMonitoring);
-        ArrayList<String> diskIOGaugeLabels = gaugeBaseInfo.getLabels();
-        ArrayList<String> diskIOGaugeLabelsValues = gaugeBaseInfo.getLabelsValues();
-        diskIOGaugeLabels.add(AgentHostMonitoring.PHYSICAL_DISK_NAME);
-        diskIOGaugeLabels.add("diskIO");
-        Map<ArrayList<String>, Double> labelValues = new HashMap<>();
-
-        Util.sleep(1000);
-        List<HWDiskStore> upDiskStores = si.getHardware().getDiskStores();
-        long[] currentReadBytes = new long[upDiskStores.size()];
-        long[] currentWriteBytes = new long[upDiskStores.size()];
-
-        for (int i = 0; i < upDiskStores.size(); i++) {
-            HWDiskStore disk = upDiskStores.get(i);
-            currentReadBytes[i] = disk.getReadBytes();
-            currentWriteBytes[i] = disk.getWriteBytes();
-        }
-
-        for (int i = 0; i < upDiskStores.size(); i++) {
-            long readBytesDelta = Math.abs(currentReadBytes[i] - previousReadBytes[i]);
-            long writeBytesDelta = Math.abs(currentWriteBytes[i] - previousWriteBytes[i]);
-            double readKB = readBytesDelta / 1024.0;
-            double writeKB = writeBytesDelta / 1024.0; // kbs
-            previousReadBytes[i] = currentReadBytes[i];
-            previousWriteBytes[i] = currentWriteBytes[i];
-
-            // Disk Read
-            ArrayList<String> diskReadLabelValues = new ArrayList<>(diskIOGaugeLabelsValues);
-            diskReadLabelValues.add(upDiskStores.get(i).getName());
-            diskReadLabelValues.add(AgentHostMonitoring.DISK_READ);
-            labelValues.put(diskReadLabelValues, readKB);
-
-            // Disk Write
-            ArrayList<String> diskWriteLabelValues = new ArrayList<>(diskIOGaugeLabelsValues);
-            diskWriteLabelValues.add(upDiskStores.get(i).getName());
-            diskWriteLabelValues.add(AgentHostMonitoring.DISK_WRITE);
-            labelValues.put(diskWriteLabelValues, writeKB);
-        }
-
-        Map<ArrayList<String>, Map<ArrayList<String>, Double>> diskIOGauge = new HashMap<>();
-        diskIOGauge.put(diskIOGaugeLabels, labelValues);
-        return diskIOGauge;
-    }
-
-    public static Map<ArrayList<String>, Map<ArrayList<String>, Double>> getCPUGauge(JsonNode agentMonitoring) {
-
-        SystemInfo si = new SystemInfo();
-        HardwareAbstractionLayer hal = si.getHardware();
-        // CPU
-        CentralProcessor cpu = hal.getProcessor();
-        double[] systemLoadAverage = cpu.getSystemLoadAverage(3);
-        long[] systemCpuLoadTicks1 = cpu.getSystemCpuLoadTicks();
-        Util.sleep(3000);
-        ((ObjectNode) agentMonitoring)
-                .put(CPU_LOAD_AVG_MIN_1, systemLoadAverage[0])
-                .put(CPU_LOAD_AVG_MIN_5, systemLoadAverage[1])
-                .put(CPU_LOAD_AVG_MIN_15, systemLoadAverage[2])
-                .put(CPU_USAGE, cpu.getSystemCpuLoadBetweenTicks(systemCpuLoadTicks1));
-
-        BaseAgentGauge gaugeBaseInfo = new BaseAgentGauge(agentMonitoring);
-        ArrayList<String> cpuGaugeLabels = gaugeBaseInfo.getLabels();
-        ArrayList<String> cpuGaugeLabelsValues = gaugeBaseInfo.getLabelsValues();
-
-        cpuGaugeLabels.add(AgentHostMonitoring.CPU_USAGE);
-        Map<ArrayList<String>, Double> labelValues = new HashMap<>();
-        ArrayList<String> cpuUsageLabelValues = new ArrayList<>(cpuGaugeLabelsValues);
-        cpuUsageLabelValues.add(AgentHostMonitoring.CPU_USAGE);
-        ArrayList<String> cpuLoadAvgMin_1_LabelValues = new ArrayList<>(cpuGaugeLabelsValues);
-        cpuLoadAvgMin_1_LabelValues.add(AgentHostMonitoring.CPU_LOAD_AVG_MIN_1);
-        ArrayList<String> cpuLoadAvgMin_5_LabelValues = new ArrayList<>(cpuGaugeLabelsValues);
-        cpuLoadAvgMin_5_LabelValues.add(AgentHostMonitoring.CPU_LOAD_AVG_MIN_5);
-        ArrayList<String> cpuLoadAvgMin_15_LabelValues = new ArrayList<>(cpuGaugeLabelsValues);
-        cpuLoadAvgMin_15_LabelValues.add(AgentHostMonitoring.CPU_LOAD_AVG_MIN_15);
-
-        labelValues.put(
-                cpuUsageLabelValues,
-                agentMonitoring.get(AgentHostMonitoring.CPU_USAGE).asDouble());
-        labelValues.put(
-                cpuLoadAvgMin_1_LabelValues,
-                agentMonitoring.get(AgentHostMonitoring.CPU_LOAD_AVG_MIN_1).asDouble());
-        labelValues.put(
-                cpuLoadAvgMin_5_LabelValues,
-                agentMonitoring.get(AgentHostMonitoring.CPU_LOAD_AVG_MIN_5).asDouble());
-        labelValues.put(
-                cpuLoadAvgMin_15_LabelValues,
-                agentMonitoring.get(AgentHostMonitoring.CPU_LOAD_AVG_MIN_15).asDouble());
-        Map<ArrayList<String>, Map<ArrayList<String>, Double>> cpuGauge = new HashMap<>();
-        cpuGauge.put(cpuGaugeLabels, labelValues);
-        return cpuGauge;
-    }
-
-    public static Map<ArrayList<String>, Map<ArrayList<String>, Double>> getMEMGauge(JsonNode agentMonitoring) {
-        BaseAgentGauge gaugeBaseInfo = new BaseAgentGauge(agentMonitoring);
-        ArrayList<String> memGaugeLabels = gaugeBaseInfo.getLabels();
-        ArrayList<String> memGaugeLabelsValues = gaugeBaseInfo.getLabelsValues();
-        memGaugeLabels.add("memUsage");
-
-        Map<ArrayList<String>, Double> labelValues = new HashMap<>();
-        ArrayList<String> memIdleLabelValues = new ArrayList<>(memGaugeLabelsValues);
-        memIdleLabelValues.add(AgentHostMonitoring.MEM_IDLE);
-
-        ArrayList<String> memTotalLabelValues = new ArrayList<>(memGaugeLabelsValues);
-        memTotalLabelValues.add(AgentHostMonitoring.MEM_TOTAL);
-
-        labelValues.put(
-                memIdleLabelValues,
-                agentMonitoring.get(AgentHostMonitoring.MEM_IDLE).asDouble());
-        labelValues.put(
-                memTotalLabelValues,
-                agentMonitoring.get(AgentHostMonitoring.MEM_TOTAL).asDouble());
-        Map<ArrayList<String>, Map<ArrayList<String>, Double>> memGauge = new HashMap<>();
-        memGauge.put(memGaugeLabels, labelValues);
-        return memGauge;
-    }
-
-    public static MultiGauge newDiskMultiGauge(MeterRegistry registry) {
-        return MultiGauge.builder("agent_host_monitoring")
-                .description("BigTop Manager Agent Host Monitoring, Disk Monitoring")
-                .baseUnit("disk")
-                .register(registry);
-    }
-
-    public static MultiGauge newMemMultiGauge(MeterRegistry registry) {
-        return MultiGauge.builder("agent_host_monitoring")
-                .description("BigTop Manager Agent Host Monitoring, Memory Monitoring")
-                .baseUnit("mem")
-                .register(registry);
-    }
-
-    public static MultiGauge newCPUMultiGauge(MeterRegistry registry) {
-        return MultiGauge.builder("agent_host_monitoring")
-                .description("BigTop Manager Agent Host Monitoring, CPU Monitoring")
-                .baseUnit("cpu")
-                .register(registry);
-    }
-
-    public static MultiGauge newDiskIOMultiGauge(MeterRegistry registry) {
-        return MultiGauge.builder("agent_host_monitoring")
-                .description("BigTop Manager Agent Host Monitoring, DiskIO Monitoring")
-                .baseUnit("diskIO")
-                .register(registry);
-    }
-
-    public static void multiGaugeUpdateData(
-            MultiGauge multiGauge, Map<ArrayList<String>, Map<ArrayList<String>, Double>> gaugeData) {
-        ArrayList<String> tagKeys = null;
-        Map<ArrayList<String>, Double> tagValues = null;
-        for (Map.Entry<ArrayList<String>, Map<ArrayList<String>, Double>> entry : gaugeData.entrySet()) {
-            tagKeys = entry.getKey();
-            tagValues = entry.getValue();
-        }
-        if (null == tagKeys || null == tagValues) {
-            return;
-        }
-        ArrayList<String> finalTagKeys = tagKeys;
-        multiGauge.register(
-                tagValues.entrySet().stream()
-                        .map(item -> {
-                            List<Tag> tags = new ArrayList<>();
-                            ArrayList<String> labelKeyValues = item.getKey();
-                            for (int i = 0; i < labelKeyValues.size(); i++) {
-                                tags.add(Tag.of(finalTagKeys.get(i), labelKeyValues.get(i)));
-                            }
-                            return MultiGauge.Row.of(Tags.of(tags), item.getValue());
-                        })
-                        .collect(Collectors.toList()),
-                true);
-    }
-
-    public static void diskMultiGaugeUpdateData(MultiGauge diskMultiGauge) {
-        try {
-            Map<ArrayList<String>, Map<ArrayList<String>, Double>> diskGauge = getDiskGauge(getHostInfo());
-            multiGaugeUpdateData(diskMultiGauge, diskGauge);
-        } catch (UnknownHostException e) {
-            throw new RuntimeException("Get agent host monitoring info failed");
-        }
-    }
-
-    public static void memMultiGaugeUpdateData(MultiGauge memMultiGauge) {
-        try {
-            Map<ArrayList<String>, Map<ArrayList<String>, Double>> diskGauge = getMEMGauge(getHostInfo());
-            multiGaugeUpdateData(memMultiGauge, diskGauge);
-        } catch (UnknownHostException e) {
-            throw new RuntimeException("Get agent host monitoring info failed");
-        }
-    }
-
-    public static void cpuMultiGaugeUpdateData(MultiGauge cpuMultiGauge) {
-        try {
-            Map<ArrayList<String>, Map<ArrayList<String>, Double>> diskGauge = getCPUGauge(getHostInfo());
-            multiGaugeUpdateData(cpuMultiGauge, diskGauge);
-        } catch (UnknownHostException e) {
-            throw new RuntimeException("Get agent host monitoring info failed");
-        }
-    }
-
-    public static void diskIOMultiGaugeUpdateData(MultiGauge diskIOMultiGauge) {
-        try {
-            Map<ArrayList<String>, Map<ArrayList<String>, Double>> diskGauge = getDiskIOGauge(getHostInfo());
-            multiGaugeUpdateData(diskIOMultiGauge, diskGauge);
-        } catch (UnknownHostException e) {
-            throw new RuntimeException("Get agent host monitoring info failed");
-        }
-    }
 }
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.monitoring;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Resource usage of component processes on the agent host.
+ * <p/>
+ * Meters have {@code host}, {@code service} and {@code component} labels, they are registered when a component
+ * process is first seen and are NaN while it is not running.
+ */
+@Component
+public class ComponentProcessMonitoring {
+
+    public static final String SERVICE = "service";
+    public static final String COMPONENT = "component";
+
+    public static final String CPU_TIME = "agent.component.cpu.time";
+    public static final String MEMORY_RSS = "agent.component.memory.rss";
+    public static final String THREADS = "agent.component.threads";
+    public static final String FILE_DESCRIPTORS_OPEN = "agent.component.file.descriptors.open";
+    public static final String IO_READ = "agent.component.io.read";
+    public static final String IO_WRITTEN = "agent.component.io.written";
+
+    private final MeterRegistry registry;
+
+    private final String hostname;
+
+    private final Set<String> components = ConcurrentHashMap.newKeySet();
+
+    // Latest sample of each running component, the key is service name and component name
+    private volatile Map<String, ComponentProcessSample> samples = Map.of();
+
+    public ComponentProcessMonitoring(MeterRegistry registry, HostMetricsSampler hostMetricsSampler) {
+        this.registry = registry;
+        this.hostname = hostMetricsSampler.getHostFacts().getHostname();
+    }
+
+    /**
+     * Publish new samples to the meters.
+     */
+    public void update(List<ComponentProcessSample> processSamples) {
+        Map<String, ComponentProcessSample> current = new HashMap<>();
+        for (ComponentProcessSample sample : processSamples) {
+            current.put(key(sample.getServiceName(), sample.getComponentName()), sample);
+        }
+
+        this.samples = current;
+
+        for (ComponentProcessSample sample : processSamples) {
+            String key = key(sample.getServiceName(), sample.getComponentName());
+            if (components.add(key)) {
+                register(key, sample.getServiceName(), sample.getComponentName());
+            }
+        }
+    }
+
+    private void register(String key, String serviceName, String componentName) {
+        Tags tags = Tags.of(AgentHostMonitoring.HOST, hostname, SERVICE, serviceName, COMPONENT, componentName);
+        FunctionCounter.builder(CPU_TIME, this, m -> m.value(key, ComponentProcessSample::getCpuTime))
+                .baseUnit("seconds")
+                .tags(tags)
+                .register(registry);
+        Gauge.builder(MEMORY_RSS, this, m -> m.value(key, s -> s.getRss()))
+                .baseUnit("bytes")
+                .tags(tags)
+                .register(registry);
+        Gauge.builder(THREADS, this, m -> m.value(key, s -> s.getThreads()))
+                .tags(tags)
+                .register(registry);
+        Gauge.builder(FILE_DESCRIPTORS_OPEN, this, m -> m.value(key, s -> s.getOpenFileDescriptors()))
+                .tags(tags)
+                .register(registry);
+        FunctionCounter.builder(IO_READ, this, m -> m.value(key, s -> s.getReadBytes()))
+                .baseUnit("bytes")
+                .tags(tags)
+                .register(registry);
+        FunctionCounter.builder(IO_WRITTEN, this, m -> m.value(key, s -> s.getWriteBytes()))
+                .baseUnit("bytes")
+                .tags(tags)
+                .register(registry);
+    }
+
+    private double value(String key, ToDoubleFunction<ComponentProcessSample> value) {
+        ComponentProcessSample sample = samples.get(key);
+        if (sample == null) {
+            return Double.NaN;
+        }
+
+        double result = value.applyAsDouble(sample);
+        return result < 0 ? Double.NaN : result;
+    }
+
+    private static String key(String serviceName, String componentName) {
+        return serviceName + "." + componentName;
+    }
+}
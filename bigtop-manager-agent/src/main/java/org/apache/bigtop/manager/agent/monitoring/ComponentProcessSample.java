@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.monitoring;
+
+import lombok.Data;
+
+/**
+ * One sample of a component process, values which can not be read are -1.
+ */
+@Data
+public class ComponentProcessSample {
+
+    private String serviceName;
+
+    private String componentName;
+
+    private long pid;
+
+    // User and system CPU time in seconds since process started
+    private double cpuTime;
+
+    private long rss;
+
+    private long threads;
+
+    private long openFileDescriptors;
+
+    // Cumulative bytes since process started
+    private long readBytes;
+
+    private long writeBytes;
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.monitoring;
+
+import org.apache.bigtop.manager.stack.core.utils.linux.LinuxOSUtils;
+
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Samples processes of components from procfs, processes are found by the same pid files stack scripts use.
+ */
+@Slf4j
+@Component
+public class ComponentProcessSampler {
+
+    private static final Path PROC = Path.of("/proc");
+
+    // Clock ticks in /proc/<pid>/stat are in USER_HZ, which Linux fixes to 100 for user space
+    private static final double USER_HZ = 100.0;
+
+    // Fields after the command name in /proc/<pid>/stat, the first one is state
+    private static final int UTIME_INDEX = 11;
+    private static final int STIME_INDEX = 12;
+    private static final int NUM_THREADS_INDEX = 17;
+
+    private final Path procRoot;
+
+    public ComponentProcessSampler() {
+        this(PROC);
+    }
+
+    ComponentProcessSampler(Path procRoot) {
+        this.procRoot = procRoot;
+    }
+
+    /**
+     * Sample processes of components, components which are not running are skipped.
+     *
+     * @param pidFiles pid file of each component, the key is service name, then component name
+     */
+    public List<ComponentProcessSample> sample(Map<String, Map<String, String>> pidFiles) {
+        List<ComponentProcessSample> samples = new ArrayList<>();
+        for (Map.Entry<String, Map<String, String>> entry : pidFiles.entrySet()) {
+            for (Map.Entry<String, String> componentEntry : entry.getValue().entrySet()) {
+                Long pid = LinuxOSUtils.readPid(componentEntry.getValue());
+                if (pid == null) {
+                    continue;
+                }
+
+                try {
+                    samples.add(sample(entry.getKey(), componentEntry.getKey(), pid));
+                } catch (IOException e) {
+                    // Process exited, or pid file is stale
+                    log.debug("Unable to sample process {} of {}", pid, componentEntry.getKey(), e);
+                }
+            }
+        }
+
+        return samples;
+    }
+
+    private ComponentProcessSample sample(String serviceName, String componentName, long pid) throws IOException {
+        Path processDir = procRoot.resolve(String.valueOf(pid));
+        ComponentProcessSample sample = new ComponentProcessSample();
+        sample.setServiceName(serviceName);
+        sample.setComponentName(componentName);
+        sample.setPid(pid);
+
+        // Command name may contain spaces, fields are counted from the closing parenthesis
+        String stat = Files.readString(processDir.resolve("stat"));
+        String[] fields = stat.substring(stat.lastIndexOf(')') + 1).trim().split("\\s+");
+        long ticks = Long.parseLong(fields[UTIME_INDEX]) + Long.parseLong(fields[STIME_INDEX]);
+        sample.setCpuTime(ticks / USER_HZ);
+        sample.setThreads(Long.parseLong(fields[NUM_THREADS_INDEX]));
+
+        sample.setRss(-1L);
+        for (String line : Files.readAllLines(processDir.resolve("status"))) {
+            if (line.startsWith("VmRSS:")) {
+                sample.setRss(parseKb(line.substring("VmRSS:".length())));
+                break;
+            }
+        }
+
+        // Both need the agent to run as root or as the same user of component
+        sample.setOpenFileDescriptors(-1L);
+        try (Stream<Path> fds = Files.list(processDir.resolve("fd"))) {
+            sample.setOpenFileDescriptors(fds.count());
+        } catch (IOException e) {
+            log.debug("Unable to list fds of process {}", pid, e);
+        }
+
+        sample.setReadBytes(-1L);
+        sample.setWriteBytes(-1L);
+        try {
+            for (String line : Files.readAllLines(processDir.resolve("io"))) {
+                if (line.startsWith("read_bytes:")) {
+                    sample.setReadBytes(Long.parseLong(
+                            line.substring("read_bytes:".length()).trim()));
+                } else if (line.startsWith("write_bytes:")) {
+                    sample.setWriteBytes(Long.parseLong(
+                            line.substring("write_bytes:".length()).trim()));
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Unable to read io of process {}", pid, e);
+        }
+
+        return sample;
+    }
+
+    private static long parseKb(String value) {
+        String trimmed = value.trim();
+        int space = trimmed.indexOf(' ');
+        return Long.parseLong(space < 0 ? trimmed : trimmed.substring(0, space)) * 1024;
+    }
+}
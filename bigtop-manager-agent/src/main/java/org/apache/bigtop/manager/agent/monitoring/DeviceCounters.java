@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.monitoring;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Two counters of each device, in arrays which are reused between reads.
+ * <p/>
+ * Names are kept in their slots, a name read from procfs only becomes a new string when the device changed.
+ */
+final class DeviceCounters {
+
+    private String[] names = new String[8];
+
+    private long[] first = new long[8];
+
+    private long[] second = new long[8];
+
+    private int size;
+
+    void clear() {
+        size = 0;
+    }
+
+    void add(String name, long firstValue, long secondValue) {
+        ensureCapacity();
+        names[size] = name;
+        first[size] = firstValue;
+        second[size] = secondValue;
+        size++;
+    }
+
+    /**
+     * Add a device with name in bytes of an ASCII buffer.
+     */
+    void add(byte[] buffer, int offset, int length, long firstValue, long secondValue) {
+        ensureCapacity();
+        if (!matches(names[size], buffer, offset, length)) {
+            names[size] = new String(buffer, offset, length, StandardCharsets.US_ASCII);
+        }
+
+        first[size] = firstValue;
+        second[size] = secondValue;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    String name(int index) {
+        return names[index];
+    }
+
+    long first(int index) {
+        return first[index];
+    }
+
+    long second(int index) {
+        return second[index];
+    }
+
+    int indexOf(String name) {
+        for (int i = 0; i < size; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    void copyFrom(DeviceCounters other) {
+        if (names.length < other.size) {
+            names = Arrays.copyOf(names, other.names.length);
+            first = new long[other.names.length];
+            second = new long[other.names.length];
+        }
+
+        System.arraycopy(other.names, 0, names, 0, other.size);
+        System.arraycopy(other.first, 0, first, 0, other.size);
+        System.arraycopy(other.second, 0, second, 0, other.size);
+        size = other.size;
+    }
+
+    static boolean matches(String name, byte[] buffer, int offset, int length) {
+        if (name == null || name.length() != length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != (char) (buffer[offset + i] & 0xff)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void ensureCapacity() {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            first = Arrays.copyOf(first, size * 2);
+            second = Arrays.copyOf(second, size * 2);
+        }
+    }
+}
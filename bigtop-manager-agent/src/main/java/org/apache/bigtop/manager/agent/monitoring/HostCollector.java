@@ -16,9 +16,17 @@
  * specific language governing permissions and limitations
  * under the License.
  */
-package org.apache.bigtop.manager.agent.cache;
+package org.apache.bigtop.manager.agent.monitoring;
 
-public class Caches {
+import java.io.IOException;
 
-    public static Long RUNNING_TASK = null;
+/**
+ * Reads cumulative counters of the host, {@link HostMetricsSampler} turns them into samples.
+ */
+interface HostCollector {
+
+    /**
+     * Read current counters into the given holder, previous content is overwritten.
+     */
+    void collect(HostCounters counters) throws IOException;
 }
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.monitoring;
+
+import oshi.hardware.CentralProcessor;
+
+/**
+ * Raw counters of the host, reused between reads so collecting does not allocate.
+ */
+final class HostCounters {
+
+    // In the order of CentralProcessor.TickType, which is also the order in /proc/stat
+    final long[] cpuTicks = new long[CentralProcessor.TickType.values().length];
+
+    final double[] loadAverage = new double[3];
+
+    long memTotal;
+
+    long memAvailable;
+
+    // Read and written bytes of each disk
+    final DeviceCounters disks = new DeviceCounters();
+
+    // Received and transmitted bytes of each network interface
+    final DeviceCounters networks = new DeviceCounters();
+
+    void copyFrom(HostCounters other) {
+        System.arraycopy(other.cpuTicks, 0, cpuTicks, 0, cpuTicks.length);
+        System.arraycopy(other.loadAverage, 0, loadAverage, 0, loadAverage.length);
+        memTotal = other.memTotal;
+        memAvailable = other.memAvailable;
+        disks.copyFrom(other.disks);
+        networks.copyFrom(other.networks);
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.monitoring;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Recent host samples kept by the agent, so charts work on clusters without Prometheus.
+ * <p/>
+ * Samples are averaged into rings of primitive arrays, 1 hour at 15 seconds and 24 hours at 5 minutes,
+ * so memory use is fixed no matter how long the agent runs.
+ */
+@Component
+public class HostMetricsHistory {
+
+    // Columns of each ring
+    public static final int CPU_USAGE = 0;
+    public static final int LOAD_1 = 1;
+    public static final int LOAD_5 = 2;
+    public static final int LOAD_15 = 3;
+    public static final int MEMORY_TOTAL = 4;
+    public static final int MEMORY_AVAILABLE = 5;
+    public static final int FILESYSTEM_TOTAL = 6;
+    public static final int FILESYSTEM_FREE = 7;
+    public static final int DISK_READ = 8;
+    public static final int DISK_WRITE = 9;
+    public static final int FILE_DESCRIPTORS_OPEN = 10;
+    public static final int FILE_DESCRIPTORS_MAX = 11;
+    public static final int COLUMNS = 12;
+
+    // Same as the default lookback of Prometheus, a point uses the latest sample in this window
+    private static final long LOOKBACK_SECONDS = 300;
+
+    // From the finest to the coarsest
+    private final Ring[] rings = {new Ring(15, 240), new Ring(300, 288)};
+
+    // Reused for every sample
+    private final double[] values = new double[COLUMNS];
+
+    public synchronized void record(HostSample sample) {
+        values[CPU_USAGE] = sample.getCpuUsage();
+        values[LOAD_1] = sample.getLoad1();
+        values[LOAD_5] = sample.getLoad5();
+        values[LOAD_15] = sample.getLoad15();
+        values[MEMORY_TOTAL] = sample.getMemTotal();
+        values[MEMORY_AVAILABLE] = sample.getMemAvailable();
+        values[FILESYSTEM_TOTAL] = 0;
+        values[FILESYSTEM_FREE] = 0;
+        for (HostSample.FileStore fileStore : sample.getFileStores()) {
+            values[FILESYSTEM_TOTAL] += fileStore.getTotalSpace();
+            values[FILESYSTEM_FREE] += fileStore.getFreeSpace();
+        }
+
+        values[DISK_READ] = 0;
+        values[DISK_WRITE] = 0;
+        for (HostSample.Disk disk : sample.getDisks()) {
+            values[DISK_READ] += disk.getReadRate();
+            values[DISK_WRITE] += disk.getWriteRate();
+        }
+
+        values[FILE_DESCRIPTORS_OPEN] = sample.getOpenFileDescriptors();
+        values[FILE_DESCRIPTORS_MAX] = sample.getMaxFileDescriptors();
+
+        long timestamp = sample.getTimestamp() / 1000;
+        for (Ring ring : rings) {
+            ring.add(timestamp, values);
+        }
+    }
+
+    /**
+     * Values at each step from start to end, NaN where there is no sample.
+     * <p/>
+     * A point is read from the coarsest ring which is not coarser than the step, or from any ring which still
+     * holds it, so wide charts get averaged values and narrow charts get recent detail.
+     *
+     * @param start first point in epoch seconds
+     * @param end last point in epoch seconds
+     * @param step seconds between points
+     * @param now current time in epoch seconds
+     * @return values of each column, then each point
+     */
+    public synchronized double[][] query(long start, long end, long step, long now) {
+        int points = (int) ((end - start) / step) + 1;
+        double[][] result = new double[COLUMNS][points];
+        for (double[] column : result) {
+            Arrays.fill(column, Double.NaN);
+        }
+
+        for (int i = 0; i < points; i++) {
+            long timestamp = start + i * step;
+            Ring ring = null;
+            for (Ring candidate : rings) {
+                if (candidate.covers(timestamp, now) && (ring == null || candidate.resolution <= step)) {
+                    ring = candidate;
+                }
+            }
+
+            int slot = ring == null ? -1 : ring.find(timestamp);
+            if (slot >= 0) {
+                for (int column = 0; column < COLUMNS; column++) {
+                    result[column][i] = ring.value(slot, column);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private static final class Ring {
+
+        private final long resolution;
+
+        private final int capacity;
+
+        // Bucket held by each slot, a bucket is timestamp divided by resolution
+        private final long[] buckets;
+
+        private final int[] counts;
+
+        // Sum of each column in each slot, columns of a slot are next to each other
+        private final double[] sums;
+
+        private Ring(long resolution, int capacity) {
+            this.resolution = resolution;
+            this.capacity = capacity;
+            this.buckets = new long[capacity];
+            this.counts = new int[capacity];
+            this.sums = new double[capacity * COLUMNS];
+            Arrays.fill(buckets, Long.MIN_VALUE);
+        }
+
+        private void add(long timestamp, double[] values) {
+            long bucket = Math.floorDiv(timestamp, resolution);
+            int slot = (int) Math.floorMod(bucket, (long) capacity);
+            if (buckets[slot] != bucket) {
+                // Slot held an older bucket which has fallen out of the ring
+                buckets[slot] = bucket;
+                counts[slot] = 0;
+                Arrays.fill(sums, slot * COLUMNS, (slot + 1) * COLUMNS, 0);
+            }
+
+            counts[slot]++;
+            for (int column = 0; column < COLUMNS; column++) {
+                sums[slot * COLUMNS + column] += values[column];
+            }
+        }
+
+        private boolean covers(long timestamp, long now) {
+            return Math.floorDiv(timestamp, resolution) > Math.floorDiv(now, resolution) - capacity;
+        }
+
+        private int find(long timestamp) {
+            long bucket = Math.floorDiv(timestamp, resolution);
+            long lookback = Math.max(LOOKBACK_SECONDS / resolution, 1);
+            for (long b = bucket; b >= bucket - lookback; b--) {
+                int slot = (int) Math.floorMod(b, (long) capacity);
+                if (buckets[slot] == b && counts[slot] > 0) {
+                    return slot;
+                }
+            }
+
+            return -1;
+        }
+
+        private double value(int slot, int column) {
+            return sums[slot * COLUMNS + column] / counts[slot];
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.monitoring;
+
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import oshi.SystemInfo;
+import oshi.hardware.CentralProcessor;
+import oshi.hardware.HardwareAbstractionLayer;
+import oshi.software.os.NetworkParams;
+import oshi.software.os.OSFileStore;
+
+import jakarta.annotation.PreDestroy;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.net.UnknownHostException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Samples host metrics with one shared {@link SystemInfo}.
+ * <p/>
+ * Host facts which never change are collected once. CPU usage and I/O rates are computed against the previous
+ * sample, so sampling never waits for counters to move.
+ * <p/>
+ * Counters are read from procfs on Linux, OSHI is used on other systems and if procfs can not be read.
+ */
+@Slf4j
+@Component
+public class HostMetricsSampler {
+
+    private final SystemInfo systemInfo;
+
+    @Getter
+    private final HostFacts hostFacts;
+
+    private final long bootTime;
+
+    private HostCollector collector;
+
+    private final HostCounters counters = new HostCounters();
+
+    private final HostCounters previousCounters = new HostCounters();
+
+    private long previousNanos;
+
+    public HostMetricsSampler() {
+        this(new SystemInfo());
+    }
+
+    HostMetricsSampler(SystemInfo systemInfo) {
+        this(systemInfo, createCollector(systemInfo));
+    }
+
+    HostMetricsSampler(SystemInfo systemInfo, HostCollector collector) {
+        this.systemInfo = systemInfo;
+        this.collector = collector;
+        this.hostFacts = collectHostFacts();
+        this.bootTime = systemInfo.getOperatingSystem().getSystemBootTime();
+        collectCounters(previousCounters);
+        this.previousNanos = System.nanoTime();
+    }
+
+    public synchronized HostSample sample() {
+        HostSample sample = new HostSample();
+        sample.setTimestamp(System.currentTimeMillis());
+        sample.setBootTime(bootTime);
+
+        OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+        sample.setOpenFileDescriptors(-1L);
+        sample.setMaxFileDescriptors(-1L);
+        if (osBean instanceof com.sun.management.UnixOperatingSystemMXBean unixOsBean) {
+            sample.setOpenFileDescriptors(unixOsBean.getOpenFileDescriptorCount());
+            sample.setMaxFileDescriptors(unixOsBean.getMaxFileDescriptorCount());
+        }
+
+        collectCounters(counters);
+        long nanos = System.nanoTime();
+        double seconds = Math.max(nanos - previousNanos, 1) / 1_000_000_000.0;
+
+        // MEM
+        sample.setMemTotal(counters.memTotal);
+        sample.setMemAvailable(counters.memAvailable);
+
+        // DISK, a volume mounted more than once is counted once
+        Set<String> devices = new HashSet<>();
+        for (OSFileStore fileStore :
+                systemInfo.getOperatingSystem().getFileSystem().getFileStores(true)) {
+            if (fileStore.getTotalSpace() <= 1024 * 1024 * 1024 || !devices.add(fileStore.getVolume())) {
+                continue;
+            }
+
+            HostSample.FileStore store = new HostSample.FileStore();
+            store.setDevice(fileStore.getVolume());
+            store.setTotalSpace(fileStore.getTotalSpace());
+            store.setFreeSpace(fileStore.getFreeSpace());
+            sample.getFileStores().add(store);
+        }
+
+        // CPU
+        sample.setLoad1(counters.loadAverage[0]);
+        sample.setLoad5(counters.loadAverage[1]);
+        sample.setLoad15(counters.loadAverage[2]);
+        sample.setCpuUsage(cpuUsage(previousCounters.cpuTicks, counters.cpuTicks));
+
+        // DISK IO and NETWORK, rates are in KB per second since the previous sample
+        DeviceCounters disks = counters.disks;
+        for (int i = 0; i < disks.size(); i++) {
+            HostSample.Disk disk = new HostSample.Disk();
+            disk.setDevice(disks.name(i));
+            disk.setReadBytes(disks.first(i));
+            disk.setWriteBytes(disks.second(i));
+            disk.setReadRate(firstRate(previousCounters.disks, disks, i, seconds));
+            disk.setWriteRate(secondRate(previousCounters.disks, disks, i, seconds));
+            sample.getDisks().add(disk);
+        }
+
+        DeviceCounters networks = counters.networks;
+        for (int i = 0; i < networks.size(); i++) {
+            HostSample.Network network = new HostSample.Network();
+            network.setDevice(networks.name(i));
+            network.setReceivedBytes(networks.first(i));
+            network.setTransmittedBytes(networks.second(i));
+            network.setReceiveRate(firstRate(previousCounters.networks, networks, i, seconds));
+            network.setTransmitRate(secondRate(previousCounters.networks, networks, i, seconds));
+            sample.getNetworks().add(network);
+        }
+
+        previousCounters.copyFrom(counters);
+        previousNanos = nanos;
+
+        return sample;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        closeCollector();
+    }
+
+    /**
+     * Same as {@link CentralProcessor#getSystemCpuLoadBetweenTicks(long[])}, without reading ticks again.
+     */
+    static double cpuUsage(long[] previousTicks, long[] ticks) {
+        long total = 0;
+        for (int i = 0; i < ticks.length; i++) {
+            total += ticks[i] - previousTicks[i];
+        }
+
+        int idleIndex = CentralProcessor.TickType.IDLE.getIndex();
+        int iowaitIndex = CentralProcessor.TickType.IOWAIT.getIndex();
+        long idle = ticks[idleIndex] + ticks[iowaitIndex] - previousTicks[idleIndex] - previousTicks[iowaitIndex];
+        return total > 0 ? (double) (total - idle) / total : 0d;
+    }
+
+    private static double firstRate(DeviceCounters previous, DeviceCounters current, int index, double seconds) {
+        int previousIndex = previous.indexOf(current.name(index));
+        long delta = previousIndex < 0 ? 0 : current.first(index) - previous.first(previousIndex);
+        return Math.max(delta, 0) / 1024.0 / seconds;
+    }
+
+    private static double secondRate(DeviceCounters previous, DeviceCounters current, int index, double seconds) {
+        int previousIndex = previous.indexOf(current.name(index));
+        long delta = previousIndex < 0 ? 0 : current.second(index) - previous.second(previousIndex);
+        return Math.max(delta, 0) / 1024.0 / seconds;
+    }
+
+    private void collectCounters(HostCounters target) {
+        try {
+            collector.collect(target);
+        } catch (IOException e) {
+            log.warn("Unable to read host counters from procfs, falling back to OSHI", e);
+            closeCollector();
+            OshiCollector oshiCollector = new OshiCollector(systemInfo);
+            collector = oshiCollector;
+            oshiCollector.collect(target);
+        }
+    }
+
+    private void closeCollector() {
+        if (collector instanceof Closeable closeable) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                log.warn("Unable to close host collector", e);
+            }
+        }
+    }
+
+    private static HostCollector createCollector(SystemInfo systemInfo) {
+        if (ProcfsCollector.isSupported()) {
+            try {
+                return new ProcfsCollector();
+            } catch (IOException e) {
+                log.warn("Unable to open procfs, falling back to OSHI", e);
+            }
+        }
+
+        return new OshiCollector(systemInfo);
+    }
+
+    private HostFacts collectHostFacts() {
+        OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+        HardwareAbstractionLayer hal = systemInfo.getHardware();
+        NetworkParams networkParams = systemInfo.getOperatingSystem().getNetworkParams();
+        String ipv4DefaultGateway = networkParams.getIpv4DefaultGateway();
+
+        String ipv4;
+        try {
+            ipv4 = AgentHostMonitoring.getAgentHostIPv4addr(hal, ipv4DefaultGateway);
+        } catch (UnknownHostException e) {
+            log.warn("Unable to get agent host ip address", e);
+            ipv4 = "0.0.0.0";
+        }
+
+        HostFacts facts = new HostFacts();
+        facts.setHostname(networkParams.getHostName());
+        facts.setOs(osBean.getName());
+        facts.setArch(osBean.getArch());
+        facts.setCpuInfo(hal.getProcessor().getProcessorIdentifier().getName());
+        facts.setLogicalCores(hal.getProcessor().getLogicalProcessorCount());
+        facts.setPhysicalCores(hal.getProcessor().getPhysicalProcessorCount());
+        facts.setIpv4(ipv4);
+        facts.setIpv4Gateway(ipv4DefaultGateway);
+        return facts;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.monitoring;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One sample of agent host metrics.
+ */
+@Data
+public class HostSample {
+
+    private long timestamp;
+
+    private long bootTime;
+
+    // Between 0 and 1
+    private double cpuUsage;
+
+    private double load1;
+
+    private double load5;
+
+    private double load15;
+
+    private long memTotal;
+
+    private long memAvailable;
+
+    private long openFileDescriptors;
+
+    private long maxFileDescriptors;
+
+    private List<FileStore> fileStores = new ArrayList<>();
+
+    private List<Disk> disks = new ArrayList<>();
+
+    private List<Network> networks = new ArrayList<>();
+
+    @Data
+    public static class FileStore {
+
+        private String device;
+
+        private long totalSpace;
+
+        private long freeSpace;
+    }
+
+    @Data
+    public static class Disk {
+
+        private String device;
+
+        // Cumulative bytes since host booted
+        private long readBytes;
+
+        private long writeBytes;
+
+        // KB per second since the previous sample
+        private double readRate;
+
+        private double writeRate;
+    }
+
+    @Data
+    public static class Network {
+
+        private String device;
+
+        // Cumulative bytes since host booted
+        private long receivedBytes;
+
+        private long transmittedBytes;
+
+        // KB per second since the previous sample
+        private double receiveRate;
+
+        private double transmitRate;
+    }
+}
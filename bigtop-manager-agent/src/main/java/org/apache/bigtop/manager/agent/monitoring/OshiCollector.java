@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.monitoring;
+
+import oshi.SystemInfo;
+import oshi.hardware.CentralProcessor;
+import oshi.hardware.GlobalMemory;
+import oshi.hardware.HWDiskStore;
+import oshi.hardware.HardwareAbstractionLayer;
+import oshi.hardware.NetworkIF;
+
+/**
+ * Reads host counters with OSHI, used where procfs is not available.
+ */
+class OshiCollector implements HostCollector {
+
+    private static final String DEV_PREFIX = "/dev/";
+
+    private final SystemInfo systemInfo;
+
+    OshiCollector(SystemInfo systemInfo) {
+        this.systemInfo = systemInfo;
+    }
+
+    @Override
+    public void collect(HostCounters counters) {
+        HardwareAbstractionLayer hal = systemInfo.getHardware();
+        CentralProcessor cpu = hal.getProcessor();
+        long[] cpuTicks = cpu.getSystemCpuLoadTicks();
+        System.arraycopy(cpuTicks, 0, counters.cpuTicks, 0, Math.min(cpuTicks.length, counters.cpuTicks.length));
+        double[] loadAverage = cpu.getSystemLoadAverage(counters.loadAverage.length);
+        System.arraycopy(loadAverage, 0, counters.loadAverage, 0, counters.loadAverage.length);
+
+        GlobalMemory memory = hal.getMemory();
+        counters.memTotal = memory.getTotal();
+        counters.memAvailable = memory.getAvailable();
+
+        // Device names are kernel names like in procfs, e.g. sda instead of /dev/sda
+        counters.disks.clear();
+        for (HWDiskStore disk : hal.getDiskStores()) {
+            String name = disk.getName();
+            if (name.startsWith(DEV_PREFIX)) {
+                name = name.substring(DEV_PREFIX.length());
+            }
+
+            counters.disks.add(name, disk.getReadBytes(), disk.getWriteBytes());
+        }
+
+        counters.networks.clear();
+        for (NetworkIF network : hal.getNetworkIFs()) {
+            counters.networks.add(network.getName(), network.getBytesRecv(), network.getBytesSent());
+        }
+    }
+}
@@ -0,0 +1,362 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.monitoring;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Reads host counters from procfs on Linux.
+ * <p/>
+ * Files stay open and are read again from the start into one reused buffer, numbers are parsed from the bytes
+ * directly, so a read allocates nothing unless a new device shows up.
+ */
+class ProcfsCollector implements HostCollector, Closeable {
+
+    private static final Path PROC = Path.of("/proc");
+
+    private static final Path SYS_BLOCK = Path.of("/sys/block");
+
+    private static final long SECTOR_SIZE = 512;
+
+    private static final byte[] CPU = bytes("cpu ");
+
+    private static final byte[] MEM_TOTAL = bytes("MemTotal:");
+
+    private static final byte[] MEM_AVAILABLE = bytes("MemAvailable:");
+
+    private static final byte[] MEM_FREE = bytes("MemFree:");
+
+    private static final byte[] BUFFERS = bytes("Buffers:");
+
+    private static final byte[] CACHED = bytes("Cached:");
+
+    private static final byte[] LOOPBACK = bytes("lo");
+
+    private static final byte[] LOOP = bytes("loop");
+
+    private static final byte[] RAM = bytes("ram");
+
+    private final Path sysBlock;
+
+    private final RandomAccessFile stat;
+
+    private final RandomAccessFile meminfo;
+
+    private final RandomAccessFile loadavg;
+
+    private final RandomAccessFile diskstats;
+
+    private final RandomAccessFile netDev;
+
+    // Whether a device in diskstats is a whole disk, partitions would count the same bytes twice
+    private final DeviceCounters knownDevices = new DeviceCounters();
+
+    private byte[] buffer = new byte[16 * 1024];
+
+    private int limit;
+
+    private int pos;
+
+    ProcfsCollector() throws IOException {
+        this(PROC, SYS_BLOCK);
+    }
+
+    ProcfsCollector(Path procRoot, Path sysBlock) throws IOException {
+        this.sysBlock = sysBlock;
+        try {
+            this.stat = open(procRoot.resolve("stat"));
+            this.meminfo = open(procRoot.resolve("meminfo"));
+            this.loadavg = open(procRoot.resolve("loadavg"));
+            this.diskstats = open(procRoot.resolve("diskstats"));
+            this.netDev = open(procRoot.resolve("net/dev"));
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    static boolean isSupported() {
+        return Files.isReadable(PROC.resolve("stat")) && Files.isReadable(PROC.resolve("net/dev"));
+    }
+
+    @Override
+    public void collect(HostCounters counters) throws IOException {
+        readStat(counters);
+        readMeminfo(counters);
+        readLoadavg(counters);
+        readDiskstats(counters);
+        readNetDev(counters);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (RandomAccessFile file : new RandomAccessFile[] {stat, meminfo, loadavg, diskstats, netDev}) {
+            if (file != null) {
+                file.close();
+            }
+        }
+    }
+
+    /**
+     * First line of /proc/stat: cpu user nice system idle iowait irq softirq steal guest guest_nice
+     */
+    private void readStat(HostCounters counters) throws IOException {
+        load(stat);
+        if (!startsWith(CPU)) {
+            throw new IOException("Unexpected content of /proc/stat");
+        }
+
+        pos += CPU.length;
+        Arrays.fill(counters.cpuTicks, 0);
+        for (int i = 0; i < counters.cpuTicks.length && hasNumber(); i++) {
+            counters.cpuTicks[i] = nextLong();
+        }
+    }
+
+    /**
+     * Lines of /proc/meminfo like "MemTotal:  16318504 kB", older kernels do not have MemAvailable.
+     */
+    private void readMeminfo(HostCounters counters) throws IOException {
+        load(meminfo);
+        long memAvailable = -1;
+        long memFree = 0;
+        long buffers = 0;
+        long cached = 0;
+        while (pos < limit) {
+            if (startsWith(MEM_TOTAL)) {
+                pos += MEM_TOTAL.length;
+                counters.memTotal = nextLong() * 1024;
+            } else if (startsWith(MEM_AVAILABLE)) {
+                pos += MEM_AVAILABLE.length;
+                memAvailable = nextLong() * 1024;
+            } else if (startsWith(MEM_FREE)) {
+                pos += MEM_FREE.length;
+                memFree = nextLong() * 1024;
+            } else if (startsWith(BUFFERS)) {
+                pos += BUFFERS.length;
+                buffers = nextLong() * 1024;
+            } else if (startsWith(CACHED)) {
+                pos += CACHED.length;
+                cached = nextLong() * 1024;
+            }
+
+            nextLine();
+        }
+
+        counters.memAvailable = memAvailable >= 0 ? memAvailable : memFree + buffers + cached;
+    }
+
+    /**
+     * /proc/loadavg: 0.20 0.18 0.12 1/80 11206
+     */
+    private void readLoadavg(HostCounters counters) throws IOException {
+        load(loadavg);
+        for (int i = 0; i < counters.loadAverage.length; i++) {
+            counters.loadAverage[i] = nextDecimal();
+        }
+    }
+
+    /**
+     * Lines of /proc/diskstats: major minor name reads merged sectors_read ms writes merged sectors_written ...
+     */
+    private void readDiskstats(HostCounters counters) throws IOException {
+        load(diskstats);
+        counters.disks.clear();
+        while (pos < limit) {
+            nextLong();
+            nextLong();
+            skipSpaces();
+            int nameStart = pos;
+            while (pos < limit && !isSpace(buffer[pos]) && buffer[pos] != '\n') {
+                pos++;
+            }
+
+            int nameLength = pos - nameStart;
+            if (nameLength > 0 && isWholeDisk(nameStart, nameLength)) {
+                nextLong();
+                nextLong();
+                long sectorsRead = nextLong();
+                nextLong();
+                nextLong();
+                nextLong();
+                long sectorsWritten = nextLong();
+                counters.disks.add(
+                        buffer, nameStart, nameLength, sectorsRead * SECTOR_SIZE, sectorsWritten * SECTOR_SIZE);
+            }
+
+            nextLine();
+        }
+    }
+
+    /**
+     * /proc/net/dev has two header lines, then "name: rx_bytes rx_packets ... (8 receive fields) tx_bytes ..."
+     */
+    private void readNetDev(HostCounters counters) throws IOException {
+        load(netDev);
+        counters.networks.clear();
+        nextLine();
+        nextLine();
+        while (pos < limit) {
+            skipSpaces();
+            int nameStart = pos;
+            while (pos < limit && buffer[pos] != ':' && buffer[pos] != '\n') {
+                pos++;
+            }
+
+            int nameLength = pos - nameStart;
+            if (pos < limit && buffer[pos] == ':' && !matches(nameStart, nameLength, LOOPBACK)) {
+                pos++;
+                long received = nextLong();
+                for (int i = 0; i < 7; i++) {
+                    nextLong();
+                }
+
+                long transmitted = nextLong();
+                counters.networks.add(buffer, nameStart, nameLength, received, transmitted);
+            }
+
+            nextLine();
+        }
+    }
+
+    /**
+     * Whole disks are listed in /sys/block, loop and ram devices are skipped like partitions.
+     */
+    private boolean isWholeDisk(int nameStart, int nameLength) {
+        for (int i = 0; i < knownDevices.size(); i++) {
+            if (DeviceCounters.matches(knownDevices.name(i), buffer, nameStart, nameLength)) {
+                return knownDevices.first(i) == 1;
+            }
+        }
+
+        String name = new String(buffer, nameStart, nameLength, StandardCharsets.US_ASCII);
+        boolean wholeDisk = !startsWith(nameStart, LOOP)
+                && !startsWith(nameStart, RAM)
+                && Files.isDirectory(sysBlock.resolve(name));
+        knownDevices.add(name, wholeDisk ? 1 : 0, 0);
+        return wholeDisk;
+    }
+
+    private void load(RandomAccessFile file) throws IOException {
+        // procfs reports no size, read until the end and grow the buffer if it was too small
+        while (true) {
+            file.seek(0);
+            int total = 0;
+            int read;
+            while (total < buffer.length && (read = file.read(buffer, total, buffer.length - total)) > 0) {
+                total += read;
+            }
+
+            if (total < buffer.length) {
+                limit = total;
+                pos = 0;
+                return;
+            }
+
+            buffer = new byte[buffer.length * 2];
+        }
+    }
+
+    private void nextLine() {
+        while (pos < limit && buffer[pos] != '\n') {
+            pos++;
+        }
+
+        pos++;
+    }
+
+    private void skipSpaces() {
+        while (pos < limit && isSpace(buffer[pos])) {
+            pos++;
+        }
+    }
+
+    private boolean hasNumber() {
+        skipSpaces();
+        return pos < limit && isDigit(buffer[pos]);
+    }
+
+    private long nextLong() {
+        skipSpaces();
+        long value = 0;
+        while (pos < limit && isDigit(buffer[pos])) {
+            value = value * 10 + (buffer[pos++] - '0');
+        }
+
+        return value;
+    }
+
+    private double nextDecimal() {
+        long value = nextLong();
+        long scale = 1;
+        if (pos < limit && buffer[pos] == '.') {
+            pos++;
+            while (pos < limit && isDigit(buffer[pos])) {
+                value = value * 10 + (buffer[pos++] - '0');
+                scale *= 10;
+            }
+        }
+
+        return (double) value / scale;
+    }
+
+    private boolean startsWith(byte[] prefix) {
+        return startsWith(pos, prefix);
+    }
+
+    private boolean startsWith(int offset, byte[] prefix) {
+        if (offset + prefix.length > limit) {
+            return false;
+        }
+
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean matches(int offset, int length, byte[] name) {
+        return length == name.length && startsWith(offset, name);
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static RandomAccessFile open(Path path) throws IOException {
+        return new RandomAccessFile(path.toFile(), "r");
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.task;
+
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Wakes up readers of task log files when the files change, instead of having every reader poll.
+ * <p/>
+ * A single {@link WatchService} is shared by all readers, since the number of inotify instances per user is limited.
+ * Readers still wake up after a timeout, so a missed event only delays them.
+ */
+@Slf4j
+@Component
+public class TaskLogWatcher {
+
+    private final Map<Path, Monitor> monitors = new ConcurrentHashMap<>();
+
+    private final Set<Path> watchedDirs = ConcurrentHashMap.newKeySet();
+
+    private WatchService watchService;
+
+    /**
+     * Wait until the file changes or timeout.
+     *
+     * @param file file to watch
+     * @param changed checked after the waiter is registered, returns immediately if true so no change is missed
+     * @param timeoutMillis max time to wait
+     */
+    public void await(Path file, BooleanSupplier changed, long timeoutMillis) throws InterruptedException {
+        try {
+            watch(file.toAbsolutePath().getParent());
+        } catch (IOException e) {
+            log.warn("Unable to watch {}, falling back to timeout", file, e);
+        }
+
+        Path key = file.toAbsolutePath();
+        Monitor monitor = monitors.computeIfAbsent(key, k -> new Monitor());
+        synchronized (monitor) {
+            monitor.waiters++;
+            try {
+                if (!changed.getAsBoolean()) {
+                    monitor.wait(timeoutMillis);
+                }
+            } finally {
+                if (--monitor.waiters == 0) {
+                    monitors.remove(key, monitor);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private synchronized void watch(Path dir) throws IOException {
+        if (watchedDirs.contains(dir)) {
+            return;
+        }
+
+        if (watchService == null) {
+            watchService = FileSystems.getDefault().newWatchService();
+            Thread thread = new Thread(this::dispatch, "task-log-watcher");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        Files.createDirectories(dir);
+        dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watchedDirs.add(dir);
+    }
+
+    private void dispatch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Path dir = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        monitors.values().forEach(this::wakeUp);
+                    } else {
+                        Monitor monitor = monitors.get(dir.resolve((Path) event.context()));
+                        if (monitor != null) {
+                            wakeUp(monitor);
+                        }
+                    }
+                }
+
+                if (!key.reset()) {
+                    // Directory deleted, registered again by the next reader
+                    watchedDirs.remove(dir);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            log.info("Task log watcher closed");
+        }
+    }
+
+    private void wakeUp(Monitor monitor) {
+        synchronized (monitor) {
+            monitor.notifyAll();
+        }
+    }
+
+    private static class Monitor {
+
+        private int waiters;
+    }
+}
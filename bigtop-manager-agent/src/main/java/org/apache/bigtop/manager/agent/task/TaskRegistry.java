@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.task;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Tasks accepted by this agent, from the time the request arrives until the call completes or is cancelled.
+ * <p/>
+ * At most {@code maxConcurrentTasks} tasks run at the same time, the others wait in the registry,
+ * so log streams of queued tasks stay open until they finish.
+ */
+@Slf4j
+@Component
+public class TaskRegistry {
+
+    private static final long POLL_INTERVAL_MILLIS = 1000;
+
+    @Getter
+    private final int maxConcurrentTasks;
+
+    private final Semaphore permits;
+
+    private final Map<Long, TaskEntry> tasks = new ConcurrentHashMap<>();
+
+    public TaskRegistry(@Value("${bigtop.manager.agent.max-concurrent-tasks:4}") int maxConcurrentTasks) {
+        this.maxConcurrentTasks = maxConcurrentTasks;
+        this.permits = new Semaphore(maxConcurrentTasks, true);
+    }
+
+    /**
+     * Register a task, the returned entry is passed to {@link #start} and {@link #finish} of the same call.
+     */
+    public TaskEntry register(Long taskId) {
+        TaskEntry entry = new TaskEntry(taskId);
+        TaskEntry previous = tasks.put(taskId, entry);
+        if (previous != null) {
+            // Same task sent again, e.g. server retried, the old call keeps its slot until it finishes on its own
+            log.warn("Task {} registered twice", taskId);
+        }
+
+        return entry;
+    }
+
+    /**
+     * Wait until the task is allowed to run.
+     *
+     * @param entry entry returned by {@link #register}
+     * @param cancelled whether the caller has given up waiting
+     * @return false if cancelled or interrupted while waiting
+     */
+    public boolean start(TaskEntry entry, BooleanSupplier cancelled) {
+        try {
+            while (!permits.tryAcquire(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (cancelled.getAsBoolean()) {
+                    return false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        if (!entry.markRunning()) {
+            // Finished while waiting
+            permits.release();
+            return false;
+        }
+
+        log.info("Task {} started, {} tasks running", entry.getTaskId(), getRunningCount());
+        return true;
+    }
+
+    /**
+     * Release the slot of the task, the task is removed only if it has not been registered again since.
+     *
+     * @param entry entry returned by {@link #register}
+     */
+    public void finish(TaskEntry entry) {
+        tasks.remove(entry.getTaskId(), entry);
+        entry.release(permits);
+    }
+
+    public boolean contains(Long taskId) {
+        return tasks.containsKey(taskId);
+    }
+
+    public Collection<TaskEntry> getTasks() {
+        return tasks.values();
+    }
+
+    public int getRunningCount() {
+        return maxConcurrentTasks - permits.availablePermits();
+    }
+
+    @Getter
+    public static class TaskEntry {
+
+        private final Long taskId;
+
+        private final long registerTime = System.currentTimeMillis();
+
+        private volatile boolean running;
+
+        private volatile long startTime;
+
+        private boolean finished;
+
+        TaskEntry(Long taskId) {
+            this.taskId = taskId;
+        }
+
+        private synchronized boolean markRunning() {
+            if (finished) {
+                return false;
+            }
+
+            running = true;
+            startTime = System.currentTimeMillis();
+            return true;
+        }
+
+        private synchronized void release(Semaphore permits) {
+            finished = true;
+            if (running) {
+                running = false;
+                permits.release();
+            }
+        }
+    }
+}
@@ -18,7 +18,9 @@
  */
 package org.apache.bigtop.manager.agent.grpc.interceptor;
 
+import org.apache.bigtop.manager.agent.task.TaskRegistry;
 import org.apache.bigtop.manager.common.utils.ProjectPathUtils;
+import org.apache.bigtop.manager.grpc.generated.TaskCancelRequest;
 import org.apache.bigtop.manager.grpc.generated.TaskLogRequest;
 
 import org.junit.jupiter.api.AfterEach;
@@ -50,7 +52,7 @@ public class TaskInterceptorTest {
 
     @BeforeEach
     public void setUp() {
-        taskInterceptor = new TaskInterceptor();
+        taskInterceptor = new TaskInterceptor(new TaskRegistry(1));
     }
 
     @AfterEach
@@ -101,6 +103,16 @@ public class TaskInterceptorTest {
         assertFalse(result);
     }
 
+    @Test
+    public void testIsTaskCancelRequestTaskRequest() {
+        TaskCancelRequest taskCancelRequest =
+                TaskCancelRequest.newBuilder().setTaskId(1L).build();
+
+        Boolean result = taskInterceptor.isTaskRequest(taskCancelRequest);
+
+        assertFalse(result);
+    }
+
     @Test
     public void testIsTaskRequestTaskRequest() {
         Task task = new Task();
@@ -21,6 +21,8 @@ package org.apache.bigtop.manager.agent.grpc.service;
 import org.apache.bigtop.manager.common.shell.ShellResult;
 import org.apache.bigtop.manager.grpc.generated.ComponentStatusReply;
 import org.apache.bigtop.manager.grpc.generated.ComponentStatusRequest;
+import org.apache.bigtop.manager.grpc.generated.ComponentStatusesReply;
+import org.apache.bigtop.manager.grpc.generated.ComponentStatusesRequest;
 import org.apache.bigtop.manager.grpc.payload.ComponentCommandPayload;
 import org.apache.bigtop.manager.stack.core.executor.StackExecutor;
 
@@ -29,11 +31,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
 import io.grpc.stub.StreamObserver;
 
+import java.util.concurrent.Executor;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -64,7 +69,7 @@ public class ComponentStatusServiceGrpcImplTest {
 
             // Mock StackExecutor
             mockedStatic
-                    .when(() -> StackExecutor.execute(any(ComponentCommandPayload.class)))
+                    .when(() -> StackExecutor.checkStatus(any(ComponentCommandPayload.class)))
                     .thenReturn(shellResult);
 
             StreamObserver<ComponentStatusReply> responseObserver = mock(StreamObserver.class);
@@ -96,7 +101,7 @@ public class ComponentStatusServiceGrpcImplTest {
 
             // Mock StackExecutor to throw an exception
             mockedStatic
-                    .when(() -> StackExecutor.execute(any(ComponentCommandPayload.class)))
+                    .when(() -> StackExecutor.checkStatus(any(ComponentCommandPayload.class)))
                     .thenThrow(new RuntimeException("Execution failed"));
 
             StreamObserver<ComponentStatusReply> responseObserver = mock(StreamObserver.class);
@@ -125,4 +130,41 @@ public class ComponentStatusServiceGrpcImplTest {
             assertTrue(statusRuntimeException.getMessage().contains("Execution failed"));
         }
     }
+
+    @Test
+    public void testGetComponentStatuses() {
+        // Run checks in caller thread so that static mock works
+        ReflectionTestUtils.setField(service, "statusExecutor", (Executor) Runnable::run);
+        try (MockedStatic<StackExecutor> mockedStatic = mockStatic(StackExecutor.class)) {
+            ShellResult running = new ShellResult();
+            running.setExitCode(0);
+            ShellResult stopped = new ShellResult();
+            stopped.setExitCode(1);
+            mockedStatic
+                    .when(() -> StackExecutor.checkStatus(any(ComponentCommandPayload.class)))
+                    .thenAnswer(invocation -> {
+                        ComponentCommandPayload payload = invocation.getArgument(0);
+                        return payload.getComponentName().equals("zookeeper_server") ? running : stopped;
+                    });
+
+            ComponentStatusesRequest request = ComponentStatusesRequest.newBuilder()
+                    .addComponents(ComponentStatusRequest.newBuilder()
+                            .setServiceName("zookeeper")
+                            .setComponentName("zookeeper_server"))
+                    .addComponents(ComponentStatusRequest.newBuilder()
+                            .setServiceName("kafka")
+                            .setComponentName("kafka_broker"))
+                    .build();
+            StreamObserver<ComponentStatusesReply> responseObserver = mock(StreamObserver.class);
+            ArgumentCaptor<ComponentStatusesReply> captor = ArgumentCaptor.forClass(ComponentStatusesReply.class);
+
+            service.getComponentStatuses(request, responseObserver);
+
+            verify(responseObserver).onNext(captor.capture());
+            verify(responseObserver).onCompleted();
+            assertEquals(2, captor.getValue().getStatusesCount());
+            assertEquals(0, captor.getValue().getStatuses(0).getStatus());
+            assertEquals(1, captor.getValue().getStatuses(1).getStatus());
+        }
+    }
 }
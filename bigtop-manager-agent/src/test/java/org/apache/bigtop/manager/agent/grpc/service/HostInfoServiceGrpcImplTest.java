@@ -19,26 +19,31 @@
 package org.apache.bigtop.manager.agent.grpc.service;
 
 import org.apache.bigtop.manager.common.utils.os.OSDetection;
+import org.apache.bigtop.manager.grpc.generated.HeartbeatRequest;
 import org.apache.bigtop.manager.grpc.generated.HostInfoReply;
 import org.apache.bigtop.manager.grpc.generated.HostInfoRequest;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import com.sun.management.OperatingSystemMXBean;
 import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 
 import java.lang.management.ManagementFactory;
 import java.net.InetAddress;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -118,4 +123,22 @@ public class HostInfoServiceGrpcImplTest {
             verify(mockResponseObserver).onError(any(StatusRuntimeException.class));
         }
     }
+
+    @Test
+    public void testHeartbeatStopsWhenCancelled() {
+        HeartbeatRequest request =
+                HeartbeatRequest.newBuilder().setIntervalSeconds(1).build();
+        ServerCallStreamObserver<HostInfoReply> mockResponseObserver = mock(ServerCallStreamObserver.class);
+        when(mockResponseObserver.isCancelled()).thenReturn(true);
+
+        service.heartbeat(request, mockResponseObserver);
+
+        ArgumentCaptor<Runnable> handlerCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(mockResponseObserver).setOnCancelHandler(handlerCaptor.capture());
+        verify(mockResponseObserver, timeout(1000).atLeastOnce()).isCancelled();
+        verify(mockResponseObserver, after(1500).never()).onNext(any(HostInfoReply.class));
+
+        // Running cancel handler after the stream stopped should be harmless
+        handlerCaptor.getValue().run();
+    }
 }
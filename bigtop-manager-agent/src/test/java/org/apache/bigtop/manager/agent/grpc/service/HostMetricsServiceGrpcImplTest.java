@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.grpc.service;
+
+import org.apache.bigtop.manager.agent.monitoring.HostFacts;
+import org.apache.bigtop.manager.agent.monitoring.HostMetricsHistory;
+import org.apache.bigtop.manager.agent.monitoring.HostMetricsSampler;
+import org.apache.bigtop.manager.grpc.generated.HostMetricsRangeReply;
+import org.apache.bigtop.manager.grpc.generated.HostMetricsRangeRequest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class HostMetricsServiceGrpcImplTest {
+
+    @Mock
+    private HostMetricsHistory hostMetricsHistory;
+
+    @Mock
+    private HostMetricsSampler hostMetricsSampler;
+
+    @Mock
+    private StreamObserver<HostMetricsRangeReply> responseObserver;
+
+    @InjectMocks
+    private HostMetricsServiceGrpcImpl hostMetricsServiceGrpcImpl;
+
+    @Test
+    public void testQueryRange() {
+        HostFacts facts = new HostFacts();
+        facts.setPhysicalCores(8);
+        when(hostMetricsSampler.getHostFacts()).thenReturn(facts);
+        double[][] values = new double[HostMetricsHistory.COLUMNS][3];
+        for (double[] column : values) {
+            Arrays.fill(column, Double.NaN);
+        }
+        values[HostMetricsHistory.CPU_USAGE][2] = 0.5;
+        when(hostMetricsHistory.query(eq(100L), eq(160L), eq(30L), anyLong())).thenReturn(values);
+
+        HostMetricsRangeRequest request = HostMetricsRangeRequest.newBuilder()
+                .setStart(100)
+                .setEnd(160)
+                .setStep(30)
+                .build();
+        hostMetricsServiceGrpcImpl.queryRange(request, responseObserver);
+
+        ArgumentCaptor<HostMetricsRangeReply> captor = ArgumentCaptor.forClass(HostMetricsRangeReply.class);
+        verify(responseObserver).onNext(captor.capture());
+        verify(responseObserver).onCompleted();
+        HostMetricsRangeReply reply = captor.getValue();
+        assertEquals(List.of(100L, 130L, 160L), reply.getTimestampsList());
+        assertEquals(8, reply.getPhysicalCores());
+        assertTrue(Double.isNaN(reply.getCpuUsage(0)));
+        assertEquals(0.5, reply.getCpuUsage(2));
+        assertEquals(3, reply.getFileDescriptorsMaxCount());
+    }
+
+    @Test
+    public void testQueryRangeWithInvalidStep() {
+        HostMetricsRangeRequest request =
+                HostMetricsRangeRequest.newBuilder().setStart(100).setEnd(160).build();
+        hostMetricsServiceGrpcImpl.queryRange(request, responseObserver);
+
+        ArgumentCaptor<Throwable> captor = ArgumentCaptor.forClass(Throwable.class);
+        verify(responseObserver).onError(captor.capture());
+        assertEquals(
+                Status.Code.INVALID_ARGUMENT,
+                ((StatusRuntimeException) captor.getValue()).getStatus().getCode());
+    }
+}
@@ -18,25 +18,35 @@
  */
 package org.apache.bigtop.manager.agent.grpc.service;
 
+import org.apache.bigtop.manager.common.constants.MessageConstants;
 import org.apache.bigtop.manager.common.utils.ProjectPathUtils;
+import org.apache.bigtop.manager.grpc.generated.ClusterCache;
+import org.apache.bigtop.manager.grpc.generated.JobCachePayloadMessage;
 import org.apache.bigtop.manager.grpc.generated.JobCacheReply;
 import org.apache.bigtop.manager.grpc.generated.JobCacheRequest;
+import org.apache.bigtop.manager.grpc.generated.StringList;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.google.protobuf.ByteString;
 import io.grpc.stub.StreamObserver;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
@@ -89,6 +99,142 @@ public class JobCacheServiceGrpcImplTest {
         }
     }
 
+    @Test
+    public void testSaveDelta() throws Exception {
+        try (MockedStatic<ProjectPathUtils> mockedStatic = mockStatic(ProjectPathUtils.class)) {
+            mockedStatic.when(ProjectPathUtils::getAgentCachePath).thenReturn(cacheDirPath.toString());
+
+            // Full snapshot
+            String fullPayload = "{\"clusterId\": 1, \"hosts\": [\"host1\"], \"userInfo\": {\"hdfs\": \"hdfs\"}}";
+            jobCacheServiceGrpcImpl.save(
+                    JobCacheRequest.newBuilder()
+                            .setPayload(fullPayload)
+                            .setVersion("v1")
+                            .build(),
+                    responseObserver);
+
+            // Delta with hosts only
+            String deltaPayload = "{\"clusterId\": 1, \"hosts\": [\"host1\", \"host2\"]}";
+            jobCacheServiceGrpcImpl.save(
+                    JobCacheRequest.newBuilder()
+                            .setPayload(deltaPayload)
+                            .setVersion("v2")
+                            .setBaseVersion("v1")
+                            .build(),
+                    responseObserver);
+
+            ArgumentCaptor<JobCacheReply> captor = ArgumentCaptor.forClass(JobCacheReply.class);
+            verify(responseObserver, times(2)).onNext(captor.capture());
+            assertEquals(MessageConstants.SUCCESS_CODE, captor.getValue().getCode());
+            assertEquals("v2", captor.getValue().getVersion());
+
+            Path clusterDir = cacheDirPath.resolve("1");
+            assertEquals("v2", Files.readString(clusterDir.resolve("version")));
+            assertTrue(Files.readString(clusterDir.resolve("hosts.json")).contains("host2"));
+            assertTrue(Files.readString(clusterDir.resolve("users.json")).contains("hdfs"));
+        }
+    }
+
+    @Test
+    public void testSaveDeltaOnStaleVersion() {
+        try (MockedStatic<ProjectPathUtils> mockedStatic = mockStatic(ProjectPathUtils.class)) {
+            mockedStatic.when(ProjectPathUtils::getAgentCachePath).thenReturn(cacheDirPath.toString());
+
+            String deltaPayload = "{\"clusterId\": 1, \"hosts\": [\"host1\"]}";
+            jobCacheServiceGrpcImpl.save(
+                    JobCacheRequest.newBuilder()
+                            .setPayload(deltaPayload)
+                            .setVersion("v2")
+                            .setBaseVersion("v1")
+                            .build(),
+                    responseObserver);
+
+            ArgumentCaptor<JobCacheReply> captor = ArgumentCaptor.forClass(JobCacheReply.class);
+            verify(responseObserver).onNext(captor.capture());
+            assertEquals(MessageConstants.FAIL_CODE, captor.getValue().getCode());
+            assertEquals("", captor.getValue().getVersion());
+            assertTrue(Files.notExists(cacheDirPath.resolve("1").resolve("hosts.json")));
+        }
+    }
+
+    @Test
+    public void testSaveMultipleClusters() throws Exception {
+        try (MockedStatic<ProjectPathUtils> mockedStatic = mockStatic(ProjectPathUtils.class)) {
+            mockedStatic.when(ProjectPathUtils::getAgentCachePath).thenReturn(cacheDirPath.toString());
+
+            JobCacheRequest request = JobCacheRequest.newBuilder()
+                    .setJobId(123L)
+                    .setCurrentClusterId(1L)
+                    .addClusters(ClusterCache.newBuilder()
+                            .setClusterId(1L)
+                            .setPayloadMessage(payload(1L, "host1"))
+                            .setVersion("v1"))
+                    .addClusters(ClusterCache.newBuilder()
+                            .setClusterId(2L)
+                            .setPayloadMessage(payload(2L, "host2"))
+                            .setVersion("v2")
+                            .setBaseVersion("v0"))
+                    .build();
+            jobCacheServiceGrpcImpl.save(request, responseObserver);
+
+            ArgumentCaptor<JobCacheReply> captor = ArgumentCaptor.forClass(JobCacheReply.class);
+            verify(responseObserver).onNext(captor.capture());
+            JobCacheReply reply = captor.getValue();
+            assertEquals(MessageConstants.FAIL_CODE, reply.getCode());
+            assertEquals(2, reply.getClustersCount());
+            assertEquals(MessageConstants.SUCCESS_CODE, reply.getClusters(0).getCode());
+            assertEquals("v1", reply.getClusters(0).getVersion());
+            assertEquals(2L, reply.getClusters(1).getClusterId());
+            assertEquals(MessageConstants.FAIL_CODE, reply.getClusters(1).getCode());
+
+            assertEquals("1", Files.readString(cacheDirPath.resolve("current")).trim());
+            assertTrue(Files.readString(cacheDirPath.resolve("1").resolve("hosts.json"))
+                    .contains("host1"));
+            assertTrue(Files.notExists(cacheDirPath.resolve("2").resolve("hosts.json")));
+        }
+    }
+
+    @Test
+    public void testSaveBinaryPayload() throws Exception {
+        try (MockedStatic<ProjectPathUtils> mockedStatic = mockStatic(ProjectPathUtils.class)) {
+            mockedStatic.when(ProjectPathUtils::getAgentCachePath).thenReturn(cacheDirPath.toString());
+
+            JobCacheRequest request = JobCacheRequest.newBuilder()
+                    .setJobId(123L)
+                    .setCurrentClusterId(1L)
+                    .addClusters(ClusterCache.newBuilder()
+                            .setClusterId(1L)
+                            .setPayloadMessage(payload(1L, "host1"))
+                            .setVersion("v1"))
+                    .build();
+            jobCacheServiceGrpcImpl.save(request, responseObserver);
+
+            ArgumentCaptor<JobCacheReply> captor = ArgumentCaptor.forClass(JobCacheReply.class);
+            verify(responseObserver).onNext(captor.capture());
+            assertEquals(MessageConstants.SUCCESS_CODE, captor.getValue().getCode());
+            assertTrue(Files.readString(cacheDirPath.resolve("1").resolve("hosts.json"))
+                    .contains("host1"));
+            // Parts absent in message are not written
+            assertTrue(Files.notExists(cacheDirPath.resolve("1").resolve("configurations.json")));
+        }
+    }
+
+    @Test
+    public void testReadCacheVersions() throws Exception {
+        try (MockedStatic<ProjectPathUtils> mockedStatic = mockStatic(ProjectPathUtils.class)) {
+            mockedStatic.when(ProjectPathUtils::getAgentCachePath).thenReturn(cacheDirPath.toString());
+
+            Files.createDirectories(cacheDirPath.resolve("1"));
+            Files.writeString(cacheDirPath.resolve("1").resolve("version"), "v1");
+            // Saved by a server which does not track versions
+            Files.createDirectories(cacheDirPath.resolve("2"));
+            Files.createDirectories(cacheDirPath.resolve("templates"));
+            Files.writeString(cacheDirPath.resolve("current"), "1");
+
+            assertEquals(Map.of(1L, "v1"), JobCacheServiceGrpcImpl.readCacheVersions());
+        }
+    }
+
     @Test
     public void testSaveDirectoryCreationFailure() {
         // Mock the static behavior of ProjectPathUtils.getAgentCachePath method
@@ -116,4 +262,12 @@ public class JobCacheServiceGrpcImplTest {
             }
         }
     }
+
+    private ByteString payload(Long clusterId, String host) {
+        return JobCachePayloadMessage.newBuilder()
+                .setClusterId(clusterId)
+                .setHosts(StringList.newBuilder().addValues(host))
+                .build()
+                .toByteString();
+    }
 }
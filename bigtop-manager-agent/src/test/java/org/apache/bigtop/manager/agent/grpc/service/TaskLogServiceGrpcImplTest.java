@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.grpc.service;
+
+import org.apache.bigtop.manager.agent.task.TaskLogWatcher;
+import org.apache.bigtop.manager.agent.task.TaskRegistry;
+import org.apache.bigtop.manager.common.utils.ProjectPathUtils;
+import org.apache.bigtop.manager.grpc.generated.TaskLogReply;
+import org.apache.bigtop.manager.grpc.generated.TaskLogRequest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.grpc.stub.ServerCallStreamObserver;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class TaskLogServiceGrpcImplTest {
+
+    private static final String LOG = "line1\nline2\nline3";
+
+    private TaskLogServiceGrpcImpl taskLogServiceGrpcImpl;
+
+    private TaskRegistry taskRegistry;
+
+    private TaskLogWatcher taskLogWatcher;
+
+    @Mock
+    private ServerCallStreamObserver<TaskLogReply> responseObserver;
+
+    @TempDir
+    private Path logDir;
+
+    private Path logFile;
+
+    private MockedStatic<ProjectPathUtils> projectPathUtils;
+
+    @BeforeEach
+    public void setUp() {
+        taskRegistry = new TaskRegistry(1);
+        taskLogWatcher = new TaskLogWatcher();
+        taskLogServiceGrpcImpl = new TaskLogServiceGrpcImpl();
+        ReflectionTestUtils.setField(taskLogServiceGrpcImpl, "taskRegistry", taskRegistry);
+        ReflectionTestUtils.setField(taskLogServiceGrpcImpl, "taskLogWatcher", taskLogWatcher);
+
+        logFile = logDir.resolve("task-1.log");
+        projectPathUtils = mockLogFilePath();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        projectPathUtils.close();
+        taskLogWatcher.close();
+    }
+
+    @Test
+    public void testGetLogOfFinishedTask() throws Exception {
+        Files.writeString(logFile, LOG);
+
+        taskLogServiceGrpcImpl.getLog(request(0), responseObserver);
+
+        List<TaskLogReply> replies = captureReplies();
+        verify(responseObserver).onCompleted();
+        // Complete lines are batched, the last line is sent when task finished
+        assertEquals(2, replies.size());
+        assertEquals("line1\nline2", replies.get(0).getText());
+        assertEquals(12, replies.get(0).getOffset());
+        assertEquals("line3", replies.get(1).getText());
+        assertEquals(LOG.length(), replies.get(1).getOffset());
+    }
+
+    @Test
+    public void testGetLogFromOffset() throws Exception {
+        Files.writeString(logFile, LOG);
+
+        taskLogServiceGrpcImpl.getLog(request(6), responseObserver);
+
+        assertEquals("line2\nline3", joinReplies(captureReplies()));
+    }
+
+    @Test
+    public void testGetLogFromOffsetBeyondTruncatedFile() throws Exception {
+        Files.writeString(logFile, LOG);
+
+        taskLogServiceGrpcImpl.getLog(request(1000), responseObserver);
+
+        assertEquals(LOG, joinReplies(captureReplies()));
+    }
+
+    @Test
+    public void testGetLogOfRunningTask() throws Exception {
+        TaskRegistry.TaskEntry entry = taskRegistry.register(1L);
+        taskRegistry.start(entry, () -> false);
+
+        // Static mocks only apply to the thread which created them, stub log path again on the reader thread
+        CompletableFuture<Void> stream = CompletableFuture.runAsync(() -> {
+            try (MockedStatic<ProjectPathUtils> ignored = mockLogFilePath()) {
+                taskLogServiceGrpcImpl.getLog(request(0), responseObserver);
+            }
+        });
+
+        Files.writeString(logFile, "line1\n");
+        verify(responseObserver, timeout(5000))
+                .onNext(TaskLogReply.newBuilder().setText("line1").setOffset(6).build());
+
+        Files.writeString(logFile, "line2\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        taskRegistry.finish(entry);
+        stream.get(5, TimeUnit.SECONDS);
+
+        verify(responseObserver).onCompleted();
+        assertEquals("line1\nline2", joinReplies(captureReplies()));
+    }
+
+    private MockedStatic<ProjectPathUtils> mockLogFilePath() {
+        MockedStatic<ProjectPathUtils> mocked = mockStatic(ProjectPathUtils.class);
+        mocked.when(() -> ProjectPathUtils.getLogFilePath(anyLong())).thenReturn(logFile.toString());
+        return mocked;
+    }
+
+    private TaskLogRequest request(long offset) {
+        return TaskLogRequest.newBuilder().setTaskId(1L).setOffset(offset).build();
+    }
+
+    private List<TaskLogReply> captureReplies() {
+        ArgumentCaptor<TaskLogReply> captor = ArgumentCaptor.forClass(TaskLogReply.class);
+        verify(responseObserver, atLeastOnce()).onNext(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private String joinReplies(List<TaskLogReply> replies) {
+        return replies.stream().map(TaskLogReply::getText).collect(Collectors.joining("\n"));
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.grpc.service;
+
+import org.apache.bigtop.manager.agent.cache.TemplateStore;
+import org.apache.bigtop.manager.common.utils.ChecksumUtils;
+import org.apache.bigtop.manager.common.utils.ProjectPathUtils;
+import org.apache.bigtop.manager.grpc.generated.SaveTemplatesReply;
+import org.apache.bigtop.manager.grpc.generated.SaveTemplatesRequest;
+import org.apache.bigtop.manager.grpc.generated.TemplateBlob;
+import org.apache.bigtop.manager.grpc.generated.TemplateChecksumsReply;
+import org.apache.bigtop.manager.grpc.generated.TemplateChecksumsRequest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.grpc.stub.StreamObserver;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class TemplateServiceGrpcImplTest {
+
+    private TemplateServiceGrpcImpl templateServiceGrpcImpl;
+
+    @Mock
+    private StreamObserver<TemplateChecksumsReply> checksumsObserver;
+
+    @Mock
+    private StreamObserver<SaveTemplatesReply> saveObserver;
+
+    @TempDir
+    private Path cacheDir;
+
+    @BeforeEach
+    public void setUp() {
+        templateServiceGrpcImpl = new TemplateServiceGrpcImpl();
+    }
+
+    @Test
+    public void testSaveAndGetMissingTemplates() throws Exception {
+        try (MockedStatic<ProjectPathUtils> mockedStatic = mockStatic(ProjectPathUtils.class)) {
+            mockedStatic.when(ProjectPathUtils::getAgentCachePath).thenReturn(cacheDir.toString());
+
+            String content = "export JAVA_HOME=${java_home}";
+            String checksum = ChecksumUtils.sha256(content);
+            String absent = ChecksumUtils.sha256("absent");
+
+            templateServiceGrpcImpl.saveTemplates(
+                    SaveTemplatesRequest.newBuilder()
+                            .addTemplates(TemplateBlob.newBuilder()
+                                    .setChecksum(checksum)
+                                    .setContent(content))
+                            .build(),
+                    saveObserver);
+            verify(saveObserver).onCompleted();
+            assertEquals(content, TemplateStore.read(checksum));
+
+            templateServiceGrpcImpl.getMissingTemplates(
+                    TemplateChecksumsRequest.newBuilder()
+                            .addChecksums(checksum)
+                            .addChecksums(absent)
+                            .build(),
+                    checksumsObserver);
+
+            ArgumentCaptor<TemplateChecksumsReply> captor = ArgumentCaptor.forClass(TemplateChecksumsReply.class);
+            verify(checksumsObserver).onNext(captor.capture());
+            assertEquals(List.of(absent), captor.getValue().getChecksumsList());
+        }
+    }
+
+    @Test
+    public void testSaveTemplateWithWrongChecksum() {
+        try (MockedStatic<ProjectPathUtils> mockedStatic = mockStatic(ProjectPathUtils.class)) {
+            mockedStatic.when(ProjectPathUtils::getAgentCachePath).thenReturn(cacheDir.toString());
+
+            String checksum = ChecksumUtils.sha256("expected");
+            templateServiceGrpcImpl.saveTemplates(
+                    SaveTemplatesRequest.newBuilder()
+                            .addTemplates(TemplateBlob.newBuilder()
+                                    .setChecksum(checksum)
+                                    .setContent("tampered"))
+                            .build(),
+                    saveObserver);
+
+            verify(saveObserver).onError(any(IllegalArgumentException.class));
+            verify(saveObserver, never()).onCompleted();
+            assertFalse(TemplateStore.contains(checksum));
+        }
+    }
+}
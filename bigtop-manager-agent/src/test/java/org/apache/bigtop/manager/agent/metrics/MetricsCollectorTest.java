@@ -19,6 +19,13 @@
 package org.apache.bigtop.manager.agent.metrics;
 
 import org.apache.bigtop.manager.agent.monitoring.AgentHostMonitoring;
+import org.apache.bigtop.manager.agent.monitoring.ComponentProcessMonitoring;
+import org.apache.bigtop.manager.agent.monitoring.ComponentProcessSample;
+import org.apache.bigtop.manager.agent.monitoring.ComponentProcessSampler;
+import org.apache.bigtop.manager.agent.monitoring.HostMetricsHistory;
+import org.apache.bigtop.manager.agent.monitoring.HostMetricsSampler;
+import org.apache.bigtop.manager.agent.monitoring.HostSample;
+import org.apache.bigtop.manager.stack.core.executor.StackExecutor;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -27,36 +34,51 @@ import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import io.micrometer.core.instrument.MultiGauge;
+import java.util.List;
+import java.util.Map;
 
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 public class MetricsCollectorTest {
 
     @Mock
-    private MultiGauge diskMultiGauge;
+    private HostMetricsSampler hostMetricsSampler;
 
     @Mock
-    private MultiGauge memMultiGauge;
+    private AgentHostMonitoring agentHostMonitoring;
 
     @Mock
-    private MultiGauge cpuMultiGauge;
+    private HostMetricsHistory hostMetricsHistory;
 
     @Mock
-    private MultiGauge diskIOMultiGauge;
+    private ComponentProcessSampler componentProcessSampler;
+
+    @Mock
+    private ComponentProcessMonitoring componentProcessMonitoring;
 
     @InjectMocks
     private MetricsCollector metricsCollector;
 
     @Test
     public void testCollect() {
-        try (MockedStatic<AgentHostMonitoring> mockedStatic = mockStatic(AgentHostMonitoring.class)) {
+        HostSample sample = new HostSample();
+        when(hostMetricsSampler.sample()).thenReturn(sample);
+        Map<String, Map<String, String>> pidFiles = Map.of("hadoop", Map.of("nodemanager", "/tmp/nm.pid"));
+        List<ComponentProcessSample> processSamples = List.of(new ComponentProcessSample());
+        when(componentProcessSampler.sample(pidFiles)).thenReturn(processSamples);
+
+        try (MockedStatic<StackExecutor> mocked = mockStatic(StackExecutor.class)) {
+            mocked.when(StackExecutor::getPidFiles).thenReturn(pidFiles);
             metricsCollector.collect();
-            mockedStatic.verify(() -> AgentHostMonitoring.diskMultiGaugeUpdateData(diskMultiGauge));
-            mockedStatic.verify(() -> AgentHostMonitoring.memMultiGaugeUpdateData(memMultiGauge));
-            mockedStatic.verify(() -> AgentHostMonitoring.cpuMultiGaugeUpdateData(cpuMultiGauge));
-            mockedStatic.verify(() -> AgentHostMonitoring.diskIOMultiGaugeUpdateData(diskIOMultiGauge));
         }
+
+        verify(hostMetricsSampler, times(1)).sample();
+        verify(agentHostMonitoring, times(1)).update(sample);
+        verify(hostMetricsHistory, times(1)).record(sample);
+        verify(componentProcessMonitoring, times(1)).update(processSamples);
     }
 }
@@ -20,236 +20,141 @@ package org.apache.bigtop.manager.agent.monitoring;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.Mock;
-import org.mockito.MockitoAnnotations;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.MultiGauge;
-import oshi.SystemInfo;
-import oshi.hardware.GlobalMemory;
-import oshi.hardware.HardwareAbstractionLayer;
-import oshi.software.os.OperatingSystem;
-
-import java.net.UnknownHostException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-
-import static org.junit.jupiter.api.Assertions.assertFalse;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.ArgumentMatchers.anyList;
-import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.times;
-import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class AgentHostMonitoringTest {
 
-    @Mock
-    private SystemInfo systemInfo;
-
-    @Mock
-    private HardwareAbstractionLayer hardwareAbstractionLayer;
-
-    @Mock
-    private GlobalMemory globalMemory;
-
-    @Mock
-    private MultiGauge diskMultiGauge;
-
-    @Mock
-    private MultiGauge memMultiGauge;
-
-    @Mock
-    private MultiGauge cpuMultiGauge;
-
-    @Mock
-    private MultiGauge diskIOMultiGauge;
-
-    @Mock
     private MeterRegistry registry;
 
+    private AgentHostMonitoring agentHostMonitoring;
+
     @BeforeEach
     void setUp() {
-        MockitoAnnotations.openMocks(this);
-        when(systemInfo.getOperatingSystem()).thenReturn(mock(OperatingSystem.class));
-        when(systemInfo.getHardware()).thenReturn(hardwareAbstractionLayer);
-        when(hardwareAbstractionLayer.getMemory()).thenReturn(globalMemory);
-        when(globalMemory.getAvailable()).thenReturn(100000L);
-        when(globalMemory.getTotal()).thenReturn(200000L);
+        HostFacts facts = new HostFacts();
+        facts.setHostname("host1");
+        facts.setOs("Linux");
+        facts.setArch("amd64");
+        facts.setCpuInfo("cpu");
+        facts.setLogicalCores(8);
+        facts.setPhysicalCores(4);
+        facts.setIpv4("10.0.0.1");
+        facts.setIpv4Gateway("10.0.0.254");
+        HostMetricsSampler sampler = mock(HostMetricsSampler.class);
+        when(sampler.getHostFacts()).thenReturn(facts);
+
+        registry = new SimpleMeterRegistry();
+        agentHostMonitoring = new AgentHostMonitoring(registry, sampler);
     }
 
     @Test
-    void testGetHostInfo() throws UnknownHostException {
-        JsonNode hostInfo = AgentHostMonitoring.getHostInfo();
-
-        // Check if the host information contains expected fields
-        assertTrue(hostInfo.has(AgentHostMonitoring.AGENT_BASE_INFO));
-        assertTrue(hostInfo.has(AgentHostMonitoring.BOOT_TIME));
-        assertTrue(hostInfo.has(AgentHostMonitoring.MEM_IDLE));
-        assertTrue(hostInfo.has(AgentHostMonitoring.MEM_TOTAL));
+    void testMetersBeforeFirstSample() {
+        assertEquals(1.0, registry.get(AgentHostMonitoring.INFO).gauge().value());
+        assertEquals(
+                4.0,
+                registry.get(AgentHostMonitoring.CPU_PHYSICAL_CORES).gauge().value());
+        assertTrue(
+                Double.isNaN(registry.get(AgentHostMonitoring.CPU_USAGE).gauge().value()));
     }
 
     @Test
-    void testGetDiskGauge() {
-        // Create a mock JsonNode object
-        JsonNode agentMonitoring = mock(JsonNode.class);
-
-        // Create a mock agentHostInfo object and set its fields
-        ObjectNode agentHostInfo = mock(ObjectNode.class);
-        when(agentMonitoring.get(AgentHostMonitoring.AGENT_BASE_INFO)).thenReturn(agentHostInfo);
-        when(agentHostInfo.fieldNames()).thenReturn(Collections.emptyIterator());
-
-        // Create a mock disksBaseInfo object and set its fields
-        ArrayNode disksBaseInfo = mock(ArrayNode.class);
-        when(agentMonitoring.get(AgentHostMonitoring.DISKS_BASE_INFO)).thenReturn(disksBaseInfo);
-
-        // Create a mock diskJsonNode object and set its fields
-        ObjectNode diskJsonNode = mock(ObjectNode.class);
-        when(disksBaseInfo.get(0)).thenReturn(diskJsonNode);
-        when(diskJsonNode.get(AgentHostMonitoring.DISK_NAME)).thenReturn(mock(JsonNode.class));
-        when(diskJsonNode.get(AgentHostMonitoring.DISK_IDLE)).thenReturn(mock(JsonNode.class));
-        when(diskJsonNode.get(AgentHostMonitoring.DISK_TOTAL)).thenReturn(mock(JsonNode.class));
-        when(diskJsonNode.get(AgentHostMonitoring.DISK_NAME).asText()).thenReturn("disk1");
-        when(diskJsonNode.get(AgentHostMonitoring.DISK_IDLE).asDouble()).thenReturn(0.9);
-        when(diskJsonNode.get(AgentHostMonitoring.DISK_TOTAL).asDouble()).thenReturn(100.0);
-
-        // Call the getDiskGauge method
-        Map<ArrayList<String>, Map<ArrayList<String>, Double>> diskGauge =
-                AgentHostMonitoring.getDiskGauge(agentMonitoring);
-
-        // Assert that the disk gauge data is populated correctly
-        assertNotNull(diskGauge);
-        assertFalse(diskGauge.isEmpty());
+    void testUpdate() {
+        agentHostMonitoring.update(sample(100, 1000));
+
+        assertEquals(0.5, registry.get(AgentHostMonitoring.CPU_USAGE).gauge().value());
+        assertEquals(
+                2048.0, registry.get(AgentHostMonitoring.MEMORY_TOTAL).gauge().value());
+        assertEquals(
+                1024.0,
+                registry.get(AgentHostMonitoring.FILESYSTEM_FREE)
+                        .tag(AgentHostMonitoring.DEVICE, "/dev/sda1")
+                        .gauge()
+                        .value());
+        assertEquals(
+                100.0,
+                registry.get(AgentHostMonitoring.DISK_READ)
+                        .tag(AgentHostMonitoring.DEVICE, "sda")
+                        .functionCounter()
+                        .count());
+
+        agentHostMonitoring.update(sample(300, 3000));
+        assertEquals(
+                300.0,
+                registry.get(AgentHostMonitoring.DISK_READ)
+                        .tag(AgentHostMonitoring.DEVICE, "sda")
+                        .functionCounter()
+                        .count());
+        assertEquals(
+                3000.0,
+                registry.get(AgentHostMonitoring.DISK_WRITTEN)
+                        .tag(AgentHostMonitoring.DEVICE, "sda")
+                        .functionCounter()
+                        .count());
+        assertEquals(
+                3000.0,
+                registry.get(AgentHostMonitoring.NETWORK_RECEIVED)
+                        .tag(AgentHostMonitoring.DEVICE, "eth0")
+                        .functionCounter()
+                        .count());
     }
 
     @Test
-    void testGetCPUGauge() {
-        ObjectMapper objectMapper = new ObjectMapper();
-        ObjectNode agentMonitoring = objectMapper.createObjectNode();
-        ObjectNode agentHostInfo = objectMapper.createObjectNode();
-
-        // Set AGENT_BASE_INFO fields
-        agentHostInfo.put("field1", "value1");
-        agentHostInfo.put("field2", "value2");
-        agentMonitoring.set(AgentHostMonitoring.AGENT_BASE_INFO, agentHostInfo);
-
-        // Set CPU related fields
-        agentMonitoring
-                .put(AgentHostMonitoring.CPU_LOAD_AVG_MIN_1, 1.0)
-                .put(AgentHostMonitoring.CPU_LOAD_AVG_MIN_5, 5.0)
-                .put(AgentHostMonitoring.CPU_LOAD_AVG_MIN_15, 15.0)
-                .put(AgentHostMonitoring.CPU_USAGE, 10.0);
-
-        Map<ArrayList<String>, Map<ArrayList<String>, Double>> cpuGauge =
-                AgentHostMonitoring.getCPUGauge(agentMonitoring);
-
-        // Assert that the CPU gauge data is populated correctly
-        assertNotNull(cpuGauge);
-        assertFalse(cpuGauge.isEmpty());
+    void testLabelsAreBounded() {
+        agentHostMonitoring.update(sample(100, 1000));
+        agentHostMonitoring.update(sample(300, 3000));
+
+        Set<String> infoKeys = Set.of("host", "os", "arch", "cpu_info", "ipv4", "ipv4_gateway");
+        Set<String> keys = Set.of(AgentHostMonitoring.HOST, AgentHostMonitoring.DEVICE);
+        for (Meter meter : registry.getMeters()) {
+            Set<String> tagKeys =
+                    meter.getId().getTags().stream().map(Tag::getKey).collect(Collectors.toSet());
+            if (meter.getId().getName().equals(AgentHostMonitoring.INFO)) {
+                assertEquals(infoKeys, tagKeys);
+            } else {
+                assertTrue(keys.containsAll(tagKeys), meter.getId().toString());
+            }
+        }
+
+        // Values changed between samples, series did not
+        assertEquals(18, registry.getMeters().size());
     }
 
-    @Test
-    void testGetMEMGauge() {
-        ObjectMapper objectMapper = new ObjectMapper();
-        ObjectNode agentMonitoring = objectMapper.createObjectNode();
-        ObjectNode agentHostInfo = objectMapper.createObjectNode();
-
-        // Set AGENT_BASE_INFO fields
-        agentHostInfo.put("field1", "value1");
-        agentHostInfo.put("field2", "value2");
-        agentMonitoring.set(AgentHostMonitoring.AGENT_BASE_INFO, agentHostInfo);
-
-        // Set MEM related fields
-        agentMonitoring.put(AgentHostMonitoring.MEM_IDLE, 2000.0).put(AgentHostMonitoring.MEM_TOTAL, 4000.0);
-
-        Map<ArrayList<String>, Map<ArrayList<String>, Double>> memGauge =
-                AgentHostMonitoring.getMEMGauge(agentMonitoring);
-
-        // Assert that the MEM gauge data is populated correctly
-        assertNotNull(memGauge);
-        assertFalse(memGauge.isEmpty());
-    }
-
-    @Test
-    public void testNewDiskMultiGauge() {
-        MultiGauge result = AgentHostMonitoring.newDiskMultiGauge(registry);
-        assertNotNull(result);
-    }
-
-    @Test
-    public void testNewMemMultiGauge() {
-        MultiGauge result = AgentHostMonitoring.newMemMultiGauge(registry);
-        assertNotNull(result);
-    }
-
-    @Test
-    public void testNewCPUMultiGauge() {
-        MultiGauge result = AgentHostMonitoring.newCPUMultiGauge(registry);
-        assertNotNull(result);
-    }
-
-    @Test
-    public void testNewDiskIOMultiGauge() {
-        MultiGauge result = AgentHostMonitoring.newDiskIOMultiGauge(registry);
-        assertNotNull(result);
-    }
-
-    @Test
-    void testMultiGaugeUpdateData() {
-        // Create a mock Map object
-        Map<ArrayList<String>, Map<ArrayList<String>, Double>> diskGauge = new HashMap<>();
-        Map<ArrayList<String>, Double> innerMap = new HashMap<>();
-        innerMap.put(new ArrayList<>(Arrays.asList("label1", "label2")), 1.0);
-        diskGauge.put(new ArrayList<>(Arrays.asList("label1", "label2")), innerMap);
-
-        // Create a mock MultiGauge object
-        MultiGauge diskMultiGauge = mock(MultiGauge.class);
-
-        // Call the test method
-        AgentHostMonitoring.multiGaugeUpdateData(diskMultiGauge, diskGauge);
-
-        // Verify that the register method is called once
-        verify(diskMultiGauge, times(1)).register(anyList(), eq(true));
-    }
-
-    @Test
-    void testDiskMultiGaugeUpdateData() {
-        AgentHostMonitoring.diskMultiGaugeUpdateData(diskMultiGauge);
-
-        // Verify that the multi-gauge update method was called
-        verify(diskMultiGauge, times(1)).register(anyList(), eq(true));
-    }
-
-    @Test
-    void testMemMultiGaugeUpdateData() {
-        AgentHostMonitoring.memMultiGaugeUpdateData(memMultiGauge);
-
-        // Verify that the multi-gauge update method was called
-        verify(memMultiGauge, times(1)).register(anyList(), eq(true));
-    }
-
-    @Test
-    void testCpuMultiGaugeUpdateData() {
-        AgentHostMonitoring.cpuMultiGaugeUpdateData(cpuMultiGauge);
-
-        // Verify that the multi-gauge update method was called
-        verify(cpuMultiGauge, times(1)).register(anyList(), eq(true));
-    }
-
-    @Test
-    void testDiskIOMultiGaugeUpdateData() {
-        AgentHostMonitoring.diskIOMultiGaugeUpdateData(diskIOMultiGauge);
-
-        // Verify that the multi-gauge update method was called
-        verify(diskIOMultiGauge, times(1)).register(anyList(), eq(true));
+    private HostSample sample(long readBytes, long writeBytes) {
+        HostSample sample = new HostSample();
+        sample.setCpuUsage(0.5);
+        sample.setMemTotal(2048);
+        sample.setMemAvailable(1024);
+        sample.setOpenFileDescriptors(readBytes);
+        sample.setMaxFileDescriptors(65536);
+
+        HostSample.FileStore store = new HostSample.FileStore();
+        store.setDevice("/dev/sda1");
+        store.setTotalSpace(4096);
+        store.setFreeSpace(1024);
+        sample.getFileStores().add(store);
+
+        HostSample.Disk disk = new HostSample.Disk();
+        disk.setDevice("sda");
+        disk.setReadBytes(readBytes);
+        disk.setWriteBytes(writeBytes);
+        sample.getDisks().add(disk);
+
+        HostSample.Network network = new HostSample.Network();
+        network.setDevice("eth0");
+        network.setReceivedBytes(writeBytes);
+        network.setTransmittedBytes(readBytes);
+        sample.getNetworks().add(network);
+        return sample;
     }
 }
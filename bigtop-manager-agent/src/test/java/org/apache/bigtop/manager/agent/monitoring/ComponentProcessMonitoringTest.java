@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.monitoring;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ComponentProcessMonitoringTest {
+
+    private MeterRegistry registry;
+
+    private ComponentProcessMonitoring componentProcessMonitoring;
+
+    @BeforeEach
+    void setUp() {
+        HostFacts facts = new HostFacts();
+        facts.setHostname("host1");
+        HostMetricsSampler sampler = mock(HostMetricsSampler.class);
+        when(sampler.getHostFacts()).thenReturn(facts);
+
+        registry = new SimpleMeterRegistry();
+        componentProcessMonitoring = new ComponentProcessMonitoring(registry, sampler);
+    }
+
+    @Test
+    void testUpdate() {
+        componentProcessMonitoring.update(List.of(sample(12.5, -1)));
+
+        assertEquals(
+                12.5,
+                registry.get(ComponentProcessMonitoring.CPU_TIME)
+                        .tags(AgentHostMonitoring.HOST, "host1")
+                        .tags(ComponentProcessMonitoring.SERVICE, "hadoop")
+                        .tags(ComponentProcessMonitoring.COMPONENT, "nodemanager")
+                        .functionCounter()
+                        .count());
+        assertEquals(
+                2048.0,
+                registry.get(ComponentProcessMonitoring.MEMORY_RSS).gauge().value());
+        // Values which can not be read are not exported as negative numbers
+        assertTrue(Double.isNaN(registry.get(ComponentProcessMonitoring.IO_READ)
+                .functionCounter()
+                .count()));
+        assertEquals(6, registry.getMeters().size());
+
+        componentProcessMonitoring.update(List.of(sample(20.0, 4096)));
+        assertEquals(
+                20.0,
+                registry.get(ComponentProcessMonitoring.CPU_TIME)
+                        .functionCounter()
+                        .count());
+        assertEquals(
+                4096.0,
+                registry.get(ComponentProcessMonitoring.IO_READ)
+                        .functionCounter()
+                        .count());
+        assertEquals(6, registry.getMeters().size());
+    }
+
+    @Test
+    void testComponentStopped() {
+        componentProcessMonitoring.update(List.of(sample(12.5, 4096)));
+        componentProcessMonitoring.update(List.of());
+
+        assertTrue(Double.isNaN(
+                registry.get(ComponentProcessMonitoring.THREADS).gauge().value()));
+        assertTrue(Double.isNaN(registry.get(ComponentProcessMonitoring.CPU_TIME)
+                .functionCounter()
+                .count()));
+    }
+
+    private ComponentProcessSample sample(double cpuTime, long readBytes) {
+        ComponentProcessSample sample = new ComponentProcessSample();
+        sample.setServiceName("hadoop");
+        sample.setComponentName("nodemanager");
+        sample.setPid(4242);
+        sample.setCpuTime(cpuTime);
+        sample.setRss(2048);
+        sample.setThreads(87);
+        sample.setOpenFileDescriptors(300);
+        sample.setReadBytes(readBytes);
+        sample.setWriteBytes(1024);
+        return sample;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.monitoring;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ComponentProcessSamplerTest {
+
+    private static final String STAT = "4242 (java (nm)) S 1 4242 4242 0 -1 4194560 100 0 0 0 1250 250 0 0 20 0 87 0 "
+            + "1000 5000000000 250000 18446744073709551615 1 1 0 0 0 0 0 0 0 0 0 0 17 3 0 0 0 0 0\n";
+
+    @TempDir
+    private Path root;
+
+    private Path proc;
+
+    private Path pidFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        proc = Files.createDirectories(root.resolve("proc"));
+        Path processDir = Files.createDirectories(proc.resolve("4242"));
+        Files.writeString(processDir.resolve("stat"), STAT);
+        Files.writeString(processDir.resolve("status"), "Name:\tjava\nVmRSS:\t  1048576 kB\nThreads:\t87\n");
+        Files.writeString(processDir.resolve("io"), "rchar: 100\nread_bytes: 4096\nwrite_bytes: 8192\n");
+        Path fd = Files.createDirectories(processDir.resolve("fd"));
+        for (int i = 0; i < 3; i++) {
+            Files.createFile(fd.resolve(String.valueOf(i)));
+        }
+
+        pidFile = Files.writeString(root.resolve("nodemanager.pid"), "4242\n");
+    }
+
+    @Test
+    void testSample() {
+        ComponentProcessSampler sampler = new ComponentProcessSampler(proc);
+        List<ComponentProcessSample> samples =
+                sampler.sample(Map.of("hadoop", Map.of("nodemanager", pidFile.toString())));
+
+        assertEquals(1, samples.size());
+        ComponentProcessSample sample = samples.get(0);
+        assertEquals("hadoop", sample.getServiceName());
+        assertEquals("nodemanager", sample.getComponentName());
+        assertEquals(4242L, sample.getPid());
+        assertEquals(15.0, sample.getCpuTime(), 1e-9);
+        assertEquals(87L, sample.getThreads());
+        assertEquals(1024L * 1024 * 1024, sample.getRss());
+        assertEquals(3L, sample.getOpenFileDescriptors());
+        assertEquals(4096L, sample.getReadBytes());
+        assertEquals(8192L, sample.getWriteBytes());
+    }
+
+    @Test
+    void testUnreadableFiles() throws IOException {
+        Files.delete(proc.resolve("4242/io"));
+
+        ComponentProcessSample sample = new ComponentProcessSampler(proc)
+                .sample(Map.of("hadoop", Map.of("nodemanager", pidFile.toString())))
+                .get(0);
+        assertEquals(-1L, sample.getReadBytes());
+        assertEquals(-1L, sample.getWriteBytes());
+    }
+
+    @Test
+    void testComponentNotRunning() throws IOException {
+        // Stale pid file and missing pid file
+        Files.writeString(root.resolve("datanode.pid"), "4343\n");
+        Map<String, Map<String, String>> pidFiles = Map.of(
+                "hadoop",
+                Map.of(
+                        "datanode", root.resolve("datanode.pid").toString(),
+                        "namenode", root.resolve("namenode.pid").toString()));
+
+        assertTrue(new ComponentProcessSampler(proc).sample(pidFiles).isEmpty());
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HostMetricsHistoryTest {
+
+    // Aligned to 5 minutes
+    private static final long NOW = 1_700_000_100L;
+
+    @Test
+    void testQueryRecentSamples() {
+        HostMetricsHistory history = new HostMetricsHistory();
+        history.record(sample(NOW - 30, 0.2));
+        history.record(sample(NOW - 15, 0.4));
+        history.record(sample(NOW, 0.6));
+
+        double[][] values = history.query(NOW - 30, NOW, 15, NOW);
+        assertEquals(0.2, values[HostMetricsHistory.CPU_USAGE][0], 1e-9);
+        assertEquals(0.4, values[HostMetricsHistory.CPU_USAGE][1], 1e-9);
+        assertEquals(0.6, values[HostMetricsHistory.CPU_USAGE][2], 1e-9);
+        assertEquals(3072.0, values[HostMetricsHistory.FILESYSTEM_TOTAL][2]);
+        assertEquals(30.0, values[HostMetricsHistory.DISK_READ][2], 1e-9);
+    }
+
+    @Test
+    void testLookbackAndMissingPoints() {
+        HostMetricsHistory history = new HostMetricsHistory();
+        history.record(sample(NOW - 60, 0.5));
+
+        // Points after the sample use it within 5 minutes, points before it have no value
+        double[][] values = history.query(NOW - 120, NOW, 60, NOW);
+        assertTrue(Double.isNaN(values[HostMetricsHistory.CPU_USAGE][0]));
+        assertEquals(0.5, values[HostMetricsHistory.CPU_USAGE][1], 1e-9);
+        assertEquals(0.5, values[HostMetricsHistory.CPU_USAGE][2], 1e-9);
+    }
+
+    @Test
+    void testDownsampling() {
+        HostMetricsHistory history = new HostMetricsHistory();
+        // Two hours of samples every 15 seconds, usage alternates between 0.2 and 0.6
+        for (long timestamp = NOW - 7200; timestamp < NOW; timestamp += 15) {
+            history.record(sample(timestamp, (timestamp / 15) % 2 == 0 ? 0.2 : 0.6));
+        }
+
+        // Older than 1 hour, only the 5 minutes ring has them
+        double[][] old = history.query(NOW - 7200, NOW - 6900, 300, NOW);
+        assertEquals(0.4, old[HostMetricsHistory.CPU_USAGE][0], 1e-9);
+        assertEquals(0.4, old[HostMetricsHistory.CPU_USAGE][1], 1e-9);
+
+        // Wide steps read averages of 5 minutes, not single samples
+        double[][] wide = history.query(NOW - 3600, NOW - 600, 600, NOW);
+        for (double value : wide[HostMetricsHistory.CPU_USAGE]) {
+            assertEquals(0.4, value, 1e-9);
+        }
+
+        // Small steps read single samples from the 15 seconds ring
+        double[][] recent = history.query(NOW - 315, NOW - 285, 15, NOW);
+        assertEquals(0.6, recent[HostMetricsHistory.CPU_USAGE][0], 1e-9);
+        assertEquals(0.2, recent[HostMetricsHistory.CPU_USAGE][1], 1e-9);
+    }
+
+    @Test
+    void testOldSamplesFallOut() {
+        HostMetricsHistory history = new HostMetricsHistory();
+        history.record(sample(NOW - 2 * 86400, 0.9));
+        history.record(sample(NOW, 0.1));
+
+        double[][] values = history.query(NOW - 2 * 86400, NOW - 2 * 86400, 300, NOW);
+        assertTrue(Double.isNaN(values[HostMetricsHistory.CPU_USAGE][0]));
+    }
+
+    private HostSample sample(long timestamp, double cpuUsage) {
+        HostSample sample = new HostSample();
+        sample.setTimestamp(timestamp * 1000);
+        sample.setCpuUsage(cpuUsage);
+        sample.setMemTotal(4096);
+        sample.setMemAvailable(1024);
+
+        for (int i = 0; i < 2; i++) {
+            HostSample.FileStore store = new HostSample.FileStore();
+            store.setTotalSpace(1024 * (i + 1));
+            sample.getFileStores().add(store);
+
+            HostSample.Disk disk = new HostSample.Disk();
+            disk.setReadRate(10 * (i + 1));
+            sample.getDisks().add(disk);
+        }
+
+        return sample;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import oshi.SystemInfo;
+import oshi.hardware.CentralProcessor;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HostMetricsSamplerTest {
+
+    @Test
+    void testSample() {
+        HostMetricsSampler sampler = new HostMetricsSampler();
+        sampler.sample();
+
+        // No waiting for counters to move, the previous sample is used
+        HostSample sample = assertTimeout(Duration.ofSeconds(2), sampler::sample);
+
+        assertNotNull(sampler.getHostFacts().getHostname());
+        assertNotNull(sampler.getHostFacts().getIpv4());
+        assertTrue(sample.getMemTotal() > 0);
+        assertTrue(sample.getCpuUsage() >= 0 && sample.getCpuUsage() <= 1);
+        sample.getDisks().forEach(disk -> assertTrue(disk.getReadRate() >= 0 && disk.getWriteRate() >= 0));
+        sample.getNetworks().forEach(network -> assertTrue(network.getReceiveRate() >= 0));
+    }
+
+    @Test
+    void testFallbackToOshi() {
+        HostCollector failing = counters -> {
+            throw new IOException("/proc/stat is gone");
+        };
+        HostMetricsSampler sampler = new HostMetricsSampler(new SystemInfo(), failing);
+
+        HostSample sample = sampler.sample();
+        assertTrue(sample.getMemTotal() > 0);
+        assertTrue(sample.getCpuUsage() >= 0 && sample.getCpuUsage() <= 1);
+    }
+
+    @Test
+    void testDeviceRates() {
+        long[] received = {1024, 3072};
+        int[] reads = {0};
+        HostCollector collector = counters -> {
+            counters.memTotal = 1024;
+            counters.networks.clear();
+            counters.networks.add("eth0", received[reads[0]++], 0);
+        };
+        HostMetricsSampler sampler = new HostMetricsSampler(new SystemInfo(), collector);
+
+        HostSample.Network network = sampler.sample().getNetworks().get(0);
+        assertEquals("eth0", network.getDevice());
+        assertEquals(3072, network.getReceivedBytes());
+        assertTrue(network.getReceiveRate() > 0);
+        assertEquals(0d, network.getTransmitRate());
+    }
+
+    @Test
+    void testCpuUsage() {
+        long[] previousTicks = new long[CentralProcessor.TickType.values().length];
+        long[] ticks = new long[CentralProcessor.TickType.values().length];
+        ticks[CentralProcessor.TickType.USER.getIndex()] = 30;
+        ticks[CentralProcessor.TickType.SYSTEM.getIndex()] = 10;
+        ticks[CentralProcessor.TickType.IDLE.getIndex()] = 50;
+        ticks[CentralProcessor.TickType.IOWAIT.getIndex()] = 10;
+
+        assertEquals(0.4, HostMetricsSampler.cpuUsage(previousTicks, ticks), 1e-9);
+        assertEquals(0d, HostMetricsSampler.cpuUsage(ticks, ticks));
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.monitoring;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import oshi.SystemInfo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ProcfsCollectorTest {
+
+    private static final String STAT =
+            """
+            cpu  100 2 30 400 5 6 7 8 9 10
+            cpu0 50 1 15 200 2 3 3 4 4 5
+            intr 12345 0 0
+            """;
+
+    private static final String MEMINFO =
+            """
+            MemTotal:       16318504 kB
+            MemFree:         1048576 kB
+            MemAvailable:    8159252 kB
+            Buffers:          204800 kB
+            Cached:          4096000 kB
+            """;
+
+    private static final String DISKSTATS =
+            """
+               8       0 sda 1000 10 2048 500 2000 20 4096 800 0 900 1300
+               8       1 sda1 900 10 1024 400 1900 20 2048 700 0 800 1100
+               7       0 loop0 10 0 80 1 0 0 0 0 0 1 1
+             259       0 nvme0n1 300 0 600 100 400 0 800 200 0 250 300
+            """;
+
+    private static final String NET_DEV =
+            """
+            Inter-|   Receive                          |  Transmit
+             face |bytes packets errs drop fifo frame compressed multicast|bytes packets errs drop ...
+                lo: 5000 50 0 0 0 0 0 0 5000 50 0 0 0 0 0 0
+              eth0: 123456 789 0 0 0 0 0 0 654321 987 0 0 0 0 0 0
+            """;
+
+    @TempDir
+    private Path root;
+
+    private Path proc;
+
+    private ProcfsCollector collector;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        proc = Files.createDirectories(root.resolve("proc"));
+        Path sysBlock = Files.createDirectories(root.resolve("sys/block"));
+        Files.createDirectories(sysBlock.resolve("sda"));
+        Files.createDirectories(sysBlock.resolve("loop0"));
+        Files.createDirectories(sysBlock.resolve("nvme0n1"));
+        Files.createDirectories(proc.resolve("net"));
+        Files.writeString(proc.resolve("stat"), STAT);
+        Files.writeString(proc.resolve("meminfo"), MEMINFO);
+        Files.writeString(proc.resolve("loadavg"), "0.20 1.5 12.05 1/80 11206\n");
+        Files.writeString(proc.resolve("diskstats"), DISKSTATS);
+        Files.writeString(proc.resolve("net/dev"), NET_DEV);
+
+        collector = new ProcfsCollector(proc, sysBlock);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        collector.close();
+    }
+
+    @Test
+    void testCollect() throws IOException {
+        HostCounters counters = new HostCounters();
+        collector.collect(counters);
+
+        assertArrayEquals(new long[] {100, 2, 30, 400, 5, 6, 7, 8}, counters.cpuTicks);
+        assertArrayEquals(new double[] {0.2, 1.5, 12.05}, counters.loadAverage, 1e-9);
+        assertEquals(16318504L * 1024, counters.memTotal);
+        assertEquals(8159252L * 1024, counters.memAvailable);
+
+        // Partitions and loop devices are skipped
+        assertEquals(2, counters.disks.size());
+        assertEquals("sda", counters.disks.name(0));
+        assertEquals(2048L * 512, counters.disks.first(0));
+        assertEquals(4096L * 512, counters.disks.second(0));
+        assertEquals("nvme0n1", counters.disks.name(1));
+
+        // Loopback is skipped
+        assertEquals(1, counters.networks.size());
+        assertEquals("eth0", counters.networks.name(0));
+        assertEquals(123456L, counters.networks.first(0));
+        assertEquals(654321L, counters.networks.second(0));
+    }
+
+    @Test
+    void testSameAsOshi() throws IOException {
+        assumeTrue(ProcfsCollector.isSupported());
+
+        HostCounters counters = new HostCounters();
+        HostCounters oshiCounters = new HostCounters();
+        try (ProcfsCollector procfsCollector = new ProcfsCollector()) {
+            procfsCollector.collect(counters);
+        }
+
+        new OshiCollector(new SystemInfo()).collect(oshiCounters);
+        assertEquals(oshiCounters.memTotal, counters.memTotal);
+    }
+
+    @Test
+    void testCollectAgain() throws IOException {
+        HostCounters counters = new HostCounters();
+        collector.collect(counters);
+        String name = counters.networks.name(0);
+
+        Files.writeString(proc.resolve("stat"), STAT.replace("cpu  100", "cpu  200"));
+        Files.writeString(proc.resolve("net/dev"), NET_DEV.replace("123456", "223456"));
+        collector.collect(counters);
+
+        assertEquals(200L, counters.cpuTicks[0]);
+        assertEquals(223456L, counters.networks.first(0));
+        // Same device keeps its name instance
+        assertTrue(name == counters.networks.name(0));
+    }
+
+    @Test
+    void testWithoutMemAvailable() throws IOException {
+        Files.writeString(proc.resolve("meminfo"), MEMINFO.replaceAll("MemAvailable:.*\n", ""));
+
+        HostCounters counters = new HostCounters();
+        collector.collect(counters);
+        assertEquals((1048576L + 204800L + 4096000L) * 1024, counters.memAvailable);
+    }
+
+    @Test
+    void testLargeFile() throws IOException {
+        // More than the initial buffer, the buffer grows
+        StringBuilder meminfo = new StringBuilder(MEMINFO);
+        for (int i = 0; i < 2000; i++) {
+            meminfo.append("Padding").append(i).append(":       0 kB\n");
+        }
+        meminfo.append("MemTotal:       1024 kB\n");
+        Files.writeString(proc.resolve("meminfo"), meminfo);
+
+        HostCounters counters = new HostCounters();
+        collector.collect(counters);
+        assertEquals(1024L * 1024, counters.memTotal);
+    }
+
+    @Test
+    void testUnexpectedContent() throws IOException {
+        Files.writeString(proc.resolve("stat"), "intr 12345 0 0\n");
+
+        assertThrows(IOException.class, () -> collector.collect(new HostCounters()));
+    }
+}
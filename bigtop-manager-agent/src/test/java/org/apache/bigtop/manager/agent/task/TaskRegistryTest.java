@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.task;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TaskRegistryTest {
+
+    @Test
+    public void testConcurrentTasks() throws Exception {
+        TaskRegistry taskRegistry = new TaskRegistry(2);
+        TaskRegistry.TaskEntry task1 = taskRegistry.register(1L);
+        TaskRegistry.TaskEntry task2 = taskRegistry.register(2L);
+        TaskRegistry.TaskEntry task3 = taskRegistry.register(3L);
+
+        assertTrue(taskRegistry.start(task1, () -> false));
+        assertTrue(taskRegistry.start(task2, () -> false));
+        assertEquals(2, taskRegistry.getRunningCount());
+
+        // Third task waits for a free slot
+        CompletableFuture<Boolean> third = CompletableFuture.supplyAsync(() -> taskRegistry.start(task3, () -> false));
+        assertFalse(third.isDone());
+
+        taskRegistry.finish(task1);
+        assertTrue(third.get(5, TimeUnit.SECONDS));
+        assertFalse(taskRegistry.contains(1L));
+        assertTrue(taskRegistry.contains(3L));
+        assertEquals(2, taskRegistry.getRunningCount());
+
+        taskRegistry.finish(task2);
+        taskRegistry.finish(task3);
+        assertEquals(0, taskRegistry.getRunningCount());
+    }
+
+    @Test
+    public void testCancelWhileWaiting() {
+        TaskRegistry taskRegistry = new TaskRegistry(1);
+        TaskRegistry.TaskEntry task1 = taskRegistry.register(1L);
+        TaskRegistry.TaskEntry task2 = taskRegistry.register(2L);
+        assertTrue(taskRegistry.start(task1, () -> false));
+
+        AtomicBoolean cancelled = new AtomicBoolean(true);
+        assertFalse(taskRegistry.start(task2, cancelled::get));
+
+        // Finishing twice or a task never started does not release extra slots
+        taskRegistry.finish(task2);
+        taskRegistry.finish(task1);
+        taskRegistry.finish(task1);
+        assertEquals(0, taskRegistry.getRunningCount());
+    }
+
+    @Test
+    public void testRegisterTwice() {
+        TaskRegistry taskRegistry = new TaskRegistry(2);
+        TaskRegistry.TaskEntry previous = taskRegistry.register(1L);
+        assertTrue(taskRegistry.start(previous, () -> false));
+
+        // Server retried while the old call is still running, it keeps its slot
+        TaskRegistry.TaskEntry entry = taskRegistry.register(1L);
+        assertTrue(taskRegistry.start(entry, () -> false));
+        assertEquals(2, taskRegistry.getRunningCount());
+
+        // Old call finishing does not remove the new one
+        taskRegistry.finish(previous);
+        assertTrue(taskRegistry.contains(1L));
+        assertEquals(1, taskRegistry.getRunningCount());
+
+        taskRegistry.finish(entry);
+        assertFalse(taskRegistry.contains(1L));
+        assertEquals(0, taskRegistry.getRunningCount());
+    }
+}
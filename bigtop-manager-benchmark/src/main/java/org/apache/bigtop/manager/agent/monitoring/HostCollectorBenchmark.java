@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.agent.monitoring;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import oshi.SystemInfo;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare cost of reading host counters with procfs and OSHI, Linux only.
+ * <p/>
+ * Run with {@code java -jar target/benchmarks.jar HostCollectorBenchmark -prof gc} to see allocation as well.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HostCollectorBenchmark {
+
+    private final HostCounters counters = new HostCounters();
+
+    private ProcfsCollector procfsCollector;
+
+    private OshiCollector oshiCollector;
+
+    @Setup
+    public void setUp() throws IOException {
+        if (!ProcfsCollector.isSupported()) {
+            throw new IllegalStateException("procfs is not available on this host");
+        }
+
+        procfsCollector = new ProcfsCollector();
+        oshiCollector = new OshiCollector(new SystemInfo());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        procfsCollector.close();
+    }
+
+    @Benchmark
+    public HostCounters procfs() throws IOException {
+        procfsCollector.collect(counters);
+        return counters;
+    }
+
+    @Benchmark
+    public HostCounters oshi() {
+        oshiCollector.collect(counters);
+        return counters;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.grpc.utils;
+
+import org.apache.bigtop.manager.grpc.generated.JobCachePayloadMessage;
+import org.apache.bigtop.manager.grpc.payload.JobCachePayload;
+import org.apache.bigtop.manager.grpc.pojo.ClusterInfo;
+import org.apache.bigtop.manager.grpc.pojo.RepoInfo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare encode/decode cost of JSON and protobuf on a job cache of a mid-size cluster.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadEncodingBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private JobCachePayload payload;
+
+    private String json;
+
+    private byte[] binary;
+
+    @Setup
+    public void setUp() throws IOException {
+        payload = createPayload(20, 10, 200);
+        json = objectMapper.writeValueAsString(payload);
+        binary = PayloadConverter.toMessage(payload).toByteArray();
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() throws IOException {
+        return objectMapper.writeValueAsString(payload).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public JobCachePayload jsonDecode() throws IOException {
+        return objectMapper.readValue(json, JobCachePayload.class);
+    }
+
+    @Benchmark
+    public byte[] protobufEncode() {
+        return PayloadConverter.toMessage(payload).toByteArray();
+    }
+
+    @Benchmark
+    public JobCachePayload protobufDecode() throws InvalidProtocolBufferException {
+        return PayloadConverter.fromMessage(JobCachePayloadMessage.parseFrom(binary));
+    }
+
+    private JobCachePayload createPayload(int services, int configsPerService, int hosts) {
+        List<String> hostnames = new ArrayList<>();
+        for (int i = 0; i < hosts; i++) {
+            hostnames.add("host-" + i + ".bigtop.apache.org");
+        }
+
+        // Configurations are JSON strings of key/value properties, just like what server sends
+        Map<String, Map<String, String>> configurations = new HashMap<>();
+        Map<String, List<String>> componentHosts = new HashMap<>();
+        Map<String, String> userInfo = new HashMap<>();
+        for (int i = 0; i < services; i++) {
+            Map<String, String> configs = new HashMap<>();
+            for (int j = 0; j < configsPerService; j++) {
+                StringBuilder properties = new StringBuilder("{");
+                for (int k = 0; k < 20; k++) {
+                    properties.append(k == 0 ? "" : ",");
+                    properties
+                            .append("\"service")
+                            .append(i)
+                            .append(".property.")
+                            .append(k)
+                            .append("\":");
+                    properties
+                            .append("\"/opt/service")
+                            .append(i)
+                            .append("/value-")
+                            .append(k)
+                            .append("\"");
+                }
+
+                configs.put("config-" + j, properties.append("}").toString());
+            }
+
+            configurations.put("service" + i, configs);
+            componentHosts.put("service" + i + "_server", hostnames.subList(0, 3));
+            componentHosts.put("service" + i + "_client", hostnames);
+            userInfo.put("service" + i, "user" + i);
+        }
+
+        ClusterInfo clusterInfo = new ClusterInfo();
+        clusterInfo.setName("cluster");
+        clusterInfo.setUserGroup("hadoop");
+        clusterInfo.setRootDir("/opt");
+
+        JobCachePayload payload = new JobCachePayload();
+        payload.setCurrentClusterId(1L);
+        payload.setClusterId(1L);
+        payload.setClusterInfo(clusterInfo);
+        payload.setConfigurations(configurations);
+        payload.setComponentHosts(componentHosts);
+        payload.setUserInfo(userInfo);
+        payload.setRepoInfo(List.of(new RepoInfo("bigtop", "x86_64", "http://repo", "bigtop.tar.gz", "sha", 1)));
+        payload.setHosts(hostnames);
+        return payload;
+    }
+}
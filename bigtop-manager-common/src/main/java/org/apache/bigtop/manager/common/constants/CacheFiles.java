@@ -54,4 +54,9 @@ public class CacheFiles {
      * components info
      */
     public static final String COMPONENTS_INFO = "/components.json";
+
+    /**
+     * version of cached cluster info
+     */
+    public static final String VERSION_INFO = "/version";
 }
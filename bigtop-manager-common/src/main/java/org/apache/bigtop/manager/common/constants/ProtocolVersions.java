@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.common.constants;
+
+/**
+ * Versions of the protocol between server and agent, agent reports the version it supports in heartbeat.
+ * Server keeps using the old protocol for agents which have not reported a version.
+ */
+public class ProtocolVersions {
+
+    /**
+     * payloads are JSON strings
+     */
+    public static final int JSON_PAYLOAD = 0;
+
+    /**
+     * payloads are protobuf messages
+     */
+    public static final int BINARY_PAYLOAD = 1;
+
+    /**
+     * templates are referenced by checksum, contents are sent once to the agent's template store
+     */
+    public static final int TEMPLATE_REFERENCE = 2;
+
+    /**
+     * agent runs multiple component tasks at the same time
+     */
+    public static final int CONCURRENT_TASKS = 3;
+
+    /**
+     * agent keeps recent host metrics and serves range queries on them
+     */
+    public static final int METRICS_HISTORY = 4;
+
+    /**
+     * version of this release
+     */
+    public static final int CURRENT = METRICS_HISTORY;
+}
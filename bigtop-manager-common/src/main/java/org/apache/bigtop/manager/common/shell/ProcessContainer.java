@@ -20,6 +20,7 @@ package org.apache.bigtop.manager.common.shell;
 
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -31,6 +32,11 @@ public class ProcessContainer extends ConcurrentHashMap<Integer, Process> {
 
     private static final ProcessContainer container = new ProcessContainer();
 
+    // Task bound to current thread, processes started by this thread belong to the task
+    private static final ThreadLocal<Long> CURRENT_TASK = new ThreadLocal<>();
+
+    private static final Map<Long, Set<Process>> TASK_PROCESSES = new ConcurrentHashMap<>();
+
     private ProcessContainer() {
         super();
     }
@@ -39,8 +45,27 @@ public class ProcessContainer extends ConcurrentHashMap<Integer, Process> {
         return container;
     }
 
+    public static void bindTask(Long taskId) {
+        CURRENT_TASK.set(taskId);
+    }
+
+    public static void unbindTask() {
+        Long taskId = CURRENT_TASK.get();
+        if (taskId != null) {
+            TASK_PROCESSES.remove(taskId);
+            CURRENT_TASK.remove();
+        }
+    }
+
     public static void putProcess(Process process) {
         getInstance().put(process.hashCode(), process);
+
+        Long taskId = CURRENT_TASK.get();
+        if (taskId != null) {
+            TASK_PROCESSES
+                    .computeIfAbsent(taskId, k -> ConcurrentHashMap.newKeySet())
+                    .add(process);
+        }
     }
 
     public static int processSize() {
@@ -49,6 +74,41 @@ public class ProcessContainer extends ConcurrentHashMap<Integer, Process> {
 
     public static void removeProcess(Process process) {
         getInstance().remove(process.hashCode());
+
+        Long taskId = CURRENT_TASK.get();
+        if (taskId != null) {
+            Set<Process> processes = TASK_PROCESSES.get(taskId);
+            if (processes != null) {
+                processes.remove(process);
+            }
+        }
+    }
+
+    /**
+     * Destroy processes started for the task, including their child processes.
+     *
+     * @param taskId task id
+     * @return number of processes destroyed
+     */
+    public static int destroyTaskProcess(Long taskId) {
+        Set<Process> processes = TASK_PROCESSES.get(taskId);
+        if (processes == null) {
+            return 0;
+        }
+
+        int count = 0;
+        for (Process process : processes) {
+            try {
+                process.descendants().forEach(ProcessHandle::destroyForcibly);
+                process.destroyForcibly();
+                count++;
+            } catch (Exception e) {
+                log.error("Destroy process of task {} error", taskId, e);
+            }
+        }
+
+        log.info("Destroyed {} processes of task {}", count, taskId);
+        return count;
     }
 
     public static void destroyAllProcess() {
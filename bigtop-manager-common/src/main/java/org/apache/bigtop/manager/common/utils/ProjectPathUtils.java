@@ -35,6 +35,10 @@ public class ProjectPathUtils {
         return getProjectBaseDir() + File.separator + "tasklogs" + File.separator + "task-" + taskId + ".log";
     }
 
+    public static String getTaskLogArchivePath(Long taskId) {
+        return getProjectStoreDir() + File.separator + "task-logs" + File.separator + "task-" + taskId + ".log.gz";
+    }
+
     public static String getKeyStorePath() {
         return getProjectStoreDir() + File.separator + "keys";
     }
@@ -22,8 +22,11 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import java.util.stream.Stream;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class ProcessContainerTest {
 
@@ -70,4 +73,22 @@ class ProcessContainerTest {
         verify(process1).destroy();
         verify(process2).destroy();
     }
+
+    @Test
+    void testDestroyTaskProcess() {
+        Process process = Mockito.mock(Process.class);
+        when(process.descendants()).thenReturn(Stream.empty());
+
+        // Processes started while a task is bound to the thread belong to the task
+        ProcessContainer.bindTask(1L);
+        ProcessContainer.putProcess(process);
+
+        assertEquals(0, ProcessContainer.destroyTaskProcess(2L));
+        assertEquals(1, ProcessContainer.destroyTaskProcess(1L));
+        verify(process).destroyForcibly();
+
+        // Nothing left to destroy once the task finished
+        ProcessContainer.unbindTask();
+        assertEquals(0, ProcessContainer.destroyTaskProcess(1L));
+    }
 }
@@ -25,6 +25,7 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Id;
 import jakarta.persistence.Lob;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import java.io.Serializable;
 
 @Data
@@ -48,4 +49,10 @@ public class JobPO extends BasePO implements Serializable {
 
     @Column(name = "cluster_id")
     private Long clusterId;
+
+    @Transient
+    private Integer stageNum;
+
+    @Transient
+    private Integer startedStageNum;
 }
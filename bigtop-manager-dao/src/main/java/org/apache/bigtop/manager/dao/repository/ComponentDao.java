@@ -38,4 +38,9 @@ public interface ComponentDao extends BaseDao<ComponentPO> {
             @Param("serviceName") String serviceName, @Param("hostname") String hostname);
 
     ComponentPO findDetailsById(@Param("id") Long id);
+
+    /**
+     * Update status of multiple components in one statement.
+     */
+    int updateStatuses(@Param("components") List<ComponentPO> components);
 }
@@ -38,4 +38,12 @@ public interface HostDao extends BaseDao<HostPO> {
     List<HostPO> findAllByHostnames(@Param("hostnames") Collection<String> hostnames);
 
     List<HostPO> findAllByClusterId(@Param("clusterId") Long clusterId);
+
+    /**
+     * Update host info and status of multiple hosts in one statement, error info is cleared.
+     */
+    int updateHeartbeats(@Param("hosts") List<HostPO> hosts);
+
+    int updateStatusByIds(
+            @Param("ids") Collection<Long> ids, @Param("status") Integer status, @Param("errInfo") String errInfo);
 }
@@ -28,4 +28,9 @@ import java.util.List;
 public interface JobDao extends BaseDao<JobPO> {
 
     List<JobPO> findByClusterId(@Param("clusterId") Long clusterId);
+
+    /**
+     * Count stages of each job in one query, only id, stageNum and startedStageNum are filled.
+     */
+    List<JobPO> findStageNumByIds(@Param("ids") List<Long> ids, @Param("startedStates") List<String> startedStates);
 }
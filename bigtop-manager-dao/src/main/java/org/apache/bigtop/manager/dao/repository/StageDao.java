@@ -28,4 +28,10 @@ import java.util.List;
 public interface StageDao extends BaseDao<StagePO> {
 
     List<StagePO> findByJobId(@Param("jobId") Long jobId);
+
+    /**
+     * Update state of all stages in a job with one statement, only the ones in fromStates if it's not null.
+     */
+    int updateStateByJobId(
+            @Param("jobId") Long jobId, @Param("state") String state, @Param("fromStates") List<String> fromStates);
 }
@@ -28,4 +28,12 @@ import java.util.List;
 public interface TaskDao extends BaseDao<TaskPO> {
 
     List<TaskPO> findByStageId(@Param("stageId") Long stageId);
+
+    List<TaskPO> findByStageIds(@Param("stageIds") List<Long> stageIds);
+
+    /**
+     * Update state of all tasks in a job with one statement, only the ones in fromStates if it's not null.
+     */
+    int updateStateByJobId(
+            @Param("jobId") Long jobId, @Param("state") String state, @Param("fromStates") List<String> fromStates);
 }
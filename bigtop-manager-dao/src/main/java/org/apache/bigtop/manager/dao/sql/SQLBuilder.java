@@ -106,81 +106,50 @@ public class SQLBuilder {
             throw new IllegalArgumentException("Entities list must not be null or empty");
         }
 
-        Class<?> entityClass = entities.get(0).getClass();
         Map<String, String> fieldColumnMap = tableMetaData.getFieldColumnMap();
 
+        // All rows must have the same columns, so include a column if any row has a value for it
+        List<String> fields = getInsertListFields(tableMetaData, entities);
+
         SQL sql = new SQL();
         switch (DBType.toType(databaseId)) {
             case MYSQL: {
                 sql.INSERT_INTO(keywordsFormat(tableMetaData.getTableName(), DBType.MYSQL));
 
-                boolean firstRow = true;
-                int idx = 0;
-                for (Entity entity : entities) {
+                for (int idx = 0; idx < entities.size(); idx++) {
                     List<String> values = new ArrayList<>();
-                    for (Map.Entry<String, String> entry : fieldColumnMap.entrySet()) {
-                        // Ignore primary key
-                        if (Objects.equals(entry.getKey(), tableMetaData.getPkProperty())) {
-                            continue;
-                        }
-                        PropertyDescriptor ps = BeanUtils.getPropertyDescriptor(entityClass, entry.getKey());
-                        if (ps == null || ps.getReadMethod() == null) {
-                            continue;
-                        }
-                        Object value = ReflectionUtils.invokeMethod(ps.getReadMethod(), entity);
-                        if (!ObjectUtils.isEmpty(value)) {
-                            if (firstRow) {
-                                sql.VALUES(
-                                        keywordsFormat(entry.getValue(), DBType.MYSQL),
-                                        getTokenParam("arg0[" + idx + "]." + entry.getKey()));
-                            }
-                            values.add(getTokenParam("arg0[" + idx + "]." + entry.getKey()));
+                    for (String field : fields) {
+                        if (idx == 0) {
+                            sql.VALUES(
+                                    keywordsFormat(fieldColumnMap.get(field), DBType.MYSQL),
+                                    getTokenParam("arg0[" + idx + "]." + field));
                         }
+                        values.add(getTokenParam("arg0[" + idx + "]." + field));
                     }
-                    if (firstRow) {
-                        firstRow = false;
-                    } else {
+                    if (idx > 0) {
                         sql.ADD_ROW();
                         sql.INTO_VALUES(values.toArray(new String[0]));
                     }
-                    idx++;
                 }
                 break;
             }
             case POSTGRESQL: {
                 sql.INSERT_INTO(keywordsFormat(tableMetaData.getTableName(), DBType.POSTGRESQL));
 
-                boolean firstRow = true;
-                List<String> columns = new ArrayList<>();
-                int idx = 0;
-                for (Entity entity : entities) {
+                for (int idx = 0; idx < entities.size(); idx++) {
                     List<String> values = new ArrayList<>();
-                    for (Map.Entry<String, String> entry : fieldColumnMap.entrySet()) {
-                        // Ignore primary key
-                        if (Objects.equals(entry.getKey(), tableMetaData.getPkProperty())) {
-                            continue;
-                        }
-                        PropertyDescriptor ps = BeanUtils.getPropertyDescriptor(entityClass, entry.getKey());
-                        if (ps == null || ps.getReadMethod() == null) {
-                            continue;
-                        }
-                        Object value = ReflectionUtils.invokeMethod(ps.getReadMethod(), entity);
-                        if (!ObjectUtils.isEmpty(value)) {
-                            if (firstRow) {
-                                sql.VALUES(
-                                        keywordsFormat(entry.getValue(), DBType.POSTGRESQL),
-                                        getTokenParam("arg0[" + idx + "]." + entry.getKey()));
-                            }
-                            values.add(getTokenParam("arg0[" + idx + "]." + entry.getKey()));
+                    for (String field : fields) {
+                        if (idx == 0) {
+                            sql.VALUES(
+                                    keywordsFormat(fieldColumnMap.get(field), DBType.POSTGRESQL),
+                                    getTokenParam("arg0[" + idx + "]." + field));
                         }
+                        values.add(getTokenParam("arg0[" + idx + "]." + field));
                     }
-                    if (firstRow) {
-                        firstRow = false;
-                    } else {
+                    if (idx > 0) {
                         sql.ADD_ROW();
                         sql.INTO_VALUES(values.toArray(new String[0]));
                     }
-                    idx++;
                 }
                 break;
             }
@@ -193,6 +162,30 @@ public class SQLBuilder {
         return sql.toString();
     }
 
+    private static <Entity> List<String> getInsertListFields(TableMetaData tableMetaData, List<Entity> entities) {
+        Class<?> entityClass = entities.get(0).getClass();
+        List<String> fields = new ArrayList<>();
+        for (String field : tableMetaData.getFieldColumnMap().keySet()) {
+            // Ignore primary key
+            if (Objects.equals(field, tableMetaData.getPkProperty())) {
+                continue;
+            }
+            PropertyDescriptor ps = BeanUtils.getPropertyDescriptor(entityClass, field);
+            if (ps == null || ps.getReadMethod() == null) {
+                continue;
+            }
+            for (Entity entity : entities) {
+                Object value = ReflectionUtils.invokeMethod(ps.getReadMethod(), entity);
+                if (!ObjectUtils.isEmpty(value)) {
+                    fields.add(field);
+                    break;
+                }
+            }
+        }
+
+        return fields;
+    }
+
     public static <Entity> String update(
             TableMetaData tableMetaData, Entity entity, String databaseId, boolean partial) {
         Class<?> entityClass = entity.getClass();
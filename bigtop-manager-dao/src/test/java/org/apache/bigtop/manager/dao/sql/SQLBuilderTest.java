@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.dao.sql;
+
+import org.apache.bigtop.manager.dao.po.TaskPO;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SQLBuilderTest {
+
+    @Test
+    public void testInsertListWithDifferentNonNullFields() {
+        TaskPO taskPO1 = new TaskPO();
+        taskPO1.setName("Check host");
+        taskPO1.setCustomCommand("check_host");
+
+        TaskPO taskPO2 = new TaskPO();
+        taskPO2.setName("Start component");
+        taskPO2.setServiceUser("hdfs");
+
+        TableMetaData tableMetaData = TableMetaData.forClass(TaskPO.class);
+        for (String databaseId : List.of("mysql", "postgresql")) {
+            String sql = SQLBuilder.insertList(tableMetaData, List.of(taskPO1, taskPO2), databaseId);
+
+            // Every row must bind the same columns, missing values are inserted as null
+            assertEquals(3, count(sql, "arg0[0]."));
+            assertEquals(3, count(sql, "arg0[1]."));
+            assertTrue(sql.contains("arg0[1].customCommand"));
+            assertTrue(sql.contains("arg0[0].serviceUser"));
+            assertFalse(sql.contains("arg0[0].hostname"));
+        }
+    }
+
+    private int count(String text, String token) {
+        return text.split(Pattern.quote(token), -1).length - 1;
+    }
+}
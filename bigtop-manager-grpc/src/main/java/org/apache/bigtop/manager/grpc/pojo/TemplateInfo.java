@@ -28,4 +28,9 @@ public class TemplateInfo {
     private String dest;
 
     private String content;
+
+    /**
+     * SHA-256 of the content, agent loads the content from its template store when content is absent
+     */
+    private String checksum;
 }
@@ -0,0 +1,268 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.grpc.utils;
+
+import org.apache.bigtop.manager.grpc.generated.ClusterInfoMessage;
+import org.apache.bigtop.manager.grpc.generated.ComponentCommandPayloadMessage;
+import org.apache.bigtop.manager.grpc.generated.ComponentHostsMessage;
+import org.apache.bigtop.manager.grpc.generated.ConfigurationsMessage;
+import org.apache.bigtop.manager.grpc.generated.JobCachePayloadMessage;
+import org.apache.bigtop.manager.grpc.generated.PackageInfoMessage;
+import org.apache.bigtop.manager.grpc.generated.PackageSpecificInfoMessage;
+import org.apache.bigtop.manager.grpc.generated.RepoInfoList;
+import org.apache.bigtop.manager.grpc.generated.RepoInfoMessage;
+import org.apache.bigtop.manager.grpc.generated.StringList;
+import org.apache.bigtop.manager.grpc.generated.StringMap;
+import org.apache.bigtop.manager.grpc.generated.TemplateInfoMessage;
+import org.apache.bigtop.manager.grpc.payload.ComponentCommandPayload;
+import org.apache.bigtop.manager.grpc.payload.JobCachePayload;
+import org.apache.bigtop.manager.grpc.pojo.ClusterInfo;
+import org.apache.bigtop.manager.grpc.pojo.PackageInfo;
+import org.apache.bigtop.manager.grpc.pojo.PackageSpecificInfo;
+import org.apache.bigtop.manager.grpc.pojo.RepoInfo;
+import org.apache.bigtop.manager.grpc.pojo.TemplateInfo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Convert payloads between pojo and protobuf message, null values are kept as absent fields.
+ */
+public class PayloadConverter {
+
+    public static ComponentCommandPayloadMessage toMessage(ComponentCommandPayload payload) {
+        ComponentCommandPayloadMessage.Builder builder = ComponentCommandPayloadMessage.newBuilder();
+        setIfNotNull(payload.getServiceName(), builder::setServiceName);
+        setIfNotNull(payload.getCommand(), builder::setCommand);
+        setIfNotNull(payload.getCustomCommand(), builder::setCustomCommand);
+        setIfNotNull(payload.getServiceUser(), builder::setServiceUser);
+        setIfNotNull(payload.getStackName(), builder::setStackName);
+        setIfNotNull(payload.getStackVersion(), builder::setStackVersion);
+        setIfNotNull(payload.getComponentName(), builder::setComponentName);
+
+        if (payload.getPackageSpecifics() != null) {
+            for (PackageSpecificInfo info : payload.getPackageSpecifics()) {
+                PackageSpecificInfoMessage.Builder infoBuilder = PackageSpecificInfoMessage.newBuilder();
+                setIfNotNull(info.getArch(), infoBuilder::addAllArch);
+                if (info.getPackages() != null) {
+                    for (PackageInfo packageInfo : info.getPackages()) {
+                        PackageInfoMessage.Builder packageBuilder = PackageInfoMessage.newBuilder();
+                        setIfNotNull(packageInfo.getName(), packageBuilder::setName);
+                        setIfNotNull(packageInfo.getChecksum(), packageBuilder::setChecksum);
+                        infoBuilder.addPackages(packageBuilder);
+                    }
+                }
+
+                builder.addPackageSpecifics(infoBuilder);
+            }
+        }
+
+        if (payload.getTemplates() != null) {
+            for (TemplateInfo info : payload.getTemplates()) {
+                TemplateInfoMessage.Builder infoBuilder = TemplateInfoMessage.newBuilder();
+                setIfNotNull(info.getSrc(), infoBuilder::setSrc);
+                setIfNotNull(info.getDest(), infoBuilder::setDest);
+                setIfNotNull(info.getContent(), infoBuilder::setContent);
+                setIfNotNull(info.getChecksum(), infoBuilder::setChecksum);
+                builder.addTemplates(infoBuilder);
+            }
+        }
+
+        return builder.build();
+    }
+
+    public static ComponentCommandPayload fromMessage(ComponentCommandPayloadMessage message) {
+        ComponentCommandPayload payload = new ComponentCommandPayload();
+        payload.setServiceName(message.hasServiceName() ? message.getServiceName() : null);
+        payload.setCommand(message.hasCommand() ? message.getCommand() : null);
+        payload.setCustomCommand(message.hasCustomCommand() ? message.getCustomCommand() : null);
+        payload.setServiceUser(message.hasServiceUser() ? message.getServiceUser() : null);
+        payload.setStackName(message.hasStackName() ? message.getStackName() : null);
+        payload.setStackVersion(message.hasStackVersion() ? message.getStackVersion() : null);
+        payload.setComponentName(message.hasComponentName() ? message.getComponentName() : null);
+
+        List<PackageSpecificInfo> packageSpecifics = new ArrayList<>();
+        for (PackageSpecificInfoMessage infoMessage : message.getPackageSpecificsList()) {
+            PackageSpecificInfo info = new PackageSpecificInfo();
+            info.setArch(new ArrayList<>(infoMessage.getArchList()));
+            List<PackageInfo> packages = new ArrayList<>();
+            for (PackageInfoMessage packageMessage : infoMessage.getPackagesList()) {
+                packages.add(new PackageInfo(packageMessage.getName(), packageMessage.getChecksum()));
+            }
+
+            info.setPackages(packages);
+            packageSpecifics.add(info);
+        }
+
+        List<TemplateInfo> templates = new ArrayList<>();
+        for (TemplateInfoMessage infoMessage : message.getTemplatesList()) {
+            TemplateInfo info = new TemplateInfo();
+            info.setSrc(infoMessage.hasSrc() ? infoMessage.getSrc() : null);
+            info.setDest(infoMessage.hasDest() ? infoMessage.getDest() : null);
+            info.setContent(infoMessage.hasContent() ? infoMessage.getContent() : null);
+            info.setChecksum(infoMessage.hasChecksum() ? infoMessage.getChecksum() : null);
+            templates.add(info);
+        }
+
+        payload.setPackageSpecifics(packageSpecifics);
+        payload.setTemplates(templates);
+        return payload;
+    }
+
+    public static JobCachePayloadMessage toMessage(JobCachePayload payload) {
+        JobCachePayloadMessage.Builder builder = JobCachePayloadMessage.newBuilder();
+        setIfNotNull(payload.getCurrentClusterId(), builder::setCurrentClusterId);
+        setIfNotNull(payload.getClusterId(), builder::setClusterId);
+
+        ClusterInfo clusterInfo = payload.getClusterInfo();
+        if (clusterInfo != null) {
+            ClusterInfoMessage.Builder infoBuilder = ClusterInfoMessage.newBuilder();
+            setIfNotNull(clusterInfo.getName(), infoBuilder::setName);
+            setIfNotNull(clusterInfo.getUserGroup(), infoBuilder::setUserGroup);
+            setIfNotNull(clusterInfo.getRootDir(), infoBuilder::setRootDir);
+            builder.setClusterInfo(infoBuilder);
+        }
+
+        if (payload.getUserInfo() != null) {
+            builder.setUserInfo(toStringMap(payload.getUserInfo()));
+        }
+
+        if (payload.getRepoInfo() != null) {
+            RepoInfoList.Builder listBuilder = RepoInfoList.newBuilder();
+            for (RepoInfo repoInfo : payload.getRepoInfo()) {
+                RepoInfoMessage.Builder infoBuilder = RepoInfoMessage.newBuilder();
+                setIfNotNull(repoInfo.getName(), infoBuilder::setName);
+                setIfNotNull(repoInfo.getArch(), infoBuilder::setArch);
+                setIfNotNull(repoInfo.getBaseUrl(), infoBuilder::setBaseUrl);
+                setIfNotNull(repoInfo.getPkgName(), infoBuilder::setPkgName);
+                setIfNotNull(repoInfo.getChecksum(), infoBuilder::setChecksum);
+                setIfNotNull(repoInfo.getType(), infoBuilder::setType);
+                listBuilder.addValues(infoBuilder);
+            }
+
+            builder.setRepoInfo(listBuilder);
+        }
+
+        if (payload.getConfigurations() != null) {
+            ConfigurationsMessage.Builder configurationsBuilder = ConfigurationsMessage.newBuilder();
+            payload.getConfigurations().forEach((service, configs) -> {
+                if (configs != null) {
+                    configurationsBuilder.putValues(service, toStringMap(configs));
+                }
+            });
+            builder.setConfigurations(configurationsBuilder);
+        }
+
+        if (payload.getComponentHosts() != null) {
+            ComponentHostsMessage.Builder componentHostsBuilder = ComponentHostsMessage.newBuilder();
+            payload.getComponentHosts().forEach((component, hosts) -> {
+                if (hosts != null) {
+                    componentHostsBuilder.putValues(component, toStringList(hosts));
+                }
+            });
+            builder.setComponentHosts(componentHostsBuilder);
+        }
+
+        if (payload.getHosts() != null) {
+            builder.setHosts(toStringList(payload.getHosts()));
+        }
+
+        return builder.build();
+    }
+
+    public static JobCachePayload fromMessage(JobCachePayloadMessage message) {
+        JobCachePayload payload = new JobCachePayload();
+        payload.setCurrentClusterId(message.hasCurrentClusterId() ? message.getCurrentClusterId() : null);
+        payload.setClusterId(message.hasClusterId() ? message.getClusterId() : null);
+
+        if (message.hasClusterInfo()) {
+            ClusterInfoMessage infoMessage = message.getClusterInfo();
+            ClusterInfo clusterInfo = new ClusterInfo();
+            clusterInfo.setName(infoMessage.hasName() ? infoMessage.getName() : null);
+            clusterInfo.setUserGroup(infoMessage.hasUserGroup() ? infoMessage.getUserGroup() : null);
+            clusterInfo.setRootDir(infoMessage.hasRootDir() ? infoMessage.getRootDir() : null);
+            payload.setClusterInfo(clusterInfo);
+        }
+
+        if (message.hasUserInfo()) {
+            payload.setUserInfo(new HashMap<>(message.getUserInfo().getValuesMap()));
+        }
+
+        if (message.hasRepoInfo()) {
+            List<RepoInfo> repoInfo = new ArrayList<>();
+            for (RepoInfoMessage infoMessage : message.getRepoInfo().getValuesList()) {
+                repoInfo.add(new RepoInfo(
+                        infoMessage.hasName() ? infoMessage.getName() : null,
+                        infoMessage.hasArch() ? infoMessage.getArch() : null,
+                        infoMessage.hasBaseUrl() ? infoMessage.getBaseUrl() : null,
+                        infoMessage.hasPkgName() ? infoMessage.getPkgName() : null,
+                        infoMessage.hasChecksum() ? infoMessage.getChecksum() : null,
+                        infoMessage.hasType() ? infoMessage.getType() : null));
+            }
+
+            payload.setRepoInfo(repoInfo);
+        }
+
+        if (message.hasConfigurations()) {
+            Map<String, Map<String, String>> configurations = new HashMap<>();
+            message.getConfigurations()
+                    .getValuesMap()
+                    .forEach((service, configs) -> configurations.put(service, new HashMap<>(configs.getValuesMap())));
+            payload.setConfigurations(configurations);
+        }
+
+        if (message.hasComponentHosts()) {
+            Map<String, List<String>> componentHosts = new HashMap<>();
+            message.getComponentHosts().getValuesMap().forEach((component, hosts) -> {
+                componentHosts.put(component, new ArrayList<>(hosts.getValuesList()));
+            });
+            payload.setComponentHosts(componentHosts);
+        }
+
+        if (message.hasHosts()) {
+            payload.setHosts(new ArrayList<>(message.getHosts().getValuesList()));
+        }
+
+        return payload;
+    }
+
+    private static StringMap toStringMap(Map<String, String> map) {
+        StringMap.Builder builder = StringMap.newBuilder();
+        // Protobuf map does not accept null values
+        map.forEach((key, value) -> {
+            if (value != null) {
+                builder.putValues(key, value);
+            }
+        });
+        return builder.build();
+    }
+
+    private static StringList toStringList(List<String> list) {
+        return StringList.newBuilder().addAllValues(list).build();
+    }
+
+    private static <T> void setIfNotNull(T value, Consumer<T> setter) {
+        if (value != null) {
+            setter.accept(value);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.grpc.utils;
+
+import org.apache.bigtop.manager.grpc.generated.ComponentCommandPayloadMessage;
+import org.apache.bigtop.manager.grpc.generated.JobCachePayloadMessage;
+import org.apache.bigtop.manager.grpc.payload.ComponentCommandPayload;
+import org.apache.bigtop.manager.grpc.payload.JobCachePayload;
+import org.apache.bigtop.manager.grpc.pojo.ClusterInfo;
+import org.apache.bigtop.manager.grpc.pojo.PackageInfo;
+import org.apache.bigtop.manager.grpc.pojo.PackageSpecificInfo;
+import org.apache.bigtop.manager.grpc.pojo.RepoInfo;
+import org.apache.bigtop.manager.grpc.pojo.TemplateInfo;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PayloadConverterTest {
+
+    @Test
+    public void testComponentCommandPayloadRoundTrip() throws Exception {
+        ComponentCommandPayload payload = createComponentCommandPayload();
+
+        byte[] bytes = PayloadConverter.toMessage(payload).toByteArray();
+        ComponentCommandPayload decoded = PayloadConverter.fromMessage(ComponentCommandPayloadMessage.parseFrom(bytes));
+
+        assertEquals(payload, decoded);
+        // Null is kept as null instead of empty string
+        assertNull(decoded.getCustomCommand());
+    }
+
+    @Test
+    public void testJobCachePayloadRoundTrip() throws Exception {
+        JobCachePayload payload = createJobCachePayload();
+
+        byte[] bytes = PayloadConverter.toMessage(payload).toByteArray();
+        JobCachePayload decoded = PayloadConverter.fromMessage(JobCachePayloadMessage.parseFrom(bytes));
+
+        assertEquals(payload, decoded);
+    }
+
+    @Test
+    public void testJobCachePayloadSameAsJson() throws Exception {
+        JobCachePayload payload = createJobCachePayload();
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        byte[] json = objectMapper.writeValueAsString(payload).getBytes(StandardCharsets.UTF_8);
+        byte[] binary = PayloadConverter.toMessage(payload).toByteArray();
+
+        assertEquals(payload, objectMapper.readValue(json, JobCachePayload.class));
+        assertEquals(payload, PayloadConverter.fromMessage(JobCachePayloadMessage.parseFrom(binary)));
+        assertTrue(binary.length < json.length);
+    }
+
+    @Test
+    public void testJobCachePayloadDeltaKeepsAbsentParts() throws Exception {
+        JobCachePayload delta = new JobCachePayload();
+        delta.setClusterId(1L);
+        delta.setHosts(List.of("host1"));
+
+        byte[] bytes = PayloadConverter.toMessage(delta).toByteArray();
+        JobCachePayload decoded = PayloadConverter.fromMessage(JobCachePayloadMessage.parseFrom(bytes));
+
+        assertEquals(1L, decoded.getClusterId());
+        assertEquals(List.of("host1"), decoded.getHosts());
+        assertNull(decoded.getCurrentClusterId());
+        assertNull(decoded.getClusterInfo());
+        assertNull(decoded.getConfigurations());
+        assertNull(decoded.getComponentHosts());
+        assertNull(decoded.getUserInfo());
+        assertNull(decoded.getRepoInfo());
+    }
+
+    static ComponentCommandPayload createComponentCommandPayload() {
+        PackageSpecificInfo packageSpecificInfo = new PackageSpecificInfo();
+        packageSpecificInfo.setArch(List.of("x86_64", "aarch64"));
+        packageSpecificInfo.setPackages(List.of(new PackageInfo("hadoop-3.3.6.tar.gz", "SHA-256:abc")));
+
+        TemplateInfo templateInfo = new TemplateInfo();
+        templateInfo.setSrc("hadoop-env.sh");
+        templateInfo.setDest("/etc/hadoop/conf/hadoop-env.sh");
+        templateInfo.setContent("export JAVA_HOME=${java_home}\n");
+
+        ComponentCommandPayload payload = new ComponentCommandPayload();
+        payload.setServiceName("hadoop");
+        payload.setCommand("start");
+        payload.setServiceUser("hdfs");
+        payload.setStackName("bigtop");
+        payload.setStackVersion("3.3.0");
+        payload.setComponentName("namenode");
+        payload.setPackageSpecifics(List.of(packageSpecificInfo));
+        payload.setTemplates(List.of(templateInfo));
+        return payload;
+    }
+
+    static JobCachePayload createJobCachePayload() {
+        ClusterInfo clusterInfo = new ClusterInfo();
+        clusterInfo.setName("c1");
+        clusterInfo.setUserGroup("hadoop");
+        clusterInfo.setRootDir("/opt");
+
+        JobCachePayload payload = new JobCachePayload();
+        payload.setCurrentClusterId(1L);
+        payload.setClusterId(1L);
+        payload.setClusterInfo(clusterInfo);
+        payload.setUserInfo(Map.of("hadoop", "hdfs", "zookeeper", "zookeeper"));
+        payload.setRepoInfo(List.of(new RepoInfo("bigtop", "x86_64", "http://repo", "bigtop.tar.gz", null, 1)));
+        payload.setConfigurations(Map.of("zookeeper", Map.of("zoo.cfg", "{\"tickTime\":\"2000\"}")));
+        payload.setComponentHosts(Map.of("zookeeper_server", List.of("host1", "host2")));
+        payload.setHosts(List.of("host1", "host2"));
+        return payload;
+    }
+}
@@ -31,12 +31,15 @@ import org.apache.bigtop.manager.dao.repository.ComponentDao;
 import org.apache.bigtop.manager.dao.repository.HostDao;
 import org.apache.bigtop.manager.dao.repository.RepoDao;
 import org.apache.bigtop.manager.dao.repository.ServiceConfigDao;
+import org.apache.bigtop.manager.grpc.generated.ClusterCache;
+import org.apache.bigtop.manager.grpc.generated.ClusterCacheReply;
 import org.apache.bigtop.manager.grpc.generated.JobCacheReply;
 import org.apache.bigtop.manager.grpc.generated.JobCacheRequest;
 import org.apache.bigtop.manager.grpc.generated.JobCacheServiceGrpc;
 import org.apache.bigtop.manager.grpc.payload.JobCachePayload;
 import org.apache.bigtop.manager.grpc.pojo.ClusterInfo;
 import org.apache.bigtop.manager.grpc.pojo.RepoInfo;
+import org.apache.bigtop.manager.grpc.utils.PayloadConverter;
 import org.apache.bigtop.manager.server.exception.ServerException;
 import org.apache.bigtop.manager.server.grpc.GrpcClient;
 import org.apache.bigtop.manager.server.holder.SpringContextHolder;
@@ -44,16 +47,36 @@ import org.apache.bigtop.manager.server.model.dto.ServiceDTO;
 import org.apache.bigtop.manager.server.model.dto.StackDTO;
 import org.apache.bigtop.manager.server.utils.StackUtils;
 
+import org.springframework.util.DigestUtils;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.CompletableFuture;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
+import static org.apache.bigtop.manager.common.constants.CacheFiles.CLUSTER_INFO;
+import static org.apache.bigtop.manager.common.constants.CacheFiles.COMPONENTS_INFO;
+import static org.apache.bigtop.manager.common.constants.CacheFiles.CONFIGURATIONS_INFO;
+import static org.apache.bigtop.manager.common.constants.CacheFiles.HOSTS_INFO;
+import static org.apache.bigtop.manager.common.constants.CacheFiles.REPOS_INFO;
+import static org.apache.bigtop.manager.common.constants.CacheFiles.USERS_INFO;
+
+@Slf4j
 public class JobCacheHelper {
 
     private static ClusterDao clusterDao;
@@ -64,6 +87,14 @@ public class JobCacheHelper {
 
     private static final AtomicBoolean INITIALIZED = new AtomicBoolean(false);
 
+    private static final long TIMEOUT_SECONDS = 60;
+
+    // Key of outer map is hostname, inner map is cluster id, value is the cache agent confirmed to hold
+    private static final Map<String, Map<Long, CacheVersion>> AGENT_CACHE_VERSIONS = new ConcurrentHashMap<>();
+
+    // Key is hostname, value is the current cluster id agent confirmed to hold
+    private static final Map<String, Long> AGENT_CURRENT_CLUSTERS = new ConcurrentHashMap<>();
+
     private static void initialize() {
         clusterDao = SpringContextHolder.getBean(ClusterDao.class);
         serviceConfigDao = SpringContextHolder.getBean(ServiceConfigDao.class);
@@ -79,41 +110,56 @@ public class JobCacheHelper {
             initialize();
         }
 
-        JobCachePayload payload = new JobCachePayload();
-        genGlobalPayload(payload);
-
-        // Sort by cluster id to avoid regenerating the same cluster payload
         List<HostPO> hostPOList = hostDao.findAllByHostnames(hostnames);
-        hostPOList.sort(Comparator.comparing(HostPO::getClusterId));
+        Set<String> allDataHosts = getHostsRequireAllData(hostnames);
+        ClusterCacheBuilder builder = new ClusterCacheBuilder();
 
-        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        List<ListenableFuture<Boolean>> futures = new ArrayList<>();
         for (HostPO hostPO : hostPOList) {
-            payload.setCurrentClusterId(hostPO.getClusterId());
+            String hostname = hostPO.getHostname();
+            List<Long> clusterIds =
+                    allDataHosts.contains(hostname) ? builder.getAllClusterIds() : List.of(hostPO.getClusterId());
+            Map<Long, CacheVersion> agentVersions = AGENT_CACHE_VERSIONS.getOrDefault(hostname, Map.of());
 
-            List<Long> clusterIds = new ArrayList<>();
-            if (hostRequiresAllData(hostPO.getHostname())) {
-                clusterIds.addAll(
-                        clusterDao.findAll().stream().map(ClusterPO::getId).toList());
-            } else {
-                clusterIds.add(hostPO.getClusterId());
+            List<Long> outdatedClusterIds = new ArrayList<>();
+            for (Long clusterId : clusterIds) {
+                CacheVersion agentVersion = agentVersions.get(clusterId);
+                if (agentVersion != null
+                        && agentVersion.equals(builder.getVersion(clusterId))
+                        && Objects.equals(AGENT_CURRENT_CLUSTERS.get(hostname), hostPO.getClusterId())) {
+                    // Agent already holds the same cache
+                    continue;
+                }
+
+                outdatedClusterIds.add(clusterId);
             }
 
-            for (Long clusterId : clusterIds) {
-                JobCachePayload copiedPayload =
-                        JsonUtils.readFromString(JsonUtils.writeAsString(payload), JobCachePayload.class);
-                genClusterPayload(copiedPayload, clusterId);
+            if (outdatedClusterIds.isEmpty()) {
+                continue;
+            }
+
+            if (GrpcClient.supportsBinaryPayload(hostname)) {
+                // All clusters the host requires are sent in one request
+                List<ClusterCache> caches = new ArrayList<>();
+                for (Long clusterId : outdatedClusterIds) {
+                    caches.add(builder.getCache(clusterId, agentVersions.get(clusterId)));
+                }
+
                 JobCacheRequest request = JobCacheRequest.newBuilder()
                         .setJobId(jobId)
-                        .setPayload(JsonUtils.writeAsString(copiedPayload))
+                        .setCurrentClusterId(hostPO.getClusterId())
+                        .addAllClusters(caches)
                         .build();
-                futures.add(CompletableFuture.supplyAsync(() -> {
-                    JobCacheServiceGrpc.JobCacheServiceBlockingStub stub = GrpcClient.getBlockingStub(
-                            hostPO.getHostname(),
-                            hostPO.getGrpcPort(),
-                            JobCacheServiceGrpc.JobCacheServiceBlockingStub.class);
-                    JobCacheReply reply = stub.save(request);
-                    return reply != null && reply.getCode() == MessageConstants.SUCCESS_CODE;
-                }));
+                futures.add(sendJobCache(hostPO, request, builder));
+            } else {
+                // Agents of older releases only read the single cluster payload, one request is sent per cluster.
+                // Some of them write every part of the payload as is, so it must be a full snapshot.
+                Map<Long, JobCacheRequest> requests = new LinkedHashMap<>();
+                for (Long clusterId : outdatedClusterIds) {
+                    requests.put(clusterId, builder.getLegacyRequest(jobId, clusterId, hostPO.getClusterId()));
+                }
+
+                futures.add(sendLegacyJobCache(hostPO, requests, builder));
             }
         }
 
@@ -122,6 +168,7 @@ public class JobCacheHelper {
                     try {
                         return future.get();
                     } catch (Exception e) {
+                        log.warn("Failed to send job cache", e);
                         return false;
                     }
                 })
@@ -133,6 +180,198 @@ public class JobCacheHelper {
         }
     }
 
+    /**
+     * Forget the versions agent reports it no longer holds, e.g. its cache dir was removed.
+     * A heartbeat built before a save finishes may drop a version just recorded, which only costs a full resend.
+     */
+    public static void syncCacheVersions(String hostname, Map<Long, String> agentVersions) {
+        Map<Long, CacheVersion> versions = AGENT_CACHE_VERSIONS.get(hostname);
+        if (versions == null) {
+            return;
+        }
+
+        boolean removed = versions.entrySet()
+                .removeIf(entry -> !entry.getValue().version().equals(agentVersions.get(entry.getKey())));
+        if (removed) {
+            AGENT_CURRENT_CLUSTERS.remove(hostname);
+        }
+    }
+
+    /**
+     * Forget everything recorded for the host, called when connection to agent is (re)established
+     * since the agent may have been reinstalled in the meantime.
+     */
+    public static void resetCacheVersions(String hostname) {
+        AGENT_CACHE_VERSIONS.remove(hostname);
+        AGENT_CURRENT_CLUSTERS.remove(hostname);
+    }
+
+    private static ListenableFuture<Boolean> sendJobCache(
+            HostPO hostPO, JobCacheRequest request, ClusterCacheBuilder builder) {
+        return Futures.transformAsync(
+                getStub(hostPO).save(request),
+                reply -> onReply(hostPO, request, reply, builder),
+                MoreExecutors.directExecutor());
+    }
+
+    private static ListenableFuture<Boolean> onReply(
+            HostPO hostPO, JobCacheRequest request, JobCacheReply reply, ClusterCacheBuilder builder) {
+        boolean success = true;
+        List<ClusterCache> fullCaches = new ArrayList<>();
+        for (int i = 0; i < request.getClustersCount(); i++) {
+            ClusterCache cache = request.getClusters(i);
+            ClusterCacheReply clusterReply = i < reply.getClustersCount() ? reply.getClusters(i) : null;
+            if (clusterReply != null
+                    && clusterReply.getCode() != MessageConstants.SUCCESS_CODE
+                    && !cache.getBaseVersion().isEmpty()) {
+                // Agent does not hold the base version of the delta
+                fullCaches.add(builder.getCache(cache.getClusterId(), null));
+            } else {
+                success &= recordVersion(hostPO, cache, clusterReply, builder);
+            }
+        }
+
+        if (fullCaches.isEmpty()) {
+            return Futures.immediateFuture(onSent(hostPO, success));
+        }
+
+        log.info("Sending full job cache of {} clusters to {}", fullCaches.size(), hostPO.getHostname());
+        JobCacheRequest fullRequest =
+                request.toBuilder().clearClusters().addAllClusters(fullCaches).build();
+        boolean deltaSuccess = success;
+        return Futures.transform(
+                getStub(hostPO).save(fullRequest),
+                fullReply -> {
+                    boolean fullSuccess = deltaSuccess;
+                    for (int i = 0; i < fullRequest.getClustersCount(); i++) {
+                        ClusterCacheReply clusterReply =
+                                i < fullReply.getClustersCount() ? fullReply.getClusters(i) : null;
+                        fullSuccess &= recordVersion(hostPO, fullRequest.getClusters(i), clusterReply, builder);
+                    }
+
+                    return onSent(hostPO, fullSuccess);
+                },
+                MoreExecutors.directExecutor());
+    }
+
+    private static ListenableFuture<Boolean> sendLegacyJobCache(
+            HostPO hostPO, Map<Long, JobCacheRequest> requests, ClusterCacheBuilder builder) {
+        List<ListenableFuture<Boolean>> futures = new ArrayList<>();
+        for (Map.Entry<Long, JobCacheRequest> entry : requests.entrySet()) {
+            JobCacheRequest request = entry.getValue();
+            // Agents which do not track versions reply without one, so nothing is recorded for them
+            futures.add(Futures.transform(
+                    getStub(hostPO).save(request),
+                    reply -> recordVersion(
+                            hostPO, entry.getKey(), request.getVersion(), reply.getCode(), reply.getVersion(), builder),
+                    MoreExecutors.directExecutor()));
+        }
+
+        return Futures.transform(
+                Futures.allAsList(futures),
+                results -> onSent(hostPO, results.stream().allMatch(Boolean::booleanValue)),
+                MoreExecutors.directExecutor());
+    }
+
+    private static boolean onSent(HostPO hostPO, boolean success) {
+        if (success) {
+            AGENT_CURRENT_CLUSTERS.put(hostPO.getHostname(), hostPO.getClusterId());
+        }
+
+        return success;
+    }
+
+    /**
+     * Deadline is counted from the time the stub is created, so every call gets a new one.
+     */
+    private static JobCacheServiceGrpc.JobCacheServiceFutureStub getStub(HostPO hostPO) {
+        return GrpcClient.getFutureStub(
+                        hostPO.getHostname(), hostPO.getGrpcPort(), JobCacheServiceGrpc.JobCacheServiceFutureStub.class)
+                .withCompression("gzip")
+                .withDeadlineAfter(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static boolean recordVersion(
+            HostPO hostPO, ClusterCache cache, ClusterCacheReply reply, ClusterCacheBuilder builder) {
+        int code = reply == null ? MessageConstants.FAIL_CODE : reply.getCode();
+        String agentVersion = reply == null ? "" : reply.getVersion();
+        return recordVersion(hostPO, cache.getClusterId(), cache.getVersion(), code, agentVersion, builder);
+    }
+
+    private static boolean recordVersion(
+            HostPO hostPO, Long clusterId, String version, int code, String agentVersion, ClusterCacheBuilder builder) {
+        boolean success = code == MessageConstants.SUCCESS_CODE;
+        Map<Long, CacheVersion> versions =
+                AGENT_CACHE_VERSIONS.computeIfAbsent(hostPO.getHostname(), k -> new ConcurrentHashMap<>());
+        if (success && version.equals(agentVersion)) {
+            versions.put(clusterId, builder.getVersion(clusterId));
+        } else {
+            versions.remove(clusterId);
+        }
+
+        return success;
+    }
+
+    /**
+     * Hash of each part of the payload, key is the cache file the part is saved to on agent.
+     */
+    private static Map<String, String> getSectionHashes(JobCachePayload payload) {
+        Map<String, String> hashes = new TreeMap<>();
+        hashes.put(CONFIGURATIONS_INFO, hash(payload.getConfigurations()));
+        hashes.put(COMPONENTS_INFO, hash(payload.getComponentHosts()));
+        hashes.put(USERS_INFO, hash(payload.getUserInfo()));
+        hashes.put(REPOS_INFO, hash(payload.getRepoInfo()));
+        hashes.put(CLUSTER_INFO, hash(payload.getClusterInfo()));
+        hashes.put(HOSTS_INFO, hash(payload.getHosts()));
+        return hashes;
+    }
+
+    private static JobCachePayload getDeltaPayload(
+            JobCachePayload payload, CacheVersion version, CacheVersion agentVersion) {
+        Map<String, String> hashes = version.sectionHashes();
+        Map<String, String> agentHashes = agentVersion.sectionHashes();
+
+        JobCachePayload delta = new JobCachePayload();
+        delta.setClusterId(payload.getClusterId());
+        if (!hashes.get(CONFIGURATIONS_INFO).equals(agentHashes.get(CONFIGURATIONS_INFO))) {
+            delta.setConfigurations(payload.getConfigurations());
+        }
+        if (!hashes.get(COMPONENTS_INFO).equals(agentHashes.get(COMPONENTS_INFO))) {
+            delta.setComponentHosts(payload.getComponentHosts());
+        }
+        if (!hashes.get(USERS_INFO).equals(agentHashes.get(USERS_INFO))) {
+            delta.setUserInfo(payload.getUserInfo());
+        }
+        if (!hashes.get(REPOS_INFO).equals(agentHashes.get(REPOS_INFO))) {
+            delta.setRepoInfo(payload.getRepoInfo());
+        }
+        if (!hashes.get(CLUSTER_INFO).equals(agentHashes.get(CLUSTER_INFO))) {
+            delta.setClusterInfo(payload.getClusterInfo());
+        }
+        if (!hashes.get(HOSTS_INFO).equals(agentHashes.get(HOSTS_INFO))) {
+            delta.setHosts(payload.getHosts());
+        }
+
+        return delta;
+    }
+
+    private static String hash(Object obj) {
+        // Sort map keys so that equal content always has the same hash
+        Object sorted = obj instanceof Map<?, ?> map ? sortMap(map) : obj;
+        String json = JsonUtils.writeAsString(sorted);
+        return DigestUtils.md5DigestAsHex(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Map<Object, Object> sortMap(Map<?, ?> map) {
+        Map<Object, Object> sorted = new TreeMap<>();
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            Object value = entry.getValue() instanceof Map<?, ?> inner ? sortMap(inner) : entry.getValue();
+            sorted.put(entry.getKey(), value);
+        }
+
+        return sorted;
+    }
+
     private static void genClusterPayload(JobCachePayload payload, Long clusterId) {
         if (Objects.equals(payload.getClusterId(), clusterId)) {
             return;
@@ -232,18 +471,122 @@ public class JobCacheHelper {
         return hostMap;
     }
 
-    private static Boolean hostRequiresAllData(String hostname) {
+    private static Set<String> getHostsRequireAllData(List<String> hostnames) {
+        if (hostnames.isEmpty()) {
+            return Set.of();
+        }
+
         // Some services like prometheus requires all clusters info to collect metrics.
+        Set<String> result = new HashSet<>();
         List<ComponentPO> components = componentDao.findByQuery(
-                ComponentQuery.builder().hostname(hostname).build());
+                ComponentQuery.builder().hostnames(hostnames).build());
         for (ComponentPO component : components) {
             ServiceDTO serviceDTO = StackUtils.getServiceDTOByComponentName(component.getName());
             StackDTO stack = StackUtils.getServiceStack(serviceDTO.getName());
             if (stack.getStackName().equals("infra")) {
-                return true;
+                result.add(component.getHostname());
             }
         }
 
-        return false;
+        return result;
     }
+
+    /**
+     * Builds the cache of each cluster at most once for a job, built caches are shared by all hosts.
+     */
+    private static class ClusterCacheBuilder {
+
+        private final Map<Long, BuiltCache> caches = new ConcurrentHashMap<>();
+
+        private JobCachePayload globalPayload;
+
+        private List<Long> allClusterIds;
+
+        public List<Long> getAllClusterIds() {
+            if (allClusterIds == null) {
+                allClusterIds =
+                        clusterDao.findAll().stream().map(ClusterPO::getId).toList();
+            }
+
+            return allClusterIds;
+        }
+
+        public CacheVersion getVersion(Long clusterId) {
+            return build(clusterId).version();
+        }
+
+        /**
+         * Full snapshot if agent version is null, otherwise delta based on agent version.
+         * Only agents which support binary payload read this form, older ones are sent {@link #getLegacyRequest}.
+         */
+        public ClusterCache getCache(Long clusterId, CacheVersion agentVersion) {
+            BuiltCache builtCache = build(clusterId);
+            String baseVersion = agentVersion == null ? "" : agentVersion.version();
+            return builtCache.clusterCaches().computeIfAbsent(baseVersion, k -> {
+                JobCachePayload payload = agentVersion == null
+                        ? builtCache.payload()
+                        : getDeltaPayload(builtCache.payload(), builtCache.version(), agentVersion);
+                return toClusterCache(clusterId, payload, builtCache.version(), baseVersion);
+            });
+        }
+
+        /**
+         * Full snapshot in the single cluster form of older agents, the payload is JSON and carries current cluster id.
+         */
+        public JobCacheRequest getLegacyRequest(Long jobId, Long clusterId, Long currentClusterId) {
+            BuiltCache builtCache = build(clusterId);
+            String payload = builtCache.legacyPayloads().computeIfAbsent(currentClusterId, k -> {
+                JobCachePayload copiedPayload =
+                        JsonUtils.readFromString(JsonUtils.writeAsString(builtCache.payload()), JobCachePayload.class);
+                copiedPayload.setCurrentClusterId(currentClusterId);
+                return JsonUtils.writeAsString(copiedPayload);
+            });
+
+            return JobCacheRequest.newBuilder()
+                    .setJobId(jobId)
+                    .setPayload(payload)
+                    .setVersion(builtCache.version().version())
+                    .setCurrentClusterId(currentClusterId)
+                    .build();
+        }
+
+        private BuiltCache build(Long clusterId) {
+            return caches.computeIfAbsent(clusterId, k -> {
+                if (globalPayload == null) {
+                    globalPayload = new JobCachePayload();
+                    genGlobalPayload(globalPayload);
+                }
+
+                JobCachePayload payload =
+                        JsonUtils.readFromString(JsonUtils.writeAsString(globalPayload), JobCachePayload.class);
+                genClusterPayload(payload, clusterId);
+
+                Map<String, String> sectionHashes = getSectionHashes(payload);
+                CacheVersion version = new CacheVersion(hash(sectionHashes), sectionHashes);
+                return new BuiltCache(payload, version, new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+            });
+        }
+
+        private ClusterCache toClusterCache(
+                Long clusterId, JobCachePayload payload, CacheVersion version, String baseVersion) {
+            // Encoded once, gRPC writes the same bytes for every host instead of serializing the message again
+            return ClusterCache.newBuilder()
+                    .setClusterId(clusterId)
+                    .setVersion(version.version())
+                    .setBaseVersion(baseVersion)
+                    .setPayloadMessage(PayloadConverter.toMessage(payload).toByteString())
+                    .build();
+        }
+    }
+
+    /**
+     * Cluster caches are keyed by base version, legacy payloads by the current cluster id of the receiving host.
+     */
+    private record BuiltCache(
+            JobCachePayload payload,
+            CacheVersion version,
+            Map<String, ClusterCache> clusterCaches,
+            Map<Long, String> legacyPayloads) {}
+
+    private record CacheVersion(String version, Map<String, String> sectionHashes) {}
 }
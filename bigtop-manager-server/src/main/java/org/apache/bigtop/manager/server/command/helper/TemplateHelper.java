@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.command.helper;
+
+import org.apache.bigtop.manager.grpc.generated.SaveTemplatesRequest;
+import org.apache.bigtop.manager.grpc.generated.TemplateBlob;
+import org.apache.bigtop.manager.grpc.generated.TemplateChecksumsReply;
+import org.apache.bigtop.manager.grpc.generated.TemplateChecksumsRequest;
+import org.apache.bigtop.manager.grpc.generated.TemplateServiceGrpc;
+import org.apache.bigtop.manager.server.exception.ServerException;
+import org.apache.bigtop.manager.server.grpc.GrpcClient;
+import org.apache.bigtop.manager.server.utils.StackUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the template store of agents in sync, so component commands only carry template checksums.
+ */
+@Slf4j
+public class TemplateHelper {
+
+    private static final long TIMEOUT_SECONDS = 60;
+
+    /**
+     * hostname -> checksums known to be in the agent's store
+     */
+    private static final Map<String, Set<String>> AGENT_TEMPLATES = new ConcurrentHashMap<>();
+
+    /**
+     * Make sure the agent stores all the templates, only the missing ones are sent.
+     */
+    public static void syncTemplates(String hostname, Integer grpcPort, Collection<String> checksums) {
+        Set<String> known = AGENT_TEMPLATES.computeIfAbsent(hostname, k -> ConcurrentHashMap.newKeySet());
+        List<String> unknown =
+                checksums.stream().filter(c -> !known.contains(c)).distinct().toList();
+        if (unknown.isEmpty()) {
+            return;
+        }
+
+        TemplateServiceGrpc.TemplateServiceBlockingStub stub =
+                GrpcClient.getBlockingStub(hostname, grpcPort, TemplateServiceGrpc.TemplateServiceBlockingStub.class);
+        TemplateChecksumsRequest request =
+                TemplateChecksumsRequest.newBuilder().addAllChecksums(unknown).build();
+        TemplateChecksumsReply reply =
+                stub.withDeadlineAfter(TIMEOUT_SECONDS, TimeUnit.SECONDS).getMissingTemplates(request);
+
+        if (reply.getChecksumsCount() > 0) {
+            SaveTemplatesRequest.Builder builder = SaveTemplatesRequest.newBuilder();
+            for (String checksum : reply.getChecksumsList()) {
+                String content = StackUtils.TEMPLATE_CONTENT_MAP.get(checksum);
+                if (content == null) {
+                    throw new ServerException("Unknown template " + checksum);
+                }
+
+                builder.addTemplates(
+                        TemplateBlob.newBuilder().setChecksum(checksum).setContent(content));
+            }
+
+            stub.withDeadlineAfter(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .withCompression("gzip")
+                    .saveTemplates(builder.build());
+            log.info("Sent {} templates to host {}", reply.getChecksumsCount(), hostname);
+        }
+
+        known.addAll(unknown);
+    }
+
+    /**
+     * Forget what the agent stores, e.g. its store has been cleaned, templates are checked again on next sync.
+     */
+    public static void evict(String hostname) {
+        AGENT_TEMPLATES.remove(hostname);
+    }
+}
@@ -31,17 +31,27 @@ import org.apache.bigtop.manager.dao.repository.TaskDao;
 import org.apache.bigtop.manager.server.command.helper.JobCacheHelper;
 import org.apache.bigtop.manager.server.command.stage.Stage;
 import org.apache.bigtop.manager.server.command.stage.StageContext;
+import org.apache.bigtop.manager.server.command.stage.StageExecutor;
+import org.apache.bigtop.manager.server.command.stage.StageGraph;
 import org.apache.bigtop.manager.server.command.task.Task;
+import org.apache.bigtop.manager.server.config.JobExecutionProperties;
 import org.apache.bigtop.manager.server.enums.ApiExceptionEnum;
 import org.apache.bigtop.manager.server.exception.ApiException;
 import org.apache.bigtop.manager.server.holder.SpringContextHolder;
+import org.apache.bigtop.manager.server.service.JobEventService;
 
 import org.apache.commons.collections4.CollectionUtils;
 
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 
 @Slf4j
@@ -57,6 +67,8 @@ public abstract class AbstractJob implements Job {
 
     protected ClusterPO clusterPO;
 
+    protected volatile boolean canceled = false;
+
     /**
      * Do not use this directly, please use {@link #getJobPO()} to make sure it's initialized.
      */
@@ -96,6 +108,7 @@ public abstract class AbstractJob implements Job {
     public void beforeRun() {
         jobPO.setState(JobState.PROCESSING.getName());
         jobDao.partialUpdateById(jobPO);
+        publishJobEvent();
     }
 
     @Override
@@ -115,15 +128,11 @@ public abstract class AbstractJob implements Job {
                     .toList();
             JobCacheHelper.sendJobCache(jobPO.getId(), hostnames);
 
-            LinkedBlockingQueue<Stage> queue = new LinkedBlockingQueue<>(stages);
-            while (!queue.isEmpty()) {
-                Stage stage = queue.poll();
-                Boolean stageSuccess = stage.run();
-
-                if (!stageSuccess) {
-                    success = false;
-                    break;
-                }
+            JobExecutionProperties properties = SpringContextHolder.getBean(JobExecutionProperties.class);
+            if (properties != null && Boolean.TRUE.equals(properties.getParallelStages())) {
+                success = runStagesInParallel();
+            } else {
+                success = runStagesSequentially();
             }
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -137,11 +146,96 @@ public abstract class AbstractJob implements Job {
         }
     }
 
+    protected boolean runStagesSequentially() {
+        LinkedBlockingQueue<Stage> queue = new LinkedBlockingQueue<>(stages);
+        while (!queue.isEmpty() && !canceled) {
+            Stage stage = queue.poll();
+            Boolean stageSuccess = stage.run();
+            publishJobEvent();
+
+            if (!stageSuccess) {
+                return false;
+            }
+        }
+
+        return !canceled;
+    }
+
+    /**
+     * Run every stage as soon as all stages it depends on succeeded.
+     * Once a stage failed or the job is canceled no more stages will be started, the running ones are
+     * waited to finish, so that the stages left in pending state can be canceled by {@link #onFailure()}.
+     */
+    protected boolean runStagesInParallel() throws InterruptedException {
+        StageGraph graph = new StageGraph(stages);
+        StageExecutor stageExecutor = SpringContextHolder.getBean(StageExecutor.class);
+        CompletionService<StageResult> completionService = new ExecutorCompletionService<>(stageExecutor);
+
+        boolean[] submitted = new boolean[graph.size()];
+        Set<Integer> succeeded = new HashSet<>();
+        boolean success = true;
+        int running = 0;
+
+        while (true) {
+            if (success && !canceled) {
+                for (int i = 0; i < graph.size(); i++) {
+                    if (!submitted[i] && succeeded.containsAll(graph.getDependencies(i))) {
+                        submitted[i] = true;
+                        running++;
+
+                        int index = i;
+                        Stage stage = graph.getStage(index);
+                        completionService.submit(() -> new StageResult(index, runStage(stage)));
+                    }
+                }
+            }
+
+            if (running == 0) {
+                break;
+            }
+
+            Future<StageResult> future = completionService.take();
+            running--;
+
+            StageResult result;
+            try {
+                result = future.get();
+            } catch (ExecutionException e) {
+                // Stages catch their own exceptions, count it as a failed stage anyway
+                log.error("stage failed", e);
+                success = false;
+                continue;
+            }
+
+            if (result.success()) {
+                succeeded.add(result.index());
+            } else {
+                success = false;
+            }
+        }
+
+        return success && !canceled && succeeded.size() == graph.size();
+    }
+
+    private boolean runStage(Stage stage) {
+        try {
+            return stage.run();
+        } catch (Exception e) {
+            log.error("stage failed", e);
+            return false;
+        } finally {
+            publishJobEvent();
+        }
+    }
+
+    private record StageResult(int index, boolean success) {}
+
     @Override
     public void onSuccess() {
         JobPO jobPO = getJobPO();
         jobPO.setState(JobState.SUCCESSFUL.getName());
         jobDao.partialUpdateById(jobPO);
+        publishJobEvent();
     }
 
     @Override
@@ -150,7 +244,7 @@ public abstract class AbstractJob implements Job {
         List<StagePO> stagePOList = new ArrayList<>();
         List<TaskPO> taskPOList = new ArrayList<>();
 
-        jobPO.setState(JobState.FAILED.getName());
+        jobPO.setState(canceled ? JobState.CANCELED.getName() : JobState.FAILED.getName());
 
         for (Stage stage : getStages()) {
             StagePO stagePO = stage.getStagePO();
@@ -169,6 +263,40 @@ public abstract class AbstractJob implements Job {
         taskDao.partialUpdateByIds(taskPOList);
         stageDao.partialUpdateByIds(stagePOList);
         jobDao.partialUpdateById(jobPO);
+
+        JobEventService jobEventService = SpringContextHolder.getBean(JobEventService.class);
+        if (jobEventService != null) {
+            taskPOList.forEach(jobEventService::publishTaskEvent);
+            stagePOList.forEach(jobEventService::publishStageEvent);
+        }
+
+        publishJobEvent();
+    }
+
+    /**
+     * Publish job state with progress, the progress is calculated in the same way as job apis.
+     */
+    private void publishJobEvent() {
+        JobEventService jobEventService = SpringContextHolder.getBean(JobEventService.class);
+        if (jobEventService == null) {
+            return;
+        }
+
+        long startedStages = stages.stream()
+                .map(stage -> JobState.fromString(stage.getStagePO().getState()))
+                .filter(state -> state == JobState.PROCESSING || state == JobState.SUCCESSFUL)
+                .count();
+        int progress = stages.isEmpty() ? 1 : (int) Math.round(startedStages * 100.0 / stages.size());
+        jobEventService.publishJobEvent(getJobPO(), progress);
+    }
+
+    @Override
+    public void cancel() {
+        canceled = true;
+
+        for (Stage stage : stages) {
+            stage.cancel();
+        }
     }
 
     @Override
@@ -0,0 +1,300 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.command.scheduler;
+
+import org.apache.bigtop.manager.server.command.job.Job;
+import org.apache.bigtop.manager.server.config.JobSchedulerProperties;
+import org.apache.bigtop.manager.server.holder.SessionUserHolder;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Job scheduler which keeps one queue (lane) per cluster and runs jobs concurrently.
+ * <p>
+ * A job is started when the global and per-cluster concurrency limits allow it, and it does not conflict with
+ * any running job or any job queued before it in the same lane, see {@link JobFootprint}.
+ * Conflicting jobs therefore keep their submission order, while jobs touching disjoint hosts and services,
+ * or different clusters, do not wait for each other.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(
+        prefix = "bigtop.manager.scheduler",
+        name = "type",
+        havingValue = "concurrent",
+        matchIfMissing = true)
+public class ConcurrentJobScheduler implements JobScheduler {
+
+    private static final String METRIC_PREFIX = "bigtop.manager.scheduler.";
+
+    @Resource
+    private JobSchedulerProperties jobSchedulerProperties;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final Object lock = new Object();
+
+    // Key is cluster id, jobs without cluster (e.g. adding hosts to a new cluster) share lane 0
+    private final Map<Long, Lane> lanes = new LinkedHashMap<>();
+
+    private final List<JobFootprint> runningFootprints = new ArrayList<>();
+
+    // Key is job id
+    private final Map<Long, Job> activeJobs = new HashMap<>();
+
+    private ExecutorService executor;
+
+    private volatile boolean running = true;
+
+    @Override
+    public void submit(Job job) {
+        Long userId = SessionUserHolder.getUserId();
+        JobFootprint footprint = JobFootprint.of(job);
+        Runnable runnable = () -> {
+            try {
+                SessionUserHolder.setUserId(userId);
+                job.run();
+            } finally {
+                SessionUserHolder.clear();
+            }
+        };
+
+        synchronized (lock) {
+            Lane lane = lanes.computeIfAbsent(footprint.getClusterId(), this::createLane);
+            lane.queue.offer(new QueuedJob(job.getJobPO().getId(), job, footprint, runnable, System.nanoTime()));
+        }
+
+        dispatch();
+    }
+
+    @Override
+    public boolean cancel(Long jobId) {
+        QueuedJob canceled = null;
+        Job running;
+        synchronized (lock) {
+            for (Lane lane : lanes.values()) {
+                Iterator<QueuedJob> iterator = lane.queue.iterator();
+                while (iterator.hasNext()) {
+                    QueuedJob queuedJob = iterator.next();
+                    if (queuedJob.jobId.equals(jobId)) {
+                        iterator.remove();
+                        canceled = queuedJob;
+                        break;
+                    }
+                }
+            }
+
+            running = activeJobs.get(jobId);
+        }
+
+        if (canceled != null) {
+            // Never started, mark all stages and tasks as canceled
+            canceled.job.cancel();
+            canceled.job.onFailure();
+
+            // Jobs queued after it may not be blocked anymore
+            dispatch();
+            return true;
+        } else if (running != null) {
+            running.cancel();
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        dispatch();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger(0);
+
+            @Override
+            public Thread newThread(Runnable r) {
+                return new Thread(r, "job-scheduler-" + counter.incrementAndGet());
+            }
+        });
+
+        Gauge.builder(METRIC_PREFIX + "running.jobs", runningFootprints, List::size)
+                .description("Number of jobs currently running")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        running = false;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Start as many queued jobs as possible, lanes are visited round-robin so that
+     * one busy cluster can not take all global slots.
+     */
+    private void dispatch() {
+        synchronized (lock) {
+            boolean progress = true;
+            while (running && progress && runningFootprints.size() < jobSchedulerProperties.getMaxConcurrentJobs()) {
+                progress = false;
+                for (Lane lane : lanes.values()) {
+                    if (runningFootprints.size() >= jobSchedulerProperties.getMaxConcurrentJobs()) {
+                        break;
+                    }
+
+                    QueuedJob queuedJob = lane.pollRunnable();
+                    if (queuedJob != null) {
+                        launch(lane, queuedJob);
+                        progress = true;
+                    }
+                }
+            }
+        }
+    }
+
+    private void launch(Lane lane, QueuedJob queuedJob) {
+        lane.runningJobs.incrementAndGet();
+        runningFootprints.add(queuedJob.footprint);
+        activeJobs.put(queuedJob.jobId, queuedJob.job);
+
+        long waitNanos = System.nanoTime() - queuedJob.submitTime;
+        lane.waitTimer.record(Duration.ofNanos(waitNanos));
+        log.info(
+                "Starting job {} in lane {}, waited {} ms",
+                queuedJob.jobId,
+                lane.clusterId,
+                TimeUnit.NANOSECONDS.toMillis(waitNanos));
+
+        executor.execute(() -> {
+            try {
+                queuedJob.runnable.run();
+            } catch (Exception e) {
+                log.error("Error when running job {}", queuedJob.jobId, e);
+            } finally {
+                synchronized (lock) {
+                    lane.runningJobs.decrementAndGet();
+                    runningFootprints.remove(queuedJob.footprint);
+                    activeJobs.remove(queuedJob.jobId);
+                }
+
+                dispatch();
+            }
+        });
+    }
+
+    private Lane createLane(Long clusterId) {
+        Lane lane = new Lane(clusterId);
+        String tag = String.valueOf(clusterId);
+        Gauge.builder(METRIC_PREFIX + "queued.jobs", lane.queue, LinkedBlockingDeque::size)
+                .description("Number of jobs waiting in the cluster lane")
+                .tag("cluster_id", tag)
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + "lane.running.jobs", lane.runningJobs, AtomicInteger::get)
+                .description("Number of jobs running in the cluster lane")
+                .tag("cluster_id", tag)
+                .register(meterRegistry);
+        lane.waitTimer = Timer.builder(METRIC_PREFIX + "wait")
+                .description("Time jobs spend queued before they start")
+                .tag("cluster_id", tag)
+                .register(meterRegistry);
+        return lane;
+    }
+
+    private record QueuedJob(Long jobId, Job job, JobFootprint footprint, Runnable runnable, long submitTime) {}
+
+    private class Lane {
+
+        private final Long clusterId;
+
+        private final LinkedBlockingDeque<QueuedJob> queue = new LinkedBlockingDeque<>();
+
+        private final AtomicInteger runningJobs = new AtomicInteger(0);
+
+        private Timer waitTimer;
+
+        private Lane(Long clusterId) {
+            this.clusterId = clusterId;
+        }
+
+        /**
+         * Poll the first job which does not conflict with running jobs or jobs queued before it.
+         */
+        private QueuedJob pollRunnable() {
+            if (runningJobs.get() >= jobSchedulerProperties.getMaxJobsPerCluster()) {
+                return null;
+            }
+
+            List<JobFootprint> blocked = new ArrayList<>();
+            Iterator<QueuedJob> iterator = queue.iterator();
+            while (iterator.hasNext()) {
+                QueuedJob queuedJob = iterator.next();
+                JobFootprint footprint = queuedJob.footprint;
+                if (footprint.conflictsWithAny(runningFootprints) || footprint.conflictsWithAny(blocked)) {
+                    blocked.add(footprint);
+                    continue;
+                }
+
+                iterator.remove();
+                return queuedJob;
+            }
+
+            return null;
+        }
+    }
+}
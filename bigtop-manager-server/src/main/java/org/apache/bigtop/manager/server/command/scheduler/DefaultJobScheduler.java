@@ -21,6 +21,7 @@ package org.apache.bigtop.manager.server.command.scheduler;
 import org.apache.bigtop.manager.server.command.job.Job;
 import org.apache.bigtop.manager.server.holder.SessionUserHolder;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import lombok.extern.slf4j.Slf4j;
@@ -32,25 +33,39 @@ import java.util.concurrent.LinkedBlockingQueue;
 
 @Slf4j
 @Component
+@ConditionalOnProperty(prefix = "bigtop.manager.scheduler", name = "type", havingValue = "default")
 public class DefaultJobScheduler implements JobScheduler {
 
-    private final LinkedBlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
+    private final LinkedBlockingQueue<QueuedJob> queue = new LinkedBlockingQueue<>();
 
     private final Executor executor = Executors.newSingleThreadExecutor();
 
     private volatile boolean running = true;
 
+    private volatile Job runningJob;
+
     @Override
     public void submit(Job job) {
-        Long userId = SessionUserHolder.getUserId();
-        queue.offer(() -> {
-            try {
-                SessionUserHolder.setUserId(userId);
-                job.run();
-            } finally {
-                SessionUserHolder.clear();
+        queue.offer(new QueuedJob(job, SessionUserHolder.getUserId()));
+    }
+
+    @Override
+    public boolean cancel(Long jobId) {
+        for (QueuedJob queuedJob : queue) {
+            if (jobId.equals(queuedJob.job.getJobPO().getId()) && queue.remove(queuedJob)) {
+                queuedJob.job.cancel();
+                queuedJob.job.onFailure();
+                return true;
             }
-        });
+        }
+
+        Job job = runningJob;
+        if (job != null && jobId.equals(job.getJobPO().getId())) {
+            job.cancel();
+            return true;
+        }
+
+        return false;
     }
 
     @Override
@@ -68,12 +83,19 @@ public class DefaultJobScheduler implements JobScheduler {
         executor.execute(() -> {
             while (running) {
                 try {
-                    Runnable runnable = queue.take();
-                    runnable.run();
+                    QueuedJob queuedJob = queue.take();
+                    runningJob = queuedJob.job;
+                    SessionUserHolder.setUserId(queuedJob.userId);
+                    queuedJob.job.run();
                 } catch (InterruptedException e) {
                     log.warn("Error when polling new job", e);
+                } finally {
+                    runningJob = null;
+                    SessionUserHolder.clear();
                 }
             }
         });
     }
+
+    private record QueuedJob(Job job, Long userId) {}
 }
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.command.scheduler;
+
+import org.apache.bigtop.manager.server.command.job.Job;
+import org.apache.bigtop.manager.server.command.stage.Stage;
+import org.apache.bigtop.manager.server.command.stage.StageContext;
+import org.apache.bigtop.manager.server.utils.ClusterUtils;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Resources a job touches, used by the scheduler to decide whether two jobs can run at the same time.
+ * Jobs conflict when they share any host, or when they operate on the same service of the same cluster.
+ */
+@Getter
+public class JobFootprint {
+
+    private final Long clusterId;
+
+    private final Set<String> hostnames;
+
+    private final Set<String> serviceNames;
+
+    public JobFootprint(Long clusterId, Set<String> hostnames, Set<String> serviceNames) {
+        this.clusterId = ClusterUtils.isNoneCluster(clusterId) ? 0L : clusterId;
+        this.hostnames = hostnames;
+        this.serviceNames = serviceNames;
+    }
+
+    public static JobFootprint of(Job job) {
+        Long clusterId = job.getJobContext().getCommandDTO().getClusterId();
+        Set<String> hostnames = new HashSet<>();
+        Set<String> serviceNames = new HashSet<>();
+        for (Stage stage : job.getStages()) {
+            StageContext stageContext = stage.getStageContext();
+            if (stageContext.getHostnames() != null) {
+                hostnames.addAll(stageContext.getHostnames());
+            }
+
+            if (stageContext.getServiceName() != null) {
+                serviceNames.add(stageContext.getServiceName());
+            }
+        }
+
+        return new JobFootprint(clusterId, hostnames, serviceNames);
+    }
+
+    public boolean conflictsWith(JobFootprint other) {
+        if (!Collections.disjoint(hostnames, other.hostnames)) {
+            return true;
+        }
+
+        return Objects.equals(clusterId, other.clusterId) && !Collections.disjoint(serviceNames, other.serviceNames);
+    }
+
+    public boolean conflictsWithAny(Collection<JobFootprint> others) {
+        for (JobFootprint other : others) {
+            if (conflictsWith(other)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
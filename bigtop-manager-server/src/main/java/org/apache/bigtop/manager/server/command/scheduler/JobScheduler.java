@@ -32,6 +32,13 @@ public interface JobScheduler {
      */
     void submit(Job job);
 
+    /**
+     * Cancels a job, a queued job will never be started and a running job will be stopped.
+     * @param jobId The id of the job to be canceled.
+     * @return true if the job is queued or running in this scheduler, false otherwise.
+     */
+    boolean cancel(Long jobId);
+
     /**
      * Starts the job scheduler.
      * This method should be called after all jobs have been submitted.
@@ -18,6 +18,7 @@
  */
 package org.apache.bigtop.manager.server.command.stage;
 
+import org.apache.bigtop.manager.common.enums.Command;
 import org.apache.bigtop.manager.dao.po.ClusterPO;
 import org.apache.bigtop.manager.dao.repository.ClusterDao;
 import org.apache.bigtop.manager.server.command.task.TaskContext;
@@ -36,6 +37,11 @@ public abstract class AbstractComponentStage extends AbstractStage {
         super(stageContext);
     }
 
+    /**
+     * The command executed on every host of this stage.
+     */
+    public abstract Command getCommand();
+
     @Override
     protected void injectBeans() {
         super.injectBeans();
@@ -24,9 +24,11 @@ import org.apache.bigtop.manager.dao.po.StagePO;
 import org.apache.bigtop.manager.dao.repository.HostDao;
 import org.apache.bigtop.manager.dao.repository.StageDao;
 import org.apache.bigtop.manager.server.command.task.Task;
+import org.apache.bigtop.manager.server.command.task.TaskDispatcher;
 import org.apache.bigtop.manager.server.enums.ApiExceptionEnum;
 import org.apache.bigtop.manager.server.exception.ApiException;
 import org.apache.bigtop.manager.server.holder.SpringContextHolder;
+import org.apache.bigtop.manager.server.service.JobEventService;
 
 import org.apache.commons.collections4.CollectionUtils;
 
@@ -34,17 +36,19 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 public abstract class AbstractStage implements Stage {
 
     protected StageDao stageDao;
     protected HostDao hostDao;
+    protected TaskDispatcher taskDispatcher;
 
     protected StageContext stageContext;
     protected List<Task> tasks;
 
+    protected volatile boolean canceled = false;
+
     /**
      * Do not use this directly, please use {@link #getStagePO()} to make sure it's initialized.
      */
@@ -70,6 +74,7 @@ public abstract class AbstractStage implements Stage {
     protected void injectBeans() {
         this.stageDao = SpringContextHolder.getBean(StageDao.class);
         this.hostDao = SpringContextHolder.getBean(HostDao.class);
+        this.taskDispatcher = SpringContextHolder.getBean(TaskDispatcher.class);
     }
 
     protected abstract void beforeCreateTasks();
@@ -88,31 +93,28 @@ public abstract class AbstractStage implements Stage {
     public void beforeRun() {
         stagePO.setState(JobState.PROCESSING.getName());
         stageDao.partialUpdateById(stagePO);
+        publishEvent(stagePO);
     }
 
     @Override
     public Boolean run() {
+        if (JobState.SUCCESSFUL.getName().equals(getStagePO().getState())) {
+            // Already finished before the job was resumed
+            return true;
+        }
+
         boolean allTaskSuccess;
 
         try {
             beforeRun();
 
-            List<CompletableFuture<Boolean>> futures = new ArrayList<>();
-            for (Task task : tasks) {
-                futures.add(CompletableFuture.supplyAsync(task::run));
-            }
-
-            List<Boolean> taskResults = futures.stream()
-                    .map((future) -> {
-                        try {
-                            return future.get();
-                        } catch (Exception e) {
-                            log.error("stage failed,", e);
-                            return false;
-                        }
-                    })
+            // Only rerun unfinished tasks when the job is resumed
+            List<Task> unfinishedTasks = tasks.stream()
+                    .filter(task -> !JobState.SUCCESSFUL
+                            .getName()
+                            .equals(task.getTaskPO().getState()))
                     .toList();
-
+            List<Boolean> taskResults = taskDispatcher.dispatch(unfinishedTasks);
             allTaskSuccess = taskResults.stream().allMatch(Boolean::booleanValue);
         } catch (Exception e) {
             log.error("stage failed", e);
@@ -133,13 +135,31 @@ public abstract class AbstractStage implements Stage {
         StagePO stagePO = getStagePO();
         stagePO.setState(JobState.SUCCESSFUL.getName());
         stageDao.partialUpdateById(stagePO);
+        publishEvent(stagePO);
     }
 
     @Override
     public void onFailure() {
         StagePO stagePO = getStagePO();
-        stagePO.setState(JobState.FAILED.getName());
+        stagePO.setState(canceled ? JobState.CANCELED.getName() : JobState.FAILED.getName());
         stageDao.partialUpdateById(stagePO);
+        publishEvent(stagePO);
+    }
+
+    private void publishEvent(StagePO stagePO) {
+        JobEventService jobEventService = SpringContextHolder.getBean(JobEventService.class);
+        if (jobEventService != null) {
+            jobEventService.publishStageEvent(stagePO);
+        }
+    }
+
+    @Override
+    public void cancel() {
+        canceled = true;
+
+        for (Task task : tasks) {
+            task.cancel();
+        }
     }
 
     @Override
@@ -18,6 +18,7 @@
  */
 package org.apache.bigtop.manager.server.command.stage;
 
+import org.apache.bigtop.manager.common.enums.Command;
 import org.apache.bigtop.manager.server.command.task.ComponentAddTask;
 import org.apache.bigtop.manager.server.command.task.Task;
 import org.apache.bigtop.manager.server.utils.StackUtils;
@@ -33,6 +34,11 @@ public class ComponentAddStage extends AbstractComponentStage {
         return new ComponentAddTask(createTaskContext(hostname));
     }
 
+    @Override
+    public Command getCommand() {
+        return Command.ADD;
+    }
+
     @Override
     public String getName() {
         return "Add "
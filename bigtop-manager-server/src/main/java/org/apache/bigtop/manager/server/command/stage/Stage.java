@@ -35,6 +35,11 @@ public interface Stage {
 
     void onFailure();
 
+    /**
+     * Stop the running work as soon as possible, the result will be marked as canceled.
+     */
+    void cancel();
+
     StageContext getStageContext();
 
     List<Task> getTasks();
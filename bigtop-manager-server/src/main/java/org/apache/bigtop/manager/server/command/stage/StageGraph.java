@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.command.stage;
+
+import org.apache.bigtop.manager.server.utils.StackUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Dependencies between the stages of a job.
+ * <p>
+ * Stages are created in an order which is already a valid execution order, so a stage may only depend on
+ * stages created before it. Two stages are considered independent only if all of the following are true,
+ * otherwise the later one waits for the earlier one:
+ * <ul>
+ *     <li>both are component stages, non-component stages like host check act as barriers</li>
+ *     <li>both execute the same command, so the phase order from ComponentStageHelper is preserved</li>
+ *     <li>they belong to different components and there is no path between them in {@link StackUtils#DAG}</li>
+ * </ul>
+ * Stages may share hosts, the number of tasks running on an agent at the same time is limited by the dispatcher.
+ */
+public class StageGraph {
+
+    private static final String ROLE_COMMAND_SPLIT = "-";
+
+    private final List<Stage> stages;
+
+    private final List<Set<Integer>> dependencies;
+
+    public StageGraph(List<Stage> stages) {
+        this.stages = stages;
+        this.dependencies = new ArrayList<>();
+
+        for (int i = 0; i < stages.size(); i++) {
+            Set<Integer> dependsOn = new HashSet<>();
+            for (int j = 0; j < i; j++) {
+                if (dependsOn(stages.get(i), stages.get(j))) {
+                    dependsOn.add(j);
+                }
+            }
+
+            dependencies.add(Collections.unmodifiableSet(dependsOn));
+        }
+    }
+
+    public int size() {
+        return stages.size();
+    }
+
+    public Stage getStage(int index) {
+        return stages.get(index);
+    }
+
+    /**
+     * @param index index of the stage
+     * @return indexes of the stages which must succeed before the stage can run
+     */
+    public Set<Integer> getDependencies(int index) {
+        return dependencies.get(index);
+    }
+
+    private boolean dependsOn(Stage stage, Stage previous) {
+        if (!(stage instanceof AbstractComponentStage current)
+                || !(previous instanceof AbstractComponentStage before)) {
+            return true;
+        }
+
+        if (current.getCommand() != before.getCommand()) {
+            return true;
+        }
+
+        StageContext currentContext = current.getStageContext();
+        StageContext beforeContext = before.getStageContext();
+        if (currentContext.getComponentName().equals(beforeContext.getComponentName())) {
+            return true;
+        }
+
+        String currentNode = toDagNode(
+                currentContext.getComponentName(), current.getCommand().name());
+        String beforeNode =
+                toDagNode(beforeContext.getComponentName(), before.getCommand().name());
+        return reachable(beforeNode, currentNode) || reachable(currentNode, beforeNode);
+    }
+
+    private static String toDagNode(String componentName, String command) {
+        return componentName.toLowerCase() + ROLE_COMMAND_SPLIT + command;
+    }
+
+    private static boolean reachable(String from, String to) {
+        Set<String> visited = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add(from);
+
+        while (!queue.isEmpty()) {
+            String node = queue.poll();
+            for (String next : StackUtils.DAG.getSubsequentNodes(node)) {
+                if (next.equals(to)) {
+                    return true;
+                }
+
+                if (visited.add(next)) {
+                    queue.add(next);
+                }
+            }
+        }
+
+        return false;
+    }
+}
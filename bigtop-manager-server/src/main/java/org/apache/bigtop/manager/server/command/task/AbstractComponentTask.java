@@ -24,12 +24,19 @@ import org.apache.bigtop.manager.dao.repository.ComponentDao;
 import org.apache.bigtop.manager.grpc.generated.ComponentCommandReply;
 import org.apache.bigtop.manager.grpc.generated.ComponentCommandRequest;
 import org.apache.bigtop.manager.grpc.generated.ComponentCommandServiceGrpc;
+import org.apache.bigtop.manager.grpc.generated.TaskCancelReply;
+import org.apache.bigtop.manager.grpc.generated.TaskCancelRequest;
+import org.apache.bigtop.manager.grpc.generated.TaskCancelServiceGrpc;
+import org.apache.bigtop.manager.grpc.generated.TemplateInfoMessage;
 import org.apache.bigtop.manager.grpc.payload.ComponentCommandPayload;
 import org.apache.bigtop.manager.grpc.pojo.PackageInfo;
 import org.apache.bigtop.manager.grpc.pojo.PackageSpecificInfo;
 import org.apache.bigtop.manager.grpc.pojo.TemplateInfo;
+import org.apache.bigtop.manager.grpc.utils.PayloadConverter;
+import org.apache.bigtop.manager.server.command.helper.TemplateHelper;
 import org.apache.bigtop.manager.server.grpc.GrpcClient;
 import org.apache.bigtop.manager.server.holder.SpringContextHolder;
+import org.apache.bigtop.manager.server.model.dto.ComponentDTO;
 import org.apache.bigtop.manager.server.model.dto.PackageDTO;
 import org.apache.bigtop.manager.server.model.dto.PackageSpecificDTO;
 import org.apache.bigtop.manager.server.model.dto.ServiceDTO;
@@ -37,13 +44,29 @@ import org.apache.bigtop.manager.server.model.dto.StackDTO;
 import org.apache.bigtop.manager.server.model.dto.TemplateDTO;
 import org.apache.bigtop.manager.server.utils.StackUtils;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import io.grpc.Status;
+import lombok.extern.slf4j.Slf4j;
+
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
+@Slf4j
 public abstract class AbstractComponentTask extends AbstractTask {
 
+    private static final long CANCEL_TIMEOUT_SECONDS = 10;
+
     protected ComponentDao componentDao;
 
+    private volatile String hostname;
+
+    private volatile Integer grpcPort;
+
+    private volatile ListenableFuture<ComponentCommandReply> call;
+
     public AbstractComponentTask(TaskContext taskContext) {
         super(taskContext);
     }
@@ -55,14 +78,108 @@ public abstract class AbstractComponentTask extends AbstractTask {
         this.componentDao = SpringContextHolder.getBean(ComponentDao.class);
     }
 
+    @Override
+    protected long getTimeout() {
+        ComponentDTO componentDTO = StackUtils.getComponentDTO(taskContext.getComponentName());
+        if (componentDTO.getTimeout() != null) {
+            return componentDTO.getTimeout();
+        }
+
+        return super.getTimeout();
+    }
+
     @Override
     protected Boolean doRun(String hostname, Integer grpcPort) {
+        this.hostname = hostname;
+        this.grpcPort = grpcPort;
+
         ComponentCommandRequest request = getComponentCommandRequest();
-        ComponentCommandServiceGrpc.ComponentCommandServiceBlockingStub stub = GrpcClient.getBlockingStub(
-                hostname, grpcPort, ComponentCommandServiceGrpc.ComponentCommandServiceBlockingStub.class);
-        ComponentCommandReply reply = stub.exec(request);
+        if (request.hasPayloadMessage()) {
+            List<String> checksums = request.getPayloadMessage().getTemplatesList().stream()
+                    .filter(template -> !template.hasContent() && template.hasChecksum())
+                    .map(TemplateInfoMessage::getChecksum)
+                    .toList();
+            TemplateHelper.syncTemplates(hostname, grpcPort, checksums);
+        }
+
+        // Canceled while syncing templates, do not start the command at all
+        if (canceled) {
+            return false;
+        }
+
+        ComponentCommandServiceGrpc.ComponentCommandServiceFutureStub stub = GrpcClient.getFutureStub(
+                hostname, grpcPort, ComponentCommandServiceGrpc.ComponentCommandServiceFutureStub.class);
+        call = stub.withDeadlineAfter(getTimeout(), TimeUnit.SECONDS)
+                .withCompression("gzip")
+                .exec(request);
+
+        // Canceled while sending the request, cancel() may have seen no call yet and left the agent running it
+        if (canceled) {
+            cancelOnAgent();
+            call.cancel(true);
+        }
+
+        try {
+            ComponentCommandReply reply = call.get();
+            return reply != null && reply.getCode() == MessageConstants.SUCCESS_CODE;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelOnAgent();
+            call.cancel(true);
+            return false;
+        } catch (CancellationException | ExecutionException e) {
+            Status.Code code = Status.fromThrowable(e).getCode();
+            if (code == Status.Code.FAILED_PRECONDITION) {
+                // Agent lost templates we thought it has, they will be sent again on retry
+                TemplateHelper.evict(hostname);
+            }
+
+            log.warn("Task {} on host {} did not complete", getTaskPO().getId(), hostname, e);
+            if (!canceled
+                    && (e instanceof CancellationException
+                            || code == Status.Code.DEADLINE_EXCEEDED
+                            || code == Status.Code.CANCELLED)) {
+                // Only the call ended, processes of the task keep running on agent until they are killed
+                cancelOnAgent();
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * Ask agent to kill the processes of this task, then cancel the grpc call in case agent is not responding.
+     */
+    @Override
+    public void cancel() {
+        super.cancel();
+
+        ListenableFuture<ComponentCommandReply> call = this.call;
+        if (call == null || call.isDone()) {
+            return;
+        }
 
-        return reply != null && reply.getCode() == MessageConstants.SUCCESS_CODE;
+        cancelOnAgent();
+        call.cancel(true);
+    }
+
+    private void cancelOnAgent() {
+        try {
+            TaskCancelRequest request = TaskCancelRequest.newBuilder()
+                    .setTaskId(getTaskPO().getId())
+                    .build();
+            TaskCancelServiceGrpc.TaskCancelServiceBlockingStub stub = GrpcClient.getBlockingStub(
+                    hostname, grpcPort, TaskCancelServiceGrpc.TaskCancelServiceBlockingStub.class);
+            TaskCancelReply reply = stub.withDeadlineAfter(CANCEL_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .cancel(request);
+            log.info(
+                    "Task {} canceled on host {}, {} processes killed",
+                    request.getTaskId(),
+                    hostname,
+                    reply.getKilled());
+        } catch (Exception e) {
+            log.warn("Unable to cancel task {} on host {}", getTaskPO().getId(), hostname, e);
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -79,29 +196,42 @@ public abstract class AbstractComponentTask extends AbstractTask {
         payload.setCommand(getCommand().getCode());
         payload.setCustomCommand(getCustomCommand());
 
-        payload.setTemplates(convertTemplateInfo(serviceDTO.getName(), serviceDTO.getTemplates()));
+        boolean templateReference = GrpcClient.supportsTemplateReference(hostname);
+        payload.setTemplates(convertTemplateInfo(serviceDTO.getName(), serviceDTO.getTemplates(), templateReference));
         payload.setPackageSpecifics(convertPackageSpecificInfo(serviceDTO.getPackageSpecifics()));
 
         ComponentCommandRequest.Builder requestBuilder = ComponentCommandRequest.newBuilder();
-        requestBuilder.setPayload(JsonUtils.writeAsString(payload));
+        if (GrpcClient.supportsBinaryPayload(hostname)) {
+            requestBuilder.setPayloadMessage(PayloadConverter.toMessage(payload));
+        } else {
+            requestBuilder.setPayload(JsonUtils.writeAsString(payload));
+        }
+
         requestBuilder.setTaskId(getTaskPO().getId());
 
         return requestBuilder.build();
     }
 
-    private List<TemplateInfo> convertTemplateInfo(String serviceName, List<TemplateDTO> templateDTOList) {
+    private List<TemplateInfo> convertTemplateInfo(
+            String serviceName, List<TemplateDTO> templateDTOList, boolean templateReference) {
         if (templateDTOList == null) {
             return new ArrayList<>();
         }
 
         List<TemplateInfo> templateInfos = new ArrayList<>();
         for (TemplateDTO templateDTO : templateDTOList) {
-            String content = StackUtils.SERVICE_TEMPLATE_MAP.get(serviceName).get(templateDTO.getSrc());
-
             TemplateInfo templateInfo = new TemplateInfo();
             templateInfo.setSrc(templateDTO.getSrc());
             templateInfo.setDest(templateDTO.getDest());
-            templateInfo.setContent(content);
+            if (templateReference) {
+                templateInfo.setChecksum(StackUtils.SERVICE_TEMPLATE_CHECKSUM_MAP
+                        .get(serviceName)
+                        .get(templateDTO.getSrc()));
+            } else {
+                templateInfo.setContent(
+                        StackUtils.SERVICE_TEMPLATE_MAP.get(serviceName).get(templateDTO.getSrc()));
+            }
+
             templateInfos.add(templateInfo);
         }
 
@@ -25,7 +25,10 @@ import org.apache.bigtop.manager.dao.po.HostPO;
 import org.apache.bigtop.manager.dao.po.TaskPO;
 import org.apache.bigtop.manager.dao.repository.HostDao;
 import org.apache.bigtop.manager.dao.repository.TaskDao;
+import org.apache.bigtop.manager.server.config.JobExecutionProperties;
 import org.apache.bigtop.manager.server.holder.SpringContextHolder;
+import org.apache.bigtop.manager.server.service.JobEventService;
+import org.apache.bigtop.manager.server.service.TaskLogService;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -38,6 +41,8 @@ public abstract class AbstractTask implements Task {
 
     protected TaskContext taskContext;
 
+    protected volatile boolean canceled = false;
+
     /**
      * Do not use this directly, please use {@link #getTaskPO()} to make sure it's initialized.
      */
@@ -60,21 +65,39 @@ public abstract class AbstractTask implements Task {
         return null;
     }
 
+    /**
+     * Deadline of the grpc call to agent, in seconds.
+     */
+    protected long getTimeout() {
+        JobExecutionProperties properties = SpringContextHolder.getBean(JobExecutionProperties.class);
+        String command = getCustomCommand() == null ? getCommand().getCode() : getCustomCommand();
+        return properties.getCommandTimeouts().getOrDefault(command, properties.getTaskTimeout());
+    }
+
     @Override
     public void beforeRun() {
         taskPO.setState(JobState.PROCESSING.getName());
         taskDao.partialUpdateById(taskPO);
+        publishEvent(taskPO);
     }
 
     @Override
     public Boolean run() {
         boolean taskSuccess;
+        boolean sent = false;
 
         try {
-            beforeRun();
-
-            HostPO hostPO = hostDao.findByHostname(taskContext.getHostname());
-            taskSuccess = doRun(hostPO.getHostname(), hostPO.getGrpcPort());
+            if (canceled) {
+                // Canceled before sent to agent
+                taskSuccess = false;
+            } else {
+                deleteArchivedLog(taskPO);
+                beforeRun();
+
+                HostPO hostPO = hostDao.findByHostname(taskContext.getHostname());
+                sent = true;
+                taskSuccess = doRun(hostPO.getHostname(), hostPO.getGrpcPort());
+            }
         } catch (Exception e) {
             log.error("task failed", e);
             taskSuccess = false;
@@ -86,6 +109,10 @@ public abstract class AbstractTask implements Task {
             onFailure();
         }
 
+        if (sent) {
+            archiveLog(taskPO);
+        }
+
         return taskSuccess;
     }
 
@@ -97,13 +124,43 @@ public abstract class AbstractTask implements Task {
         TaskPO taskPO = getTaskPO();
         taskPO.setState(JobState.SUCCESSFUL.getName());
         taskDao.partialUpdateById(taskPO);
+        publishEvent(taskPO);
     }
 
     @Override
     public void onFailure() {
         TaskPO taskPO = getTaskPO();
-        taskPO.setState(JobState.FAILED.getName());
+        taskPO.setState(canceled ? JobState.CANCELED.getName() : JobState.FAILED.getName());
         taskDao.partialUpdateById(taskPO);
+        publishEvent(taskPO);
+    }
+
+    private void publishEvent(TaskPO taskPO) {
+        JobEventService jobEventService = SpringContextHolder.getBean(JobEventService.class);
+        if (jobEventService != null) {
+            jobEventService.publishTaskEvent(taskPO);
+        }
+    }
+
+    private void archiveLog(TaskPO taskPO) {
+        // Agent may be gone when someone views the log later
+        TaskLogService taskLogService = SpringContextHolder.getBean(TaskLogService.class);
+        if (taskLogService != null) {
+            taskLogService.archive(taskPO.getId());
+        }
+    }
+
+    private void deleteArchivedLog(TaskPO taskPO) {
+        // Task is retried with the same id, log of the last run is replaced once this run finishes
+        TaskLogService taskLogService = SpringContextHolder.getBean(TaskLogService.class);
+        if (taskLogService != null) {
+            taskLogService.deleteArchive(taskPO.getId());
+        }
+    }
+
+    @Override
+    public void cancel() {
+        canceled = true;
     }
 
     @Override
@@ -25,6 +25,8 @@ import org.apache.bigtop.manager.grpc.generated.HostCheckRequest;
 import org.apache.bigtop.manager.grpc.generated.HostCheckServiceGrpc;
 import org.apache.bigtop.manager.server.grpc.GrpcClient;
 
+import java.util.concurrent.TimeUnit;
+
 public class HostCheckTask extends AbstractTask {
 
     public HostCheckTask(TaskContext taskContext) {
@@ -49,7 +51,8 @@ public class HostCheckTask extends AbstractTask {
 
         HostCheckServiceGrpc.HostCheckServiceBlockingStub stub =
                 GrpcClient.getBlockingStub(hostname, grpcPort, HostCheckServiceGrpc.HostCheckServiceBlockingStub.class);
-        HostCheckReply reply = stub.check(request);
+        HostCheckReply reply =
+                stub.withDeadlineAfter(getTimeout(), TimeUnit.SECONDS).check(request);
 
         return reply != null && reply.getCode() == MessageConstants.SUCCESS_CODE;
     }
@@ -25,6 +25,8 @@ import org.apache.bigtop.manager.grpc.generated.SetupJdkRequest;
 import org.apache.bigtop.manager.grpc.generated.SetupJdkServiceGrpc;
 import org.apache.bigtop.manager.server.grpc.GrpcClient;
 
+import java.util.concurrent.TimeUnit;
+
 public class SetupJdkTask extends AbstractTask {
 
     public SetupJdkTask(TaskContext taskContext) {
@@ -49,7 +51,8 @@ public class SetupJdkTask extends AbstractTask {
 
         SetupJdkServiceGrpc.SetupJdkServiceBlockingStub stub =
                 GrpcClient.getBlockingStub(hostname, grpcPort, SetupJdkServiceGrpc.SetupJdkServiceBlockingStub.class);
-        SetupJdkReply reply = stub.setup(request);
+        SetupJdkReply reply =
+                stub.withDeadlineAfter(getTimeout(), TimeUnit.SECONDS).setup(request);
 
         return reply != null && reply.getCode() == MessageConstants.SUCCESS_CODE;
     }
@@ -32,6 +32,11 @@ public interface Task {
 
     void onFailure();
 
+    /**
+     * Stop the running work as soon as possible, the result will be marked as canceled.
+     */
+    void cancel();
+
     TaskContext getTaskContext();
 
     void loadTaskPO(TaskPO taskPO);
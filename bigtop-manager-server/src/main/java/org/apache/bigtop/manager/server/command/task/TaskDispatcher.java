@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.command.task;
+
+import org.apache.bigtop.manager.server.config.JobExecutionProperties;
+import org.apache.bigtop.manager.server.grpc.GrpcClient;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the tasks of stages on a dedicated, bounded thread pool.
+ * <p>
+ * Tasks block on grpc calls which can take minutes, so they must not run on the common pool.
+ * The number of tasks in flight is limited per stage and per agent host,
+ * time spent waiting for a permit and time spent running are recorded separately.
+ */
+@Slf4j
+@Component
+public class TaskDispatcher {
+
+    private static final String METRIC_PREFIX = "bigtop.manager.stage.task.";
+
+    @Resource
+    private JobExecutionProperties jobExecutionProperties;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, HostPermits> hostPermits = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+
+    private Timer queueTimer;
+
+    private Timer executionTimer;
+
+    @PostConstruct
+    public void init() {
+        int threads = jobExecutionProperties.getTaskThreads();
+        AtomicInteger counter = new AtomicInteger(0);
+        executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> new Thread(r, "task-dispatcher-" + counter.incrementAndGet()));
+        executor.allowCoreThreadTimeOut(true);
+
+        queueTimer = Timer.builder(METRIC_PREFIX + "queue")
+                .description("Time tasks spent waiting for a thread and in-flight permits")
+                .register(meterRegistry);
+        executionTimer = Timer.builder(METRIC_PREFIX + "execution")
+                .description("Time tasks spent running")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + "active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Number of threads busy with tasks")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + "queued", executor, e -> e.getQueue().size())
+                .description("Number of tasks waiting for a thread")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Run all tasks and wait for them to finish.
+     *
+     * @param tasks tasks of a stage
+     * @return result of each task, in the same order as the given tasks
+     */
+    public List<Boolean> dispatch(List<Task> tasks) {
+        Semaphore stagePermits = new Semaphore(jobExecutionProperties.getMaxTasksPerStage());
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+
+        for (Task task : tasks) {
+            try {
+                stagePermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.add(CompletableFuture.completedFuture(false));
+                continue;
+            }
+
+            long submitTime = System.nanoTime();
+            CompletableFuture<Boolean> future = CompletableFuture.supplyAsync(() -> run(task, submitTime), executor);
+            futures.add(future.whenComplete((result, throwable) -> stagePermits.release()));
+        }
+
+        return futures.stream()
+                .map((future) -> {
+                    try {
+                        return future.get();
+                    } catch (Exception e) {
+                        log.error("task failed", e);
+                        return false;
+                    }
+                })
+                .toList();
+    }
+
+    private Boolean run(Task task, long submitTime) {
+        Semaphore permits = getHostPermits(task.getTaskContext().getHostname());
+
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        long startTime = System.nanoTime();
+        queueTimer.record(startTime - submitTime, TimeUnit.NANOSECONDS);
+
+        try {
+            return task.run();
+        } finally {
+            executionTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+            permits.release();
+        }
+    }
+
+    /**
+     * Agents of older releases run one task at a time, the limit is updated once the agent reports a newer version.
+     * Tasks in flight release the permits they acquired, so a replaced semaphore drains on its own.
+     */
+    private Semaphore getHostPermits(String hostname) {
+        int limit = GrpcClient.supportsConcurrentTasks(hostname) ? jobExecutionProperties.getMaxTasksPerHost() : 1;
+        return hostPermits
+                .compute(hostname, (k, v) -> v != null && v.limit() == limit ? v : new HostPermits(limit))
+                .semaphore();
+    }
+
+    private record HostPermits(int limit, Semaphore semaphore) {
+
+        HostPermits(int limit) {
+            this(limit, new Semaphore(limit, true));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "bigtop.manager.job")
+public class JobExecutionProperties {
+
+    /**
+     * Run stages which do not depend on each other at the same time,
+     * stages are executed one by one in creation order when disabled.
+     */
+    private Boolean parallelStages = true;
+
+    /**
+     * Max number of stages running at the same time, shared by all running jobs.
+     * Only used when {@link #parallelStages} is enabled, stages over the limit wait in queue.
+     */
+    private Integer stageThreads = 16;
+
+    /**
+     * Max number of threads sending tasks to agents, shared by all running stages.
+     */
+    private Integer taskThreads = 100;
+
+    /**
+     * Max number of tasks in flight for a single stage.
+     */
+    private Integer maxTasksPerStage = 50;
+
+    /**
+     * Max number of tasks in flight for a single agent, across all stages and jobs.
+     * Agents of older releases always run one task at a time.
+     */
+    private Integer maxTasksPerHost = 4;
+
+    /**
+     * Default deadline in seconds of a task sent to agent.
+     */
+    private Long taskTimeout = 1800L;
+
+    /**
+     * Deadline in seconds per command code, e.g. "add", overrides {@link #taskTimeout}.
+     * Component level timeout in stack metainfo takes precedence over both.
+     */
+    private Map<String, Long> commandTimeouts = new HashMap<>();
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "bigtop.manager.scheduler")
+public class JobSchedulerProperties {
+
+    /**
+     * Scheduler implementation, "concurrent" runs non-conflicting jobs in parallel,
+     * "default" runs all jobs one by one in submission order.
+     */
+    private String type = "concurrent";
+
+    /**
+     * Max number of jobs running at the same time across all clusters.
+     */
+    private Integer maxConcurrentJobs = 4;
+
+    /**
+     * Max number of jobs running at the same time in a single cluster.
+     */
+    private Integer maxJobsPerCluster = 2;
+}
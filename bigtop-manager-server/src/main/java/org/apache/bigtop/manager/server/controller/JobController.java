@@ -18,10 +18,12 @@
  */
 package org.apache.bigtop.manager.server.controller;
 
+import org.apache.bigtop.manager.server.model.vo.JobEventVO;
 import org.apache.bigtop.manager.server.model.vo.JobVO;
 import org.apache.bigtop.manager.server.model.vo.PageVO;
 import org.apache.bigtop.manager.server.model.vo.StageVO;
 import org.apache.bigtop.manager.server.model.vo.TaskVO;
+import org.apache.bigtop.manager.server.service.JobEventService;
 import org.apache.bigtop.manager.server.service.JobService;
 import org.apache.bigtop.manager.server.service.TaskLogService;
 import org.apache.bigtop.manager.server.utils.ResponseEntity;
@@ -29,7 +31,9 @@ import org.apache.bigtop.manager.server.utils.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
@@ -39,8 +43,10 @@ import io.swagger.v3.oas.annotations.Parameters;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
 
 import jakarta.annotation.Resource;
 
@@ -55,6 +61,9 @@ public class JobController {
     @Resource
     private TaskLogService taskLogService;
 
+    @Resource
+    private JobEventService jobEventService;
+
     @Operation(summary = "jobs", description = "List jobs")
     @Parameters({
         @Parameter(in = ParameterIn.QUERY, name = "pageNum", schema = @Schema(type = "integer", defaultValue = "1")),
@@ -71,6 +80,51 @@ public class JobController {
         return ResponseEntity.success(jobService.jobs(clusterId));
     }
 
+    @Operation(summary = "job events", description = "Subscribe job, stage and task state changes")
+    @Parameters({
+        @Parameter(
+                in = ParameterIn.QUERY,
+                name = "jobId",
+                description = "Only events of this job if specified",
+                schema = @Schema(type = "integer")),
+        @Parameter(
+                in = ParameterIn.HEADER,
+                name = "Last-Event-ID",
+                description = "Resume from events after this id",
+                schema = @Schema(type = "integer"))
+    })
+    @GetMapping("/events")
+    public SseEmitter events(
+            @PathVariable Long clusterId,
+            @RequestParam(required = false) Long jobId,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        // Default timeout to 30 minutes, browsers reconnect with Last-Event-ID after that
+        SseEmitter emitter = new SseEmitter(30 * 60 * 1000L);
+
+        // Events are published by job threads, send them on another thread to not block jobs
+        Flux<JobEventVO> flux = Flux.<JobEventVO>create(
+                        sink -> jobEventService.registerSink(clusterId, jobId, lastEventId, sink),
+                        FluxSink.OverflowStrategy.BUFFER)
+                .publishOn(Schedulers.boundedElastic());
+        Disposable disposable = flux.subscribe(
+                event -> {
+                    try {
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(event.getId()))
+                                .name(event.getType())
+                                .data(event));
+                    } catch (Exception e) {
+                        emitter.completeWithError(e);
+                    }
+                },
+                emitter::completeWithError,
+                emitter::complete);
+
+        emitter.onTimeout(emitter::complete);
+        emitter.onCompletion(disposable::dispose);
+        return emitter;
+    }
+
     @Operation(summary = "job details", description = "Get job details")
     @GetMapping("/{jobId}")
     public ResponseEntity<JobVO> jobDetails(@PathVariable Long clusterId, @PathVariable Long jobId) {
@@ -111,17 +165,25 @@ public class JobController {
     }
 
     @Operation(summary = "get task log", description = "Get a task log")
+    @Parameters({
+        @Parameter(
+                in = ParameterIn.QUERY,
+                name = "offset",
+                description = "Byte offset in the log to start from",
+                schema = @Schema(type = "integer", defaultValue = "0"))
+    })
     @GetMapping("/{jobId}/stages/{stageId}/tasks/{taskId}/log")
     public SseEmitter taskLog(
             @PathVariable Long clusterId,
             @PathVariable Long jobId,
             @PathVariable Long stageId,
-            @PathVariable Long taskId) {
+            @PathVariable Long taskId,
+            @RequestParam(defaultValue = "0") Long offset) {
         // Default timeout to 30 minutes
         SseEmitter emitter = new SseEmitter(30 * 60 * 1000L);
 
-        Flux<String> flux =
-                Flux.create(sink -> taskLogService.registerSink(taskId, sink), FluxSink.OverflowStrategy.BUFFER);
+        Flux<String> flux = Flux.create(
+                sink -> taskLogService.registerSink(taskId, offset, sink), FluxSink.OverflowStrategy.BUFFER);
         flux.subscribe(
                 s -> {
                     try {
@@ -138,8 +200,24 @@ public class JobController {
     }
 
     @Operation(summary = "retry", description = "Retry a failed job")
+    @Parameters({
+        @Parameter(
+                in = ParameterIn.QUERY,
+                name = "resume",
+                description = "Skip successful stages and tasks",
+                schema = @Schema(type = "boolean", defaultValue = "true"))
+    })
     @PostMapping("/{jobId}/retry")
-    public ResponseEntity<JobVO> retry(@PathVariable Long clusterId, @PathVariable Long jobId) {
-        return ResponseEntity.success(jobService.retry(jobId));
+    public ResponseEntity<JobVO> retry(
+            @PathVariable Long clusterId,
+            @PathVariable Long jobId,
+            @RequestParam(defaultValue = "true") Boolean resume) {
+        return ResponseEntity.success(jobService.retry(jobId, resume));
+    }
+
+    @Operation(summary = "cancel", description = "Cancel a pending or running job")
+    @PostMapping("/{jobId}/cancel")
+    public ResponseEntity<JobVO> cancel(@PathVariable Long clusterId, @PathVariable Long jobId) {
+        return ResponseEntity.success(jobService.cancel(jobId));
     }
 }
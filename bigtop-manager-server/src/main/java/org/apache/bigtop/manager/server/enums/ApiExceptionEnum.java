@@ -49,7 +49,6 @@ public enum ApiExceptionEnum {
     HOST_NOT_FOUND(12000, LocaleKeys.HOST_NOT_FOUND),
     HOST_ASSIGNED(12001, LocaleKeys.HOST_ASSIGNED),
     HOST_NOT_CONNECTED(12002, LocaleKeys.HOST_NOT_CONNECTED),
-    HOST_UNABLE_TO_RESOLVE(12003, LocaleKeys.HOST_UNABLE_TO_RESOLVE),
     HOST_UNABLE_TO_CONNECT(12004, LocaleKeys.HOST_UNABLE_TO_CONNECT),
     HOST_UNABLE_TO_EXEC_COMMAND(12005, LocaleKeys.HOST_UNABLE_TO_EXEC_COMMAND),
     HOST_HAS_COMPONENTS(12006, LocaleKeys.HOST_HAS_COMPONENTS),
@@ -75,6 +74,7 @@ public enum ApiExceptionEnum {
     JOB_NOT_RETRYABLE(16001, LocaleKeys.JOB_NOT_RETRYABLE),
     JOB_HAS_NO_STAGES(16002, LocaleKeys.JOB_HAS_NO_STAGES),
     STAGE_HAS_NO_TASKS(16003, LocaleKeys.STAGE_HAS_NO_TASKS),
+    JOB_NOT_CANCELABLE(16004, LocaleKeys.JOB_NOT_CANCELABLE),
 
     // Configuration Exceptions -- 17000 ~ 17999
     CONFIG_NOT_FOUND(17000, LocaleKeys.CONFIG_NOT_FOUND),
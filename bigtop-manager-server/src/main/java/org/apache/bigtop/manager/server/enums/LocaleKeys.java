@@ -51,7 +51,6 @@ public enum LocaleKeys {
     HOST_NOT_FOUND("host.not.found"),
     HOST_ASSIGNED("host.assigned"),
     HOST_NOT_CONNECTED("host.not.connected"),
-    HOST_UNABLE_TO_RESOLVE("host.unable.to.resolve"),
     HOST_UNABLE_TO_CONNECT("host.unable.to.connect"),
     HOST_UNABLE_TO_EXEC_COMMAND("host.unable.to.exec.command"),
     HOST_HAS_COMPONENTS("host.has.components"),
@@ -73,6 +72,7 @@ public enum LocaleKeys {
     JOB_NOT_RETRYABLE("job.not.retryable"),
     JOB_HAS_NO_STAGES("job.has.no.stages"),
     STAGE_HAS_NO_TASKS("stage.has.no.tasks"),
+    JOB_NOT_CANCELABLE("job.not.cancelable"),
 
     CONFIG_NOT_FOUND("config.not.found"),
 
@@ -18,39 +18,112 @@
  */
 package org.apache.bigtop.manager.server.grpc;
 
-import org.apache.bigtop.manager.server.enums.ApiExceptionEnum;
-import org.apache.bigtop.manager.server.exception.ApiException;
+import org.apache.bigtop.manager.common.constants.ProtocolVersions;
 
 import io.grpc.CallOptions;
 import io.grpc.Channel;
+import io.grpc.ClientInterceptors;
 import io.grpc.ConnectivityState;
-import io.grpc.ManagedChannel;
-import io.grpc.ManagedChannelBuilder;
 import io.grpc.stub.AbstractAsyncStub;
 import io.grpc.stub.AbstractBlockingStub;
 import io.grpc.stub.AbstractFutureStub;
 import io.grpc.stub.AbstractStub;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
 import lombok.extern.slf4j.Slf4j;
 
 import java.lang.reflect.Constructor;
-import java.net.InetAddress;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 public class GrpcClient {
 
-    private static final Map<String, ManagedChannel> CHANNELS = new ConcurrentHashMap<>();
+    // Interval to re-resolve host addresses, channels are rebuilt if address changed
+    private static final long RESOLVE_INTERVAL_SECONDS = 60;
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger(0);
+
+    private static final ScheduledExecutorService EXECUTOR = Executors.newScheduledThreadPool(2, r -> {
+        Thread thread = new Thread(r, "grpc-connection-manager-" + THREAD_COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Map<String, GrpcConnection> CONNECTIONS = new ConcurrentHashMap<>();
+
+    // Metrics of calls, installed on every channel, key is hostname
+    private static final Map<String, MetricsClientInterceptor> INTERCEPTORS = new ConcurrentHashMap<>();
+
+    // Protocol version reported by agent in heartbeat, key is hostname
+    private static final Map<String, Integer> PROTOCOL_VERSIONS = new ConcurrentHashMap<>();
 
     // The key of outer map is hostname, inner map is stub class name
     private static final Map<String, Map<String, AbstractBlockingStub<?>>> BLOCKING_STUBS = new ConcurrentHashMap<>();
     private static final Map<String, Map<String, AbstractAsyncStub<?>>> ASYNC_STUBS = new ConcurrentHashMap<>();
     private static final Map<String, Map<String, AbstractFutureStub<?>>> FUTURE_STUBS = new ConcurrentHashMap<>();
 
+    static {
+        EXECUTOR.scheduleWithFixedDelay(
+                GrpcClient::resolveAll, RESOLVE_INTERVAL_SECONDS, RESOLVE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
+        for (ConnectivityState state : ConnectivityState.values()) {
+            Gauge.builder("bigtop.manager.grpc.channels", () -> countChannels(state))
+                    .description("Number of channels to agents in each state")
+                    .tag("state", state.name())
+                    .register(Metrics.globalRegistry);
+        }
+    }
+
     public static Boolean isChannelAlive(String host) {
-        ManagedChannel channel = CHANNELS.get(host);
-        return channel != null && !channel.isShutdown() && !channel.isTerminated();
+        GrpcConnection connection = CONNECTIONS.get(host);
+        return connection != null && connection.isAlive();
+    }
+
+    /**
+     * Whether calls to the host are failing fast because it was unreachable recently.
+     */
+    public static Boolean isHostUnreachable(String host) {
+        GrpcConnection connection = CONNECTIONS.get(host);
+        return connection != null && connection.isUnreachable();
+    }
+
+    public static ConnectivityState getChannelState(String host) {
+        GrpcConnection connection = CONNECTIONS.get(host);
+        return connection == null ? null : connection.getState();
+    }
+
+    public static void setProtocolVersion(String host, Integer protocolVersion) {
+        PROTOCOL_VERSIONS.put(host, protocolVersion);
+    }
+
+    /**
+     * Protocol version of the agent, agents which have not reported one are treated as the oldest version.
+     */
+    public static Integer getProtocolVersion(String host) {
+        return host == null
+                ? ProtocolVersions.JSON_PAYLOAD
+                : PROTOCOL_VERSIONS.getOrDefault(host, ProtocolVersions.JSON_PAYLOAD);
+    }
+
+    public static Boolean supportsBinaryPayload(String host) {
+        return getProtocolVersion(host) >= ProtocolVersions.BINARY_PAYLOAD;
+    }
+
+    public static Boolean supportsTemplateReference(String host) {
+        return getProtocolVersion(host) >= ProtocolVersions.TEMPLATE_REFERENCE;
+    }
+
+    public static Boolean supportsConcurrentTasks(String host) {
+        return getProtocolVersion(host) >= ProtocolVersions.CONCURRENT_TASKS;
+    }
+
+    public static Boolean supportsMetricsHistory(String host) {
+        return getProtocolVersion(host) >= ProtocolVersions.METRICS_HISTORY;
     }
 
     @SuppressWarnings("unchecked")
@@ -85,62 +158,59 @@ public class GrpcClient {
         });
     }
 
-    private static ManagedChannel createChannel(String host, Integer port) {
-        String ipv4;
-        try {
-            InetAddress address = InetAddress.getByName(host);
-            ipv4 = address.getHostAddress();
-        } catch (Exception e) {
-            log.error("Unable to resolve host: {}", host);
-            throw new ApiException(ApiExceptionEnum.HOST_UNABLE_TO_RESOLVE, host);
+    private static Channel getChannel(String host, Integer grpcPort) {
+        // Intercepted above the connection so calls failed fast are recorded as well
+        MetricsClientInterceptor interceptor =
+                INTERCEPTORS.computeIfAbsent(host, k -> new MetricsClientInterceptor(host, Metrics.globalRegistry));
+        return ClientInterceptors.intercept(getConnection(host, grpcPort), interceptor);
+    }
+
+    static GrpcConnection getConnection(String host, Integer grpcPort) {
+        GrpcConnection connection = CONNECTIONS.get(host);
+        if (connection != null && !connection.getPort().equals(grpcPort)) {
+            // Agent moved to another port
+            removeChannel(host);
         }
 
-        ManagedChannel channel = ManagedChannelBuilder.forAddress(ipv4, port)
-                .usePlaintext()
-                .keepAliveTime(60, TimeUnit.SECONDS)
-                .keepAliveWithoutCalls(true)
-                .build();
+        // Connection is created only once for a host even if callers race
+        return CONNECTIONS.computeIfAbsent(host, k -> {
+            GrpcConnection newConnection = new GrpcConnection(host, grpcPort, EXECUTOR);
+            newConnection.connect();
+            return newConnection;
+        });
+    }
 
-        ConnectivityState state = channel.getState(true);
-        while (state == ConnectivityState.IDLE || state == ConnectivityState.CONNECTING) {
+    private static void resolveAll() {
+        for (GrpcConnection connection : CONNECTIONS.values()) {
             try {
-                Thread.sleep(1000);
-                state = channel.getState(true);
+                connection.resolve();
             } catch (Exception e) {
-                log.warn("Error ignored when creating channel", e);
+                log.warn("Error resolving host: {}", connection.getHost(), e);
             }
         }
-
-        if (state != ConnectivityState.READY) {
-            channel.shutdown();
-            log.error("Unable to connect to host: {}", host);
-            throw new ApiException(ApiExceptionEnum.HOST_UNABLE_TO_CONNECT, host);
-        } else {
-            CHANNELS.put(host, channel);
-            return channel;
-        }
     }
 
-    private static ManagedChannel getChannel(String host, Integer grpcPort) {
-        if (isChannelAlive(host)) {
-            return CHANNELS.get(host);
-        } else {
-            return createChannel(host, grpcPort);
-        }
+    private static long countChannels(ConnectivityState state) {
+        return CONNECTIONS.values().stream()
+                .filter(connection -> connection.getState() == state)
+                .count();
     }
 
     public static void removeChannel(String host) {
-        ManagedChannel channel = CHANNELS.remove(host);
-        if (channel != null) {
-            try {
-                channel.shutdown().awaitTermination(5, TimeUnit.SECONDS);
-            } catch (InterruptedException e) {
-                log.warn("Channel shutdown interrupted", e);
-            }
+        PROTOCOL_VERSIONS.remove(host);
+        GrpcConnection connection = CONNECTIONS.remove(host);
+        if (connection != null) {
+            connection.shutdown();
 
             BLOCKING_STUBS.remove(host);
             ASYNC_STUBS.remove(host);
             FUTURE_STUBS.remove(host);
+
+            MetricsClientInterceptor interceptor = INTERCEPTORS.remove(host);
+            if (interceptor != null) {
+                interceptor.close();
+            }
+
             log.info("Channel to host: {} removed.", host);
         }
     }
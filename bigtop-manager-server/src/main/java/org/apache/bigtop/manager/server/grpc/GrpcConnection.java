@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.grpc;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ConnectivityState;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import jakarta.annotation.Nullable;
+import java.net.InetAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection to the agent on a host, stubs are bound to this instead of the underlying {@link ManagedChannel},
+ * so the channel can be rebuilt when host address changes without recreating stubs.
+ * <p/>
+ * Resolving happens on the manager executor and connecting is left to the channel, only the first call to a new
+ * host waits for resolving. Calls fail fast with {@link Status#UNAVAILABLE} while the host is known to be unreachable.
+ */
+@Slf4j
+class GrpcConnection extends Channel {
+
+    private static final long MIN_BACKOFF_MILLIS = 1000;
+
+    private static final long MAX_BACKOFF_MILLIS = 60 * 1000;
+
+    private static final long RESOLVE_TIMEOUT_SECONDS = 10;
+
+    @Getter
+    private final String host;
+
+    @Getter
+    private final Integer port;
+
+    private final ScheduledExecutorService executor;
+
+    private volatile ManagedChannel channel;
+
+    private volatile String address;
+
+    @Getter
+    private volatile ConnectivityState state = ConnectivityState.IDLE;
+
+    // Consecutive failures since last time the host was ready
+    private volatile int failures = 0;
+
+    // Calls fail fast before this time after a failure
+    private volatile long retryAt = 0;
+
+    private volatile boolean shutdown = false;
+
+    // Completed once the first resolving finished, no matter it succeeded or not
+    private final CompletableFuture<Void> resolved = new CompletableFuture<>();
+
+    private ScheduledFuture<?> retryFuture;
+
+    GrpcConnection(String host, Integer port, ScheduledExecutorService executor) {
+        this.host = host;
+        this.port = port;
+        this.executor = executor;
+    }
+
+    void connect() {
+        executor.execute(this::resolve);
+    }
+
+    /**
+     * Resolve host address and rebuild channel if it changed.
+     */
+    void resolve() {
+        try {
+            doResolve();
+        } finally {
+            resolved.complete(null);
+        }
+    }
+
+    private synchronized void doResolve() {
+        if (shutdown) {
+            return;
+        }
+
+        String newAddress;
+        try {
+            newAddress = InetAddress.getByName(host).getHostAddress();
+        } catch (Exception e) {
+            log.error("Unable to resolve host: {}", host);
+            if (channel == null) {
+                onFailure();
+                state = ConnectivityState.TRANSIENT_FAILURE;
+                if (retryFuture == null || retryFuture.isDone()) {
+                    retryFuture = executor.schedule(this::resolve, getBackoffMillis(), TimeUnit.MILLISECONDS);
+                }
+            }
+
+            return;
+        }
+
+        if (newAddress.equals(address)) {
+            return;
+        }
+
+        ManagedChannel oldChannel = channel;
+        ManagedChannel newChannel = ManagedChannelBuilder.forAddress(newAddress, port)
+                .usePlaintext()
+                .keepAliveTime(60, TimeUnit.SECONDS)
+                .keepAliveWithoutCalls(true)
+                .build();
+        address = newAddress;
+        channel = newChannel;
+        watchState(newChannel, newChannel.getState(true));
+
+        if (oldChannel != null) {
+            log.info("Address of host {} changed to {}, channel rebuilt", host, newAddress);
+            oldChannel.shutdown();
+        }
+    }
+
+    private void watchState(ManagedChannel watched, ConnectivityState current) {
+        if (watched != channel) {
+            return;
+        }
+
+        onStateChanged(current);
+        if (current != ConnectivityState.SHUTDOWN) {
+            watched.notifyWhenStateChanged(current, () -> watchState(watched, watched.getState(false)));
+        }
+    }
+
+    private void onStateChanged(ConnectivityState newState) {
+        if (newState == state) {
+            return;
+        }
+
+        log.info("Channel to host {} changed from {} to {}", host, state, newState);
+        state = newState;
+        if (newState == ConnectivityState.READY) {
+            failures = 0;
+            retryAt = 0;
+        } else if (newState == ConnectivityState.TRANSIENT_FAILURE) {
+            onFailure();
+        }
+    }
+
+    private void onFailure() {
+        failures++;
+        retryAt = System.currentTimeMillis() + getBackoffMillis();
+    }
+
+    private long getBackoffMillis() {
+        int exponent = Math.min(Math.max(failures - 1, 0), 16);
+        return Math.min(MIN_BACKOFF_MILLIS << exponent, MAX_BACKOFF_MILLIS);
+    }
+
+    /**
+     * Whether the host failed recently and is not retried yet.
+     */
+    boolean isUnreachable() {
+        return failures > 0 && state != ConnectivityState.READY && System.currentTimeMillis() < retryAt;
+    }
+
+    boolean isAlive() {
+        return !shutdown && channel != null && !channel.isShutdown();
+    }
+
+    void shutdown() {
+        shutdown = true;
+        ManagedChannel current = channel;
+        if (current != null) {
+            try {
+                current.shutdown().awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                log.warn("Channel shutdown interrupted", e);
+            }
+        }
+
+        state = ConnectivityState.SHUTDOWN;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(
+            MethodDescriptor<ReqT, RespT> methodDescriptor, CallOptions callOptions) {
+        ManagedChannel current = channel;
+        if (current == null && !shutdown) {
+            // Only wait for the first resolving of a new host, connecting is left to the channel
+            try {
+                resolved.get(RESOLVE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.warn("Timeout resolving host: {}", host);
+            }
+
+            current = channel;
+        }
+
+        if (shutdown) {
+            return new FailingCall<>(Status.UNAVAILABLE.withDescription("Channel to " + host + " is shutdown"));
+        } else if (current == null || isUnreachable()) {
+            return new FailingCall<>(Status.UNAVAILABLE.withDescription("Host " + host + " is unreachable"));
+        }
+
+        return current.newCall(methodDescriptor, callOptions);
+    }
+
+    @Override
+    public String authority() {
+        return host + ":" + port;
+    }
+
+    private static class FailingCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+
+        private final Status status;
+
+        FailingCall(Status status) {
+            this.status = status;
+        }
+
+        @Override
+        public void start(Listener<RespT> responseListener, Metadata headers) {
+            responseListener.onClose(status, new Metadata());
+        }
+
+        @Override
+        public void request(int numMessages) {}
+
+        @Override
+        public void cancel(@Nullable String message, @Nullable Throwable cause) {}
+
+        @Override
+        public void halfClose() {}
+
+        @Override
+        public void sendMessage(ReqT message) {}
+    }
+}
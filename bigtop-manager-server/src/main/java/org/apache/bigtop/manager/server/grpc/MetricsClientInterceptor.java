@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.grpc;
+
+import com.google.protobuf.MessageLite;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Records latency, status, in-flight calls and message sizes of calls to the agent on a host.
+ * <p/>
+ * Latency is published with fixed buckets instead of percentile histograms to keep the number of series
+ * reasonable on large clusters, message sizes are uncompressed protobuf sizes.
+ */
+class MetricsClientInterceptor implements ClientInterceptor {
+
+    private static final Duration[] LATENCY_BUCKETS = {
+        Duration.ofMillis(10),
+        Duration.ofMillis(50),
+        Duration.ofMillis(100),
+        Duration.ofMillis(500),
+        Duration.ofSeconds(1),
+        Duration.ofSeconds(5),
+        Duration.ofSeconds(30),
+        Duration.ofMinutes(2),
+        Duration.ofMinutes(10),
+        Duration.ofMinutes(30)
+    };
+
+    private final String host;
+
+    private final MeterRegistry registry;
+
+    // Key is full method name + status code
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    private final Map<String, MethodMeters> methodMeters = new ConcurrentHashMap<>();
+
+    MetricsClientInterceptor(String host, MeterRegistry registry) {
+        this.host = host;
+        this.registry = registry;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+            MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+        String methodName = method.getFullMethodName();
+        MethodMeters meters = methodMeters.computeIfAbsent(methodName, this::newMethodMeters);
+
+        return new ForwardingClientCall.SimpleForwardingClientCall<>(next.newCall(method, callOptions)) {
+
+            @Override
+            public void start(Listener<RespT> responseListener, Metadata headers) {
+                long start = System.nanoTime();
+                LongTaskTimer.Sample active = meters.active.start();
+
+                super.start(
+                        new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+
+                            @Override
+                            public void onMessage(RespT message) {
+                                recordSize(meters.received, message);
+                                super.onMessage(message);
+                            }
+
+                            @Override
+                            public void onClose(Status status, Metadata trailers) {
+                                active.stop();
+                                getTimer(methodName, status.getCode()).record(System.nanoTime() - start, NANOSECONDS);
+                                super.onClose(status, trailers);
+                            }
+                        },
+                        headers);
+            }
+
+            @Override
+            public void sendMessage(ReqT message) {
+                recordSize(meters.sent, message);
+                super.sendMessage(message);
+            }
+        };
+    }
+
+    private Timer getTimer(String methodName, Status.Code code) {
+        return timers.computeIfAbsent(methodName + "/" + code, k -> Timer.builder("bigtop.manager.grpc.client.calls")
+                .description("Latency of calls to agents")
+                .tag("method", methodName)
+                .tag("host", host)
+                .tag("status", code.name())
+                .serviceLevelObjectives(LATENCY_BUCKETS)
+                .register(registry));
+    }
+
+    private MethodMeters newMethodMeters(String methodName) {
+        LongTaskTimer active = LongTaskTimer.builder("bigtop.manager.grpc.client.calls.active")
+                .description("Calls to agents in flight")
+                .tag("method", methodName)
+                .tag("host", host)
+                .register(registry);
+        return new MethodMeters(active, newSizeSummary(methodName, "sent"), newSizeSummary(methodName, "received"));
+    }
+
+    private DistributionSummary newSizeSummary(String methodName, String direction) {
+        return DistributionSummary.builder("bigtop.manager.grpc.client.message.size")
+                .description("Size of messages exchanged with agents")
+                .baseUnit("bytes")
+                .tag("method", methodName)
+                .tag("host", host)
+                .tag("direction", direction)
+                .register(registry);
+    }
+
+    /**
+     * Remove meters of the host from registry, e.g. the host has been removed from cluster.
+     */
+    void close() {
+        timers.values().forEach(registry::remove);
+        methodMeters.values().forEach(meters -> {
+            registry.remove(meters.active);
+            registry.remove(meters.sent);
+            registry.remove(meters.received);
+        });
+        timers.clear();
+        methodMeters.clear();
+    }
+
+    private static void recordSize(DistributionSummary summary, Object message) {
+        if (message instanceof MessageLite messageLite) {
+            summary.record(messageLite.getSerializedSize());
+        }
+    }
+
+    private record MethodMeters(LongTaskTimer active, DistributionSummary sent, DistributionSummary received) {}
+}
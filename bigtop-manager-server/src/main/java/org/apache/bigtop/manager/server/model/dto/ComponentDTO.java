@@ -36,4 +36,6 @@ public class ComponentDTO {
     private List<String> customCommands;
 
     private QuickLinkDTO quickLink;
+
+    private Integer timeout;
 }
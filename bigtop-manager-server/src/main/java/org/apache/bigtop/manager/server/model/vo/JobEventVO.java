@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.model.vo;
+
+import lombok.Data;
+
+@Data
+public class JobEventVO {
+
+    /**
+     * Sequence number of the event, increases by one for every event published
+     */
+    private Long id;
+
+    /**
+     * job/stage/task
+     */
+    private String type;
+
+    private Long clusterId;
+
+    private Long jobId;
+
+    private Long stageId;
+
+    private Long taskId;
+
+    private String name;
+
+    private String hostname;
+
+    private String state;
+
+    /**
+     * Only available for job events
+     */
+    private Integer progress;
+}
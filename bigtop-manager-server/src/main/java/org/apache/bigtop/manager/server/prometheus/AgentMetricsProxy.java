@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.prometheus;
+
+import org.apache.bigtop.manager.dao.po.HostPO;
+import org.apache.bigtop.manager.grpc.generated.HostMetricsRangeReply;
+import org.apache.bigtop.manager.grpc.generated.HostMetricsRangeRequest;
+import org.apache.bigtop.manager.grpc.generated.HostMetricsServiceGrpc;
+import org.apache.bigtop.manager.server.grpc.GrpcClient;
+import org.apache.bigtop.manager.server.model.vo.ClusterMetricsVO;
+import org.apache.bigtop.manager.server.model.vo.HostMetricsVO;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Host and cluster metrics served by agents, for clusters without Prometheus.
+ * <p/>
+ * Agents keep recent samples of their own hosts and answer range queries on them, results have the same timestamps
+ * and shape as {@link PrometheusProxy}. Agents which are unreachable or too old to keep samples are left out.
+ */
+@Slf4j
+public class AgentMetricsProxy {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private static final BigDecimal HUNDRED = new BigDecimal("100");
+
+    public HostMetricsVO queryHostMetrics(HostPO hostPO, String interval) {
+        List<String> timestamps = PrometheusProxy.getTimestampsList(PrometheusProxy.processInternal(interval));
+        HostMetricsVO res = new HostMetricsVO();
+        if (!isQueryable(hostPO)) {
+            return res;
+        }
+
+        HostMetricsRangeReply reply;
+        try {
+            HostMetricsServiceGrpc.HostMetricsServiceBlockingStub stub = GrpcClient.getBlockingStub(
+                    hostPO.getHostname(),
+                    hostPO.getGrpcPort(),
+                    HostMetricsServiceGrpc.HostMetricsServiceBlockingStub.class);
+            reply = stub.withDeadlineAfter(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .queryRange(buildRequest(timestamps, interval));
+        } catch (Exception e) {
+            log.warn("Error querying metrics of host: {}", hostPO.getHostname(), e);
+            return res;
+        }
+
+        // Agent has not taken any sample in the last 5 minutes
+        int last = timestamps.size() - 1;
+        if (Double.isNaN(reply.getCpuUsage(last))) {
+            return res;
+        }
+
+        res.setCpuUsageCur(percent(decimal(reply.getCpuUsage(last))));
+        res.setMemoryUsageCur(percent(usage(reply.getMemoryTotal(last), reply.getMemoryAvailable(last))));
+        res.setDiskUsageCur(percent(usage(reply.getFilesystemTotal(last), reply.getFilesystemFree(last))));
+        res.setFileDescriptorUsage(
+                percent(ratio(reply.getFileDescriptorsOpen(last), reply.getFileDescriptorsMax(last))));
+        res.setDiskReadCur(toString(decimal(reply.getDiskRead(last))));
+        res.setDiskWriteCur(toString(decimal(reply.getDiskWrite(last))));
+
+        List<String> cpuUsage = new ArrayList<>();
+        List<String> memoryUsage = new ArrayList<>();
+        for (int i = 0; i < timestamps.size(); i++) {
+            cpuUsage.add(percent(decimal(reply.getCpuUsage(i))));
+            memoryUsage.add(percent(usage(reply.getMemoryTotal(i), reply.getMemoryAvailable(i))));
+        }
+
+        res.setCpuUsage(cpuUsage);
+        res.setMemoryUsage(memoryUsage);
+        res.setSystemLoad1(toStrings(reply.getLoad1List()));
+        res.setSystemLoad5(toStrings(reply.getLoad5List()));
+        res.setSystemLoad15(toStrings(reply.getLoad15List()));
+        res.setDiskRead(toStrings(reply.getDiskReadList()));
+        res.setDiskWrite(toStrings(reply.getDiskWriteList()));
+        res.setTimestamps(timestamps);
+        return res;
+    }
+
+    public ClusterMetricsVO queryClusterMetrics(List<HostPO> hostPOList, String interval) {
+        List<String> timestamps = PrometheusProxy.getTimestampsList(PrometheusProxy.processInternal(interval));
+        HostMetricsRangeRequest request = buildRequest(timestamps, interval);
+        ClusterMetricsVO res = new ClusterMetricsVO();
+
+        // Ask all agents at the same time
+        List<HostPO> queried = new ArrayList<>();
+        List<ListenableFuture<HostMetricsRangeReply>> futures = new ArrayList<>();
+        for (HostPO hostPO : hostPOList) {
+            if (!isQueryable(hostPO)) {
+                continue;
+            }
+
+            try {
+                HostMetricsServiceGrpc.HostMetricsServiceFutureStub stub = GrpcClient.getFutureStub(
+                        hostPO.getHostname(),
+                        hostPO.getGrpcPort(),
+                        HostMetricsServiceGrpc.HostMetricsServiceFutureStub.class);
+                futures.add(stub.withDeadlineAfter(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                        .queryRange(request));
+                queried.add(hostPO);
+            } catch (Exception e) {
+                log.warn("Error querying metrics of host: {}", hostPO.getHostname(), e);
+            }
+        }
+
+        // Failed calls are null
+        List<HostMetricsRangeReply> replies;
+        try {
+            replies = Futures.successfulAsList(futures).get(TIMEOUT_SECONDS * 2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return res;
+        } catch (Exception e) {
+            log.warn("Error querying metrics of hosts", e);
+            return res;
+        }
+
+        int size = timestamps.size();
+        int last = size - 1;
+        double totalCores = 0;
+        double usedCores = 0;
+        double totalMemory = 0;
+        double availableMemory = 0;
+        double[] totalCoresInterval = new double[size];
+        double[] usedCoresInterval = new double[size];
+        double[] totalMemoryInterval = new double[size];
+        double[] availableMemoryInterval = new double[size];
+        for (int h = 0; h < replies.size(); h++) {
+            HostMetricsRangeReply reply = replies.get(h);
+            if (reply == null || Double.isNaN(reply.getCpuUsage(last))) {
+                log.debug("No metrics of host: {}", queried.get(h).getHostname());
+                continue;
+            }
+
+            int cores = reply.getPhysicalCores();
+            totalCores += cores;
+            usedCores += reply.getCpuUsage(last) * cores;
+            totalMemory += reply.getMemoryTotal(last);
+            availableMemory += reply.getMemoryAvailable(last);
+            for (int i = 0; i < size; i++) {
+                if (!Double.isNaN(reply.getCpuUsage(i))) {
+                    totalCoresInterval[i] += cores;
+                    usedCoresInterval[i] += reply.getCpuUsage(i) * cores;
+                }
+
+                if (!Double.isNaN(reply.getMemoryTotal(i))) {
+                    totalMemoryInterval[i] += reply.getMemoryTotal(i);
+                    availableMemoryInterval[i] += reply.getMemoryAvailable(i);
+                }
+            }
+        }
+
+        if (totalCores <= 0) {
+            return res;
+        }
+
+        res.setCpuUsageCur(percent(ratio(usedCores, totalCores)));
+        res.setMemoryUsageCur(percent(usage(totalMemory, availableMemory)));
+
+        // Points only count hosts which have a sample at that time
+        List<String> cpuUsage = new ArrayList<>();
+        List<String> memoryUsage = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            cpuUsage.add(percent(ratio(usedCoresInterval[i], totalCoresInterval[i])));
+            memoryUsage.add(percent(usage(totalMemoryInterval[i], availableMemoryInterval[i])));
+        }
+
+        res.setCpuUsage(cpuUsage);
+        res.setMemoryUsage(memoryUsage);
+        res.setTimestamps(timestamps);
+        return res;
+    }
+
+    private boolean isQueryable(HostPO hostPO) {
+        String hostname = hostPO.getHostname();
+        return GrpcClient.supportsMetricsHistory(hostname) && !GrpcClient.isHostUnreachable(hostname);
+    }
+
+    private HostMetricsRangeRequest buildRequest(List<String> timestamps, String interval) {
+        return HostMetricsRangeRequest.newBuilder()
+                .setStart(Long.parseLong(timestamps.get(0)))
+                .setEnd(Long.parseLong(timestamps.get(timestamps.size() - 1)))
+                .setStep(PrometheusProxy.processInternal(interval))
+                .build();
+    }
+
+    // Used part of total, like memory and disk space
+    private static BigDecimal usage(double total, double available) {
+        return ratio(total - available, total);
+    }
+
+    private static BigDecimal ratio(double value, double total) {
+        if (Double.isNaN(value) || Double.isNaN(total) || value < 0 || total <= 0) {
+            return null;
+        }
+
+        return BigDecimal.valueOf(value).divide(BigDecimal.valueOf(total), 4, RoundingMode.HALF_UP);
+    }
+
+    // Agents return NaN where they have no sample
+    private static BigDecimal decimal(double value) {
+        return Double.isNaN(value) || Double.isInfinite(value) ? null : BigDecimal.valueOf(value);
+    }
+
+    private static String percent(BigDecimal value) {
+        return value == null ? null : toString(value.multiply(HUNDRED));
+    }
+
+    private static String toString(BigDecimal value) {
+        return value == null ? null : value.setScale(2, RoundingMode.HALF_UP).toString();
+    }
+
+    private static List<String> toStrings(List<Double> values) {
+        List<String> list = new ArrayList<>();
+        for (Double value : values) {
+            list.add(toString(decimal(value)));
+        }
+
+        return list;
+    }
+}
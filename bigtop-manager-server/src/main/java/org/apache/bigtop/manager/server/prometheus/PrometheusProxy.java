@@ -40,6 +40,7 @@ import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -64,6 +65,31 @@ public class PrometheusProxy {
     public static final String DISK_READ = "diskRead";
     public static final String DISK_WRITE = "diskWrite";
 
+    // Metrics exported by agents, every series has a host label
+    private static final String METRIC_NAME = "__name__";
+    private static final String AGENT_HOST_LABEL = "host";
+    private static final String AGENT_FILESYSTEM_SIZE = "agent_host_filesystem_size_bytes";
+    private static final String AGENT_FILESYSTEM_FREE = "agent_host_filesystem_free_bytes";
+    // Agents update counters every 15 seconds
+    private static final String AGENT_RATE_WINDOW = "2m";
+
+    private static final Map<String, String> AGENT_CPU_METRICS = Map.of(
+            "agent_host_cpu_usage_ratio", CPU_USAGE,
+            "agent_host_load1", CPU_LOAD_AVG_MIN_1,
+            "agent_host_load5", CPU_LOAD_AVG_MIN_5,
+            "agent_host_load15", CPU_LOAD_AVG_MIN_15,
+            "agent_host_cpu_physical_cores", PHYSICAL_CORES,
+            "agent_host_file_descriptors_open", FILE_OPEN_DESCRIPTOR,
+            "agent_host_file_descriptors_max", FILE_TOTAL_DESCRIPTOR);
+
+    private static final Map<String, String> AGENT_MEMORY_METRICS = Map.of(
+            "agent_host_memory_total_bytes", MEM_TOTAL,
+            "agent_host_memory_available_bytes", MEM_IDLE);
+
+    private static final Map<String, String> AGENT_DISK_IO_METRICS = Map.of(
+            "agent_host_disk_read_bytes_total", DISK_READ,
+            "agent_host_disk_written_bytes_total", DISK_WRITE);
+
     private static final ThreadLocal<List<String>> timestampCache = ThreadLocal.withInitial(ArrayList::new);
 
     public PrometheusProxy(String prometheusHost, Integer prometheusPort) {
@@ -98,19 +124,19 @@ public class PrometheusProxy {
                 .block();
     }
 
-    public HostMetricsVO queryHostMetrics(String agentIpv4, String interval) {
+    public HostMetricsVO queryHostMetrics(String hostname, String interval) {
         timestampCache.set(getTimestampsList(processInternal(interval)));
 
         HostMetricsVO res = new HostMetricsVO();
-        if (!agentIpv4.isBlank()) {
+        if (!hostname.isBlank()) {
             // Instant metrics
-            Map<String, BigDecimal> agentCpu = retrieveAgentCpu(agentIpv4);
-            Map<String, BigDecimal> agentMem = retrieveAgentMemory(agentIpv4);
-            Map<String, BigDecimal> agentDisk = retrieveAgentDisk(agentIpv4);
-            Map<String, BigDecimal> agentDiskIO = retrieveAgentDiskIO(agentIpv4);
+            Map<String, BigDecimal> agentCpu = retrieveAgentCpu(hostname);
+            Map<String, BigDecimal> agentMem = retrieveAgentMemory(hostname);
+            Map<String, BigDecimal> agentDisk = retrieveAgentDisk(hostname);
+            Map<String, BigDecimal> agentDiskIO = retrieveAgentDiskIO(hostname);
 
-            // Use physical cores to check if the metrics is starting collect
-            if (!agentCpu.containsKey(PHYSICAL_CORES)) {
+            // Use cpu usage to check if the metrics is starting collect, it's NaN before the first sample
+            if (!agentCpu.containsKey(CPU_USAGE) || !agentMem.containsKey(MEM_TOTAL)) {
                 return res;
             }
 
@@ -134,9 +160,9 @@ public class PrometheusProxy {
             res.setDiskWriteCur(agentDiskIO.get(DISK_WRITE).toString());
 
             // Range metrics
-            Map<String, List<BigDecimal>> agentCpuInterval = retrieveAgentCpu(agentIpv4, interval);
-            Map<String, List<BigDecimal>> agentMemInterval = retrieveAgentMemory(agentIpv4, interval);
-            Map<String, List<BigDecimal>> agentDiskIOInterval = retrieveAgentDiskIO(agentIpv4, interval);
+            Map<String, List<BigDecimal>> agentCpuInterval = retrieveAgentCpu(hostname, interval);
+            Map<String, List<BigDecimal>> agentMemInterval = retrieveAgentMemory(hostname, interval);
+            Map<String, List<BigDecimal>> agentDiskIOInterval = retrieveAgentDiskIO(hostname, interval);
 
             res.setCpuUsage(convertList(agentCpuInterval.get(CPU_USAGE), 100));
             res.setSystemLoad1(convertList(agentCpuInterval.get(CPU_LOAD_AVG_MIN_1)));
@@ -152,11 +178,11 @@ public class PrometheusProxy {
         return res;
     }
 
-    public ClusterMetricsVO queryClusterMetrics(List<String> agentIpv4s, String interval) {
+    public ClusterMetricsVO queryClusterMetrics(List<String> hostnames, String interval) {
         timestampCache.set(getTimestampsList(processInternal(interval)));
 
         ClusterMetricsVO res = new ClusterMetricsVO();
-        if (!agentIpv4s.isEmpty()) {
+        if (!hostnames.isEmpty()) {
             BigDecimal totalPhysicalCores = new BigDecimal("0.0");
             BigDecimal totalMemSpace = new BigDecimal("0.0");
 
@@ -166,13 +192,13 @@ public class PrometheusProxy {
             List<BigDecimal> timeUsedCores = getEmptyList();
             List<BigDecimal> timeMemIdle = getEmptyList();
 
-            for (String agentIpv4 : agentIpv4s) {
+            for (String hostname : hostnames) {
                 // Instant Metrics
-                Map<String, BigDecimal> agentCpu = retrieveAgentCpu(agentIpv4);
-                Map<String, BigDecimal> agentMem = retrieveAgentMemory(agentIpv4);
+                Map<String, BigDecimal> agentCpu = retrieveAgentCpu(hostname);
+                Map<String, BigDecimal> agentMem = retrieveAgentMemory(hostname);
 
-                // Use physical cores to check if the metrics is starting collect
-                if (!agentCpu.containsKey(PHYSICAL_CORES)) {
+                // Use cpu usage to check if the metrics is starting collect, it's NaN before the first sample
+                if (!agentCpu.containsKey(CPU_USAGE) || !agentMem.containsKey(MEM_TOTAL)) {
                     return res;
                 }
 
@@ -189,7 +215,7 @@ public class PrometheusProxy {
 
                 // Range Metrics
                 List<BigDecimal> cpuUsageInterval =
-                        retrieveAgentCpu(agentIpv4, interval).get(CPU_USAGE);
+                        retrieveAgentCpu(hostname, interval).getOrDefault(CPU_USAGE, getEmptyList());
                 for (int i = 0; i < cpuUsageInterval.size(); i++) {
                     BigDecimal c = cpuUsageInterval.get(i);
                     if (c != null) {
@@ -204,7 +230,7 @@ public class PrometheusProxy {
                 }
 
                 List<BigDecimal> memIdleInterval =
-                        retrieveAgentMemory(agentIpv4, interval).get(MEM_IDLE);
+                        retrieveAgentMemory(hostname, interval).getOrDefault(MEM_IDLE, getEmptyList());
                 for (int i = 0; i < memIdleInterval.size(); i++) {
                     BigDecimal m = memIdleInterval.get(i);
                     if (m != null) {
@@ -307,80 +333,41 @@ public class PrometheusProxy {
         return res;
     }
 
-    public Map<String, BigDecimal> retrieveAgentCpu(String iPv4addr) {
+    public Map<String, BigDecimal> retrieveAgentCpu(String hostname) {
         Map<String, BigDecimal> map = new HashMap<>();
-        String params = String.format("agent_host_monitoring_cpu{iPv4addr=\"%s\"}", iPv4addr);
-        PrometheusResponse response = query(params);
+        PrometheusResponse response = query(selector(hostname, AGENT_CPU_METRICS.keySet()));
         for (PrometheusResult result : response.getData().getResult()) {
-            String key = result.getMetric().get("cpuUsage");
-            map.put(key, new BigDecimal(result.getValue().get(1)));
-        }
-
-        // Get common metrics
-        if (!CollectionUtils.isEmpty(response.getData().getResult())) {
-            Map<String, String> metric = response.getData().getResult().get(0).getMetric();
-            map.put(PHYSICAL_CORES, new BigDecimal(metric.get(PHYSICAL_CORES)));
-            map.put(FILE_OPEN_DESCRIPTOR, new BigDecimal(metric.get(FILE_OPEN_DESCRIPTOR)));
-            map.put(FILE_TOTAL_DESCRIPTOR, new BigDecimal(metric.get(FILE_TOTAL_DESCRIPTOR)));
+            String key = AGENT_CPU_METRICS.get(result.getMetric().get(METRIC_NAME));
+            BigDecimal value = toDecimal(result.getValue().get(1));
+            if (key != null && value != null) {
+                map.put(key, value);
+            }
         }
 
         return map;
     }
 
-    public Map<String, List<BigDecimal>> retrieveAgentCpu(String iPv4addr, String interval) {
-        List<String> timestamps = timestampCache.get();
-        Map<String, List<BigDecimal>> map = new HashMap<>();
-        String params = String.format("agent_host_monitoring_cpu{iPv4addr=\"%s\"}", iPv4addr);
-        PrometheusResponse response = queryRange(
-                params,
-                timestamps.get(0),
-                timestamps.get(timestamps.size() - 1),
-                number2Param(processInternal(interval)));
-
-        for (PrometheusResult result : response.getData().getResult()) {
-            String key = result.getMetric().get("cpuUsage");
-            List<BigDecimal> list = map.computeIfAbsent(key, k -> getEmptyList());
-            for (List<String> value : result.getValues()) {
-                String timestamp = value.get(0);
-                int index = timestamps.indexOf(timestamp);
-                list.set(index, new BigDecimal(value.get(1)));
-            }
-        }
-
-        return map;
+    public Map<String, List<BigDecimal>> retrieveAgentCpu(String hostname, String interval) {
+        return queryRangeByName(selector(hostname, AGENT_CPU_METRICS.keySet()), AGENT_CPU_METRICS, interval);
     }
 
-    public Map<String, BigDecimal> retrieveAgentMemory(String iPv4addr) {
+    public Map<String, BigDecimal> retrieveAgentMemory(String hostname) {
         Map<String, BigDecimal> map = new HashMap<>();
-        String params = String.format("agent_host_monitoring_mem{iPv4addr=\"%s\"}", iPv4addr);
-        PrometheusResponse response = query(params);
+        PrometheusResponse response = query(selector(hostname, AGENT_MEMORY_METRICS.keySet()));
         for (PrometheusResult result : response.getData().getResult()) {
-            String key = result.getMetric().get("memUsage");
-            map.put(key, new BigDecimal(result.getValue().get(1)));
+            String key = AGENT_MEMORY_METRICS.get(result.getMetric().get(METRIC_NAME));
+            BigDecimal value = toDecimal(result.getValue().get(1));
+            if (key != null && value != null) {
+                map.put(key, value);
+            }
         }
 
         return map;
     }
 
-    public Map<String, List<BigDecimal>> retrieveAgentMemory(String iPv4addr, String interval) {
-        List<String> timestamps = timestampCache.get();
-        Map<String, List<BigDecimal>> map = new HashMap<>();
-        String params = String.format("agent_host_monitoring_mem{iPv4addr=\"%s\"}", iPv4addr);
-        PrometheusResponse response = queryRange(
-                params,
-                timestamps.get(0),
-                timestamps.get(timestamps.size() - 1),
-                number2Param(processInternal(interval)));
-
-        for (PrometheusResult result : response.getData().getResult()) {
-            String key = result.getMetric().get("memUsage");
-            List<BigDecimal> list = map.computeIfAbsent(key, k -> getEmptyList());
-            for (List<String> value : result.getValues()) {
-                String timestamp = value.get(0);
-                int index = timestamps.indexOf(timestamp);
-                list.set(index, new BigDecimal(value.get(1)));
-            }
-        }
+    public Map<String, List<BigDecimal>> retrieveAgentMemory(String hostname, String interval) {
+        Map<String, List<BigDecimal>> map =
+                queryRangeByName(selector(hostname, AGENT_MEMORY_METRICS.keySet()), AGENT_MEMORY_METRICS, interval);
 
         List<BigDecimal> memTotalList = map.get(MEM_TOTAL) == null ? getEmptyList() : map.get(MEM_TOTAL);
         List<BigDecimal> memIdleList = map.get(MEM_IDLE) == null ? getEmptyList() : map.get(MEM_IDLE);
@@ -399,20 +386,22 @@ public class PrometheusProxy {
         return map;
     }
 
-    public Map<String, BigDecimal> retrieveAgentDisk(String iPv4addr) {
+    public Map<String, BigDecimal> retrieveAgentDisk(String hostname) {
         Map<String, BigDecimal> map = new HashMap<>();
-        String params = String.format("agent_host_monitoring_disk{iPv4addr=\"%s\"}", iPv4addr);
-        PrometheusResponse response = query(params);
+        PrometheusResponse response = query(selector(hostname, List.of(AGENT_FILESYSTEM_FREE, AGENT_FILESYSTEM_SIZE)));
         BigDecimal diskTotalSpace = new BigDecimal("0.0");
         BigDecimal diskFreeSpace = new BigDecimal("0.0");
         for (PrometheusResult result : response.getData().getResult()) {
-            String key = result.getMetric().get("diskUsage");
-            if (Objects.equals(key, DISK_IDLE)) {
-                diskFreeSpace =
-                        diskFreeSpace.add(new BigDecimal(result.getValue().get(1)));
+            BigDecimal value = toDecimal(result.getValue().get(1));
+            if (value == null) {
+                continue;
+            }
+
+            // One series for each device
+            if (Objects.equals(result.getMetric().get(METRIC_NAME), AGENT_FILESYSTEM_FREE)) {
+                diskFreeSpace = diskFreeSpace.add(value);
             } else {
-                diskTotalSpace =
-                        diskTotalSpace.add(new BigDecimal(result.getValue().get(1)));
+                diskTotalSpace = diskTotalSpace.add(value);
             }
         }
 
@@ -421,67 +410,88 @@ public class PrometheusProxy {
         return map;
     }
 
-    public Map<String, BigDecimal> retrieveAgentDiskIO(String iPv4addr) {
+    public Map<String, BigDecimal> retrieveAgentDiskIO(String hostname) {
         Map<String, BigDecimal> map = new HashMap<>();
-        String params = String.format("agent_host_monitoring_diskIO{iPv4addr=\"%s\"}", iPv4addr);
-        PrometheusResponse response = query(params);
-        BigDecimal diskWrite = new BigDecimal("0.0");
-        BigDecimal diskRead = new BigDecimal("0.0");
-        for (PrometheusResult result : response.getData().getResult()) {
-            String key = result.getMetric().get("diskIO");
-            if (Objects.equals(key, DISK_WRITE)) {
-                diskWrite = diskWrite.add(new BigDecimal(result.getValue().get(1)));
-            } else {
-                diskRead = diskRead.add(new BigDecimal(result.getValue().get(1)));
+        map.put(DISK_WRITE, new BigDecimal("0.0"));
+        map.put(DISK_READ, new BigDecimal("0.0"));
+        for (Map.Entry<String, String> entry : AGENT_DISK_IO_METRICS.entrySet()) {
+            PrometheusResponse response = query(diskRate(hostname, entry.getKey()));
+            for (PrometheusResult result : response.getData().getResult()) {
+                BigDecimal value = toDecimal(result.getValue().get(1));
+                if (value != null) {
+                    map.put(entry.getValue(), value);
+                }
             }
         }
 
-        map.put(DISK_WRITE, diskWrite);
-        map.put(DISK_READ, diskRead);
         return map;
     }
 
-    public Map<String, List<BigDecimal>> retrieveAgentDiskIO(String iPv4addr, String interval) {
+    public Map<String, List<BigDecimal>> retrieveAgentDiskIO(String hostname, String interval) {
+        List<String> timestamps = timestampCache.get();
+        Map<String, List<BigDecimal>> map = new HashMap<>();
+        for (Map.Entry<String, String> entry : AGENT_DISK_IO_METRICS.entrySet()) {
+            PrometheusResponse response = queryRange(
+                    diskRate(hostname, entry.getKey()),
+                    timestamps.get(0),
+                    timestamps.get(timestamps.size() - 1),
+                    number2Param(processInternal(interval)));
+
+            List<BigDecimal> list = getEmptyList();
+            for (PrometheusResult result : response.getData().getResult()) {
+                fillList(list, result);
+            }
+
+            map.put(entry.getValue(), list);
+        }
+
+        return map;
+    }
+
+    private Map<String, List<BigDecimal>> queryRangeByName(String params, Map<String, String> names, String interval) {
         List<String> timestamps = timestampCache.get();
         Map<String, List<BigDecimal>> map = new HashMap<>();
-        String params = String.format("agent_host_monitoring_diskIO{iPv4addr=\"%s\"}", iPv4addr);
         PrometheusResponse response = queryRange(
                 params,
                 timestamps.get(0),
                 timestamps.get(timestamps.size() - 1),
                 number2Param(processInternal(interval)));
 
-        List<BigDecimal> diskWriteList = getEmptyList();
-        List<BigDecimal> diskReadList = getEmptyList();
-
         for (PrometheusResult result : response.getData().getResult()) {
-            String key = result.getMetric().get("diskIO");
-            for (List<String> value : result.getValues()) {
-                String timestamp = value.get(0);
-                int index = timestamps.indexOf(timestamp);
-                if (Objects.equals(key, DISK_WRITE)) {
-                    BigDecimal w = diskWriteList.get(index);
-                    if (w == null) {
-                        w = new BigDecimal("0.0");
-                    }
+            String key = names.get(result.getMetric().get(METRIC_NAME));
+            if (key != null) {
+                fillList(map.computeIfAbsent(key, k -> getEmptyList()), result);
+            }
+        }
 
-                    w = w.add(new BigDecimal(value.get(1)));
-                    diskWriteList.set(index, w);
-                } else {
-                    BigDecimal r = diskReadList.get(index);
-                    if (r == null) {
-                        r = new BigDecimal("0.0");
-                    }
+        return map;
+    }
 
-                    r = r.add(new BigDecimal(value.get(1)));
-                    diskReadList.set(index, r);
-                }
+    private void fillList(List<BigDecimal> list, PrometheusResult result) {
+        List<String> timestamps = timestampCache.get();
+        for (List<String> value : result.getValues()) {
+            int index = timestamps.indexOf(value.get(0));
+            BigDecimal decimal = toDecimal(value.get(1));
+            if (index >= 0 && decimal != null) {
+                list.set(index, decimal);
             }
         }
+    }
 
-        map.put(DISK_WRITE, diskWriteList);
-        map.put(DISK_READ, diskReadList);
-        return map;
+    private static String selector(String hostname, Collection<String> names) {
+        return String.format(
+                "{%s=~\"%s\", %s=\"%s\"}", METRIC_NAME, String.join("|", names), AGENT_HOST_LABEL, hostname);
+    }
+
+    // Sum of all devices, in KB per second
+    private static String diskRate(String hostname, String name) {
+        return String.format(
+                "sum(rate(%s{%s=\"%s\"}[%s])) / 1024", name, AGENT_HOST_LABEL, hostname, AGENT_RATE_WINDOW);
+    }
+
+    // Gauges are NaN before agent takes its first sample
+    private static BigDecimal toDecimal(String value) {
+        return "NaN".equals(value) ? null : new BigDecimal(value);
     }
 
     private List<String> convertList(List<BigDecimal> list) {
@@ -502,7 +512,7 @@ public class PrometheusProxy {
         return resultList;
     }
 
-    private static List<String> getTimestampsList(int step) {
+    static List<String> getTimestampsList(int step) {
         // format
         String currentTimeStr = LocalTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss"));
         String currentDateStr = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
@@ -524,7 +534,7 @@ public class PrometheusProxy {
         return String.format("%ss", step);
     }
 
-    private static int processInternal(String internal) {
+    static int processInternal(String internal) {
         int inter = Integer.parseInt(internal.substring(0, internal.length() - 1));
         if (internal.endsWith("m")) return inter * 60;
         else if (internal.endsWith("h")) {
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.service;
+
+import org.apache.bigtop.manager.dao.po.JobPO;
+import org.apache.bigtop.manager.dao.po.StagePO;
+import org.apache.bigtop.manager.dao.po.TaskPO;
+import org.apache.bigtop.manager.server.model.vo.JobEventVO;
+
+import reactor.core.publisher.FluxSink;
+
+public interface JobEventService {
+
+    void publishJobEvent(JobPO jobPO, Integer progress);
+
+    void publishStageEvent(StagePO stagePO);
+
+    void publishTaskEvent(TaskPO taskPO);
+
+    /**
+     * Register a sink to receive events of a cluster, or of a job if jobId is not null.
+     * Buffered events after lastEventId are replayed first, a reset event is sent if they are no longer buffered.
+     */
+    void registerSink(Long clusterId, Long jobId, Long lastEventId, FluxSink<JobEventVO> sink);
+}
@@ -33,5 +33,10 @@ public interface JobService {
 
     PageVO<TaskVO> tasks(Long stageId);
 
-    JobVO retry(Long id);
+    /**
+     * Retry a failed job, successful stages and tasks are skipped if resume is true.
+     */
+    JobVO retry(Long id, Boolean resume);
+
+    JobVO cancel(Long id);
 }
@@ -22,5 +22,26 @@ import reactor.core.publisher.FluxSink;
 
 public interface TaskLogService {
 
-    void registerSink(Long taskId, FluxSink<String> sink);
+    /**
+     * Stream log lines of a task to the sink.
+     *
+     * @param taskId task id
+     * @param offset byte offset in the log to start from, 0 to read from beginning
+     * @param sink sink receiving one line each time
+     */
+    void registerSink(Long taskId, Long offset, FluxSink<String> sink);
+
+    /**
+     * Copy the log of a finished task from agent to server in background, later views are served from the copy.
+     *
+     * @param taskId task id
+     */
+    void archive(Long taskId);
+
+    /**
+     * Remove the archived log of a task, called before the task runs again with the same id.
+     *
+     * @param taskId task id
+     */
+    void deleteArchive(Long taskId);
 }
@@ -22,6 +22,7 @@ import org.apache.bigtop.manager.common.enums.JobState;
 import org.apache.bigtop.manager.dao.po.JobPO;
 import org.apache.bigtop.manager.dao.po.StagePO;
 import org.apache.bigtop.manager.dao.po.TaskPO;
+import org.apache.bigtop.manager.dao.repository.BaseDao;
 import org.apache.bigtop.manager.dao.repository.JobDao;
 import org.apache.bigtop.manager.dao.repository.StageDao;
 import org.apache.bigtop.manager.dao.repository.TaskDao;
@@ -40,16 +41,24 @@ import org.apache.bigtop.manager.server.model.dto.CommandDTO;
 import org.apache.bigtop.manager.server.model.vo.CommandVO;
 import org.apache.bigtop.manager.server.service.CommandService;
 
+import org.apache.commons.collections4.ListUtils;
+
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import lombok.extern.slf4j.Slf4j;
 
 import jakarta.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
 
 @Slf4j
 @Service
 public class CommandServiceImpl implements CommandService {
 
+    // Rows per multi-row insert statement, keeps statements below packet size limit of database
+    private static final int BATCH_SIZE = 500;
+
     @Resource
     private JobScheduler jobScheduler;
 
@@ -62,6 +71,9 @@ public class CommandServiceImpl implements CommandService {
     @Resource
     private TaskDao taskDao;
 
+    @Resource
+    private TransactionTemplate transactionTemplate;
+
     @Override
     public CommandVO command(CommandDTO commandDTO) {
         CommandIdentifier commandIdentifier =
@@ -88,7 +100,15 @@ public class CommandServiceImpl implements CommandService {
         return JobConverter.INSTANCE.fromPO2CommandVO(jobPO);
     }
 
+    /**
+     * Persist job, stages and tasks in one transaction, stages and tasks are inserted in batches,
+     * so the number of statements does not grow with the number of hosts.
+     */
     protected JobPO saveJob(Job job) {
+        return transactionTemplate.execute(status -> doSaveJob(job));
+    }
+
+    private JobPO doSaveJob(Job job) {
         Long clusterId = job.getJobContext().getCommandDTO().getClusterId();
 
         JobPO jobPO = job.getJobPO();
@@ -97,28 +117,48 @@ public class CommandServiceImpl implements CommandService {
         jobDao.save(jobPO);
         job.loadJobPO(jobPO);
 
+        List<StagePO> stagePOList = new ArrayList<>();
         for (int i = 0; i < job.getStages().size(); i++) {
-            Stage stage = job.getStages().get(i);
-            StagePO stagePO = stage.getStagePO();
+            StagePO stagePO = job.getStages().get(i).getStagePO();
             stagePO.setClusterId(clusterId);
             stagePO.setJobId(jobPO.getId());
             stagePO.setOrder(i + 1);
             stagePO.setState(JobState.PENDING.getName());
-            stageDao.save(stagePO);
+            stagePOList.add(stagePO);
+        }
+
+        // Generated ids are set back to the same PO objects
+        saveInBatches(stageDao, stagePOList);
+
+        List<TaskPO> taskPOList = new ArrayList<>();
+        for (Stage stage : job.getStages()) {
+            StagePO stagePO = stage.getStagePO();
             stage.loadStagePO(stagePO);
 
-            for (int j = 0; j < stage.getTasks().size(); j++) {
-                Task task = stage.getTasks().get(j);
+            for (Task task : stage.getTasks()) {
                 TaskPO taskPO = task.getTaskPO();
                 taskPO.setClusterId(clusterId);
                 taskPO.setJobId(jobPO.getId());
                 taskPO.setStageId(stagePO.getId());
                 taskPO.setState(JobState.PENDING.getName());
-                taskDao.save(taskPO);
-                task.loadTaskPO(taskPO);
+                taskPOList.add(taskPO);
+            }
+        }
+
+        saveInBatches(taskDao, taskPOList);
+
+        for (Stage stage : job.getStages()) {
+            for (Task task : stage.getTasks()) {
+                task.loadTaskPO(task.getTaskPO());
             }
         }
 
         return jobPO;
     }
+
+    private <T> void saveInBatches(BaseDao<T> dao, List<T> entities) {
+        for (List<T> batch : ListUtils.partition(entities, BATCH_SIZE)) {
+            dao.saveAll(batch);
+        }
+    }
 }
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.service.impl;
+
+import org.apache.bigtop.manager.dao.po.JobPO;
+import org.apache.bigtop.manager.dao.po.StagePO;
+import org.apache.bigtop.manager.dao.po.TaskPO;
+import org.apache.bigtop.manager.server.model.vo.JobEventVO;
+import org.apache.bigtop.manager.server.service.JobEventService;
+
+import org.springframework.stereotype.Service;
+
+import reactor.core.publisher.FluxSink;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class JobEventServiceImpl implements JobEventService {
+
+    // Number of recent events kept for clients to resume from
+    private static final int BUFFER_SIZE = 10000;
+
+    private final Deque<JobEventVO> buffer = new ArrayDeque<>();
+
+    private final Map<Long, Subscriber> subscribers = new ConcurrentHashMap<>();
+
+    private final AtomicLong subscriberId = new AtomicLong(0);
+
+    private final Object lock = new Object();
+
+    // Guarded by lock
+    private long sequence = 0;
+
+    @Override
+    public void publishJobEvent(JobPO jobPO, Integer progress) {
+        JobEventVO event = new JobEventVO();
+        event.setType("job");
+        event.setClusterId(jobPO.getClusterId());
+        event.setJobId(jobPO.getId());
+        event.setName(jobPO.getName());
+        event.setState(jobPO.getState());
+        event.setProgress(progress);
+        publish(event);
+    }
+
+    @Override
+    public void publishStageEvent(StagePO stagePO) {
+        JobEventVO event = new JobEventVO();
+        event.setType("stage");
+        event.setClusterId(stagePO.getClusterId());
+        event.setJobId(stagePO.getJobId());
+        event.setStageId(stagePO.getId());
+        event.setName(stagePO.getName());
+        event.setState(stagePO.getState());
+        publish(event);
+    }
+
+    @Override
+    public void publishTaskEvent(TaskPO taskPO) {
+        JobEventVO event = new JobEventVO();
+        event.setType("task");
+        event.setClusterId(taskPO.getClusterId());
+        event.setJobId(taskPO.getJobId());
+        event.setStageId(taskPO.getStageId());
+        event.setTaskId(taskPO.getId());
+        event.setName(taskPO.getName());
+        event.setHostname(taskPO.getHostname());
+        event.setState(taskPO.getState());
+        publish(event);
+    }
+
+    @Override
+    public void registerSink(Long clusterId, Long jobId, Long lastEventId, FluxSink<JobEventVO> sink) {
+        Subscriber subscriber = new Subscriber(clusterId, jobId, sink);
+        Long id = subscriberId.incrementAndGet();
+
+        // Replay and register under the same lock, so no event is missed or sent twice
+        synchronized (lock) {
+            if (lastEventId != null) {
+                long oldestId =
+                        buffer.isEmpty() ? sequence + 1 : buffer.getFirst().getId();
+                if (lastEventId > sequence || lastEventId < oldestId - 1) {
+                    // Events are no longer buffered or server restarted, client needs to reload
+                    JobEventVO event = new JobEventVO();
+                    event.setId(sequence);
+                    event.setType("reset");
+                    sink.next(event);
+                } else {
+                    for (JobEventVO event : buffer) {
+                        if (event.getId() > lastEventId && subscriber.accepts(event)) {
+                            sink.next(event);
+                        }
+                    }
+                }
+            }
+
+            subscribers.put(id, subscriber);
+        }
+
+        sink.onDispose(() -> subscribers.remove(id));
+    }
+
+    private void publish(JobEventVO event) {
+        synchronized (lock) {
+            event.setId(++sequence);
+            buffer.addLast(event);
+            if (buffer.size() > BUFFER_SIZE) {
+                buffer.removeFirst();
+            }
+
+            for (Subscriber subscriber : subscribers.values()) {
+                if (subscriber.accepts(event)) {
+                    subscriber.sink().next(event);
+                }
+            }
+        }
+    }
+
+    private record Subscriber(Long clusterId, Long jobId, FluxSink<JobEventVO> sink) {
+
+        public boolean accepts(JobEventVO event) {
+            return Objects.equals(clusterId, event.getClusterId()) && (jobId == null || jobId.equals(event.getJobId()));
+        }
+    }
+}
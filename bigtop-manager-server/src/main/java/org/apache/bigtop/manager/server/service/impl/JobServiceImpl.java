@@ -57,11 +57,17 @@ import jakarta.annotation.Resource;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 public class JobServiceImpl implements JobService {
 
+    private static final List<String> STARTED_STATES =
+            List.of(JobState.PROCESSING.getName(), JobState.SUCCESSFUL.getName());
+
     @Resource
     private JobDao jobDao;
 
@@ -80,21 +86,24 @@ public class JobServiceImpl implements JobService {
         try (Page<?> ignored =
                 PageHelper.startPage(pageQuery.getPageNum(), pageQuery.getPageSize(), pageQuery.getOrderBy())) {
             List<JobPO> jobPOList = jobDao.findByClusterId(clusterId);
+
+            // Stage counts of all jobs in the page are loaded by one grouped query
+            Map<Long, JobPO> stageNumMap = new HashMap<>();
+            if (!jobPOList.isEmpty()) {
+                List<Long> jobIds = jobPOList.stream().map(JobPO::getId).toList();
+                for (JobPO stageNum : jobDao.findStageNumByIds(jobIds, STARTED_STATES)) {
+                    stageNumMap.put(stageNum.getId(), stageNum);
+                }
+            }
+
             List<JobVO> jobVOList = new ArrayList<>();
             for (JobPO jobPO : jobPOList) {
-                List<StagePO> stagePOList = stageDao.findByJobId(jobPO.getId());
-                List<StagePO> runningStagePOList = stagePOList.stream()
-                        .filter(stagePO -> List.of(JobState.PROCESSING, JobState.SUCCESSFUL)
-                                .contains(JobState.fromString(stagePO.getState())))
-                        .toList();
+                JobPO stageNum = stageNumMap.get(jobPO.getId());
                 JobVO jobVO = JobConverter.INSTANCE.fromPO2VO(jobPO);
-                if (stagePOList.isEmpty()) {
-                    jobVO.setProgress(1);
+                if (stageNum == null) {
+                    jobVO.setProgress(getProgress(0, 0));
                 } else {
-                    jobVO.setProgress(new BigDecimal(runningStagePOList.size())
-                            .divide(new BigDecimal(stagePOList.size()), 2, RoundingMode.HALF_UP)
-                            .multiply(new BigDecimal(100))
-                            .intValue());
+                    jobVO.setProgress(getProgress(stageNum.getStartedStageNum(), stageNum.getStageNum()));
                 }
                 jobVOList.add(jobVO);
             }
@@ -111,33 +120,34 @@ public class JobServiceImpl implements JobService {
         JobPO jobPO = jobDao.findById(jobId);
         List<StageVO> stages = new ArrayList<>();
         List<StagePO> stagePOList = stageDao.findByJobId(jobId);
-        List<StagePO> runningStagePOList = new ArrayList<>();
+
+        // Tasks of all stages are loaded by one query
+        Map<Long, List<TaskPO>> taskPOMap = new HashMap<>();
+        if (!stagePOList.isEmpty()) {
+            List<Long> stageIds = stagePOList.stream().map(StagePO::getId).toList();
+            taskPOMap = taskDao.findByStageIds(stageIds).stream().collect(Collectors.groupingBy(TaskPO::getStageId));
+        }
+
+        int startedStageNum = 0;
         for (int i = 0; i < stagePOList.size(); i++) {
             StagePO stagePO = findCorrectStagePO(stagePOList, i + 1);
             if (stagePO == null) {
                 throw new ApiException(ApiExceptionEnum.JOB_NOT_FOUND);
             }
 
-            if (List.of(JobState.PROCESSING, JobState.SUCCESSFUL).contains(JobState.fromString(stagePO.getState()))) {
-                runningStagePOList.add(stagePO);
+            if (STARTED_STATES.contains(stagePO.getState())) {
+                startedStageNum++;
             }
 
             StageVO stageVO = StageConverter.INSTANCE.fromPO2VO(stagePO);
-            List<TaskPO> taskPOList = taskDao.findByStageId(stagePO.getId());
+            List<TaskPO> taskPOList = taskPOMap.getOrDefault(stagePO.getId(), List.of());
             List<TaskVO> taskVOList = TaskConverter.INSTANCE.fromPO2VO(taskPOList);
             stageVO.setTasks(taskVOList);
             stages.add(stageVO);
         }
 
         JobVO jobVO = JobConverter.INSTANCE.fromPO2VO(jobPO);
-        if (stagePOList.isEmpty()) {
-            jobVO.setProgress(1);
-        } else {
-            jobVO.setProgress(new BigDecimal(runningStagePOList.size())
-                    .divide(new BigDecimal(stagePOList.size()), 2, RoundingMode.HALF_UP)
-                    .multiply(new BigDecimal(100))
-                    .intValue());
-        }
+        jobVO.setProgress(getProgress(startedStageNum, stagePOList.size()));
         jobVO.setStages(stages);
         return jobVO;
     }
@@ -169,30 +179,61 @@ public class JobServiceImpl implements JobService {
     }
 
     @Override
-    public JobVO retry(Long id) {
+    public JobVO retry(Long id, Boolean resume) {
         JobPO jobPO = jobDao.findOptionalById(id).orElseThrow(() -> new ApiException(ApiExceptionEnum.JOB_NOT_FOUND));
         if (JobState.fromString(jobPO.getState()) != JobState.FAILED) {
             throw new ApiException(ApiExceptionEnum.JOB_NOT_RETRYABLE);
         }
 
-        resetJobStatusInDB(jobPO);
+        resetJobStatusInDB(jobPO, resume);
         Job job = recreateJob(jobPO);
         jobScheduler.submit(job);
 
         return JobConverter.INSTANCE.fromPO2VO(jobPO);
     }
 
-    private void resetJobStatusInDB(JobPO jobPO) {
-        for (StagePO stagePO : stageDao.findByJobId(jobPO.getId())) {
-            for (TaskPO taskPO : taskDao.findByStageId(stagePO.getId())) {
-                taskPO.setState(JobState.PENDING.getName());
-                taskDao.partialUpdateById(taskPO);
-            }
+    @Override
+    public JobVO cancel(Long id) {
+        JobPO jobPO = jobDao.findOptionalById(id).orElseThrow(() -> new ApiException(ApiExceptionEnum.JOB_NOT_FOUND));
+        JobState state = JobState.fromString(jobPO.getState());
+        if (state != JobState.PENDING && state != JobState.PROCESSING) {
+            throw new ApiException(ApiExceptionEnum.JOB_NOT_CANCELABLE);
+        }
 
-            stagePO.setState(JobState.PENDING.getName());
-            stageDao.partialUpdateById(stagePO);
+        // Job states will be updated by the job itself if scheduler knows it,
+        // otherwise it's left unfinished, e.g. server restarted while it was running.
+        if (!jobScheduler.cancel(id)) {
+            cancelJobInDB(jobPO);
         }
 
+        return JobConverter.INSTANCE.fromPO2VO(jobPO);
+    }
+
+    private void cancelJobInDB(JobPO jobPO) {
+        List<String> unfinished = List.of(JobState.PENDING.getName(), JobState.PROCESSING.getName());
+        taskDao.updateStateByJobId(jobPO.getId(), JobState.CANCELED.getName(), unfinished);
+        stageDao.updateStateByJobId(jobPO.getId(), JobState.CANCELED.getName(), unfinished);
+
+        jobPO.setState(JobState.CANCELED.getName());
+        jobDao.partialUpdateById(jobPO);
+    }
+
+    /**
+     * Reset stages and tasks to pending, successful ones are kept when resuming so they are skipped on rerun.
+     */
+    private void resetJobStatusInDB(JobPO jobPO, Boolean resume) {
+        List<String> fromStates = null;
+        if (Boolean.TRUE.equals(resume)) {
+            fromStates = List.of(
+                    JobState.PENDING.getName(),
+                    JobState.PROCESSING.getName(),
+                    JobState.FAILED.getName(),
+                    JobState.CANCELED.getName());
+        }
+
+        taskDao.updateStateByJobId(jobPO.getId(), JobState.PENDING.getName(), fromStates);
+        stageDao.updateStateByJobId(jobPO.getId(), JobState.PENDING.getName(), fromStates);
+
         jobPO.setState(JobState.PENDING.getName());
         jobDao.partialUpdateById(jobPO);
     }
@@ -208,6 +249,12 @@ public class JobServiceImpl implements JobService {
 
         job.loadJobPO(jobPO);
         List<StagePO> stagePOList = stageDao.findByJobId(jobPO.getId());
+        Map<Long, List<TaskPO>> taskPOMap = new HashMap<>();
+        if (!stagePOList.isEmpty()) {
+            List<Long> stageIds = stagePOList.stream().map(StagePO::getId).toList();
+            taskPOMap = taskDao.findByStageIds(stageIds).stream().collect(Collectors.groupingBy(TaskPO::getStageId));
+        }
+
         for (int i = 0; i < job.getStages().size(); i++) {
             Stage stage = job.getStages().get(i);
             StagePO stagePO = findCorrectStagePO(stagePOList, i + 1);
@@ -216,7 +263,7 @@ public class JobServiceImpl implements JobService {
             }
 
             stage.loadStagePO(stagePO);
-            List<TaskPO> taskPOList = taskDao.findByStageId(stagePO.getId());
+            List<TaskPO> taskPOList = taskPOMap.getOrDefault(stagePO.getId(), List.of());
 
             for (int j = 0; j < stage.getTasks().size(); j++) {
                 Task task = stage.getTasks().get(j);
@@ -233,6 +280,17 @@ public class JobServiceImpl implements JobService {
         return job;
     }
 
+    private Integer getProgress(Integer startedStageNum, Integer stageNum) {
+        if (stageNum == 0) {
+            return 1;
+        }
+
+        return new BigDecimal(startedStageNum)
+                .divide(new BigDecimal(stageNum), 2, RoundingMode.HALF_UP)
+                .multiply(new BigDecimal(100))
+                .intValue();
+    }
+
     private StagePO findCorrectStagePO(List<StagePO> stagePOList, Integer order) {
         for (StagePO stagePO : stagePOList) {
             if (stagePO.getOrder().equals(order)) {
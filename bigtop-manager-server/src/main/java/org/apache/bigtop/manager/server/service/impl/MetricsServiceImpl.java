@@ -35,6 +35,7 @@ import org.apache.bigtop.manager.server.model.dto.ServiceConfigDTO;
 import org.apache.bigtop.manager.server.model.vo.ClusterMetricsVO;
 import org.apache.bigtop.manager.server.model.vo.HostMetricsVO;
 import org.apache.bigtop.manager.server.model.vo.ServiceMetricsVO;
+import org.apache.bigtop.manager.server.prometheus.AgentMetricsProxy;
 import org.apache.bigtop.manager.server.prometheus.PrometheusProxy;
 import org.apache.bigtop.manager.server.service.MetricsService;
 
@@ -66,26 +67,26 @@ public class MetricsServiceImpl implements MetricsService {
 
     @Override
     public HostMetricsVO hostMetrics(Long id, String interval) {
+        HostPO hostPO = hostDao.findById(id);
         PrometheusProxy proxy = getProxy();
         if (proxy == null) {
-            return new HostMetricsVO();
+            // Agents keep recent metrics of their own hosts
+            return new AgentMetricsProxy().queryHostMetrics(hostPO, interval);
         }
 
-        String ipv4 = hostDao.findById(id).getIpv4();
-        return proxy.queryHostMetrics(ipv4, interval);
+        return proxy.queryHostMetrics(hostPO.getHostname(), interval);
     }
 
     @Override
     public ClusterMetricsVO clusterMetrics(Long clusterId, String interval) {
+        List<HostPO> hostPOList = hostDao.findAllByClusterId(clusterId);
         PrometheusProxy proxy = getProxy();
         if (proxy == null) {
-            return new ClusterMetricsVO();
+            return new AgentMetricsProxy().queryClusterMetrics(hostPOList, interval);
         }
 
-        List<String> ipv4s = hostDao.findAllByClusterId(clusterId).stream()
-                .map(HostPO::getIpv4)
-                .toList();
-        return proxy.queryClusterMetrics(ipv4s, interval);
+        List<String> hostnames = hostPOList.stream().map(HostPO::getHostname).toList();
+        return proxy.queryClusterMetrics(hostnames, interval);
     }
 
     @Override
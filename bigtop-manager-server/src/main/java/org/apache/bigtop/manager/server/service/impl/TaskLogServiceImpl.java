@@ -19,6 +19,7 @@
 package org.apache.bigtop.manager.server.service.impl;
 
 import org.apache.bigtop.manager.common.enums.JobState;
+import org.apache.bigtop.manager.common.utils.ProjectPathUtils;
 import org.apache.bigtop.manager.dao.po.HostPO;
 import org.apache.bigtop.manager.dao.po.TaskPO;
 import org.apache.bigtop.manager.dao.repository.HostDao;
@@ -31,28 +32,104 @@ import org.apache.bigtop.manager.server.service.TaskLogService;
 
 import org.springframework.stereotype.Service;
 
-import io.grpc.stub.StreamObserver;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
+/**
+ * Serves task logs to viewers.
+ * <p/>
+ * Viewers of a running task share one stream from the agent, lines received so far are replayed to viewers
+ * joining later. Logs of finished tasks are archived on server, and served from the archive afterwards.
+ */
+@Slf4j
 @Service
 public class TaskLogServiceImpl implements TaskLogService {
 
+    // Max characters of lines kept in memory for each running task, for viewers joining later
+    private static final int REPLAY_BUFFER_CHARS = 16 * 1024 * 1024;
+
+    // Max lines queued for a viewer reading slower than the log grows, the viewer is dropped beyond this
+    private static final int SUBSCRIBER_BUFFER_LINES = 16 * 1024;
+
+    private static final String SLOW_VIEWER_MESSAGE = "Log viewer is too slow, please reopen the window";
+
+    private static final long ARCHIVE_TIMEOUT_MINUTES = 10;
+
+    private static final Set<JobState> FINISHED_STATES =
+            Set.of(JobState.SUCCESSFUL, JobState.FAILED, JobState.CANCELED);
+
     @Resource
     private TaskDao taskDao;
 
     @Resource
     private HostDao hostDao;
 
-    public void registerSink(Long taskId, FluxSink<String> sink) {
+    private final Map<Long, LogStream> streams = new ConcurrentHashMap<>();
+
+    private final AtomicInteger threadCounter = new AtomicInteger(0);
+
+    private final ExecutorService archiveExecutor = Executors.newFixedThreadPool(4, r -> {
+        Thread thread = new Thread(r, "task-log-archiver-" + threadCounter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void destroy() {
+        archiveExecutor.shutdownNow();
+    }
+
+    public void registerSink(Long taskId, Long offset, FluxSink<String> sink) {
         TaskPO taskPO = taskDao.findById(taskId);
+        JobState state = JobState.fromString(taskPO.getState());
+
+        // Task ids are reused on retry, archive of an earlier run is not served while the task runs again
+        Path archive = Paths.get(ProjectPathUtils.getTaskLogArchivePath(taskId));
+        if (FINISHED_STATES.contains(state) && Files.exists(archive)) {
+            Schedulers.boundedElastic().schedule(() -> readArchive(archive, offset, sink));
+            return;
+        }
+
         HostPO hostPO = hostDao.findByHostname(taskPO.getHostname());
         String hostname = hostPO.getHostname();
         Integer grpcPort = hostPO.getGrpcPort();
 
-        if (JobState.fromString(taskPO.getState()) == JobState.PENDING
-                || JobState.fromString(taskPO.getState()) == JobState.CANCELED) {
+        if (state == JobState.PENDING || state == JobState.CANCELED) {
             new Thread(() -> {
                         sink.next("There is no log when task is in status: "
                                 + taskPO.getState().toLowerCase()
@@ -61,29 +138,259 @@ public class TaskLogServiceImpl implements TaskLogService {
                     })
                     .start();
         } else {
+            // A stream which just completed no longer accepts viewers, a new one is opened
+            while (true) {
+                LogStream stream = streams.computeIfAbsent(taskId, LogStream::new);
+                if (stream.subscribe(offset, sink)) {
+                    stream.open(hostname, grpcPort);
+                    break;
+                }
+
+                streams.remove(taskId, stream);
+            }
+        }
+    }
+
+    @Override
+    public void archive(Long taskId) {
+        archiveExecutor.execute(() -> {
+            try {
+                doArchive(taskId);
+            } catch (Exception e) {
+                log.warn("Unable to archive log of task {}", taskId, e);
+            }
+        });
+    }
+
+    @Override
+    public void deleteArchive(Long taskId) {
+        try {
+            Files.deleteIfExists(Paths.get(ProjectPathUtils.getTaskLogArchivePath(taskId)));
+        } catch (IOException e) {
+            log.warn("Unable to delete archived log of task {}", taskId, e);
+        }
+    }
+
+    private void doArchive(Long taskId) throws IOException {
+        Path archive = Paths.get(ProjectPathUtils.getTaskLogArchivePath(taskId));
+        TaskPO taskPO = taskDao.findById(taskId);
+        HostPO hostPO = hostDao.findByHostname(taskPO.getHostname());
+        TaskLogServiceGrpc.TaskLogServiceBlockingStub stub = GrpcClient.getBlockingStub(
+                hostPO.getHostname(), hostPO.getGrpcPort(), TaskLogServiceGrpc.TaskLogServiceBlockingStub.class);
+        Iterator<TaskLogReply> replies = stub.withDeadlineAfter(ARCHIVE_TIMEOUT_MINUTES, TimeUnit.MINUTES)
+                .getLog(TaskLogRequest.newBuilder().setTaskId(taskId).build());
+
+        // Written to a temp file first, so a partial archive is never served
+        Files.createDirectories(archive.getParent());
+        Path tmp =
+                Files.createTempFile(archive.getParent(), archive.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp));
+                    Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+                while (replies.hasNext()) {
+                    writer.write(replies.next().getText());
+                    writer.write('\n');
+                }
+            }
+
+            Files.move(tmp, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Log of task {} archived", taskId);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private void readArchive(Path archive, Long offset, FluxSink<String> sink) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new GZIPInputStream(Files.newInputStream(archive)), StandardCharsets.UTF_8))) {
+            long position = 0;
+            String line;
+            while ((line = reader.readLine()) != null && !sink.isCancelled()) {
+                position += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                if (position > offset) {
+                    sink.next(line);
+                }
+            }
+
+            sink.complete();
+        } catch (IOException e) {
+            log.error("Error reading archived log {}", archive, e);
+            sink.error(e);
+        }
+    }
+
+    /**
+     * Stream of a running task's log from agent, shared by all viewers of the task.
+     * <p/>
+     * Lines are queued to each viewer under the lock and sent to browsers on another thread,
+     * so a slow viewer never blocks the others or the grpc thread.
+     */
+    private class LogStream implements ClientResponseObserver<TaskLogRequest, TaskLogReply> {
+
+        private final Long taskId;
+
+        private final Deque<Line> lines = new ArrayDeque<>();
+
+        private final List<Subscriber> subscribers = new ArrayList<>();
+
+        private long bufferedChars;
+
+        private boolean truncated;
+
+        private boolean opened;
+
+        private boolean closed;
+
+        private ClientCallStreamObserver<TaskLogRequest> requestStream;
+
+        LogStream(Long taskId) {
+            this.taskId = taskId;
+        }
+
+        /**
+         * Replay buffered lines after offset and add the viewer.
+         *
+         * @return false if the stream has completed
+         */
+        synchronized boolean subscribe(Long offset, FluxSink<String> sink) {
+            if (closed) {
+                return false;
+            }
+
+            List<String> replay = new ArrayList<>();
+            if (truncated && (lines.isEmpty() || offset < lines.getFirst().startOffset())) {
+                replay.add("Earlier lines are omitted, the full log can be viewed after the task finished");
+            }
+
+            for (Line line : lines) {
+                if (line.endOffset() > offset) {
+                    replay.add(line.text());
+                }
+            }
+
+            // Lines received while replaying are queued, up to the buffer size
+            Subscriber subscriber = new Subscriber(
+                    offset,
+                    Sinks.many()
+                            .unicast()
+                            .onBackpressureBuffer(
+                                    Queues.<String>get(SUBSCRIBER_BUFFER_LINES).get()));
+            subscribers.add(subscriber);
+            Disposable forwarding = Flux.fromIterable(replay)
+                    .concatWith(subscriber.lines().asFlux())
+                    .publishOn(Schedulers.boundedElastic())
+                    .subscribe(sink::next, sink::error, sink::complete);
+            sink.onDispose(() -> {
+                forwarding.dispose();
+                unsubscribe(subscriber);
+            });
+            return true;
+        }
+
+        synchronized void open(String hostname, Integer grpcPort) {
+            if (opened || closed) {
+                return;
+            }
+
+            opened = true;
             TaskLogServiceGrpc.TaskLogServiceStub asyncStub =
                     GrpcClient.getAsyncStub(hostname, grpcPort, TaskLogServiceGrpc.TaskLogServiceStub.class);
-            TaskLogRequest request =
-                    TaskLogRequest.newBuilder().setTaskId(taskId).build();
-            asyncStub.getLog(request, new LogReader(sink));
+            asyncStub.getLog(TaskLogRequest.newBuilder().setTaskId(taskId).build(), this);
         }
-    }
 
-    private record LogReader(FluxSink<String> sink) implements StreamObserver<TaskLogReply> {
+        @Override
+        public void beforeStart(ClientCallStreamObserver<TaskLogRequest> requestStream) {
+            this.requestStream = requestStream;
+        }
 
         @Override
-        public void onNext(TaskLogReply reply) {
-            sink.next(reply.getText());
+        public synchronized void onNext(TaskLogReply reply) {
+            // Agent breaks lines on \n only and counts one byte for it, \r stays part of the line
+            String[] texts = reply.getText().split("\n", -1);
+            Line[] received = new Line[texts.length];
+            long endOffset = reply.getOffset();
+            for (int i = texts.length - 1; i >= 0; i--) {
+                if (reply.getOffset() == 0) {
+                    // Agents of older releases do not report offsets, lines are sent to every viewer
+                    received[i] = new Line(texts[i], 0, Long.MAX_VALUE);
+                } else {
+                    // Offset of the reply is after its last line, walk backwards to get offsets of each line
+                    long startOffset = endOffset - texts[i].getBytes(StandardCharsets.UTF_8).length - 1;
+                    received[i] = new Line(texts[i], startOffset, endOffset);
+                    endOffset = startOffset;
+                }
+            }
+
+            List<Subscriber> overflowed = new ArrayList<>();
+            for (Line line : received) {
+                lines.addLast(line);
+                bufferedChars += line.text().length();
+                for (Subscriber subscriber : subscribers) {
+                    if (line.endOffset() > subscriber.offset()
+                            && !overflowed.contains(subscriber)
+                            && subscriber.lines().tryEmitNext(line.text()).isFailure()) {
+                        overflowed.add(subscriber);
+                    }
+                }
+            }
+
+            if (!overflowed.isEmpty()) {
+                log.info("{} viewers of task {} log are too slow, disconnected", overflowed.size(), taskId);
+                for (Subscriber subscriber : overflowed) {
+                    subscribers.remove(subscriber);
+                    subscriber.lines().tryEmitError(new IllegalStateException(SLOW_VIEWER_MESSAGE));
+                }
+
+                stopIfNoViewers();
+            }
+
+            while (bufferedChars > REPLAY_BUFFER_CHARS && !lines.isEmpty()) {
+                bufferedChars -= lines.removeFirst().text().length();
+                truncated = true;
+            }
         }
 
         @Override
-        public void onError(Throwable t) {
-            sink.error(t);
+        public synchronized void onError(Throwable t) {
+            close();
+            drainSubscribers().forEach(subscriber -> subscriber.lines().tryEmitError(t));
         }
 
         @Override
-        public void onCompleted() {
-            sink.complete();
+        public synchronized void onCompleted() {
+            close();
+            drainSubscribers().forEach(subscriber -> subscriber.lines().tryEmitComplete());
+        }
+
+        // Sinks unsubscribe themselves when terminated, so they are removed before that
+        private List<Subscriber> drainSubscribers() {
+            List<Subscriber> drained = new ArrayList<>(subscribers);
+            subscribers.clear();
+            return drained;
+        }
+
+        private synchronized void unsubscribe(Subscriber subscriber) {
+            subscribers.remove(subscriber);
+            stopIfNoViewers();
+        }
+
+        private void stopIfNoViewers() {
+            if (subscribers.isEmpty() && !closed) {
+                // Last viewer left, stop reading on agent
+                close();
+                if (requestStream != null) {
+                    requestStream.cancel("No viewers", null);
+                }
+            }
+        }
+
+        private void close() {
+            closed = true;
+            streams.remove(taskId, this);
         }
     }
+
+    private record Line(String text, long startOffset, long endOffset) {}
+
+    private record Subscriber(Long offset, Sinks.Many<String> lines) {}
 }
@@ -46,4 +46,7 @@ public class ComponentModel {
 
     @XmlElement(name = "quick-link")
     private QuickLinkModel quickLink;
+
+    // Timeout in seconds of commands on this component
+    private Integer timeout;
 }
@@ -23,12 +23,14 @@ import org.apache.bigtop.manager.common.utils.CaseUtils;
 import org.apache.bigtop.manager.dao.po.ComponentPO;
 import org.apache.bigtop.manager.dao.po.HostPO;
 import org.apache.bigtop.manager.dao.po.ServicePO;
+import org.apache.bigtop.manager.dao.query.ComponentQuery;
 import org.apache.bigtop.manager.dao.repository.ComponentDao;
 import org.apache.bigtop.manager.dao.repository.HostDao;
 import org.apache.bigtop.manager.dao.repository.ServiceDao;
 import org.apache.bigtop.manager.grpc.generated.ComponentStatusReply;
 import org.apache.bigtop.manager.grpc.generated.ComponentStatusRequest;
 import org.apache.bigtop.manager.grpc.generated.ComponentStatusServiceGrpc;
+import org.apache.bigtop.manager.grpc.generated.ComponentStatusesRequest;
 import org.apache.bigtop.manager.server.enums.HealthyStatusEnum;
 import org.apache.bigtop.manager.server.grpc.GrpcClient;
 import org.apache.bigtop.manager.server.model.dto.ComponentDTO;
@@ -38,19 +40,42 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import lombok.extern.slf4j.Slf4j;
 
 import jakarta.annotation.Resource;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * Check status of all components, each host is asked for all of its components in one call.
+ * Hosts are checked in parallel, results are written to db in batch once the sweep finished.
+ */
 @Slf4j
 @Component
 public class ComponentStatusTimer {
 
+    // Max hosts being checked at the same time
+    private static final int MAX_CONCURRENT_HOSTS = 32;
+
+    // Deadline for checking all components on a host
+    private static final long HOST_DEADLINE_SECONDS = 20;
+
+    private static final int BATCH_SIZE = 500;
+
     @Resource
     private ServiceDao serviceDao;
 
@@ -63,67 +88,168 @@ public class ComponentStatusTimer {
     @Async
     @Scheduled(fixedDelay = 30, timeUnit = TimeUnit.SECONDS)
     public void execute() {
-        List<ComponentPO> componentPOList = componentDao.findAll();
-        for (ComponentPO componentPO : componentPOList) {
-            ComponentDTO componentDTO = StackUtils.getComponentDTO(componentPO.getName());
-            String category = componentDTO.getCategory();
-            if (HealthyStatusEnum.fromCode(componentPO.getStatus()) == HealthyStatusEnum.UNKNOWN
-                    || category.equals(ComponentCategories.CLIENT)) {
+        List<ComponentPO> componentPOList = componentDao.findByQuery(new ComponentQuery());
+        Map<Long, List<ComponentPO>> hostComponents = componentPOList.stream()
+                .filter(this::requireCheck)
+                .collect(Collectors.groupingBy(ComponentPO::getHostId));
+        if (hostComponents.isEmpty()) {
+            return;
+        }
+
+        Map<Long, HostPO> hostPOMap = hostDao.findByIds(hostComponents.keySet()).stream()
+                .collect(Collectors.toMap(HostPO::getId, Function.identity()));
+
+        Semaphore permits = new Semaphore(MAX_CONCURRENT_HOSTS);
+        Queue<ComponentPO> checked = new ConcurrentLinkedQueue<>();
+        for (Map.Entry<Long, List<ComponentPO>> entry : hostComponents.entrySet()) {
+            HostPO hostPO = hostPOMap.get(entry.getKey());
+            if (hostPO == null) {
                 continue;
             }
 
-            ComponentPO componentDetailsPO = componentDao.findDetailsById(componentPO.getId());
-            HostPO hostPO = hostDao.findById(componentPO.getHostId());
-            ComponentStatusRequest request = ComponentStatusRequest.newBuilder()
-                    .setStackName(
-                            CaseUtils.toLowerCase(componentDetailsPO.getStack().split("-")[0]))
-                    .setStackVersion(componentDetailsPO.getStack().split("-")[1])
-                    .setServiceName(componentDetailsPO.getServiceName())
-                    .setServiceUser(componentDetailsPO.getServiceUser())
-                    .setComponentName(componentDetailsPO.getName())
-                    .build();
-            ComponentStatusServiceGrpc.ComponentStatusServiceBlockingStub blockingStub = GrpcClient.getBlockingStub(
-                    hostPO.getHostname(),
-                    hostPO.getGrpcPort(),
-                    ComponentStatusServiceGrpc.ComponentStatusServiceBlockingStub.class);
-            ComponentStatusReply reply = blockingStub.getComponentStatus(request);
-
-            // Status 0 means the service is running
-            if (reply.getStatus() == 0) {
-                componentPO.setStatus(HealthyStatusEnum.HEALTHY.getCode());
-            } else {
-                componentPO.setStatus(HealthyStatusEnum.UNHEALTHY.getCode());
+            permits.acquireUninterruptibly();
+            ListenableFuture<List<Integer>> future;
+            try {
+                future = getStatuses(hostPO, entry.getValue());
+            } catch (Exception e) {
+                permits.release();
+                log.error("Error getting component status on host: {}", hostPO.getHostname(), e);
+                continue;
             }
+
+            StatusCallback callback = new StatusCallback(hostPO, entry.getValue(), checked, permits);
+            Futures.addCallback(future, callback, MoreExecutors.directExecutor());
+        }
+
+        // Wait for all hosts, every call finishes in time since they all have a deadline
+        try {
+            if (!permits.tryAcquire(MAX_CONCURRENT_HOSTS, HOST_DEADLINE_SECONDS * 2, TimeUnit.SECONDS)) {
+                log.warn("Timeout waiting for component status of some hosts");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
         }
 
-        componentDao.partialUpdateByIds(componentPOList);
+        List<ComponentPO> results = new ArrayList<>(checked);
+        for (int i = 0; i < results.size(); i += BATCH_SIZE) {
+            componentDao.updateStatuses(results.subList(i, Math.min(i + BATCH_SIZE, results.size())));
+        }
+
+        updateServices(componentPOList);
+    }
 
-        // Update services
+    private boolean requireCheck(ComponentPO componentPO) {
+        ComponentDTO componentDTO = StackUtils.getComponentDTO(componentPO.getName());
+        return HealthyStatusEnum.fromCode(componentPO.getStatus()) != HealthyStatusEnum.UNKNOWN
+                && !componentDTO.getCategory().equals(ComponentCategories.CLIENT);
+    }
+
+    private ListenableFuture<List<Integer>> getStatuses(HostPO hostPO, List<ComponentPO> componentPOList) {
+        ComponentStatusServiceGrpc.ComponentStatusServiceFutureStub stub = GrpcClient.getFutureStub(
+                        hostPO.getHostname(),
+                        hostPO.getGrpcPort(),
+                        ComponentStatusServiceGrpc.ComponentStatusServiceFutureStub.class)
+                .withDeadlineAfter(HOST_DEADLINE_SECONDS, TimeUnit.SECONDS);
+        List<ComponentStatusRequest> requests =
+                componentPOList.stream().map(this::buildRequest).toList();
+
+        ListenableFuture<List<Integer>> future = Futures.transform(
+                stub.getComponentStatuses(ComponentStatusesRequest.newBuilder()
+                        .addAllComponents(requests)
+                        .build()),
+                reply -> reply.getStatusesList().stream()
+                        .map(ComponentStatusReply::getStatus)
+                        .toList(),
+                MoreExecutors.directExecutor());
+
+        return Futures.catchingAsync(
+                future,
+                StatusRuntimeException.class,
+                e -> {
+                    if (e.getStatus().getCode() != Status.Code.UNIMPLEMENTED) {
+                        return Futures.immediateFailedFuture(e);
+                    }
+
+                    // Agent does not support batch call yet, ask for each component under the same deadline
+                    List<ListenableFuture<Integer>> futures = requests.stream()
+                            .map(request -> Futures.transform(
+                                    stub.getComponentStatus(request),
+                                    ComponentStatusReply::getStatus,
+                                    MoreExecutors.directExecutor()))
+                            .toList();
+                    return Futures.allAsList(futures);
+                },
+                MoreExecutors.directExecutor());
+    }
+
+    private ComponentStatusRequest buildRequest(ComponentPO componentPO) {
+        return ComponentStatusRequest.newBuilder()
+                .setStackName(CaseUtils.toLowerCase(componentPO.getStack().split("-")[0]))
+                .setStackVersion(componentPO.getStack().split("-")[1])
+                .setServiceName(componentPO.getServiceName())
+                .setServiceUser(componentPO.getServiceUser())
+                .setComponentName(componentPO.getName())
+                .build();
+    }
+
+    private void updateServices(List<ComponentPO> componentPOList) {
         Map<Long, List<ComponentPO>> componentPOMap =
                 componentPOList.stream().collect(Collectors.groupingBy(ComponentPO::getServiceId));
-        for (Map.Entry<Long, List<ComponentPO>> entry : componentPOMap.entrySet()) {
-            Long serviceId = entry.getKey();
-            List<ComponentPO> components = entry.getValue();
-            ServicePO servicePO = serviceDao.findById(serviceId);
+        List<ServicePO> servicePOList = new ArrayList<>();
+        for (ServicePO servicePO : serviceDao.findByIds(componentPOMap.keySet())) {
+            List<ComponentPO> components = componentPOMap.get(servicePO.getId());
             boolean hasUnknownComponent = components.stream()
                     .anyMatch(component -> Objects.equals(component.getStatus(), HealthyStatusEnum.UNKNOWN.getCode()));
             if (hasUnknownComponent) {
                 continue;
             }
 
-            List<ComponentPO> healthyComponents = components.stream()
-                    .filter(component -> Objects.equals(component.getStatus(), HealthyStatusEnum.HEALTHY.getCode()))
-                    .toList();
+            boolean healthy = components.stream()
+                    .allMatch(component -> Objects.equals(component.getStatus(), HealthyStatusEnum.HEALTHY.getCode()));
+            Integer status = healthy ? HealthyStatusEnum.HEALTHY.getCode() : HealthyStatusEnum.UNHEALTHY.getCode();
+            if (status.equals(servicePO.getStatus()) && Objects.equals(servicePO.getRestartFlag(), !healthy)) {
+                continue;
+            }
+
+            servicePO.setStatus(status);
+            servicePO.setRestartFlag(!healthy);
+            servicePOList.add(servicePO);
+        }
 
-            if (healthyComponents.size() == components.size()) {
-                servicePO.setStatus(HealthyStatusEnum.HEALTHY.getCode());
-                servicePO.setRestartFlag(false);
-            } else {
-                servicePO.setStatus(HealthyStatusEnum.UNHEALTHY.getCode());
-                servicePO.setRestartFlag(true);
+        if (!servicePOList.isEmpty()) {
+            serviceDao.partialUpdateByIds(servicePOList);
+        }
+    }
+
+    private record StatusCallback(
+            HostPO hostPO, List<ComponentPO> componentPOList, Queue<ComponentPO> checked, Semaphore permits)
+            implements FutureCallback<List<Integer>> {
+
+        @Override
+        public void onSuccess(List<Integer> statuses) {
+            try {
+                for (int i = 0; i < componentPOList.size() && i < statuses.size(); i++) {
+                    ComponentPO componentPO = componentPOList.get(i);
+                    // Status 0 means the service is running
+                    if (statuses.get(i) == 0) {
+                        componentPO.setStatus(HealthyStatusEnum.HEALTHY.getCode());
+                    } else {
+                        componentPO.setStatus(HealthyStatusEnum.UNHEALTHY.getCode());
+                    }
+
+                    checked.add(componentPO);
+                }
+            } finally {
+                permits.release();
             }
+        }
 
-            serviceDao.partialUpdateById(servicePO);
+        @Override
+        public void onFailure(Throwable t) {
+            // Status of components on the host is left as is, host health is tracked by heartbeat
+            permits.release();
+            log.warn("Error getting component status on host: {}, {}", hostPO.getHostname(), t.toString());
         }
     }
 }
@@ -20,9 +20,11 @@ package org.apache.bigtop.manager.server.timer;
 
 import org.apache.bigtop.manager.dao.po.HostPO;
 import org.apache.bigtop.manager.dao.repository.HostDao;
+import org.apache.bigtop.manager.grpc.generated.HeartbeatRequest;
 import org.apache.bigtop.manager.grpc.generated.HostInfoReply;
 import org.apache.bigtop.manager.grpc.generated.HostInfoRequest;
 import org.apache.bigtop.manager.grpc.generated.HostInfoServiceGrpc;
+import org.apache.bigtop.manager.server.command.helper.JobCacheHelper;
 import org.apache.bigtop.manager.server.enums.HealthyStatusEnum;
 import org.apache.bigtop.manager.server.grpc.GrpcClient;
 import org.apache.bigtop.manager.server.utils.ClusterUtils;
@@ -31,56 +33,248 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import io.grpc.Status;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
 import lombok.extern.slf4j.Slf4j;
 
 import jakarta.annotation.Resource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Keeps a heartbeat stream open to each agent, agents push host info over it instead of being polled.
+ * Heartbeats are coalesced per host and written to db in batch, hosts are marked unhealthy once heartbeats stop,
+ * error info of a host is cleared by its next heartbeat.
+ */
 @Slf4j
 @Component
 public class HostInfoTimer {
 
+    private static final int HEARTBEAT_INTERVAL_SECONDS = 10;
+
+    // Hosts are marked unhealthy if no heartbeat is received within this time
+    private static final long HEARTBEAT_TIMEOUT_MILLIS = 60 * 1000;
+
+    private static final int BATCH_SIZE = 500;
+
     @Resource
     private HostDao hostDao;
 
+    // Hostname -> open stream
+    private final Map<String, HeartbeatObserver> streams = new ConcurrentHashMap<>();
+
+    // Host id -> latest heartbeat not written to db yet
+    private final Map<Long, HostPO> pendingHeartbeats = new ConcurrentHashMap<>();
+
+    /**
+     * Open streams for new hosts, reopen broken ones and mark hosts without heartbeat unhealthy.
+     */
     @Async
     @Scheduled(fixedDelay = 30, timeUnit = TimeUnit.SECONDS)
     public void execute() {
-        List<HostPO> hostPOList = hostDao.findAll();
-        for (HostPO hostPO : hostPOList) {
-            getHostInfo(hostPO);
+        long now = System.currentTimeMillis();
+        Set<String> hostnames = new HashSet<>();
+        // Error info -> ids of hosts without heartbeat, hosts failed for the same reason are updated together
+        Map<String, List<Long>> timeoutIds = new HashMap<>();
+        for (HostPO hostPO : hostDao.findAll()) {
+            if (ClusterUtils.isNoneCluster(hostPO.getClusterId())) {
+                continue;
+            }
+
+            String hostname = hostPO.getHostname();
+            hostnames.add(hostname);
+
+            HeartbeatObserver observer = streams.get(hostname);
+            if (observer == null || observer.getHostId() != hostPO.getId()) {
+                if (observer != null) {
+                    // Host is re-added with a new id
+                    observer.cancel();
+                }
+
+                observer = new HeartbeatObserver(hostPO.getId(), hostname, now);
+                streams.put(hostname, observer);
+                openStream(hostPO, observer);
+            } else if (observer.isClosed()) {
+                observer.reset();
+                openStream(hostPO, observer);
+            }
+
+            if (now - observer.getLastHeartbeat() > HEARTBEAT_TIMEOUT_MILLIS
+                    && !HealthyStatusEnum.UNHEALTHY.getCode().equals(hostPO.getStatus())) {
+                timeoutIds
+                        .computeIfAbsent(observer.getErrInfo(), k -> new ArrayList<>())
+                        .add(hostPO.getId());
+            }
+        }
+
+        // Hosts removed or moved out of cluster
+        streams.entrySet().removeIf(entry -> {
+            if (!hostnames.contains(entry.getKey())) {
+                entry.getValue().cancel();
+                return true;
+            }
+
+            return false;
+        });
+
+        for (Map.Entry<String, List<Long>> entry : timeoutIds.entrySet()) {
+            log.warn(
+                    "No heartbeat received from {} hosts, mark them as unhealthy: {}",
+                    entry.getValue().size(),
+                    entry.getKey());
+            hostDao.updateStatusByIds(entry.getValue(), HealthyStatusEnum.UNHEALTHY.getCode(), entry.getKey());
         }
     }
 
-    private void getHostInfo(HostPO hostPO) {
-        if (ClusterUtils.isNoneCluster(hostPO.getClusterId())) {
+    /**
+     * Write heartbeats received since last flush, only the latest one of each host is written.
+     */
+    @Async
+    @Scheduled(fixedDelay = 5, timeUnit = TimeUnit.SECONDS)
+    public void flush() {
+        if (pendingHeartbeats.isEmpty()) {
             return;
         }
 
-        String hostname = hostPO.getHostname();
-        Integer grpcPort = hostPO.getGrpcPort();
-        try {
-            HostInfoServiceGrpc.HostInfoServiceBlockingStub stub = GrpcClient.getBlockingStub(
-                    hostname, grpcPort, HostInfoServiceGrpc.HostInfoServiceBlockingStub.class);
-            HostInfoReply reply = stub.getHostInfo(HostInfoRequest.newBuilder().build());
-
-            hostPO.setArch(reply.getArch());
-            hostPO.setAvailableProcessors(reply.getAvailableProcessors());
-            hostPO.setIpv4(reply.getIpv4());
-            hostPO.setIpv6(reply.getIpv6());
-            hostPO.setOs(reply.getOs());
-            hostPO.setFreeMemorySize(reply.getFreeMemorySize());
-            hostPO.setTotalMemorySize(reply.getTotalMemorySize());
-            hostPO.setFreeDisk(reply.getFreeDisk());
-            hostPO.setTotalDisk(reply.getTotalDisk());
-            hostPO.setStatus(HealthyStatusEnum.HEALTHY.getCode());
-        } catch (Exception e) {
-            hostPO.setStatus(HealthyStatusEnum.UNHEALTHY.getCode());
-            hostPO.setErrInfo(e.toString());
-            log.error("Error getting host info for {}", hostname, e);
-        }
-
-        hostDao.partialUpdateById(hostPO);
+        List<HostPO> batch = new ArrayList<>();
+        for (Long hostId : pendingHeartbeats.keySet()) {
+            HostPO hostPO = pendingHeartbeats.remove(hostId);
+            if (hostPO != null) {
+                batch.add(hostPO);
+            }
+        }
+
+        for (int i = 0; i < batch.size(); i += BATCH_SIZE) {
+            hostDao.updateHeartbeats(batch.subList(i, Math.min(i + BATCH_SIZE, batch.size())));
+        }
+    }
+
+    private void openStream(HostPO hostPO, HeartbeatObserver observer) {
+        // Agent may have been reinstalled while disconnected, its job cache is unknown until it reports again
+        JobCacheHelper.resetCacheVersions(hostPO.getHostname());
+
+        HostInfoServiceGrpc.HostInfoServiceStub stub = GrpcClient.getAsyncStub(
+                hostPO.getHostname(), hostPO.getGrpcPort(), HostInfoServiceGrpc.HostInfoServiceStub.class);
+        if (observer.isLegacy()) {
+            // Agent does not support heartbeat stream, fall back to one-shot call
+            stub.getHostInfo(HostInfoRequest.newBuilder().build(), observer);
+        } else {
+            HeartbeatRequest request = HeartbeatRequest.newBuilder()
+                    .setIntervalSeconds(HEARTBEAT_INTERVAL_SECONDS)
+                    .build();
+            stub.heartbeat(request, observer);
+        }
+    }
+
+    private void onHeartbeat(Long hostId, HostInfoReply reply) {
+        HostPO hostPO = new HostPO();
+        hostPO.setId(hostId);
+        hostPO.setArch(reply.getArch());
+        hostPO.setAvailableProcessors(reply.getAvailableProcessors());
+        hostPO.setIpv4(reply.getIpv4());
+        hostPO.setIpv6(reply.getIpv6());
+        hostPO.setOs(reply.getOs());
+        hostPO.setFreeMemorySize(reply.getFreeMemorySize());
+        hostPO.setTotalMemorySize(reply.getTotalMemorySize());
+        hostPO.setFreeDisk(reply.getFreeDisk());
+        hostPO.setTotalDisk(reply.getTotalDisk());
+        hostPO.setStatus(HealthyStatusEnum.HEALTHY.getCode());
+        pendingHeartbeats.put(hostId, hostPO);
+    }
+
+    // Request type is Object since the observer is used by both heartbeat stream and one-shot call of legacy agents
+    private class HeartbeatObserver implements ClientResponseObserver<Object, HostInfoReply> {
+
+        private final long hostId;
+
+        private final String hostname;
+
+        private volatile ClientCallStreamObserver<Object> requestStream;
+
+        private volatile long lastHeartbeat;
+
+        private volatile boolean closed = false;
+
+        private volatile boolean legacy = false;
+
+        private volatile String errInfo;
+
+        // Time the host was first seen is taken as last heartbeat, so new hosts are given a full timeout
+        HeartbeatObserver(Long hostId, String hostname, long lastHeartbeat) {
+            this.hostId = hostId;
+            this.hostname = hostname;
+            this.lastHeartbeat = lastHeartbeat;
+        }
+
+        @Override
+        public void beforeStart(ClientCallStreamObserver<Object> requestStream) {
+            this.requestStream = requestStream;
+        }
+
+        @Override
+        public void onNext(HostInfoReply reply) {
+            lastHeartbeat = System.currentTimeMillis();
+            errInfo = null;
+            GrpcClient.setProtocolVersion(hostname, reply.getProtocolVersion());
+            JobCacheHelper.syncCacheVersions(hostname, reply.getCacheVersionsMap());
+            onHeartbeat(hostId, reply);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            closed = true;
+            errInfo = t.toString();
+            if (Status.fromThrowable(t).getCode() == Status.Code.UNIMPLEMENTED && !legacy) {
+                log.info("Agent on {} does not support heartbeat stream, fall back to polling", hostname);
+                legacy = true;
+            } else {
+                log.warn("Heartbeat stream of {} closed: {}", hostname, errInfo);
+            }
+        }
+
+        @Override
+        public void onCompleted() {
+            // One-shot calls of legacy agents complete every time, streams complete only if agent stops
+            closed = true;
+        }
+
+        void reset() {
+            closed = false;
+            requestStream = null;
+        }
+
+        void cancel() {
+            ClientCallStreamObserver<Object> stream = requestStream;
+            if (stream != null && !closed) {
+                stream.cancel("Host removed", null);
+            }
+        }
+
+        long getHostId() {
+            return hostId;
+        }
+
+        long getLastHeartbeat() {
+            return lastHeartbeat;
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+
+        boolean isLegacy() {
+            return legacy;
+        }
+
+        String getErrInfo() {
+            return errInfo == null ? "No heartbeat received from agent" : errInfo;
+        }
     }
 }
@@ -21,6 +21,7 @@ package org.apache.bigtop.manager.server.utils;
 import org.apache.bigtop.manager.common.constants.ComponentCategories;
 import org.apache.bigtop.manager.common.enums.Command;
 import org.apache.bigtop.manager.common.utils.CaseUtils;
+import org.apache.bigtop.manager.common.utils.ChecksumUtils;
 import org.apache.bigtop.manager.common.utils.FileUtils;
 import org.apache.bigtop.manager.common.utils.JsonUtils;
 import org.apache.bigtop.manager.common.utils.ProjectPathUtils;
@@ -78,6 +79,16 @@ public class StackUtils {
 
     public static final Map<String, Map<String, String>> SERVICE_TEMPLATE_MAP = new HashMap<>();
 
+    /**
+     * service name -> template src -> SHA-256 of the template
+     */
+    public static final Map<String, Map<String, String>> SERVICE_TEMPLATE_CHECKSUM_MAP = new HashMap<>();
+
+    /**
+     * SHA-256 -> template content
+     */
+    public static final Map<String, String> TEMPLATE_CONTENT_MAP = new HashMap<>();
+
     public static final Map<StackDTO, List<ServiceDTO>> STACK_SERVICE_MAP = new HashMap<>();
 
     public static final DAG<String, ComponentCommandWrapper, DagGraphEdge> DAG = new DAG<>();
@@ -173,6 +184,14 @@ public class StackUtils {
         if (templateFolder.exists()) {
             Map<String, String> map = SERVICE_TEMPLATE_MAP.computeIfAbsent(serviceName, k -> new HashMap<>());
             parseTemplateFiles(templateFolder, templateFolder, map);
+
+            Map<String, String> checksumMap =
+                    SERVICE_TEMPLATE_CHECKSUM_MAP.computeIfAbsent(serviceName, k -> new HashMap<>());
+            for (Map.Entry<String, String> entry : map.entrySet()) {
+                String checksum = ChecksumUtils.sha256(entry.getValue());
+                checksumMap.put(entry.getKey(), checksum);
+                TEMPLATE_CONTENT_MAP.put(checksum, entry.getValue());
+            }
         }
     }
 
@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.command.helper;
+
+import org.apache.bigtop.manager.common.constants.MessageConstants;
+import org.apache.bigtop.manager.common.utils.JsonUtils;
+import org.apache.bigtop.manager.dao.po.ClusterPO;
+import org.apache.bigtop.manager.dao.po.HostPO;
+import org.apache.bigtop.manager.dao.repository.ClusterDao;
+import org.apache.bigtop.manager.dao.repository.ComponentDao;
+import org.apache.bigtop.manager.dao.repository.HostDao;
+import org.apache.bigtop.manager.dao.repository.RepoDao;
+import org.apache.bigtop.manager.dao.repository.ServiceConfigDao;
+import org.apache.bigtop.manager.grpc.generated.ClusterCache;
+import org.apache.bigtop.manager.grpc.generated.ClusterCacheReply;
+import org.apache.bigtop.manager.grpc.generated.JobCacheReply;
+import org.apache.bigtop.manager.grpc.generated.JobCacheRequest;
+import org.apache.bigtop.manager.grpc.generated.JobCacheServiceGrpc;
+import org.apache.bigtop.manager.grpc.payload.JobCachePayload;
+import org.apache.bigtop.manager.server.grpc.GrpcClient;
+import org.apache.bigtop.manager.server.holder.SpringContextHolder;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.util.concurrent.Futures;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class JobCacheHelperTest {
+
+    private MockedStatic<SpringContextHolder> springContextHolderMockedStatic;
+
+    private MockedStatic<GrpcClient> grpcClientMockedStatic;
+
+    @Mock
+    private ClusterDao clusterDao;
+
+    @Mock
+    private ServiceConfigDao serviceConfigDao;
+
+    @Mock
+    private RepoDao repoDao;
+
+    @Mock
+    private HostDao hostDao;
+
+    @Mock
+    private ComponentDao componentDao;
+
+    private JobCacheServiceGrpc.JobCacheServiceFutureStub stub;
+
+    @BeforeEach
+    public void setUp() {
+        springContextHolderMockedStatic = mockStatic(SpringContextHolder.class);
+        when(SpringContextHolder.getBean(ClusterDao.class)).thenReturn(clusterDao);
+        when(SpringContextHolder.getBean(ServiceConfigDao.class)).thenReturn(serviceConfigDao);
+        when(SpringContextHolder.getBean(RepoDao.class)).thenReturn(repoDao);
+        when(SpringContextHolder.getBean(HostDao.class)).thenReturn(hostDao);
+        when(SpringContextHolder.getBean(ComponentDao.class)).thenReturn(componentDao);
+
+        grpcClientMockedStatic = mockStatic(GrpcClient.class);
+        stub = mock(JobCacheServiceGrpc.JobCacheServiceFutureStub.class);
+        when(GrpcClient.getFutureStub("host1", 8835, JobCacheServiceGrpc.JobCacheServiceFutureStub.class))
+                .thenReturn(stub);
+        when(stub.withCompression("gzip")).thenReturn(stub);
+        when(stub.withDeadlineAfter(anyLong(), any(TimeUnit.class))).thenReturn(stub);
+
+        HostPO hostPO = new HostPO();
+        hostPO.setHostname("host1");
+        hostPO.setClusterId(1L);
+        hostPO.setGrpcPort(8835);
+        ClusterPO clusterPO = new ClusterPO();
+        clusterPO.setId(1L);
+        clusterPO.setName("cluster1");
+        lenient().when(hostDao.findAllByHostnames(List.of("host1"))).thenReturn(List.of(hostPO));
+        when(hostDao.findAllByClusterId(1L)).thenReturn(List.of(hostPO));
+        when(clusterDao.findById(1L)).thenReturn(clusterPO);
+        when(componentDao.findByQuery(any())).thenReturn(List.of());
+        when(serviceConfigDao.findByClusterId(anyLong())).thenReturn(List.of());
+        when(repoDao.findAll()).thenReturn(List.of());
+
+        // Helper keeps daos and agent versions in static fields
+        ((AtomicBoolean) ReflectionTestUtils.getField(JobCacheHelper.class, "INITIALIZED")).set(false);
+        ((Map<?, ?>) ReflectionTestUtils.getField(JobCacheHelper.class, "AGENT_CACHE_VERSIONS")).clear();
+        ((Map<?, ?>) ReflectionTestUtils.getField(JobCacheHelper.class, "AGENT_CURRENT_CLUSTERS")).clear();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        springContextHolderMockedStatic.close();
+        grpcClientMockedStatic.close();
+    }
+
+    @Test
+    public void testSendJobCacheToVersion0Agent() {
+        when(GrpcClient.supportsBinaryPayload("host1")).thenReturn(false);
+        // Agents of the first release reply with code only
+        when(stub.save(any(JobCacheRequest.class)))
+                .thenReturn(Futures.immediateFuture(JobCacheReply.newBuilder()
+                        .setCode(MessageConstants.SUCCESS_CODE)
+                        .build()));
+
+        JobCacheHelper.sendJobCache(1L, List.of("host1"));
+
+        ArgumentCaptor<JobCacheRequest> captor = ArgumentCaptor.forClass(JobCacheRequest.class);
+        verify(stub).save(captor.capture());
+        JobCacheRequest request = captor.getValue();
+        assertEquals(0, request.getClustersCount());
+        assertTrue(request.getBaseVersion().isEmpty());
+
+        JobCachePayload payload = JsonUtils.readFromString(request.getPayload(), JobCachePayload.class);
+        assertEquals(1L, payload.getClusterId());
+        assertEquals(1L, payload.getCurrentClusterId());
+        assertEquals("cluster1", payload.getClusterInfo().getName());
+        assertEquals(List.of("host1"), payload.getHosts());
+        assertTrue(payload.getConfigurations().isEmpty());
+        assertTrue(payload.getRepoInfo().isEmpty());
+
+        // Agent did not confirm a version, full cache is sent again
+        JobCacheHelper.sendJobCache(2L, List.of("host1"));
+        verify(stub, times(2)).save(any(JobCacheRequest.class));
+    }
+
+    @Test
+    public void testSendJobCacheToBinaryAgent() {
+        when(GrpcClient.supportsBinaryPayload("host1")).thenReturn(true);
+        when(stub.save(any(JobCacheRequest.class))).thenAnswer(invocation -> {
+            JobCacheRequest request = invocation.getArgument(0);
+            JobCacheReply.Builder builder = JobCacheReply.newBuilder().setCode(MessageConstants.SUCCESS_CODE);
+            for (ClusterCache cache : request.getClustersList()) {
+                builder.addClusters(ClusterCacheReply.newBuilder()
+                        .setClusterId(cache.getClusterId())
+                        .setCode(MessageConstants.SUCCESS_CODE)
+                        .setVersion(cache.getVersion()));
+            }
+
+            return Futures.immediateFuture(builder.build());
+        });
+
+        JobCacheHelper.sendJobCache(1L, List.of("host1"));
+
+        ArgumentCaptor<JobCacheRequest> captor = ArgumentCaptor.forClass(JobCacheRequest.class);
+        verify(stub).save(captor.capture());
+        JobCacheRequest request = captor.getValue();
+        assertTrue(request.getPayload().isEmpty());
+        assertEquals(1L, request.getCurrentClusterId());
+        assertEquals(1, request.getClustersCount());
+        assertFalse(request.getClusters(0).getPayloadMessage().isEmpty());
+        assertFalse(request.getClusters(0).getVersion().isEmpty());
+
+        // Agent holds the same version
+        JobCacheHelper.sendJobCache(2L, List.of("host1"));
+        verify(stub, times(1)).save(any(JobCacheRequest.class));
+    }
+
+    @Test
+    public void testPayloadEncodedOnceForAllHosts() {
+        HostPO hostPO = new HostPO();
+        hostPO.setHostname("host2");
+        hostPO.setClusterId(1L);
+        hostPO.setGrpcPort(8835);
+        List<HostPO> hostPOList = new ArrayList<>(hostDao.findAllByClusterId(1L));
+        hostPOList.add(hostPO);
+        when(hostDao.findAllByHostnames(List.of("host1", "host2"))).thenReturn(hostPOList);
+        when(GrpcClient.getFutureStub("host2", 8835, JobCacheServiceGrpc.JobCacheServiceFutureStub.class))
+                .thenReturn(stub);
+        when(GrpcClient.supportsBinaryPayload(any())).thenReturn(true);
+        when(stub.save(any(JobCacheRequest.class))).thenAnswer(invocation -> {
+            ClusterCache cache = invocation.<JobCacheRequest>getArgument(0).getClusters(0);
+            return Futures.immediateFuture(JobCacheReply.newBuilder()
+                    .setCode(MessageConstants.SUCCESS_CODE)
+                    .addClusters(ClusterCacheReply.newBuilder()
+                            .setClusterId(cache.getClusterId())
+                            .setCode(MessageConstants.SUCCESS_CODE)
+                            .setVersion(cache.getVersion()))
+                    .build());
+        });
+
+        JobCacheHelper.sendJobCache(1L, List.of("host1", "host2"));
+
+        ArgumentCaptor<JobCacheRequest> captor = ArgumentCaptor.forClass(JobCacheRequest.class);
+        verify(stub, times(2)).save(captor.capture());
+        List<JobCacheRequest> requests = captor.getAllValues();
+        assertSame(
+                requests.get(0).getClusters(0).getPayloadMessage(),
+                requests.get(1).getClusters(0).getPayloadMessage());
+    }
+
+    @Test
+    public void testSyncCacheVersions() {
+        when(GrpcClient.supportsBinaryPayload("host1")).thenReturn(true);
+        when(stub.save(any(JobCacheRequest.class))).thenAnswer(invocation -> {
+            JobCacheRequest request = invocation.getArgument(0);
+            ClusterCache cache = request.getClusters(0);
+            return Futures.immediateFuture(JobCacheReply.newBuilder()
+                    .setCode(MessageConstants.SUCCESS_CODE)
+                    .addClusters(ClusterCacheReply.newBuilder()
+                            .setClusterId(cache.getClusterId())
+                            .setCode(MessageConstants.SUCCESS_CODE)
+                            .setVersion(cache.getVersion()))
+                    .build());
+        });
+
+        JobCacheHelper.sendJobCache(1L, List.of("host1"));
+        ArgumentCaptor<JobCacheRequest> captor = ArgumentCaptor.forClass(JobCacheRequest.class);
+        verify(stub).save(captor.capture());
+        String version = captor.getValue().getClusters(0).getVersion();
+
+        // Agent reports the same version, nothing is sent
+        JobCacheHelper.syncCacheVersions("host1", Map.of(1L, version));
+        JobCacheHelper.sendJobCache(2L, List.of("host1"));
+        verify(stub, times(1)).save(any(JobCacheRequest.class));
+
+        // Agent lost its cache, a full snapshot is sent
+        JobCacheHelper.syncCacheVersions("host1", Map.of());
+        JobCacheHelper.sendJobCache(3L, List.of("host1"));
+        verify(stub, times(2)).save(captor.capture());
+        assertTrue(captor.getValue().getClusters(0).getBaseVersion().isEmpty());
+
+        // Agent reconnected
+        JobCacheHelper.resetCacheVersions("host1");
+        JobCacheHelper.sendJobCache(4L, List.of("host1"));
+        verify(stub, times(3)).save(any(JobCacheRequest.class));
+    }
+}
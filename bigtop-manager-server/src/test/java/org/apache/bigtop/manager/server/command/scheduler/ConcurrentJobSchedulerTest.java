@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.command.scheduler;
+
+import org.apache.bigtop.manager.dao.po.JobPO;
+import org.apache.bigtop.manager.server.command.job.Job;
+import org.apache.bigtop.manager.server.command.job.JobContext;
+import org.apache.bigtop.manager.server.command.stage.Stage;
+import org.apache.bigtop.manager.server.command.stage.StageContext;
+import org.apache.bigtop.manager.server.config.JobSchedulerProperties;
+import org.apache.bigtop.manager.server.model.dto.CommandDTO;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ConcurrentJobSchedulerTest {
+
+    private ConcurrentJobScheduler scheduler;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        JobSchedulerProperties properties = new JobSchedulerProperties();
+        properties.setMaxConcurrentJobs(4);
+        properties.setMaxJobsPerCluster(2);
+
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = new ConcurrentJobScheduler();
+        ReflectionTestUtils.setField(scheduler, "jobSchedulerProperties", properties);
+        ReflectionTestUtils.setField(scheduler, "meterRegistry", meterRegistry);
+        scheduler.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        scheduler.destroy();
+    }
+
+    @Test
+    public void testJobsInDifferentClustersRunConcurrently() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+
+        scheduler.submit(mockJob(1L, 1L, "host1", "hdfs", started, release));
+        scheduler.submit(mockJob(2L, 2L, "host2", "hdfs", started, release));
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    public void testConflictingJobsRunSequentially() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch secondStarted = new CountDownLatch(1);
+
+        scheduler.submit(mockJob(1L, 1L, "host1", "hdfs", firstStarted, release));
+        scheduler.submit(mockJob(2L, 1L, "host1", "yarn", secondStarted, new CountDownLatch(0)));
+
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        assertFalse(secondStarted.await(200, TimeUnit.MILLISECONDS));
+        assertEquals(
+                1.0,
+                meterRegistry
+                        .get("bigtop.manager.scheduler.queued.jobs")
+                        .tag("cluster_id", "1")
+                        .gauge()
+                        .value());
+
+        release.countDown();
+        assertTrue(secondStarted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testStopAndStart() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+
+        scheduler.stop();
+        scheduler.submit(mockJob(1L, 1L, "host1", "hdfs", started, new CountDownLatch(0)));
+        assertFalse(started.await(200, TimeUnit.MILLISECONDS));
+
+        scheduler.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCancelQueuedJob() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch secondStarted = new CountDownLatch(1);
+
+        Job first = mockJob(1L, 1L, "host1", "hdfs", firstStarted, release);
+        Job second = mockJob(2L, 1L, "host1", "yarn", secondStarted, new CountDownLatch(0));
+        scheduler.submit(first);
+        scheduler.submit(second);
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+
+        assertTrue(scheduler.cancel(2L));
+        verify(second).cancel();
+        verify(second).onFailure();
+
+        release.countDown();
+        assertFalse(secondStarted.await(200, TimeUnit.MILLISECONDS));
+        assertFalse(scheduler.cancel(3L));
+    }
+
+    @Test
+    public void testCancelRunningJob() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        Job job = mockJob(1L, 1L, "host1", "hdfs", started, release);
+        scheduler.submit(job);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertTrue(scheduler.cancel(1L));
+        verify(job).cancel();
+        verify(job, never()).onFailure();
+
+        release.countDown();
+    }
+
+    private Job mockJob(
+            Long jobId,
+            Long clusterId,
+            String hostname,
+            String serviceName,
+            CountDownLatch started,
+            CountDownLatch release) {
+        CommandDTO commandDTO = new CommandDTO();
+        commandDTO.setClusterId(clusterId);
+        JobContext jobContext = new JobContext();
+        jobContext.setCommandDTO(commandDTO);
+
+        StageContext stageContext = new StageContext();
+        stageContext.setHostnames(List.of(hostname));
+        stageContext.setServiceName(serviceName);
+        Stage stage = mock(Stage.class);
+        when(stage.getStageContext()).thenReturn(stageContext);
+
+        JobPO jobPO = new JobPO();
+        jobPO.setId(jobId);
+
+        Job job = mock(Job.class);
+        when(job.getJobContext()).thenReturn(jobContext);
+        when(job.getStages()).thenReturn(List.of(stage));
+        when(job.getJobPO()).thenReturn(jobPO);
+        doAnswer(invocation -> {
+                    started.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return null;
+                })
+                .when(job)
+                .run();
+        return job;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.command.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JobFootprintTest {
+
+    @Test
+    public void testSharedHostConflicts() {
+        JobFootprint footprint1 = new JobFootprint(1L, Set.of("host1", "host2"), Set.of("zookeeper"));
+        JobFootprint footprint2 = new JobFootprint(1L, Set.of("host2"), Set.of("kafka"));
+
+        assertTrue(footprint1.conflictsWith(footprint2));
+        assertTrue(footprint2.conflictsWith(footprint1));
+    }
+
+    @Test
+    public void testSameServiceInSameClusterConflicts() {
+        JobFootprint footprint1 = new JobFootprint(1L, Set.of("host1"), Set.of("hdfs"));
+        JobFootprint footprint2 = new JobFootprint(1L, Set.of("host2"), Set.of("hdfs"));
+
+        assertTrue(footprint1.conflictsWith(footprint2));
+    }
+
+    @Test
+    public void testSameServiceInDifferentClustersNotConflicts() {
+        JobFootprint footprint1 = new JobFootprint(1L, Set.of("host1"), Set.of("hdfs"));
+        JobFootprint footprint2 = new JobFootprint(2L, Set.of("host2"), Set.of("hdfs"));
+
+        assertFalse(footprint1.conflictsWith(footprint2));
+    }
+
+    @Test
+    public void testDisjointJobsNotConflicts() {
+        JobFootprint footprint1 = new JobFootprint(1L, Set.of("host1"), Set.of("hdfs"));
+        JobFootprint footprint2 = new JobFootprint(1L, Set.of("host2"), Set.of("kafka"));
+
+        assertFalse(footprint1.conflictsWith(footprint2));
+    }
+
+    @Test
+    public void testNoneClusterJobs() {
+        JobFootprint footprint1 = new JobFootprint(null, Set.of("host1"), Set.of());
+        JobFootprint footprint2 = new JobFootprint(0L, Set.of("host1"), Set.of());
+
+        assertTrue(footprint1.conflictsWith(footprint2));
+        assertEquals(0L, footprint1.getClusterId());
+    }
+}
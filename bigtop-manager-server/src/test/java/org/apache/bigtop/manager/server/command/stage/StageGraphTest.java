@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.command.stage;
+
+import org.apache.bigtop.manager.common.enums.Command;
+import org.apache.bigtop.manager.common.utils.Environments;
+import org.apache.bigtop.manager.server.utils.StackUtils;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
+
+public class StageGraphTest {
+
+    private static MockedStatic<Environments> mocked;
+
+    @BeforeAll
+    public static void setup() {
+        mocked = mockStatic(Environments.class);
+        when(Environments.isDevMode()).thenReturn(true);
+
+        StackUtils.parseStack();
+    }
+
+    @AfterAll
+    public static void teardown() {
+        mocked.close();
+    }
+
+    @Test
+    public void testIndependentStages() {
+        Stage stage1 = componentStage(Command.START, "foo_server", "host1");
+        Stage stage2 = componentStage(Command.START, "bar_server", "host2");
+
+        StageGraph graph = new StageGraph(List.of(stage1, stage2));
+
+        assertEquals(Set.of(), graph.getDependencies(0));
+        assertEquals(Set.of(), graph.getDependencies(1));
+    }
+
+    @Test
+    public void testDagDependency() {
+        Stage stage1 = componentStage(Command.START, "zookeeper_server", "host1");
+        Stage stage2 = componentStage(Command.START, "kafka_broker", "host2");
+
+        StageGraph graph = new StageGraph(List.of(stage1, stage2));
+
+        assertEquals(Set.of(0), graph.getDependencies(1));
+    }
+
+    @Test
+    public void testSharedHost() {
+        Stage stage1 = componentStage(Command.ADD, "foo_server", "host1", "host2");
+        Stage stage2 = componentStage(Command.ADD, "bar_server", "host2");
+        Stage stage3 = componentStage(Command.ADD, "baz_server", "host3");
+
+        StageGraph graph = new StageGraph(List.of(stage1, stage2, stage3));
+
+        // Agent runs tasks of independent components at the same time
+        assertEquals(Set.of(), graph.getDependencies(1));
+        assertEquals(Set.of(), graph.getDependencies(2));
+    }
+
+    @Test
+    public void testDifferentCommands() {
+        Stage stage1 = componentStage(Command.CONFIGURE, "foo_server", "host1");
+        Stage stage2 = componentStage(Command.START, "bar_server", "host2");
+
+        StageGraph graph = new StageGraph(List.of(stage1, stage2));
+
+        assertEquals(Set.of(0), graph.getDependencies(1));
+    }
+
+    @Test
+    public void testNonComponentStageIsBarrier() {
+        Stage stage1 = mock(HostCheckStage.class);
+        Stage stage2 = componentStage(Command.ADD, "foo_server", "host1");
+        Stage stage3 = componentStage(Command.ADD, "bar_server", "host2");
+
+        StageGraph graph = new StageGraph(List.of(stage1, stage2, stage3));
+
+        assertEquals(Set.of(0), graph.getDependencies(1));
+        assertEquals(Set.of(0), graph.getDependencies(2));
+    }
+
+    private Stage componentStage(Command command, String componentName, String... hostnames) {
+        StageContext stageContext = new StageContext();
+        stageContext.setComponentName(componentName);
+        stageContext.setHostnames(List.of(hostnames));
+
+        AbstractComponentStage stage = mock(AbstractComponentStage.class);
+        lenient().when(stage.getCommand()).thenReturn(command);
+        lenient().when(stage.getStageContext()).thenReturn(stageContext);
+        return stage;
+    }
+}
@@ -25,25 +25,39 @@ import org.apache.bigtop.manager.dao.po.TaskPO;
 import org.apache.bigtop.manager.dao.repository.ComponentDao;
 import org.apache.bigtop.manager.dao.repository.HostDao;
 import org.apache.bigtop.manager.dao.repository.TaskDao;
+import org.apache.bigtop.manager.grpc.generated.ComponentCommandRequest;
+import org.apache.bigtop.manager.grpc.generated.ComponentCommandServiceGrpc;
+import org.apache.bigtop.manager.grpc.generated.TaskCancelReply;
+import org.apache.bigtop.manager.grpc.generated.TaskCancelRequest;
+import org.apache.bigtop.manager.grpc.generated.TaskCancelServiceGrpc;
+import org.apache.bigtop.manager.server.grpc.GrpcClient;
 import org.apache.bigtop.manager.server.holder.SpringContextHolder;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import com.google.common.util.concurrent.Futures;
+import io.grpc.Status;
+
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
@@ -148,6 +162,62 @@ public class ComponentStartTaskTest {
         assertNull(result.getCustomCommand());
     }
 
+    @Test
+    public void testDoRunCancelsOnAgentWhenDeadlineExceeded() {
+        taskPO.setId(1L);
+        doCallRealMethod().when(componentStartTask).doRun(any(), any());
+        doReturn(60L).when(componentStartTask).getTimeout();
+        doReturn(ComponentCommandRequest.newBuilder().setTaskId(1L).build())
+                .when(componentStartTask)
+                .getComponentCommandRequest();
+
+        ComponentCommandServiceGrpc.ComponentCommandServiceFutureStub commandStub =
+                mock(ComponentCommandServiceGrpc.ComponentCommandServiceFutureStub.class);
+        when(commandStub.withDeadlineAfter(anyLong(), any(TimeUnit.class))).thenReturn(commandStub);
+        when(commandStub.withCompression("gzip")).thenReturn(commandStub);
+        when(commandStub.exec(any(ComponentCommandRequest.class)))
+                .thenReturn(Futures.immediateFailedFuture(Status.DEADLINE_EXCEEDED.asRuntimeException()));
+
+        TaskCancelServiceGrpc.TaskCancelServiceBlockingStub cancelStub =
+                mock(TaskCancelServiceGrpc.TaskCancelServiceBlockingStub.class);
+        when(cancelStub.withDeadlineAfter(anyLong(), any(TimeUnit.class))).thenReturn(cancelStub);
+        when(cancelStub.cancel(any(TaskCancelRequest.class)))
+                .thenReturn(TaskCancelReply.newBuilder().setKilled(1).build());
+
+        try (MockedStatic<GrpcClient> grpcClientMockedStatic = mockStatic(GrpcClient.class)) {
+            grpcClientMockedStatic
+                    .when(() -> GrpcClient.getFutureStub(
+                            "host1", 8835, ComponentCommandServiceGrpc.ComponentCommandServiceFutureStub.class))
+                    .thenReturn(commandStub);
+            grpcClientMockedStatic
+                    .when(() -> GrpcClient.getBlockingStub(
+                            "host1", 8835, TaskCancelServiceGrpc.TaskCancelServiceBlockingStub.class))
+                    .thenReturn(cancelStub);
+
+            assertFalse(componentStartTask.doRun("host1", 8835));
+        }
+
+        // Processes of the task must not outlive the call
+        ArgumentCaptor<TaskCancelRequest> captor = ArgumentCaptor.forClass(TaskCancelRequest.class);
+        verify(cancelStub).cancel(captor.capture());
+        assertEquals(1L, captor.getValue().getTaskId());
+    }
+
+    @Test
+    public void testDoRunNotSentWhenCanceled() {
+        doCallRealMethod().when(componentStartTask).doRun(any(), any());
+        doCallRealMethod().when(componentStartTask).cancel();
+        doReturn(ComponentCommandRequest.newBuilder().setTaskId(1L).build())
+                .when(componentStartTask)
+                .getComponentCommandRequest();
+        componentStartTask.cancel();
+
+        try (MockedStatic<GrpcClient> grpcClientMockedStatic = mockStatic(GrpcClient.class)) {
+            assertFalse(componentStartTask.doRun("host1", 8835));
+            grpcClientMockedStatic.verifyNoInteractions();
+        }
+    }
+
     @Test
     public void testGetName() {
         doCallRealMethod().when(componentStartTask).getName();
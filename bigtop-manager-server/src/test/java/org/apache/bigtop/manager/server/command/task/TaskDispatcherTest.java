@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.command.task;
+
+import org.apache.bigtop.manager.common.constants.ProtocolVersions;
+import org.apache.bigtop.manager.server.config.JobExecutionProperties;
+import org.apache.bigtop.manager.server.grpc.GrpcClient;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TaskDispatcherTest {
+
+    private TaskDispatcher taskDispatcher;
+
+    private JobExecutionProperties properties;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new JobExecutionProperties();
+        properties.setTaskThreads(4);
+        meterRegistry = new SimpleMeterRegistry();
+
+        taskDispatcher = new TaskDispatcher();
+        ReflectionTestUtils.setField(taskDispatcher, "jobExecutionProperties", properties);
+        ReflectionTestUtils.setField(taskDispatcher, "meterRegistry", meterRegistry);
+        taskDispatcher.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        taskDispatcher.destroy();
+    }
+
+    @Test
+    public void testDispatchKeepsOrder() {
+        Task task1 = task("host1", true, new AtomicInteger(), new AtomicInteger());
+        Task task2 = task("host2", false, new AtomicInteger(), new AtomicInteger());
+        Task task3 = task("host3", true, new AtomicInteger(), new AtomicInteger());
+
+        List<Boolean> results = taskDispatcher.dispatch(List.of(task1, task2, task3));
+
+        assertEquals(List.of(true, false, true), results);
+        assertEquals(
+                3,
+                meterRegistry.get("bigtop.manager.stage.task.execution").timer().count());
+        assertEquals(
+                3, meterRegistry.get("bigtop.manager.stage.task.queue").timer().count());
+    }
+
+    @Test
+    public void testMaxTasksPerHost() {
+        properties.setMaxTasksPerHost(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        List<Task> tasks = List.of(
+                task("host1", true, running, maxRunning),
+                task("host1", true, running, maxRunning),
+                task("host1", true, running, maxRunning));
+        List<Boolean> results = taskDispatcher.dispatch(tasks);
+
+        assertEquals(List.of(true, true, true), results);
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    public void testConcurrentTasksOnNewAgent() {
+        properties.setMaxTasksPerHost(2);
+        GrpcClient.setProtocolVersion("host1", ProtocolVersions.CONCURRENT_TASKS);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        try {
+            List<Task> tasks = List.of(
+                    task("host1", true, running, maxRunning),
+                    task("host1", true, running, maxRunning),
+                    task("host1", true, running, maxRunning),
+                    task("host1", true, running, maxRunning));
+            taskDispatcher.dispatch(tasks);
+
+            assertTrue(maxRunning.get() <= 2);
+        } finally {
+            GrpcClient.removeChannel("host1");
+        }
+    }
+
+    @Test
+    public void testOldAgentRunsOneTask() {
+        properties.setMaxTasksPerHost(10);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        List<Task> tasks = List.of(
+                task("host1", true, running, maxRunning),
+                task("host1", true, running, maxRunning),
+                task("host1", true, running, maxRunning));
+        taskDispatcher.dispatch(tasks);
+
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    public void testMaxTasksPerStage() {
+        properties.setMaxTasksPerStage(2);
+        properties.setMaxTasksPerHost(10);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        List<Task> tasks = List.of(
+                task("host1", true, running, maxRunning),
+                task("host2", true, running, maxRunning),
+                task("host3", true, running, maxRunning),
+                task("host4", true, running, maxRunning));
+        taskDispatcher.dispatch(tasks);
+
+        assertTrue(maxRunning.get() <= 2);
+    }
+
+    private Task task(String hostname, boolean result, AtomicInteger running, AtomicInteger maxRunning) {
+        TaskContext taskContext = new TaskContext();
+        taskContext.setHostname(hostname);
+
+        Task task = mock(Task.class);
+        when(task.getTaskContext()).thenReturn(taskContext);
+        when(task.run()).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            running.decrementAndGet();
+            return result;
+        });
+        return task;
+    }
+}
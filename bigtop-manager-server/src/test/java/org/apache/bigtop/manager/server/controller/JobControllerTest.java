@@ -90,9 +90,22 @@ class JobControllerTest {
         Long id = 1L;
         Long clusterId = 1L;
         JobVO job = new JobVO();
-        when(jobService.retry(id)).thenReturn(job);
+        when(jobService.retry(id, true)).thenReturn(job);
 
-        ResponseEntity<JobVO> response = jobController.retry(id, clusterId);
+        ResponseEntity<JobVO> response = jobController.retry(id, clusterId, true);
+
+        assertTrue(response.isSuccess());
+        assertEquals(job, response.getData());
+    }
+
+    @Test
+    void cancelCancelsJob() {
+        Long jobId = 1L;
+        Long clusterId = 1L;
+        JobVO job = new JobVO();
+        when(jobService.cancel(jobId)).thenReturn(job);
+
+        ResponseEntity<JobVO> response = jobController.cancel(clusterId, jobId);
 
         assertTrue(response.isSuccess());
         assertEquals(job, response.getData());
@@ -103,15 +116,15 @@ class JobControllerTest {
         Long taskId = 1L;
         Long clusterId = 1L;
         doAnswer(invocation -> {
-                    FluxSink<String> sink = invocation.getArgument(1);
+                    FluxSink<String> sink = invocation.getArgument(2);
                     sink.next("log message");
                     sink.complete();
                     return null;
                 })
                 .when(taskLogService)
-                .registerSink(eq(taskId), any());
+                .registerSink(eq(taskId), eq(0L), any());
 
-        SseEmitter emitter = jobController.taskLog(clusterId, 0L, 0L, taskId);
+        SseEmitter emitter = jobController.taskLog(clusterId, 0L, 0L, taskId, 0L);
 
         assertNotNull(emitter);
     }
@@ -121,14 +134,14 @@ class JobControllerTest {
         Long taskId = 1L;
         Long clusterId = 1L;
         doAnswer(invocation -> {
-                    FluxSink<String> sink = invocation.getArgument(1);
+                    FluxSink<String> sink = invocation.getArgument(2);
                     sink.error(new RuntimeException("Test exception"));
                     return null;
                 })
                 .when(taskLogService)
-                .registerSink(eq(taskId), any());
+                .registerSink(eq(taskId), eq(0L), any());
 
-        SseEmitter emitter = jobController.taskLog(clusterId, 0L, 0L, taskId);
+        SseEmitter emitter = jobController.taskLog(clusterId, 0L, 0L, taskId, 0L);
 
         assertNotNull(emitter);
     }
@@ -138,14 +151,14 @@ class JobControllerTest {
         Long taskId = 1L;
         Long clusterId = 1L;
         doAnswer(invocation -> {
-                    FluxSink<String> sink = invocation.getArgument(1);
+                    FluxSink<String> sink = invocation.getArgument(2);
                     sink.complete();
                     return null;
                 })
                 .when(taskLogService)
-                .registerSink(eq(taskId), any());
+                .registerSink(eq(taskId), eq(0L), any());
 
-        SseEmitter emitter = jobController.taskLog(clusterId, 0L, 0L, taskId);
+        SseEmitter emitter = jobController.taskLog(clusterId, 0L, 0L, taskId, 0L);
 
         assertNotNull(emitter);
     }
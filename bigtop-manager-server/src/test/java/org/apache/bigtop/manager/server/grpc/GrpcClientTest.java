@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.grpc;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class GrpcClientTest {
+
+    private static final String HOST = "agent.invalid";
+
+    @AfterEach
+    public void tearDown() {
+        GrpcClient.removeChannel(HOST);
+    }
+
+    @Test
+    public void testConcurrentCallersShareOneConnection() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<GrpcConnection>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return GrpcClient.getConnection(HOST, 8835);
+                }));
+            }
+
+            start.countDown();
+            GrpcConnection connection = GrpcClient.getConnection(HOST, 8835);
+            for (Future<GrpcConnection> future : futures) {
+                assertSame(connection, future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testNewConnectionWhenPortChanged() {
+        GrpcConnection connection = GrpcClient.getConnection(HOST, 8835);
+
+        GrpcConnection moved = GrpcClient.getConnection(HOST, 8836);
+
+        assertSame(moved, GrpcClient.getConnection(HOST, 8836));
+        assertNotSame(connection, moved);
+    }
+}
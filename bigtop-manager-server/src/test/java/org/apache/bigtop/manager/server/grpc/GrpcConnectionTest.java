@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.grpc;
+
+import org.apache.bigtop.manager.grpc.generated.TaskCancelRequest;
+import org.apache.bigtop.manager.grpc.generated.TaskCancelServiceGrpc;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.grpc.ConnectivityState;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class GrpcConnectionTest {
+
+    // Names under .invalid never resolve
+    private static final String UNKNOWN_HOST = "agent.invalid";
+
+    private static final TaskCancelRequest REQUEST =
+            TaskCancelRequest.newBuilder().setTaskId(1L).build();
+
+    private ScheduledExecutorService executor;
+
+    private GrpcConnection connection;
+
+    private Server server;
+
+    @AfterEach
+    public void tearDown() {
+        if (connection != null) {
+            connection.shutdown();
+        }
+
+        if (server != null) {
+            server.shutdownNow();
+        }
+
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBackoffOnResolveFailure() {
+        ScheduledExecutorService mockExecutor = mock(ScheduledExecutorService.class);
+        ScheduledFuture<?> retryFuture = mock(ScheduledFuture.class);
+        when(retryFuture.isDone()).thenReturn(true);
+        doReturn(retryFuture).when(mockExecutor).schedule(any(Runnable.class), anyLong(), eq(TimeUnit.MILLISECONDS));
+        connection = new GrpcConnection(UNKNOWN_HOST, 8835, mockExecutor);
+
+        for (int i = 0; i < 8; i++) {
+            connection.resolve();
+        }
+
+        // Doubled from 1s on every failure, capped at 60s
+        ArgumentCaptor<Long> delays = ArgumentCaptor.forClass(Long.class);
+        verify(mockExecutor, times(8)).schedule(any(Runnable.class), delays.capture(), eq(TimeUnit.MILLISECONDS));
+        assertEquals(List.of(1000L, 2000L, 4000L, 8000L, 16000L, 32000L, 60000L, 60000L), delays.getAllValues());
+        assertEquals(ConnectivityState.TRANSIENT_FAILURE, connection.getState());
+        assertTrue(connection.isUnreachable());
+        assertFalse(connection.isAlive());
+    }
+
+    @Test
+    public void testFailFastOnUnknownHost() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        connection = new GrpcConnection(UNKNOWN_HOST, 8835, executor);
+        connection.connect();
+
+        // First call waits for resolving only
+        assertUnavailable();
+
+        long start = System.nanoTime();
+        assertUnavailable();
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+    }
+
+    @Test
+    public void testFailFastAndRecover() throws Exception {
+        int port = freePort();
+        executor = Executors.newSingleThreadScheduledExecutor();
+        connection = new GrpcConnection("localhost", port, executor);
+        connection.connect();
+
+        // Nothing listens on the port yet
+        waitUntil(connection::isUnreachable);
+        StatusRuntimeException e = assertUnavailable();
+        assertEquals("Host localhost is unreachable", e.getStatus().getDescription());
+
+        server = ServerBuilder.forPort(port).build().start();
+
+        // Calls are let through to the channel once backoff passed, channel connects again
+        waitUntil(() -> {
+            try {
+                call();
+            } catch (StatusRuntimeException ignored) {
+                // UNAVAILABLE until connected, UNIMPLEMENTED afterward as the server has no services
+            }
+
+            return connection.getState() == ConnectivityState.READY;
+        });
+        assertFalse(connection.isUnreachable());
+        e = assertThrows(StatusRuntimeException.class, this::call);
+        assertEquals(Status.Code.UNIMPLEMENTED, e.getStatus().getCode());
+    }
+
+    @Test
+    public void testResolveKeepsChannelOfSameAddress() throws Exception {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        connection = new GrpcConnection("localhost", freePort(), executor);
+        connection.resolve();
+        Object channel = ReflectionTestUtils.getField(connection, "channel");
+
+        connection.resolve();
+
+        assertSame(channel, ReflectionTestUtils.getField(connection, "channel"));
+        assertTrue(connection.isAlive());
+    }
+
+    private StatusRuntimeException assertUnavailable() {
+        StatusRuntimeException e = assertThrows(StatusRuntimeException.class, this::call);
+        assertEquals(Status.Code.UNAVAILABLE, e.getStatus().getCode());
+        return e;
+    }
+
+    private void call() {
+        TaskCancelServiceGrpc.newBlockingStub(connection)
+                .withDeadlineAfter(1, TimeUnit.SECONDS)
+                .cancel(REQUEST);
+    }
+
+    private int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20 * 1000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timeout waiting for condition");
+            Thread.sleep(100);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.grpc;
+
+import org.apache.bigtop.manager.grpc.generated.TaskCancelReply;
+import org.apache.bigtop.manager.grpc.generated.TaskCancelRequest;
+import org.apache.bigtop.manager.grpc.generated.TaskCancelServiceGrpc;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptors;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MetricsClientInterceptorTest {
+
+    private static final String METHOD = TaskCancelServiceGrpc.getCancelMethod().getFullMethodName();
+
+    private SimpleMeterRegistry registry;
+
+    private MetricsClientInterceptor interceptor;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        interceptor = new MetricsClientInterceptor("host1", registry);
+    }
+
+    @Test
+    public void testRecordSuccessfulCall() {
+        TaskCancelReply reply = TaskCancelReply.newBuilder().setKilled(2).build();
+        TaskCancelRequest request = TaskCancelRequest.newBuilder().setTaskId(1L).build();
+        Channel channel = ClientInterceptors.intercept(new FakeChannel(Status.OK, reply), interceptor);
+
+        TaskCancelServiceGrpc.newBlockingStub(channel).cancel(request);
+
+        Timer timer = registry.find("bigtop.manager.grpc.client.calls")
+                .tags("method", METHOD, "host", "host1", "status", "OK")
+                .timer();
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+
+        DistributionSummary sent = registry.find("bigtop.manager.grpc.client.message.size")
+                .tags("method", METHOD, "direction", "sent")
+                .summary();
+        DistributionSummary received = registry.find("bigtop.manager.grpc.client.message.size")
+                .tags("method", METHOD, "direction", "received")
+                .summary();
+        assertEquals(request.getSerializedSize(), sent.totalAmount());
+        assertEquals(reply.getSerializedSize(), received.totalAmount());
+
+        assertEquals(
+                0,
+                registry.find("bigtop.manager.grpc.client.calls.active")
+                        .longTaskTimer()
+                        .activeTasks());
+    }
+
+    @Test
+    public void testRecordFailedCallAndClose() {
+        Channel channel = ClientInterceptors.intercept(new FakeChannel(Status.UNAVAILABLE, null), interceptor);
+
+        assertThrows(StatusRuntimeException.class, () -> TaskCancelServiceGrpc.newBlockingStub(channel)
+                .cancel(TaskCancelRequest.newBuilder().setTaskId(1L).build()));
+
+        assertEquals(
+                1,
+                registry.find("bigtop.manager.grpc.client.calls")
+                        .tag("status", "UNAVAILABLE")
+                        .timer()
+                        .count());
+
+        interceptor.close();
+        assertNull(registry.find("bigtop.manager.grpc.client.calls").meter());
+        assertNull(registry.find("bigtop.manager.grpc.client.message.size").meter());
+    }
+
+    /**
+     * Channel which completes every call with the given status and reply.
+     */
+    private static class FakeChannel extends Channel {
+
+        private final Status status;
+
+        private final Object reply;
+
+        FakeChannel(Status status, Object reply) {
+            this.status = status;
+            this.reply = reply;
+        }
+
+        @Override
+        public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(
+                MethodDescriptor<ReqT, RespT> methodDescriptor, CallOptions callOptions) {
+            return new ClientCall<>() {
+
+                private Listener<RespT> listener;
+
+                @Override
+                public void start(Listener<RespT> responseListener, Metadata headers) {
+                    listener = responseListener;
+                }
+
+                @Override
+                public void request(int numMessages) {}
+
+                @Override
+                public void cancel(String message, Throwable cause) {}
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public void halfClose() {
+                    if (reply != null) {
+                        listener.onMessage((RespT) reply);
+                    }
+
+                    listener.onClose(status, new Metadata());
+                }
+
+                @Override
+                public void sendMessage(ReqT message) {}
+            };
+        }
+
+        @Override
+        public String authority() {
+            return "host1:8835";
+        }
+    }
+}
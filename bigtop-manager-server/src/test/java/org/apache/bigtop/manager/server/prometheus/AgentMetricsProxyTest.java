@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.prometheus;
+
+import org.apache.bigtop.manager.dao.po.HostPO;
+import org.apache.bigtop.manager.grpc.generated.HostMetricsRangeReply;
+import org.apache.bigtop.manager.grpc.generated.HostMetricsRangeRequest;
+import org.apache.bigtop.manager.grpc.generated.HostMetricsServiceGrpc;
+import org.apache.bigtop.manager.server.grpc.GrpcClient;
+import org.apache.bigtop.manager.server.model.vo.ClusterMetricsVO;
+import org.apache.bigtop.manager.server.model.vo.HostMetricsVO;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import com.google.common.util.concurrent.Futures;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
+
+class AgentMetricsProxyTest {
+
+    private static final int POINTS = 7;
+
+    private MockedStatic<GrpcClient> grpcClientMockedStatic;
+
+    private final AgentMetricsProxy proxy = new AgentMetricsProxy();
+
+    @BeforeEach
+    void setUp() {
+        grpcClientMockedStatic = mockStatic(GrpcClient.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        grpcClientMockedStatic.close();
+    }
+
+    @Test
+    void testQueryHostMetrics() {
+        HostPO hostPO = host("host1");
+        HostMetricsServiceGrpc.HostMetricsServiceBlockingStub stub =
+                mock(HostMetricsServiceGrpc.HostMetricsServiceBlockingStub.class);
+        when(GrpcClient.getBlockingStub("host1", 8835, HostMetricsServiceGrpc.HostMetricsServiceBlockingStub.class))
+                .thenReturn(stub);
+        when(stub.withDeadlineAfter(anyLong(), any(TimeUnit.class))).thenReturn(stub);
+        when(stub.queryRange(any(HostMetricsRangeRequest.class))).thenReturn(reply(4, 0.5));
+
+        HostMetricsVO vo = proxy.queryHostMetrics(hostPO, "1m");
+
+        assertEquals("50.00", vo.getCpuUsageCur());
+        assertEquals("75.00", vo.getMemoryUsageCur());
+        assertEquals("75.00", vo.getDiskUsageCur());
+        assertEquals("10.00", vo.getFileDescriptorUsage());
+        assertEquals("12.35", vo.getDiskReadCur());
+        assertEquals(POINTS, vo.getTimestamps().size());
+        // No sample at the first point
+        assertNull(vo.getCpuUsage().get(0));
+        assertEquals("50.00", vo.getCpuUsage().get(1));
+        assertNull(vo.getSystemLoad1().get(0));
+    }
+
+    @Test
+    void testQueryHostMetricsFromOldAgent() {
+        HostPO hostPO = host("host1");
+        grpcClientMockedStatic
+                .when(() -> GrpcClient.supportsMetricsHistory("host1"))
+                .thenReturn(false);
+
+        HostMetricsVO vo = proxy.queryHostMetrics(hostPO, "1m");
+        assertNull(vo.getCpuUsageCur());
+        assertNull(vo.getTimestamps());
+    }
+
+    @Test
+    void testQueryClusterMetrics() {
+        HostMetricsServiceGrpc.HostMetricsServiceFutureStub stub1 = futureStub("host1");
+        when(stub1.queryRange(any(HostMetricsRangeRequest.class))).thenReturn(Futures.immediateFuture(reply(4, 0.5)));
+        HostMetricsServiceGrpc.HostMetricsServiceFutureStub stub2 = futureStub("host2");
+        when(stub2.queryRange(any(HostMetricsRangeRequest.class))).thenReturn(Futures.immediateFuture(reply(12, 0.1)));
+        // Unreachable agents are left out
+        HostMetricsServiceGrpc.HostMetricsServiceFutureStub stub3 = futureStub("host3");
+        when(stub3.queryRange(any(HostMetricsRangeRequest.class)))
+                .thenReturn(Futures.immediateFailedFuture(new IllegalStateException("unavailable")));
+
+        ClusterMetricsVO vo = proxy.queryClusterMetrics(List.of(host("host1"), host("host2"), host("host3")), "1m");
+
+        // (4 * 0.5 + 12 * 0.1) / 16
+        assertEquals("20.00", vo.getCpuUsageCur());
+        assertEquals("75.00", vo.getMemoryUsageCur());
+        assertNull(vo.getCpuUsage().get(0));
+        assertEquals("20.00", vo.getCpuUsage().get(POINTS - 1));
+    }
+
+    private HostMetricsServiceGrpc.HostMetricsServiceFutureStub futureStub(String hostname) {
+        HostMetricsServiceGrpc.HostMetricsServiceFutureStub stub =
+                mock(HostMetricsServiceGrpc.HostMetricsServiceFutureStub.class);
+        when(GrpcClient.getFutureStub(hostname, 8835, HostMetricsServiceGrpc.HostMetricsServiceFutureStub.class))
+                .thenReturn(stub);
+        when(stub.withDeadlineAfter(anyLong(), any(TimeUnit.class))).thenReturn(stub);
+        return stub;
+    }
+
+    private HostPO host(String hostname) {
+        grpcClientMockedStatic
+                .when(() -> GrpcClient.supportsMetricsHistory(hostname))
+                .thenReturn(true);
+        grpcClientMockedStatic
+                .when(() -> GrpcClient.isHostUnreachable(hostname))
+                .thenReturn(false);
+
+        HostPO hostPO = new HostPO();
+        hostPO.setHostname(hostname);
+        hostPO.setGrpcPort(8835);
+        return hostPO;
+    }
+
+    private HostMetricsRangeReply reply(int physicalCores, double cpuUsage) {
+        HostMetricsRangeReply.Builder builder =
+                HostMetricsRangeReply.newBuilder().setPhysicalCores(physicalCores);
+        for (int i = 0; i < POINTS; i++) {
+            boolean sampled = i > 0;
+            builder.addTimestamps(i)
+                    .addCpuUsage(sampled ? cpuUsage : Double.NaN)
+                    .addLoad1(sampled ? 1.5 : Double.NaN)
+                    .addLoad5(sampled ? 1.0 : Double.NaN)
+                    .addLoad15(sampled ? 0.5 : Double.NaN)
+                    .addMemoryTotal(sampled ? 1000 : Double.NaN)
+                    .addMemoryAvailable(sampled ? 250 : Double.NaN)
+                    .addFilesystemTotal(sampled ? 2000 : Double.NaN)
+                    .addFilesystemFree(sampled ? 500 : Double.NaN)
+                    .addDiskRead(sampled ? 12.345 : Double.NaN)
+                    .addDiskWrite(sampled ? 1 : Double.NaN)
+                    .addFileDescriptorsOpen(sampled ? 10 : Double.NaN)
+                    .addFileDescriptorsMax(sampled ? 100 : Double.NaN);
+        }
+
+        return builder.build();
+    }
+}
@@ -42,6 +42,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.HashMap;
 import java.util.List;
@@ -49,6 +51,8 @@ import java.util.List;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -68,6 +72,9 @@ public class CommandServiceTest {
     @Mock
     private JobScheduler jobScheduler;
 
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private CommandService commandService = new CommandServiceImpl();
 
@@ -86,6 +93,10 @@ public class CommandServiceTest {
         when(mockJob.getStages()).thenReturn(List.of(mockStage));
         when(mockStage.getStagePO()).thenReturn(new StagePO());
 
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation ->
+                        invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
         Task mockTask = mock(Task.class);
         when(mockStage.getTasks()).thenReturn(List.of(mockTask));
         when(mockTask.getTaskPO()).thenReturn(new TaskPO());
@@ -100,6 +111,10 @@ public class CommandServiceTest {
                 when(jobFactory.createJob(any())).thenReturn(mockJob);
 
                 assert commandService.command(mockCommandDTO) != null;
+
+                // Stages and tasks are inserted with one statement each
+                verify(stageDao, times(1)).saveAll(any());
+                verify(taskDao, times(1)).saveAll(any());
             }
         }
     }
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.service;
+
+import org.apache.bigtop.manager.dao.po.JobPO;
+import org.apache.bigtop.manager.dao.po.TaskPO;
+import org.apache.bigtop.manager.server.model.vo.JobEventVO;
+import org.apache.bigtop.manager.server.service.impl.JobEventServiceImpl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class JobEventServiceTest {
+
+    private JobEventServiceImpl jobEventService;
+
+    @BeforeEach
+    void setUp() {
+        jobEventService = new JobEventServiceImpl();
+    }
+
+    @Test
+    void subscriberOnlyReceivesEventsOfItsJob() {
+        List<JobEventVO> events = new ArrayList<>();
+        subscribe(1L, 10L, null, events);
+
+        jobEventService.publishJobEvent(job(1L, 10L), 0);
+        jobEventService.publishJobEvent(job(1L, 11L), 0);
+        jobEventService.publishJobEvent(job(2L, 10L), 0);
+        jobEventService.publishTaskEvent(task(1L, 10L, 100L));
+
+        assertEquals(2, events.size());
+        assertEquals("job", events.get(0).getType());
+        assertEquals("task", events.get(1).getType());
+        assertEquals(100L, events.get(1).getTaskId());
+        assertEquals(4L, events.get(1).getId());
+    }
+
+    @Test
+    void subscriberResumesFromLastEventId() {
+        jobEventService.publishJobEvent(job(1L, 10L), 0);
+        jobEventService.publishTaskEvent(task(1L, 10L, 100L));
+        jobEventService.publishTaskEvent(task(1L, 10L, 101L));
+
+        List<JobEventVO> events = new ArrayList<>();
+        subscribe(1L, null, 1L, events);
+        jobEventService.publishJobEvent(job(1L, 10L), 100);
+
+        assertEquals(List.of(2L, 3L, 4L), events.stream().map(JobEventVO::getId).toList());
+        assertEquals(100, events.get(2).getProgress());
+    }
+
+    @Test
+    void subscriberIsResetWhenEventsAreMissing() {
+        jobEventService.publishJobEvent(job(1L, 10L), 0);
+
+        List<JobEventVO> events = new ArrayList<>();
+        subscribe(1L, null, 5L, events);
+
+        assertEquals(1, events.size());
+        assertEquals("reset", events.get(0).getType());
+        assertEquals(1L, events.get(0).getId());
+    }
+
+    @Test
+    void disposedSubscriberReceivesNothing() {
+        List<JobEventVO> events = new ArrayList<>();
+        Disposable disposable = subscribe(1L, null, null, events);
+        disposable.dispose();
+
+        jobEventService.publishJobEvent(job(1L, 10L), 0);
+
+        assertEquals(0, events.size());
+    }
+
+    private Disposable subscribe(Long clusterId, Long jobId, Long lastEventId, List<JobEventVO> events) {
+        return Flux.<JobEventVO>create(
+                        sink -> jobEventService.registerSink(clusterId, jobId, lastEventId, sink),
+                        FluxSink.OverflowStrategy.BUFFER)
+                .subscribe(events::add);
+    }
+
+    private JobPO job(Long clusterId, Long jobId) {
+        JobPO jobPO = new JobPO();
+        jobPO.setId(jobId);
+        jobPO.setClusterId(clusterId);
+        jobPO.setName("job");
+        jobPO.setState("Processing");
+        return jobPO;
+    }
+
+    private TaskPO task(Long clusterId, Long jobId, Long taskId) {
+        TaskPO taskPO = new TaskPO();
+        taskPO.setId(taskId);
+        taskPO.setClusterId(clusterId);
+        taskPO.setJobId(jobId);
+        taskPO.setState("Successful");
+        return taskPO;
+    }
+}
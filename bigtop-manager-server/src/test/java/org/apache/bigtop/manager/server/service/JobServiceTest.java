@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.service;
+
+import org.apache.bigtop.manager.common.enums.Command;
+import org.apache.bigtop.manager.common.enums.JobState;
+import org.apache.bigtop.manager.common.utils.JsonUtils;
+import org.apache.bigtop.manager.dao.po.JobPO;
+import org.apache.bigtop.manager.dao.po.StagePO;
+import org.apache.bigtop.manager.dao.po.TaskPO;
+import org.apache.bigtop.manager.dao.repository.JobDao;
+import org.apache.bigtop.manager.dao.repository.StageDao;
+import org.apache.bigtop.manager.dao.repository.TaskDao;
+import org.apache.bigtop.manager.server.command.factory.JobFactories;
+import org.apache.bigtop.manager.server.command.factory.JobFactory;
+import org.apache.bigtop.manager.server.command.job.Job;
+import org.apache.bigtop.manager.server.command.job.JobContext;
+import org.apache.bigtop.manager.server.command.scheduler.JobScheduler;
+import org.apache.bigtop.manager.server.enums.CommandLevel;
+import org.apache.bigtop.manager.server.model.dto.CommandDTO;
+import org.apache.bigtop.manager.server.model.query.PageQuery;
+import org.apache.bigtop.manager.server.model.vo.JobVO;
+import org.apache.bigtop.manager.server.model.vo.PageVO;
+import org.apache.bigtop.manager.server.service.impl.JobServiceImpl;
+import org.apache.bigtop.manager.server.utils.PageUtils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class JobServiceTest {
+
+    @Mock
+    private JobDao jobDao;
+
+    @Mock
+    private StageDao stageDao;
+
+    @Mock
+    private TaskDao taskDao;
+
+    @Mock
+    private JobScheduler jobScheduler;
+
+    @Mock
+    private JobFactory jobFactory;
+
+    @InjectMocks
+    private JobServiceImpl jobService;
+
+    @Test
+    void jobsLoadsStageNumInOneQuery() {
+        PageQuery pageQuery = new PageQuery();
+        pageQuery.setPageNum(1);
+        pageQuery.setPageSize(10);
+        pageQuery.setOrderBy("id asc");
+
+        JobPO stageNum = new JobPO();
+        stageNum.setId(1L);
+        stageNum.setStageNum(3);
+        stageNum.setStartedStageNum(1);
+        when(jobDao.findByClusterId(1L)).thenReturn(new ArrayList<>(List.of(job(1L), job(2L))));
+        when(jobDao.findStageNumByIds(List.of(1L, 2L), List.of("Processing", "Successful")))
+                .thenReturn(List.of(stageNum));
+
+        try (MockedStatic<PageUtils> pageUtils = mockStatic(PageUtils.class)) {
+            pageUtils.when(PageUtils::getPageQuery).thenReturn(pageQuery);
+
+            PageVO<JobVO> result = jobService.jobs(1L);
+
+            assertEquals(2, result.getContent().size());
+            assertEquals(33, result.getContent().get(0).getProgress());
+            assertEquals(1, result.getContent().get(1).getProgress());
+        }
+
+        verify(stageDao, never()).findByJobId(any());
+    }
+
+    @Test
+    void jobDetailsLoadsTasksInOneQuery() {
+        when(jobDao.findById(1L)).thenReturn(job(1L));
+        when(stageDao.findByJobId(1L))
+                .thenReturn(List.of(stage(10L, 1, JobState.SUCCESSFUL), stage(11L, 2, JobState.PENDING)));
+        when(taskDao.findByStageIds(List.of(10L, 11L))).thenReturn(List.of(task(100L, 10L), task(101L, 11L)));
+
+        JobVO jobVO = jobService.jobDetails(1L, 1L);
+
+        assertEquals(50, jobVO.getProgress());
+        assertEquals(2, jobVO.getStages().size());
+        assertEquals(100L, jobVO.getStages().get(0).getTasks().get(0).getId());
+        assertEquals(101L, jobVO.getStages().get(1).getTasks().get(0).getId());
+        verify(taskDao, never()).findByStageId(any());
+        verify(taskDao).findByStageIds(anyList());
+    }
+
+    @Test
+    void retryResumeOnlyResetsUnfinishedWork() {
+        JobPO jobPO = job(1L);
+        jobPO.setState(JobState.FAILED.getName());
+        jobPO.setContext(jobContext());
+        when(jobDao.findOptionalById(1L)).thenReturn(Optional.of(jobPO));
+        when(jobFactory.createJob(any())).thenReturn(mock(Job.class));
+
+        try (MockedStatic<JobFactories> jobFactories = mockStatic(JobFactories.class)) {
+            jobFactories.when(() -> JobFactories.getJobFactory(any())).thenReturn(jobFactory);
+
+            jobService.retry(1L, true);
+        }
+
+        List<String> unfinished = List.of("Pending", "Processing", "Failed", "Canceled");
+        verify(taskDao).updateStateByJobId(1L, "Pending", unfinished);
+        verify(stageDao).updateStateByJobId(1L, "Pending", unfinished);
+        verify(taskDao, never()).partialUpdateById(any());
+        verify(jobScheduler).submit(any());
+    }
+
+    @Test
+    void retryWithoutResumeResetsEverything() {
+        JobPO jobPO = job(1L);
+        jobPO.setState(JobState.FAILED.getName());
+        jobPO.setContext(jobContext());
+        when(jobDao.findOptionalById(1L)).thenReturn(Optional.of(jobPO));
+        when(jobFactory.createJob(any())).thenReturn(mock(Job.class));
+
+        try (MockedStatic<JobFactories> jobFactories = mockStatic(JobFactories.class)) {
+            jobFactories.when(() -> JobFactories.getJobFactory(any())).thenReturn(jobFactory);
+
+            jobService.retry(1L, false);
+        }
+
+        verify(taskDao).updateStateByJobId(1L, "Pending", null);
+        verify(stageDao).updateStateByJobId(1L, "Pending", null);
+    }
+
+    @Test
+    void cancelUnknownJobUpdatesStatesInOneStatement() {
+        when(jobDao.findOptionalById(1L)).thenReturn(Optional.of(job(1L)));
+        when(jobScheduler.cancel(1L)).thenReturn(false);
+
+        jobService.cancel(1L);
+
+        verify(taskDao).updateStateByJobId(1L, "Canceled", List.of("Pending", "Processing"));
+        verify(stageDao).updateStateByJobId(1L, "Canceled", List.of("Pending", "Processing"));
+    }
+
+    private String jobContext() {
+        CommandDTO commandDTO = new CommandDTO();
+        commandDTO.setCommand(Command.ADD);
+        commandDTO.setCommandLevel(CommandLevel.CLUSTER);
+        JobContext jobContext = new JobContext();
+        jobContext.setCommandDTO(commandDTO);
+        return JsonUtils.writeAsString(jobContext);
+    }
+
+    private JobPO job(Long id) {
+        JobPO jobPO = new JobPO();
+        jobPO.setId(id);
+        jobPO.setState(JobState.PROCESSING.getName());
+        return jobPO;
+    }
+
+    private StagePO stage(Long id, Integer order, JobState state) {
+        StagePO stagePO = new StagePO();
+        stagePO.setId(id);
+        stagePO.setOrder(order);
+        stagePO.setState(state.getName());
+        return stagePO;
+    }
+
+    private TaskPO task(Long id, Long stageId) {
+        TaskPO taskPO = new TaskPO();
+        taskPO.setId(id);
+        taskPO.setStageId(stageId);
+        taskPO.setState(JobState.PENDING.getName());
+        return taskPO;
+    }
+}
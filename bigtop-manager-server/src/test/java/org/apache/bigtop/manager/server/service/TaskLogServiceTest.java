@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.bigtop.manager.server.service;
+
+import org.apache.bigtop.manager.common.utils.ProjectPathUtils;
+import org.apache.bigtop.manager.dao.po.HostPO;
+import org.apache.bigtop.manager.dao.po.TaskPO;
+import org.apache.bigtop.manager.dao.repository.HostDao;
+import org.apache.bigtop.manager.dao.repository.TaskDao;
+import org.apache.bigtop.manager.grpc.generated.TaskLogReply;
+import org.apache.bigtop.manager.grpc.generated.TaskLogRequest;
+import org.apache.bigtop.manager.grpc.generated.TaskLogServiceGrpc;
+import org.apache.bigtop.manager.server.grpc.GrpcClient;
+import org.apache.bigtop.manager.server.service.impl.TaskLogServiceImpl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.grpc.stub.StreamObserver;
+import reactor.core.publisher.Flux;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class TaskLogServiceTest {
+
+    @Mock
+    private TaskDao taskDao;
+
+    @Mock
+    private HostDao hostDao;
+
+    @InjectMocks
+    private TaskLogServiceImpl taskLogService;
+
+    @TempDir
+    private Path tempDir;
+
+    private MockedStatic<ProjectPathUtils> projectPathUtilsMockedStatic;
+
+    private MockedStatic<GrpcClient> grpcClientMockedStatic;
+
+    @BeforeEach
+    void setUp() {
+        projectPathUtilsMockedStatic = mockStatic(ProjectPathUtils.class);
+        when(ProjectPathUtils.getTaskLogArchivePath(1L))
+                .thenReturn(tempDir.resolve("task-1.log.gz").toString());
+        grpcClientMockedStatic = mockStatic(GrpcClient.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        projectPathUtilsMockedStatic.close();
+        grpcClientMockedStatic.close();
+        taskLogService.destroy();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void viewersShareOneStreamFromAgent() throws Exception {
+        TaskLogServiceGrpc.TaskLogServiceStub stub = mockRunningTask();
+
+        CompletableFuture<List<String>> first = view(0L);
+        CompletableFuture<List<String>> second = view(0L);
+        ArgumentCaptor<StreamObserver<TaskLogReply>> observer = ArgumentCaptor.forClass(StreamObserver.class);
+        verify(stub).getLog(any(TaskLogRequest.class), observer.capture());
+
+        observer.getValue()
+                .onNext(TaskLogReply.newBuilder().setText("a\nb").setOffset(4).build());
+        CompletableFuture<List<String>> late = view(2L);
+        observer.getValue()
+                .onNext(TaskLogReply.newBuilder().setText("c").setOffset(6).build());
+        observer.getValue().onCompleted();
+
+        assertEquals(List.of("a", "b", "c"), first.get(10, TimeUnit.SECONDS));
+        assertEquals(List.of("a", "b", "c"), second.get(10, TimeUnit.SECONDS));
+        assertEquals(List.of("b", "c"), late.get(10, TimeUnit.SECONDS));
+        grpcClientMockedStatic.verify(() -> GrpcClient.getAsyncStub(eq("host1"), eq(8835), any(Class.class)), times(1));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void carriageReturnIsPartOfLine() throws Exception {
+        TaskLogServiceGrpc.TaskLogServiceStub stub = mockRunningTask();
+
+        CompletableFuture<List<String>> first = view(0L);
+        ArgumentCaptor<StreamObserver<TaskLogReply>> observer = ArgumentCaptor.forClass(StreamObserver.class);
+        verify(stub).getLog(any(TaskLogRequest.class), observer.capture());
+
+        // Lines "a\r" and "b\rc", 7 bytes with the line break after each
+        observer.getValue()
+                .onNext(TaskLogReply.newBuilder()
+                        .setText("a\r\nb\rc")
+                        .setOffset(7)
+                        .build());
+        CompletableFuture<List<String>> late = view(3L);
+        observer.getValue().onCompleted();
+
+        assertEquals(List.of("a\r", "b\rc"), first.get(10, TimeUnit.SECONDS));
+        assertEquals(List.of("b\rc"), late.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void archivedLogIsServedWithoutAgent() throws Exception {
+        writeArchive("a\nb\nc\n");
+        TaskPO taskPO = new TaskPO();
+        taskPO.setState("successful");
+        when(taskDao.findById(1L)).thenReturn(taskPO);
+
+        List<String> lines = Flux.<String>create(sink -> taskLogService.registerSink(1L, 2L, sink))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(List.of("b", "c"), lines);
+        grpcClientMockedStatic.verifyNoInteractions();
+    }
+
+    @Test
+    void archiveOfEarlierRunIsNotServedOnRetry() throws Exception {
+        writeArchive("old\n");
+        TaskLogServiceGrpc.TaskLogServiceStub stub = mockRunningTask();
+
+        view(0L);
+        verify(stub).getLog(any(TaskLogRequest.class), any());
+
+        taskLogService.deleteArchive(1L);
+        assertFalse(Files.exists(tempDir.resolve("task-1.log.gz")));
+    }
+
+    private TaskLogServiceGrpc.TaskLogServiceStub mockRunningTask() {
+        TaskPO taskPO = new TaskPO();
+        taskPO.setHostname("host1");
+        taskPO.setState("processing");
+        HostPO hostPO = new HostPO();
+        hostPO.setHostname("host1");
+        hostPO.setGrpcPort(8835);
+        when(taskDao.findById(1L)).thenReturn(taskPO);
+        when(hostDao.findByHostname("host1")).thenReturn(hostPO);
+        TaskLogServiceGrpc.TaskLogServiceStub stub = mock(TaskLogServiceGrpc.TaskLogServiceStub.class);
+        when(GrpcClient.getAsyncStub("host1", 8835, TaskLogServiceGrpc.TaskLogServiceStub.class))
+                .thenReturn(stub);
+        return stub;
+    }
+
+    private void writeArchive(String text) throws Exception {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tempDir.resolve("task-1.log.gz")))) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private CompletableFuture<List<String>> view(Long offset) {
+        return Flux.<String>create(sink -> taskLogService.registerSink(1L, offset, sink))
+                .collectList()
+                .toFuture();
+    }
+}
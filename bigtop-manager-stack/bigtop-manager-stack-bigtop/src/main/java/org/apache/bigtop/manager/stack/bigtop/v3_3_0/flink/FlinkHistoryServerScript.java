@@ -74,8 +74,13 @@ public class FlinkHistoryServerScript extends AbstractServerScript {
 
     @Override
     public ShellResult status(Params params) {
+        return LinuxOSUtils.checkProcess(getPidFile(params));
+    }
+
+    @Override
+    public String getPidFile(Params params) {
         FlinkParams flinkParams = (FlinkParams) params;
-        return LinuxOSUtils.checkProcess(flinkParams.getHistoryServerPidFile());
+        return flinkParams.getHistoryServerPidFile();
     }
 
     @Override
@@ -73,8 +73,13 @@ public class HistoryServerScript extends AbstractServerScript {
 
     @Override
     public ShellResult status(Params params) {
+        return LinuxOSUtils.checkProcess(getPidFile(params));
+    }
+
+    @Override
+    public String getPidFile(Params params) {
         HadoopParams hadoopParams = (HadoopParams) params;
-        return LinuxOSUtils.checkProcess(hadoopParams.getHistoryServerPidFile());
+        return hadoopParams.getHistoryServerPidFile();
     }
 
     @Override
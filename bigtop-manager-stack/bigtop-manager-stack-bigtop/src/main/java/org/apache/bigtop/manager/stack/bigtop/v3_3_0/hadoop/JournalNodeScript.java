@@ -75,8 +75,13 @@ public class JournalNodeScript extends AbstractServerScript {
 
     @Override
     public ShellResult status(Params params) {
+        return LinuxOSUtils.checkProcess(getPidFile(params));
+    }
+
+    @Override
+    public String getPidFile(Params params) {
         HadoopParams hadoopParams = (HadoopParams) params;
-        return LinuxOSUtils.checkProcess(hadoopParams.getJournalNodePidFile());
+        return hadoopParams.getJournalNodePidFile();
     }
 
     @Override
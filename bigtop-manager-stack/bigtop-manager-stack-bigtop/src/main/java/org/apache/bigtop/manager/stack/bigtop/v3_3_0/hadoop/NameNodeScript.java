@@ -148,8 +148,13 @@ public class NameNodeScript extends AbstractServerScript {
 
     @Override
     public ShellResult status(Params params) {
+        return LinuxOSUtils.checkProcess(getPidFile(params));
+    }
+
+    @Override
+    public String getPidFile(Params params) {
         HadoopParams hadoopParams = (HadoopParams) params;
-        return LinuxOSUtils.checkProcess(hadoopParams.getNameNodePidFile());
+        return hadoopParams.getNameNodePidFile();
     }
 
     public ShellResult rebalanceHdfs(Params params) {
@@ -76,8 +76,13 @@ public class NodeManagerScript extends AbstractServerScript {
 
     @Override
     public ShellResult status(Params params) {
+        return LinuxOSUtils.checkProcess(getPidFile(params));
+    }
+
+    @Override
+    public String getPidFile(Params params) {
         HadoopParams hadoopParams = (HadoopParams) params;
-        return LinuxOSUtils.checkProcess(hadoopParams.getNodeManagerPidFile());
+        return hadoopParams.getNodeManagerPidFile();
     }
 
     @Override
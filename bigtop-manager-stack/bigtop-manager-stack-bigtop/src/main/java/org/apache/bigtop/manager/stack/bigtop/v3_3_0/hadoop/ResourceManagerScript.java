@@ -76,8 +76,13 @@ public class ResourceManagerScript extends AbstractServerScript {
 
     @Override
     public ShellResult status(Params params) {
+        return LinuxOSUtils.checkProcess(getPidFile(params));
+    }
+
+    @Override
+    public String getPidFile(Params params) {
         HadoopParams hadoopParams = (HadoopParams) params;
-        return LinuxOSUtils.checkProcess(hadoopParams.getResourceManagerPidFile());
+        return hadoopParams.getResourceManagerPidFile();
     }
 
     @Override
@@ -76,8 +76,13 @@ public class SNameNodeScript extends AbstractServerScript {
 
     @Override
     public ShellResult status(Params params) {
+        return LinuxOSUtils.checkProcess(getPidFile(params));
+    }
+
+    @Override
+    public String getPidFile(Params params) {
         HadoopParams hadoopParams = (HadoopParams) params;
-        return LinuxOSUtils.checkProcess(hadoopParams.getSNameNodePidFile());
+        return hadoopParams.getSNameNodePidFile();
     }
 
     @Override
@@ -89,8 +89,13 @@ public class ZkfcScript extends AbstractServerScript {
 
     @Override
     public ShellResult status(Params params) {
+        return LinuxOSUtils.checkProcess(getPidFile(params));
+    }
+
+    @Override
+    public String getPidFile(Params params) {
         HadoopParams hadoopParams = (HadoopParams) params;
-        return LinuxOSUtils.checkProcess(hadoopParams.getZkfcPidFile());
+        return hadoopParams.getZkfcPidFile();
     }
 
     @Override
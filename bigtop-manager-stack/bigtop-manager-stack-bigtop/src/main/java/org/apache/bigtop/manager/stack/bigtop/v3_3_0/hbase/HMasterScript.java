@@ -79,8 +79,13 @@ public class HMasterScript extends AbstractServerScript {
 
     @Override
     public ShellResult status(Params params) {
+        return LinuxOSUtils.checkProcess(getPidFile(params));
+    }
+
+    @Override
+    public String getPidFile(Params params) {
         HBaseParams hbaseParams = (HBaseParams) params;
-        return LinuxOSUtils.checkProcess(hbaseParams.getHbaseMasterPidFile());
+        return hbaseParams.getHbaseMasterPidFile();
     }
 
     @Override
@@ -81,8 +81,13 @@ public class HRegionServerScript extends AbstractServerScript {
 
     @Override
     public ShellResult status(Params params) {
+        return LinuxOSUtils.checkProcess(getPidFile(params));
+    }
+
+    @Override
+    public String getPidFile(Params params) {
         HBaseParams hbaseParams = (HBaseParams) params;
-        return LinuxOSUtils.checkProcess(hbaseParams.getHbaseRegionServerPidFile());
+        return hbaseParams.getHbaseRegionServerPidFile();
     }
 
     @Override
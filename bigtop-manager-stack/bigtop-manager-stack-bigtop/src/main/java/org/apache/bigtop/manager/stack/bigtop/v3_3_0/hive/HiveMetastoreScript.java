@@ -109,8 +109,13 @@ public class HiveMetastoreScript extends AbstractServerScript {
 
     @Override
     public ShellResult status(Params params) {
+        return LinuxOSUtils.checkProcess(getPidFile(params));
+    }
+
+    @Override
+    public String getPidFile(Params params) {
         HiveParams hiveParams = (HiveParams) params;
-        return LinuxOSUtils.checkProcess(hiveParams.getHiveMetastorePidFile());
+        return hiveParams.getHiveMetastorePidFile();
     }
 
     private void downloadMySQLJdbcDriver(Params params) {
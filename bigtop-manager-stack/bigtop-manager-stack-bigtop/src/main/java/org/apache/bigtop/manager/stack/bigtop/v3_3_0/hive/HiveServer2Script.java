@@ -96,8 +96,13 @@ public class HiveServer2Script extends AbstractServerScript {
 
     @Override
     public ShellResult status(Params params) {
+        return LinuxOSUtils.checkProcess(getPidFile(params));
+    }
+
+    @Override
+    public String getPidFile(Params params) {
         HiveParams hiveParams = (HiveParams) params;
-        return LinuxOSUtils.checkProcess(hiveParams.getHiveserver2PidFile());
+        return hiveParams.getHiveserver2PidFile();
     }
 
     @Override
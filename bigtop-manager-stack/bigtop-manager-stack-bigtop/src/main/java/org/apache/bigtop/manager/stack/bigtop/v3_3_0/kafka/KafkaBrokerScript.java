@@ -79,8 +79,13 @@ public class KafkaBrokerScript extends AbstractServerScript {
 
     @Override
     public ShellResult status(Params params) {
+        return LinuxOSUtils.checkProcess(getPidFile(params));
+    }
+
+    @Override
+    public String getPidFile(Params params) {
         KafkaParams kafkaParams = (KafkaParams) params;
-        return LinuxOSUtils.checkProcess(kafkaParams.getKafkaPidFile());
+        return kafkaParams.getKafkaPidFile();
     }
 
     public ShellResult test(Params params) {
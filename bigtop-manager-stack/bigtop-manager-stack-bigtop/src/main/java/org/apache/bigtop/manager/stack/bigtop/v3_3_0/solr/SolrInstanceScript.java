@@ -86,8 +86,13 @@ public class SolrInstanceScript extends AbstractServerScript {
 
     @Override
     public ShellResult status(Params params) {
+        return LinuxOSUtils.checkProcess(getPidFile(params));
+    }
+
+    @Override
+    public String getPidFile(Params params) {
         SolrParams solrParams = (SolrParams) params;
-        return LinuxOSUtils.checkProcess(solrParams.getSolrPidFile());
+        return solrParams.getSolrPidFile();
     }
 
     public void createZNode(Params params) {
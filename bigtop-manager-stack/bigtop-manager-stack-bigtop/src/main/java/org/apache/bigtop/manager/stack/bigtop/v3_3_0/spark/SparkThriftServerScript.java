@@ -76,8 +76,13 @@ public class SparkThriftServerScript extends AbstractServerScript {
 
     @Override
     public ShellResult status(Params params) {
+        return LinuxOSUtils.checkProcess(getPidFile(params));
+    }
+
+    @Override
+    public String getPidFile(Params params) {
         SparkParams sparkParams = (SparkParams) params;
-        return LinuxOSUtils.checkProcess(sparkParams.getSparkThriftServerPidFile());
+        return sparkParams.getSparkThriftServerPidFile();
     }
 
     @Override
@@ -77,8 +77,13 @@ public class ZookeeperServerScript extends AbstractServerScript {
 
     @Override
     public ShellResult status(Params params) {
+        return LinuxOSUtils.checkProcess(getPidFile(params));
+    }
+
+    @Override
+    public String getPidFile(Params params) {
         ZookeeperParams zookeeperParams = (ZookeeperParams) params;
-        return LinuxOSUtils.checkProcess(zookeeperParams.getZookeeperPidFile());
+        return zookeeperParams.getZookeeperPidFile();
     }
 
     @Override
@@ -29,11 +29,14 @@ import org.apache.bigtop.manager.stack.core.spi.PrioritySPIFactory;
 import org.apache.bigtop.manager.stack.core.spi.hook.Hook;
 import org.apache.bigtop.manager.stack.core.spi.param.Params;
 import org.apache.bigtop.manager.stack.core.spi.script.Script;
+import org.apache.bigtop.manager.stack.core.utils.linux.LinuxOSUtils;
 
 import lombok.extern.slf4j.Slf4j;
 
 import java.lang.reflect.Method;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 public class StackExecutor {
@@ -44,6 +47,12 @@ public class StackExecutor {
 
     private static final Map<String, Hook> HOOK_MAP = new PrioritySPIFactory<>(Hook.class).getSPIMap();
 
+    // Marks components which do not provide a pid file, full status check is always used for them
+    private static final String NO_PID_FILE = "";
+
+    // Resolved pid file of components, the key is service name, then component name
+    private static final Map<String, Map<String, String>> PID_FILE_MAP = new ConcurrentHashMap<>();
+
     private static Script getCommandScript(ComponentCommandPayload payload) {
         String componentName = payload.getComponentName();
         Script script = SCRIPT_MAP.get(componentName);
@@ -68,6 +77,16 @@ public class StackExecutor {
         }
     }
 
+    private static Params newParams(ComponentCommandPayload payload) throws Exception {
+        Params params = PARAMS_MAP
+                .get(payload.getServiceName())
+                .getClass()
+                .getDeclaredConstructor(ComponentCommandPayload.class)
+                .newInstance(payload);
+        params.initGlobalParams();
+        return params;
+    }
+
     public static ShellResult execute(ComponentCommandPayload payload) {
         try {
             String command = payload.getCommand().equalsIgnoreCase(Command.CUSTOM.getCode())
@@ -78,12 +97,7 @@ public class StackExecutor {
             String methodName = CaseUtils.toCamelCase(command, CaseUtils.SEPARATOR_UNDERSCORE, false);
             Method method = script.getClass().getMethod(methodName, Params.class);
 
-            Params params = PARAMS_MAP
-                    .get(payload.getServiceName())
-                    .getClass()
-                    .getDeclaredConstructor(ComponentCommandPayload.class)
-                    .newInstance(payload);
-            params.initGlobalParams();
+            Params params = newParams(payload);
             if (Environments.isDevMode()) {
                 log.info("Executing {}::{} on dev mode", script.getName(), method.getName());
                 return ShellResult.success();
@@ -105,4 +119,62 @@ public class StackExecutor {
             return ShellResult.fail();
         }
     }
+
+    /**
+     * Check status of the component, the process in pid file is checked directly if the script provides one,
+     * otherwise fall back to run the status command of script.
+     */
+    public static ShellResult checkStatus(ComponentCommandPayload payload) {
+        if (Environments.isDevMode()) {
+            return ShellResult.success();
+        }
+
+        Map<String, String> componentPidFiles =
+                PID_FILE_MAP.computeIfAbsent(payload.getServiceName(), k -> new ConcurrentHashMap<>());
+        String pidFile = componentPidFiles.get(payload.getComponentName());
+        if (pidFile == null) {
+            try {
+                Script script = getCommandScript(payload);
+                pidFile = script.getPidFile(newParams(payload));
+            } catch (Exception e) {
+                log.error("Error getting pid file, payload: {}", payload, e);
+                return ShellResult.fail();
+            }
+
+            pidFile = pidFile == null ? NO_PID_FILE : pidFile;
+            componentPidFiles.put(payload.getComponentName(), pidFile);
+        }
+
+        if (NO_PID_FILE.equals(pidFile)) {
+            return execute(payload);
+        }
+
+        return LinuxOSUtils.checkProcess(pidFile);
+    }
+
+    /**
+     * Pid files resolved by status checks, server checks status of every component on this host periodically.
+     *
+     * @return pid file of each component, the key is service name, then component name
+     */
+    public static Map<String, Map<String, String>> getPidFiles() {
+        Map<String, Map<String, String>> pidFiles = new HashMap<>();
+        for (Map.Entry<String, Map<String, String>> entry : PID_FILE_MAP.entrySet()) {
+            for (Map.Entry<String, String> componentEntry : entry.getValue().entrySet()) {
+                if (!NO_PID_FILE.equals(componentEntry.getValue())) {
+                    pidFiles.computeIfAbsent(entry.getKey(), k -> new HashMap<>())
+                            .put(componentEntry.getKey(), componentEntry.getValue());
+                }
+            }
+        }
+
+        return pidFiles;
+    }
+
+    /**
+     * Clear resolved pid files, should be called once configurations changed.
+     */
+    public static void clearPidFiles() {
+        PID_FILE_MAP.clear();
+    }
 }
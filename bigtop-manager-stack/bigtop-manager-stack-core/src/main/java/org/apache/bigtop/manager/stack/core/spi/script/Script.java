@@ -100,6 +100,18 @@ public interface Script extends PrioritySPI {
      */
     ShellResult status(Params params);
 
+    /**
+     * Get the pid file of the component, which is used to check status without running {@link #status(Params)}.
+     * The location is resolved once and cached by agent, so it should only depend on configurations.
+     * Return null if the component requires a full status check, like checking by shell commands.
+     *
+     * @param params the parameters required to locate the pid file
+     * @return the absolute path of pid file, or null to always use {@link #status(Params)}
+     */
+    default String getPidFile(Params params) {
+        return null;
+    }
+
     /**
      * Run smoke tests for component to see if it works as expected.
      *
@@ -79,7 +79,10 @@ public class PackageUtils {
             return shellResult;
         }
 
-        return getPackageManager().installPackage(packageList);
+        // Package managers hold a system-wide lock, tasks running at the same time on the host would fail to get it
+        synchronized (PackageUtils.class) {
+            return getPackageManager().installPackage(packageList);
+        }
     }
 
     /**
@@ -29,6 +29,9 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.StringTokenizer;
@@ -107,24 +110,59 @@ public class LinuxOSUtils {
         return ShellExecutor.execCommand(builderParameters);
     }
 
+    /**
+     * Check if the process in pid file is running, pid file and /proc are read directly without forking processes.
+     *
+     * @param filepath pid file
+     * @return result with exit code 0 if the process is running
+     */
     public static ShellResult checkProcess(String filepath) {
         File file = new File(filepath);
         if (!file.exists() || !file.isFile()) {
             log.warn("Pid file {} is empty or does not exist", filepath);
             return new ShellResult(-1, "", "Component is not running");
         }
-        int pid;
+        long pid;
         try {
-            pid = Integer.parseInt(LinuxFileUtils.readFile(filepath).replaceAll("\r|\n", ""));
+            pid = Long.parseLong(readPidFile(filepath).replaceAll("\r|\n", "").trim());
         } catch (Exception e) {
             log.warn("Pid file {} does not exist or does not contain a process id number, error", filepath, e);
             return new ShellResult(-1, "", "Component is not running");
         }
+
+        if (ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false)) {
+            return new ShellResult(0, "", "");
+        }
+
+        log.warn("Process with pid {} is not running. Stale pid file at {}", pid, filepath);
+        return new ShellResult(-1, "", "Component is not running");
+    }
+
+    /**
+     * Read process id from the pid file
+     *
+     * @param filepath pid file
+     * @return process id, or null if pid file does not exist or does not contain a process id number
+     */
+    public static Long readPid(String filepath) {
+        File file = new File(filepath);
+        if (!file.isFile()) {
+            return null;
+        }
+
         try {
-            return execCmd("sudo kill -0 " + pid);
-        } catch (IOException e) {
-            log.warn("Process with pid {} is not running. Stale pid file at {}, error", pid, filepath, e);
-            return new ShellResult(-1, "", "Component is not running");
+            return Long.parseLong(readPidFile(filepath).trim());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static String readPidFile(String filepath) throws IOException {
+        try {
+            return Files.readString(Path.of(filepath));
+        } catch (AccessDeniedException e) {
+            // Pid file is only readable by service user
+            return LinuxFileUtils.readFile(filepath);
         }
     }
 }
@@ -24,14 +24,18 @@ import org.apache.bigtop.manager.common.shell.ShellResult;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.MockedStatic;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.mockStatic;
@@ -156,6 +160,41 @@ public class LinuxOSUtilsTest {
         assertTrue(result.getErrMsg().contains("Component is not running"));
     }
 
+    @Test
+    public void testCheckProcessWhenProcessIsRunning(@TempDir Path tempDir) throws IOException {
+        Path pidFile = tempDir.resolve("test.pid");
+        Files.writeString(pidFile, ProcessHandle.current().pid() + "\n");
+
+        ShellResult result = LinuxOSUtils.checkProcess(pidFile.toString());
+
+        // Liveness is checked without running any command
+        assertEquals(0, result.getExitCode());
+        mockShellExecutor.verifyNoInteractions();
+    }
+
+    @Test
+    public void testCheckProcessWithStalePidFile(@TempDir Path tempDir) throws IOException {
+        Path pidFile = tempDir.resolve("test.pid");
+        Files.writeString(pidFile, String.valueOf(Integer.MAX_VALUE));
+
+        ShellResult result = LinuxOSUtils.checkProcess(pidFile.toString());
+
+        assertEquals(-1, result.getExitCode());
+        assertTrue(result.getErrMsg().contains("Component is not running"));
+        mockShellExecutor.verifyNoInteractions();
+    }
+
+    @Test
+    public void testReadPid(@TempDir Path tempDir) throws IOException {
+        Path pidFile = tempDir.resolve("test.pid");
+        Files.writeString(pidFile, "12345\n");
+        assertEquals(12345L, LinuxOSUtils.readPid(pidFile.toString()));
+
+        Files.writeString(pidFile, "not a pid");
+        assertNull(LinuxOSUtils.readPid(pidFile.toString()));
+        assertNull(LinuxOSUtils.readPid(tempDir.resolve("missing.pid").toString()));
+    }
+
     @Test
     public void testExecCmd() throws IOException {
         String command = "echo Hello";
@@ -93,8 +93,13 @@ public class DorisBEScript extends AbstractServerScript {
 
     @Override
     public ShellResult status(Params params) {
+        return LinuxOSUtils.checkProcess(getPidFile(params));
+    }
+
+    @Override
+    public String getPidFile(Params params) {
         DorisParams dorisParams = (DorisParams) params;
-        return LinuxOSUtils.checkProcess(dorisParams.dorisBePidFile());
+        return dorisParams.dorisBePidFile();
     }
 
     @Override
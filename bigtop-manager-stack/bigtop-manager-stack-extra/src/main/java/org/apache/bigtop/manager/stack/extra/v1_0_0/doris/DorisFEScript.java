@@ -113,8 +113,13 @@ public class DorisFEScript extends AbstractServerScript {
 
     @Override
     public ShellResult status(Params params) {
+        return LinuxOSUtils.checkProcess(getPidFile(params));
+    }
+
+    @Override
+    public String getPidFile(Params params) {
         DorisParams dorisParams = (DorisParams) params;
-        return LinuxOSUtils.checkProcess(dorisParams.dorisFePidFile());
+        return dorisParams.dorisFePidFile();
     }
 
     @Override
@@ -132,8 +132,13 @@ public class MySQLServerScript extends AbstractServerScript {
 
     @Override
     public ShellResult status(Params params) {
+        return LinuxOSUtils.checkProcess(getPidFile(params));
+    }
+
+    @Override
+    public String getPidFile(Params params) {
         MySQLParams mysqlParams = (MySQLParams) params;
-        return LinuxOSUtils.checkProcess(mysqlParams.getMysqlPidDir() + "/mysqld.pid");
+        return mysqlParams.getMysqlPidDir() + "/mysqld.pid";
     }
 
     private String getStartCommand(Params params) {